@@ -256,6 +256,12 @@ public class Main {
 	private static final String KEY_CONFIGINI_TIMESTAMP = "configIniTimestamp"; //$NON-NLS-1$
 	private static final String PROP_IGNORE_USER_CONFIGURATION = "eclipse.ignoreUserConfiguration"; //$NON-NLS-1$
 
+	//for remembering searchFor results between launches, keyed by the timestamp of the searched directory
+	private static final String PROP_SEARCH_CACHE = "eclipse.launcher.searchCache"; //$NON-NLS-1$
+	private static final String SEARCH_CACHE_FILE = ".searchCache"; //$NON-NLS-1$
+	private Properties searchCache = null;
+	private final Properties usedSearchEntries = new Properties();
+
 	/**
 	 * A structured form for a version identifier.
 	 * 
@@ -585,6 +591,7 @@ public class Main {
 		// splash handling is done here, because the default case needs to know
 		// the location of the boot plugin we are going to use
 		handleSplash(bootPath);
+		saveSearchCache();
 
 		beforeFwkInvocation();
 		invokeFramework(passThruArgs, bootPath);
@@ -1041,22 +1048,141 @@ public class Main {
 	protected String searchFor(final String target, final String targetSuffix, String start) {
 		File root = resolveFile(new File(start));
 
+		// a directory's timestamp changes whenever an entry is added, removed or renamed,
+		// so a result remembered for the same timestamp is still the result of a new search.
+		// Some file systems do not update the timestamp reliably; a remembered result is only
+		// used if it still names a matching candidate, otherwise the directory is searched again
+		Properties cache = new File(start).isAbsolute() ? getSearchCache() : null;
+		String cacheKey = null;
+		String timestamp = null;
+		if (cache != null) {
+			long lastModified = root.lastModified();
+			if (lastModified != 0) {
+				cacheKey = root.getAbsolutePath() + '|' + target;
+				timestamp = Long.toString(lastModified);
+				String cached = cache.getProperty(cacheKey);
+				if (cached != null && cached.startsWith(timestamp + ',')) {
+					String path = cached.substring(timestamp.length() + 1);
+					if (isCachedCandidate(target, path, root)) {
+						usedSearchEntries.setProperty(cacheKey, cached);
+						return path;
+					}
+				}
+			}
+		}
+
+		String path = null;
 		// Note that File.list only gives you file names not the complete path from start
 		String[] candidates = root.list();
-		if (candidates == null)
+		if (candidates != null) {
+			ArrayList<String> matches = new ArrayList<String>(2);
+			for (int i = 0; i < candidates.length; i++) {
+				if (isMatchingCandidate(target, candidates[i], root))
+					matches.add(candidates[i]);
+			}
+			String[] names = matches.toArray(new String[matches.size()]);
+			int result = findMax(target, names);
+			if (result != -1) {
+				File candidate = new File(start, names[result]);
+				path = candidate.getAbsolutePath().replace(File.separatorChar, '/') + (candidate.isDirectory() ? "/" : ""); //$NON-NLS-1$//$NON-NLS-2$
+			}
+		}
+		// a search without a result is not remembered; it cannot be checked without searching again
+		if (cacheKey != null && path != null)
+			usedSearchEntries.setProperty(cacheKey, timestamp + ',' + path);
+		return path;
+	}
+
+	/*
+	 * Returns true if the remembered search result still exists and is a matching candidate.
+	 */
+	private boolean isCachedCandidate(String target, String path, File root) {
+		if (path.length() == 0)
+			return false;
+		File candidate = new File(path);
+		if (!candidate.exists() || (path.endsWith("/") != candidate.isDirectory())) //$NON-NLS-1$
+			return false;
+		return isMatchingCandidate(target, candidate.getName(), root);
+	}
+
+	private File getSearchCacheFile() {
+		String configLocation = System.getProperty(PROP_CONFIG_AREA);
+		if (configLocation == null)
 			return null;
+		URL configURL = buildURL(configLocation, false);
+		if (configURL == null || !"file".equals(configURL.getProtocol())) //$NON-NLS-1$
+			return null;
+		return new File(new File(configURL.getPath(), PLUGIN_ID), SEARCH_CACHE_FILE);
+	}
 
-		ArrayList<String> matches = new ArrayList<String>(2);
-		for (int i = 0; i < candidates.length; i++) {
-			if (isMatchingCandidate(target, candidates[i], root))
-				matches.add(candidates[i]);
-		}
-		String[] names = matches.toArray(new String[matches.size()]);
-		int result = findMax(target, names);
-		if (result == -1)
+	private Properties getSearchCache() {
+		if (searchCache != null)
+			return searchCache;
+		if (!Boolean.valueOf(System.getProperty(PROP_SEARCH_CACHE)).booleanValue())
+			return null;
+		File cacheFile = getSearchCacheFile();
+		if (cacheFile == null)
 			return null;
-		File candidate = new File(start, names[result]);
-		return candidate.getAbsolutePath().replace(File.separatorChar, '/') + (candidate.isDirectory() ? "/" : ""); //$NON-NLS-1$//$NON-NLS-2$
+		searchCache = new Properties();
+		for (int i = 0; commands != null && i < commands.length; i++) {
+			// start from an empty cache when running with -clean
+			if (CLEAN.equalsIgnoreCase(commands[i]))
+				return searchCache;
+		}
+		if (cacheFile.exists()) {
+			try {
+				InputStream input = new FileInputStream(cacheFile);
+				try {
+					searchCache.load(input);
+				} finally {
+					input.close();
+				}
+			} catch (IOException e) {
+				searchCache.clear();
+				if (debug)
+					System.out.println("Could not read the search cache: " + cacheFile); //$NON-NLS-1$
+			}
+		}
+		return searchCache;
+	}
+
+	/**
+	 * Saves the results of {@link #searchFor(String, String, String)} used by this launch
+	 * if the search cache is enabled and the results changed.
+	 */
+	protected void saveSearchCache() {
+		// only the entries used by this launch are kept, so stale entries do not accumulate
+		if (searchCache == null || searchCache.equals(usedSearchEntries))
+			return;
+		File cacheFile = getSearchCacheFile();
+		if (cacheFile == null)
+			return;
+		File tempFile = null;
+		try {
+			cacheFile.getParentFile().mkdirs();
+			// write a temporary file first so a failed write never leaves a partial cache behind
+			tempFile = File.createTempFile(SEARCH_CACHE_FILE, ".tmp", cacheFile.getParentFile()); //$NON-NLS-1$
+			OutputStream output = new FileOutputStream(tempFile);
+			try {
+				usedSearchEntries.store(output, null);
+			} finally {
+				output.close();
+			}
+			if (!tempFile.renameTo(cacheFile)) {
+				// some platforms cannot rename over an existing file
+				cacheFile.delete();
+				if (!tempFile.renameTo(cacheFile))
+					throw new IOException("Could not rename " + tempFile); //$NON-NLS-1$
+			}
+			tempFile = null;
+		} catch (IOException e) {
+			// the configuration area may be read-only; the cache is simply not updated
+			if (debug)
+				System.out.println("Could not write the search cache: " + cacheFile); //$NON-NLS-1$
+		} finally {
+			if (tempFile != null)
+				tempFile.delete();
+		}
 	}
 
 	private boolean isMatchingCandidate(String target, String candidate, File root) {
@@ -2276,6 +2402,7 @@ public class Main {
 			locale = Locale.getDefault().toString();
 		String[] nlVariants = buildNLVariants(locale);
 
+		// the locale variants are probed directly; they are not remembered in the search cache
 		for (int i = 0; i < nlVariants.length; i++) {
 			for (int j = 0; j < searchPath.length; j++) {
 				String path = searchPath[j];
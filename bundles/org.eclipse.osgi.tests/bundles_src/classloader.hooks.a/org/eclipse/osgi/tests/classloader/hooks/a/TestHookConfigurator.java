@@ -18,6 +18,7 @@ import org.eclipse.osgi.storage.bundlefile.BundleEntry;
 public class TestHookConfigurator implements HookConfigurator {
 	private static final String REJECT_PROP = "classloader.hooks.a.reject";
 	private static final String BAD_TRANSFORM_PROP = "classloader.hooks.a.bad.transform";
+	private static final String RECORDED_CLASS_PROP = "classloader.hooks.a.recorded.class";
 
 	public void addHooks(HookRegistry hookRegistry) {
 		hookRegistry.addClassLoaderHook(new ClassLoaderHook() {
@@ -36,5 +37,14 @@ public class TestHookConfigurator implements HookConfigurator {
 			}
 
 		});
+		hookRegistry.addEventRecorderHook(new EventRecorderHook() {
+
+			@Override
+			public void classDefined(long bundleId, String className, boolean defined, long durationNanos) {
+				if (defined && durationNanos >= 0) {
+					System.setProperty(RECORDED_CLASS_PROP, className);
+				}
+			}
+		});
 	}
 }
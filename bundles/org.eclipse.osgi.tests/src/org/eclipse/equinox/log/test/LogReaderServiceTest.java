@@ -11,6 +11,7 @@ package org.eclipse.equinox.log.test;
 import java.io.File;
 import java.util.*;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.internal.log.ExtendedLogReaderServiceImpl;
 import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.eclipse.osgi.tests.bundles.AbstractBundleTests;
@@ -210,6 +211,46 @@ public class LogReaderServiceTest extends AbstractBundleTests {
 		}
 	}
 
+	public void testLogHistoryFiltered() throws BundleException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_HISTORY_MAX, "10");
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+
+		try {
+			LogService testLog = equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogService.class));
+			ExtendedLogReaderServiceImpl testReader = (ExtendedLogReaderServiceImpl) equinox.getBundleContext().getService(equinox.getBundleContext().getServiceReference(LogReaderService.class));
+			// log 18 things alternating between errors and warnings
+			for (int i = 0; i < 18; i++) {
+				testLog.log(i % 2 == 0 ? LogService.LOG_ERROR : LogService.LOG_WARNING, String.valueOf(i));
+			}
+			// should only be the errors of the last 10 logs (8 - 17)
+			Enumeration<LogEntry> errors = testReader.getLog(null, null, LogService.LOG_ERROR);
+			for (int i = 8; i < 18; i += 2) {
+				assertTrue("Missing log.", errors.hasMoreElements());
+				assertEquals("Wrong log message.", String.valueOf(i), errors.nextElement().getMessage());
+			}
+			assertFalse("Unexpected log.", errors.hasMoreElements());
+			assertEquals("Wrong number of logs.", 10, countLogEntries(testReader.getLog(null, null, LogService.LOG_WARNING), 8));
+			assertEquals("Wrong number of logs.", 10, countLogEntries(testReader.getLog(equinox.getBundleContext().getBundle(), null, LogService.LOG_DEBUG), 8));
+			assertEquals("Wrong number of logs.", 0, countLogEntries(testReader.getLog(OSGiTestsActivator.getContext().getBundle(), null, LogService.LOG_DEBUG), 0));
+			// the errors are gone once 10 more entries of another level are logged
+			for (int i = 18; i < 28; i++) {
+				testLog.log(LogService.LOG_INFO, String.valueOf(i));
+			}
+			assertEquals("Wrong number of logs.", 0, countLogEntries(testReader.getLog(null, null, LogService.LOG_WARNING), 0));
+			assertEquals("Wrong number of logs.", 10, countLogEntries(testReader.getLog(null, null, LogService.LOG_INFO), 18));
+		} finally {
+			try {
+				equinox.stop();
+			} catch (BundleException e) {
+				// ignore
+			}
+		}
+	}
+
 	private int countLogEntries(Enumeration logEntries, int startingMessage) {
 		int count = 0;
 		while (logEntries.hasMoreElements()) {
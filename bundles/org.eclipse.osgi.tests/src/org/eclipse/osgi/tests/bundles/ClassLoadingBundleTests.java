@@ -1673,6 +1673,29 @@ public class ClassLoadingBundleTests extends AbstractBundleTests {
 		}
 	}
 
+	public void testBuddyClassLoadingDependentRemoved() throws Exception {
+		Bundle dependentA = installer.installBundle("buddy.dependent.a"); //$NON-NLS-1$
+		Bundle dependentATest1 = installer.installBundle("buddy.dependent.a.test1"); //$NON-NLS-1$
+		installer.resolveBundles(new Bundle[] {dependentA, dependentATest1});
+
+		Class testClass = dependentA.loadClass("buddy.dependent.a.test1.ATest"); //$NON-NLS-1$
+		assertNotNull("testClass", testClass); //$NON-NLS-1$
+		// loading again must answer the same class
+		assertSame("Wrong class", testClass, dependentA.loadClass("buddy.dependent.a.test1.ATest")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNotNull("test1.txt", dependentA.getResource("resources/test1.txt")); //$NON-NLS-1$ //$NON-NLS-2$
+
+		// the buddy results found before must be discarded once the dependent is gone
+		installer.uninstallBundle("buddy.dependent.a.test1"); //$NON-NLS-1$
+		installer.refreshPackages(new Bundle[] {dependentATest1});
+		try {
+			dependentA.loadClass("buddy.dependent.a.test1.ATest"); //$NON-NLS-1$
+			fail("expected ClassNotFoundException"); //$NON-NLS-1$
+		} catch (ClassNotFoundException e) {
+			// expected
+		}
+		assertNull("test1.txt", dependentA.getResource("resources/test1.txt")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
 	public void testBuddyClassLoadingInvalid() throws Exception {
 		Bundle invalidA = installer.installBundle("buddy.invalid.a"); //$NON-NLS-1$
 		installer.resolveBundles(new Bundle[] {invalidA});
@@ -2259,4 +2282,59 @@ public class ClassLoadingBundleTests extends AbstractBundleTests {
 		actualFrameworkEvents = frameworkListenerResults.getResults(1);
 		compareResults(expectedFrameworkEvents, actualFrameworkEvents);
 	}
+
+	public void testFindEntriesFragments() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, String> hostHeaders = new HashMap<String, String>();
+		hostHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		hostHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".host");
+		Map<String, String> hostEntries = new LinkedHashMap<String, String>();
+		hostEntries.put("a.xml", "host");
+		hostEntries.put("dir/b.xml", "host");
+		hostEntries.put("dir/c.txt", "host");
+		hostEntries.put("dir/sub/d.xml", "host");
+		Map<String, String> fragHeaders = new HashMap<String, String>();
+		fragHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		fragHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".frag");
+		fragHeaders.put(Constants.FRAGMENT_HOST, getName() + ".host");
+		Map<String, String> fragEntries = new LinkedHashMap<String, String>();
+		fragEntries.put("dir/b.xml", "frag");
+		fragEntries.put("dir/e.xml", "frag");
+		File hostFile = SystemBundleTests.createBundle(config, getName() + ".host", hostHeaders, hostEntries);
+		File fragFile = SystemBundleTests.createBundle(config, getName() + ".frag", fragHeaders, fragEntries);
+		Bundle host = getContext().installBundle(getName() + ".host", new FileInputStream(hostFile));
+		Bundle frag = getContext().installBundle(getName() + ".frag", new FileInputStream(fragFile));
+		try {
+			assertTrue("Did not resolve the bundles.", getContext().getBundle(0).adapt(FrameworkWiring.class).resolveBundles(Arrays.asList(host, frag)));
+			Enumeration<URL> entries = host.findEntries("/", "*.xml", true);
+			assertNotNull("No entries found.", entries);
+			List<String> paths = new ArrayList<String>();
+			List<String> contents = new ArrayList<String>();
+			while (entries.hasMoreElements()) {
+				URL entry = entries.nextElement();
+				paths.add(entry.getPath());
+				if (entry.getPath().equals("/dir/b.xml")) {
+					BufferedReader reader = new BufferedReader(new InputStreamReader(entry.openStream()));
+					try {
+						contents.add(reader.readLine());
+					} finally {
+						reader.close();
+					}
+				}
+			}
+			// an entry is found in the host and each fragment containing it
+			assertEquals("Wrong entries.", Arrays.asList("/a.xml", "/dir/b.xml", "/dir/b.xml", "/dir/sub/d.xml", "/dir/e.xml"), paths);
+			assertEquals("Wrong content for the entries.", Arrays.asList("host", "frag"), contents);
+			assertNull("Found entries.", host.findEntries("dir", "*.class", true));
+			assertEquals("Wrong entries.", 1, Collections.list(host.findEntries("dir", "e.xml", false)).size());
+
+			BundleWiring wiring = host.adapt(BundleWiring.class);
+			Collection<String> resources = wiring.listResources("/", "*.xml", BundleWiring.LISTRESOURCES_RECURSE | BundleWiring.LISTRESOURCES_LOCAL);
+			assertEquals("Wrong resources.", new HashSet<String>(Arrays.asList("a.xml", "dir/b.xml", "dir/sub/d.xml", "dir/e.xml")), new HashSet<String>(resources));
+		} finally {
+			frag.uninstall();
+			host.uninstall();
+		}
+	}
 }
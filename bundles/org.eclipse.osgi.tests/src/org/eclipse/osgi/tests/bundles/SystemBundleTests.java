@@ -12,21 +12,37 @@ package org.eclipse.osgi.tests.bundles;
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
 import java.security.Permission;
 import java.security.PrivilegedAction;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 import javax.net.SocketFactory;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
+import org.eclipse.osgi.container.ModuleRevision;
+import org.eclipse.osgi.framework.eventmgr.*;
+import org.eclipse.osgi.framework.log.FrameworkLog;
+import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.internal.loader.ModuleClassLoader;
 import org.eclipse.osgi.internal.location.EquinoxLocations;
+import org.eclipse.osgi.internal.log.ExtendedLogReaderServiceFactory;
+import org.eclipse.osgi.internal.log.ExtendedLogReaderServiceImpl;
 import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
+import org.eclipse.osgi.storage.BundleInfo;
+import org.eclipse.osgi.storage.Storage;
+import org.eclipse.osgi.storage.bundlefile.BundleEntry;
+import org.eclipse.osgi.storage.bundlefile.BundleFile;
+import org.eclipse.osgi.storage.bundlefile.MappedZipBundleEntry;
+import org.eclipse.osgi.storage.bundlefile.MappedZipBundleFile;
 import org.eclipse.osgi.storage.url.reference.Handler;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
 import org.junit.Assert;
@@ -39,6 +55,7 @@ import org.osgi.framework.namespace.NativeNamespace;
 import org.osgi.framework.wiring.*;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
+import org.osgi.service.log.*;
 import org.osgi.service.packageadmin.ExportedPackage;
 import org.osgi.service.packageadmin.PackageAdmin;
 import org.osgi.service.startlevel.StartLevel;
@@ -2548,6 +2565,42 @@ public class SystemBundleTests extends AbstractBundleTests {
 		equinox.stop();
 	}
 
+	public void testBootDelegationPackages() throws BundleException, IOException, InterruptedException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName());
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(Constants.FRAMEWORK_BOOTDELEGATION, "javax.net, org.w3c.*"); //$NON-NLS-1$
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		BundleContext systemContext = equinox.getBundleContext();
+
+		File baseDir = new File(config, "bundles"); //$NON-NLS-1$
+		baseDir.mkdirs();
+		File bundleFile = createBundle(baseDir, getName(), true, true);
+		Bundle b = systemContext.installBundle("reference:file:///" + bundleFile.getAbsolutePath()); //$NON-NLS-1$
+		try {
+			// exact package match
+			b.loadClass(SocketFactory.class.getName());
+			// package stem match
+			b.loadClass("org.w3c.dom.Node"); //$NON-NLS-1$
+		} catch (ClassNotFoundException e) {
+			fail("Expected to be able to load the class from boot.", e); //$NON-NLS-1$
+		}
+		try {
+			b.loadClass("javax.net.ssl.SSLSocketFactory"); //$NON-NLS-1$
+			fail("Expected to fail to load the class from boot."); //$NON-NLS-1$
+		} catch (ClassNotFoundException e) {
+			// expected; sub packages of an exact package are not delegated
+		}
+		assertNotNull("Expected to find the resource from boot.", b.getResource("javax/net/SocketFactory.class")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNotNull("Expected to find the resource from boot.", b.getResource("/org/w3c/dom/Node.class")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertNull("Expected to not find the resource from boot.", b.getResource("javax/net/ssl/SSLSocketFactory.class")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertTrue("Expected to find java resources.", b.getResources("java/lang/Object.class").hasMoreElements()); //$NON-NLS-1$ //$NON-NLS-2$
+		equinox.stop();
+		equinox.waitForStop(5000);
+	}
+
 	public void testSystemBundleListener() throws BundleException, InterruptedException {
 		File config = OSGiTestsActivator.getContext().getDataFile(getName());
 		config.mkdirs();
@@ -2983,6 +3036,846 @@ public class SystemBundleTests extends AbstractBundleTests {
 		equinox.stop();
 	}
 
+	public void testClasspathIndex() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_CLASSPATH_INDEX, "true");
+
+		Map<String, String> testHeaders = new HashMap<String, String>();
+		testHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		testHeaders.put(Constants.BUNDLE_CLASSPATH, ".,lib/");
+		Map<String, String> testEntries = new HashMap<String, String>();
+		testEntries.put("lib/a/resource.txt", "a");
+		testEntries.put("lib/c/d/resource.txt", "c");
+		testEntries.put("b/resource.txt", "b");
+		File testBundle = createBundle(config, getName(), testHeaders, testEntries);
+
+		long bid = -1;
+		// check the index is built on the first launch and loaded from the cache on the second launch
+		for (int i = 0; i < 2; i++) {
+			Equinox equinox = new Equinox(configuration);
+			equinox.start();
+			BundleContext systemContext = equinox.getBundleContext();
+			Bundle b = bid == -1 ? systemContext.installBundle("reference:file:///" + testBundle.getAbsolutePath()) : systemContext.getBundle(bid); //$NON-NLS-1$
+			bid = b.getBundleId();
+
+			assertNotNull("Missing resource from lib/.", b.getResource("a/resource.txt"));
+			assertNotNull("Missing resource from lib/.", b.getResource("c/d/resource.txt"));
+			assertNotNull("Missing directory from lib/.", b.getResource("c/"));
+			assertNotNull("Missing resource from root.", b.getResource("b/resource.txt"));
+			assertNull("Unexpected resource found.", b.getResource("x/resource.txt"));
+			assertNull("Unexpected resource found.", b.getResource("lib/b/resource.txt"));
+			Enumeration<URL> resources = b.getResources("b/resource.txt");
+			assertNotNull("Missing resources.", resources);
+			resources.nextElement();
+			assertFalse("Unexpected resource.", resources.hasMoreElements());
+			ModuleClassLoader classLoader = (ModuleClassLoader) b.adapt(BundleWiring.class).getClassLoader();
+			assertTrue("The class path is not indexed.", classLoader.getClasspathManager().isIndexed());
+			if (i == 1) {
+				// the persisted index was built before lib/e was added; it must be rebuilt for the changed content
+				assertNotNull("The index was not rebuilt.", b.getResource("e/resource.txt"));
+			}
+
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+			if (i == 0) {
+				// add a directory without changing the last modified time of the bundle file or its generation
+				long lastModified = testBundle.lastModified();
+				testEntries.put("lib/e/resource.txt", "e");
+				testBundle = createBundle(config, getName(), testHeaders, testEntries);
+				assertTrue("Could not reset the last modified time.", testBundle.setLastModified(lastModified));
+			}
+		}
+	}
+
+	public void testLocalizedHeadersCache() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOCALIZED_HEADERS_CACHE, "true");
+
+		Map<String, String> testHeaders = new HashMap<String, String>();
+		testHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		testHeaders.put(Constants.BUNDLE_NAME, "%bundleName");
+		testHeaders.put(Constants.BUNDLE_VENDOR, "%bundleVendor");
+		Map<String, String> testEntries = new HashMap<String, String>();
+		testEntries.put("OSGI-INF/l10n/bundle.properties", "bundleName=Root Name\nbundleVendor=Root Vendor\n");
+		testEntries.put("OSGI-INF/l10n/bundle_de.properties", "bundleName=German Name\n");
+		File testBundle = createBundle(config, getName(), testHeaders, testEntries);
+
+		// a directory bundle with the same content
+		testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".dir");
+		File testDir = new File(config, getName() + ".dir");
+		File testDirManifest = new File(testDir, "META-INF/MANIFEST.MF");
+		testDirManifest.getParentFile().mkdirs();
+		Manifest m = new Manifest();
+		m.getMainAttributes().putValue("Manifest-Version", "1.0");
+		for (Map.Entry<String, String> header : testHeaders.entrySet()) {
+			m.getMainAttributes().putValue(header.getKey(), header.getValue());
+		}
+		OutputStream manifestOut = new FileOutputStream(testDirManifest);
+		try {
+			m.write(manifestOut);
+		} finally {
+			manifestOut.close();
+		}
+		File testDirProperties = new File(testDir, "OSGI-INF/l10n/bundle_de.properties");
+		testDirProperties.getParentFile().mkdirs();
+		writeFile(new File(testDir, "OSGI-INF/l10n/bundle.properties"), "bundleName=Root Name\nbundleVendor=Root Vendor\n");
+		writeFile(testDirProperties, "bundleName=German Name\n");
+
+		long bid = -1;
+		long dirBid = -1;
+		// the first launch localizes the headers, the second launch uses the persisted headers
+		// and the third launch must notice the changed localization files
+		String[] germanNames = {"German Name", "German Name", "Changed German Name"};
+		for (int i = 0; i < germanNames.length; i++) {
+			if (i == 2) {
+				long lastModified = testBundle.lastModified();
+				testEntries.put("OSGI-INF/l10n/bundle_de.properties", "bundleName=Changed German Name\n");
+				testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+				createBundle(config, getName(), testHeaders, testEntries);
+				// make sure the change is visible even with a coarse file time resolution
+				testBundle.setLastModified(lastModified + 2000);
+				writeFile(testDirProperties, "bundleName=Changed German Name\n");
+			}
+			Equinox equinox = new Equinox(configuration);
+			equinox.start();
+			try {
+				BundleContext systemContext = equinox.getBundleContext();
+				Bundle b = bid == -1 ? systemContext.installBundle("reference:file:///" + testBundle.getAbsolutePath()) : systemContext.getBundle(bid); //$NON-NLS-1$
+				bid = b.getBundleId();
+				Bundle dirBundle = dirBid == -1 ? systemContext.installBundle("reference:file:///" + testDir.getAbsolutePath()) : systemContext.getBundle(dirBid); //$NON-NLS-1$
+				dirBid = dirBundle.getBundleId();
+
+				for (Bundle bundle : new Bundle[] {b, dirBundle}) {
+					Dictionary<String, String> germanHeaders = bundle.getHeaders("de");
+					assertEquals("Wrong name.", germanNames[i], germanHeaders.get(Constants.BUNDLE_NAME));
+					assertEquals("Wrong vendor.", "Root Vendor", germanHeaders.get(Constants.BUNDLE_VENDOR));
+					assertEquals("Wrong symbolic name.", bundle.getSymbolicName(), germanHeaders.get(Constants.BUNDLE_SYMBOLICNAME));
+					Dictionary<String, String> rawHeaders = bundle.getHeaders("");
+					assertEquals("Wrong raw name.", "%bundleName", rawHeaders.get(Constants.BUNDLE_NAME));
+				}
+			} finally {
+				equinox.stop();
+				try {
+					equinox.waitForStop(10000);
+				} catch (InterruptedException e) {
+					fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	private static void writeFile(File file, String content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	public void testMappedBundleFile() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_MAPPED_BUNDLE_FILES, "true");
+
+		Map<String, String> testHeaders = new HashMap<String, String>();
+		testHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName());
+		testHeaders.put(Constants.BUNDLE_CLASSPATH, ".,lib/");
+		Map<String, String> testEntries = new HashMap<String, String>();
+		testEntries.put("lib/a/resource.txt", "a");
+		testEntries.put("b/resource.txt", "b");
+		testEntries.put("b/c/resource.txt", "c");
+		File testBundle = createBundle(config, getName(), testHeaders, testEntries);
+		File storedBundle = createStoredBundle(config, getName() + ".stored", 0);
+		// enough entries to require the ZIP64 format
+		File zip64Bundle = createStoredBundle(config, getName() + ".zip64", 0xffff);
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			Bundle b = equinox.getBundleContext().installBundle("reference:file:///" + testBundle.getAbsolutePath()); //$NON-NLS-1$
+			assertEquals("Wrong entry content.", "b", readURL(b.getEntry("b/resource.txt")));
+			assertEquals("Wrong entry content.", "c", readURL(b.getEntry("/b/c/resource.txt")));
+			assertNotNull("Missing directory entry.", b.getEntry("b/c/"));
+			assertNull("Unexpected entry found.", b.getEntry("b/x.txt"));
+			assertEquals("Wrong resource content.", "a", readURL(b.getResource("a/resource.txt")));
+			assertEquals("Wrong resource content.", "b", readURL(b.getResource("b/resource.txt")));
+
+			Set<String> paths = new HashSet<String>(Collections.list(b.getEntryPaths("b/")));
+			assertEquals("Wrong entry paths.", new HashSet<String>(Arrays.asList("b/resource.txt", "b/c/")), paths);
+			Enumeration<URL> found = b.findEntries("/", "resource.txt", true);
+			assertNotNull("No entries found.", found);
+			assertEquals("Wrong number of entries found.", 3, Collections.list(found).size());
+
+			// the entries must still be available after the bundle is updated
+			b.update(new FileInputStream(testBundle));
+			assertEquals("Wrong entry content.", "c", readURL(b.getEntry("b/c/resource.txt")));
+
+			Bundle stored = equinox.getBundleContext().installBundle("reference:file:///" + storedBundle.getAbsolutePath()); //$NON-NLS-1$
+			BundleFile bundleFile = getBundleFile(stored);
+			assertTrue("Wrong bundle file: " + bundleFile, bundleFile instanceof MappedZipBundleFile);
+			BundleEntry storedEntry = bundleFile.getEntry("s/stored.txt");
+			BundleEntry deflatedEntry = bundleFile.getEntry("d/deflated.txt");
+			assertTrue("Wrong entry: " + storedEntry, storedEntry instanceof MappedZipBundleEntry);
+			assertEquals("Wrong stored content.", "stored", new String(storedEntry.getBytes(), "UTF-8"));
+			assertEquals("Wrong deflated content.", "deflated", new String(deflatedEntry.getBytes(), "UTF-8"));
+			assertEquals("Wrong stored buffer.", ByteBuffer.wrap("stored".getBytes("UTF-8")), ((MappedZipBundleEntry) storedEntry).getByteBuffer());
+			assertEquals("Wrong deflated buffer.", ByteBuffer.wrap("deflated".getBytes("UTF-8")), ((MappedZipBundleEntry) deflatedEntry).getByteBuffer());
+
+			// streams and buffers obtained before the bundle file is closed must still be readable
+			ByteBuffer buffer = ((MappedZipBundleEntry) storedEntry).getByteBuffer();
+			assertTrue("Expected a view of the mapped bundle file.", buffer.isDirect() && buffer.isReadOnly());
+			InputStream storedIn = storedEntry.getInputStream();
+			InputStream deflatedIn = deflatedEntry.getInputStream();
+			bundleFile.close();
+			assertEquals("Wrong stored content after close.", "stored", readStream(storedIn));
+			assertEquals("Wrong deflated content after close.", "deflated", readStream(deflatedIn));
+			assertEquals("Wrong stored buffer after close.", ByteBuffer.wrap("stored".getBytes("UTF-8")), buffer);
+			try {
+				storedIn.read();
+				fail("Expected the stream to be closed.");
+			} catch (IOException e) {
+				// expected
+			}
+
+			// the content is mapped again after the bundle file is closed
+			assertEquals("Wrong stored content after reopen.", "stored", new String(bundleFile.getEntry("s/stored.txt").getBytes(), "UTF-8"));
+			bundleFile.open();
+			assertEquals("Wrong entry content after reopen.", "deflated", readURL(stored.getEntry("d/deflated.txt")));
+
+			// ZIP64 is not supported by the mapped bundle file; the zip file is used instead
+			Bundle zip64 = equinox.getBundleContext().installBundle("reference:file:///" + zip64Bundle.getAbsolutePath()); //$NON-NLS-1$
+			BundleEntry zip64Entry = getBundleFile(zip64).getEntry("s/stored.txt");
+			assertNotNull("Missing entry.", zip64Entry);
+			assertFalse("Wrong entry: " + zip64Entry, zip64Entry instanceof MappedZipBundleEntry);
+			assertEquals("Wrong entry content.", "stored", readURL(zip64.getEntry("s/stored.txt")));
+			assertNotNull("Missing entry.", zip64.getEntry("z/65534"));
+		} finally {
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+		// the mappings are released when the framework is stopped
+		assertTrue("Could not delete the bundle file.", storedBundle.delete());
+	}
+
+	private static BundleFile getBundleFile(Bundle b) {
+		return ((BundleInfo.Generation) ((ModuleRevision) b.adapt(BundleRevision.class)).getRevisionInfo()).getBundleFile();
+	}
+
+	private static File createStoredBundle(File outputDir, String bundleName, int extraEntries) throws IOException {
+		Manifest m = new Manifest();
+		m.getMainAttributes().putValue("Manifest-Version", "1.0");
+		m.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+		m.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, bundleName);
+		File file = new File(outputDir, bundleName + ".jar");
+		JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), m);
+		try {
+			byte[] content = "stored".getBytes("UTF-8");
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			JarEntry storedEntry = new JarEntry("s/stored.txt");
+			storedEntry.setMethod(ZipEntry.STORED);
+			storedEntry.setSize(content.length);
+			storedEntry.setCrc(crc.getValue());
+			jos.putNextEntry(storedEntry);
+			jos.write(content);
+			jos.closeEntry();
+			jos.putNextEntry(new JarEntry("d/deflated.txt"));
+			jos.write("deflated".getBytes("UTF-8"));
+			jos.closeEntry();
+			for (int i = 0; i < extraEntries; i++) {
+				jos.putNextEntry(new JarEntry("z/" + i));
+				jos.closeEntry();
+			}
+		} finally {
+			jos.close();
+		}
+		return file;
+	}
+
+	private static String readStream(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buf = new byte[64];
+			int n;
+			while ((n = in.read(buf)) != -1)
+				out.write(buf, 0, n);
+			return new String(out.toByteArray(), "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	public void testResolverWorkStealing() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_WORK_STEALING, "true");
+		configuration.put(EquinoxConfiguration.PROP_RESOLVER_REVISION_BATCH_SIZE, "5");
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			List<Bundle> bundles = new ArrayList<Bundle>();
+			for (int i = 0; i < 20; i++) {
+				Map<String, String> testHeaders = new HashMap<String, String>();
+				testHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+				testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + i);
+				testHeaders.put(Constants.EXPORT_PACKAGE, "test.pkg" + i + "; uses:=\"org.osgi.framework\"");
+				testHeaders.put(Constants.IMPORT_PACKAGE, i == 0 ? "org.osgi.framework" : "org.osgi.framework, test.pkg" + (i - 1));
+				File testBundle = createBundle(config, getName() + i, testHeaders);
+				bundles.add(systemContext.installBundle("reference:file:///" + testBundle.getAbsolutePath())); //$NON-NLS-1$
+			}
+			assertTrue("Bundles did not resolve.", equinox.adapt(FrameworkWiring.class).resolveBundles(bundles));
+			for (Bundle b : bundles) {
+				assertEquals("Wrong state: " + b, Bundle.RESOLVED, b.getState());
+			}
+		} finally {
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+	}
+
+	public void testMultiThreadedEventDispatch() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_EVENT_DISPATCH_THREAD_COUNT, "4");
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		final List<List<Long>> installed = new ArrayList<List<Long>>();
+		List<Long> expected = new ArrayList<Long>();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			for (int i = 0; i < 10; i++) {
+				final List<Long> ids = Collections.synchronizedList(new ArrayList<Long>());
+				installed.add(ids);
+				systemContext.addBundleListener(new BundleListener() {
+					@Override
+					public void bundleChanged(BundleEvent event) {
+						if (event.getType() == BundleEvent.INSTALLED) {
+							ids.add(event.getBundle().getBundleId());
+						}
+					}
+				});
+			}
+			for (int i = 0; i < 20; i++) {
+				Map<String, String> testHeaders = new HashMap<String, String>();
+				testHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+				testHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + i);
+				File testBundle = createBundle(config, getName() + i, testHeaders);
+				expected.add(systemContext.installBundle("reference:file:///" + testBundle.getAbsolutePath()).getBundleId()); //$NON-NLS-1$
+			}
+		} finally {
+			// stopping the framework delivers all queued events
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+		for (List<Long> ids : installed) {
+			assertEquals("Wrong events delivered.", expected, ids);
+		}
+	}
+
+
+	public void testEventManagerStatistics() throws InterruptedException {
+		for (int threadCount : new int[] {1, 4}) {
+			EventManager manager = new EventManager(getName(), null, threadCount, true);
+			try {
+				final CountDownLatch blocked = new CountDownLatch(1);
+				Object listener1 = new Object();
+				Object listener2 = new Object();
+				CopyOnWriteIdentityMap<Object, Object> listeners = new CopyOnWriteIdentityMap<Object, Object>();
+				listeners.put(listener1, listener1);
+				listeners.put(listener2, listener2);
+				EventDispatcher<Object, Object, Object> dispatcher = new EventDispatcher<Object, Object, Object>() {
+					@Override
+					public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, Object eventObject) {
+						try {
+							blocked.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				};
+				for (int i = 0; i < 5; i++) {
+					ListenerQueue<Object, Object, Object> queue = new ListenerQueue<Object, Object, Object>(manager);
+					queue.queueListeners(listeners.entrySet(), dispatcher);
+					queue.dispatchEventAsynchronous(0, Integer.valueOf(i));
+				}
+				assertTrue("No queued events: " + threadCount, manager.getQueueDepth() > 0);
+				blocked.countDown();
+				assertTrue("Events not delivered: " + threadCount, manager.flush(10000));
+				assertEquals("Wrong queue depth: " + threadCount, 0, manager.getQueueDepth());
+
+				Map<Object, EventManager.ListenerStatistics> statistics = manager.getListenerStatistics();
+				assertEquals("Wrong number of listeners: " + threadCount, 2, statistics.size());
+				for (Object listener : Arrays.asList(listener1, listener2)) {
+					EventManager.ListenerStatistics listenerStatistics = statistics.get(listener);
+					assertNotNull("No statistics: " + threadCount, listenerStatistics);
+					assertEquals("Wrong count: " + threadCount, 5, listenerStatistics.getCount());
+					assertTrue("Wrong max latency: " + threadCount, listenerStatistics.getMaxLatency() > 0);
+					assertTrue("Wrong total latency: " + threadCount, listenerStatistics.getTotalLatency() >= listenerStatistics.getMaxLatency());
+				}
+			} finally {
+				manager.close();
+			}
+		}
+
+		// a single thread does not keep statistics unless asked to
+		EventManager manager = new EventManager(getName(), null, 1);
+		try {
+			Object listener = new Object();
+			CopyOnWriteIdentityMap<Object, Object> listeners = new CopyOnWriteIdentityMap<Object, Object>();
+			listeners.put(listener, listener);
+			EventDispatcher<Object, Object, Object> dispatcher = new EventDispatcher<Object, Object, Object>() {
+				@Override
+				public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, Object eventObject) {
+					// nothing
+				}
+			};
+			ListenerQueue<Object, Object, Object> queue = new ListenerQueue<Object, Object, Object>(manager);
+			queue.queueListeners(listeners.entrySet(), dispatcher);
+			queue.dispatchEventAsynchronous(0, Integer.valueOf(0));
+			assertTrue("Events not delivered.", manager.flush(10000));
+			assertTrue("Unexpected statistics.", manager.getListenerStatistics().isEmpty());
+		} finally {
+			manager.close();
+		}
+	}
+
+	public void testConcurrentPackageSourceLookup() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+
+		final int numPackages = 10;
+		StringBuilder importPackages = new StringBuilder();
+		final String[] prefixes = new String[] {"imported", "required", "dynamic"};
+		List<File> exporters = new ArrayList<File>();
+		for (String prefix : prefixes) {
+			Map<String, String> entries = new HashMap<String, String>();
+			StringBuilder exportPackages = new StringBuilder();
+			for (int i = 0; i < numPackages; i++) {
+				String pkg = prefix + ".p" + i;
+				entries.put(prefix + "/p" + i + "/resource.txt", pkg);
+				exportPackages.append(i == 0 ? "" : ",").append(pkg);
+				if (prefix.equals("imported"))
+					importPackages.append(i == 0 ? "" : ",").append(pkg);
+			}
+			Map<String, String> headers = new HashMap<String, String>();
+			headers.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			headers.put(Constants.BUNDLE_SYMBOLICNAME, getName() + "." + prefix);
+			headers.put(Constants.EXPORT_PACKAGE, exportPackages.toString());
+			exporters.add(createBundle(config, getName() + "." + prefix, headers, entries));
+		}
+		Map<String, String> importerHeaders = new HashMap<String, String>();
+		importerHeaders.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		importerHeaders.put(Constants.BUNDLE_SYMBOLICNAME, getName() + ".importer");
+		importerHeaders.put(Constants.IMPORT_PACKAGE, importPackages.toString());
+		importerHeaders.put(Constants.REQUIRE_BUNDLE, getName() + ".required");
+		importerHeaders.put(Constants.DYNAMICIMPORT_PACKAGE, "dynamic.*");
+		File importerFile = createBundle(config, getName() + ".importer", importerHeaders);
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			for (File exporter : exporters) {
+				systemContext.installBundle("reference:file:///" + exporter.getAbsolutePath()); //$NON-NLS-1$
+			}
+			final Bundle importer = systemContext.installBundle("reference:file:///" + importerFile.getAbsolutePath()); //$NON-NLS-1$
+			importer.start();
+
+			final CountDownLatch start = new CountDownLatch(1);
+			final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int t = 0; t < 8; t++) {
+				final int offset = t;
+				Thread thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							for (int i = 0; i < numPackages * prefixes.length; i++) {
+								int n = (i + offset) % (numPackages * prefixes.length);
+								String pkg = prefixes[n % prefixes.length] + ".p" + (n / prefixes.length);
+								URL resource = importer.getResource(pkg.replace('.', '/') + "/resource.txt");
+								if (resource == null)
+									failures.add("Missing resource: " + pkg);
+								else if (!pkg.equals(readURL(resource)))
+									failures.add("Wrong resource: " + pkg);
+								if (importer.getResource("missing/p" + n + "/resource.txt") != null)
+									failures.add("Unexpected resource: missing.p" + n);
+							}
+						} catch (InterruptedException e) {
+							failures.add(e.toString());
+						}
+					}
+				}, getName() + t);
+				threads.add(thread);
+				thread.start();
+			}
+			start.countDown();
+			for (Thread thread : threads) {
+				thread.join(30000);
+			}
+			assertEquals("Unexpected failures.", Collections.emptyList(), failures);
+
+			// each dynamic import must be wired exactly once
+			Set<String> wiredPackages = new HashSet<String>();
+			for (BundleWire wire : importer.adapt(BundleWiring.class).getRequiredWires(BundleRevision.PACKAGE_NAMESPACE)) {
+				String pkg = (String) wire.getCapability().getAttributes().get(BundleRevision.PACKAGE_NAMESPACE);
+				assertTrue("Duplicate package wire: " + pkg, wiredPackages.add(pkg));
+			}
+			for (int i = 0; i < numPackages; i++) {
+				assertTrue("Missing package wire: dynamic.p" + i, wiredPackages.contains("dynamic.p" + i));
+				assertTrue("Missing package wire: imported.p" + i, wiredPackages.contains("imported.p" + i));
+			}
+		} finally {
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+	}
+	public void testSharedLogListenerExecutor() throws BundleException, InterruptedException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_THREAD_COUNT, "2");
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_BACKLOG_MAX, "10");
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		final int numEntries = 200;
+		final List<List<String>> delivered = new ArrayList<List<String>>();
+		List<String> expected = new ArrayList<String>();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			LogReaderService reader = systemContext.getService(systemContext.getServiceReference(LogReaderService.class));
+			LogService log = systemContext.getService(systemContext.getServiceReference(LogService.class));
+			final CountDownLatch done = new CountDownLatch(10);
+			for (int i = 0; i < 10; i++) {
+				final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+				delivered.add(messages);
+				reader.addLogListener(new LogListener() {
+					@Override
+					public void logged(LogEntry entry) {
+						if (entry.getMessage().startsWith(getName())) {
+							messages.add(entry.getMessage());
+							if (messages.size() == numEntries) {
+								done.countDown();
+							}
+						}
+					}
+				});
+			}
+			for (int i = 0; i < numEntries; i++) {
+				String message = getName() + i;
+				expected.add(message);
+				log.log(LogService.LOG_ERROR, message);
+			}
+			assertTrue("Timed out waiting for log entries.", done.await(30, TimeUnit.SECONDS));
+		} finally {
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+		// the default overflow policy blocks the logger so no entries are lost
+		for (List<String> messages : delivered) {
+			assertEquals("Wrong log entries delivered.", expected, messages);
+		}
+	}
+
+	public void testDroppedLogListenerEntries() throws BundleException, InterruptedException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_THREAD_COUNT, "1");
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_BACKLOG_MAX, "5");
+		configuration.put(EquinoxConfiguration.PROP_LOG_LISTENER_OVERFLOW, "drop");
+
+		ByteArrayOutputStream errors = new ByteArrayOutputStream();
+		ExtendedLogReaderServiceFactory.setErrorStream(new PrintStream(errors, true));
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			LogReaderService reader = systemContext.getService(systemContext.getServiceReference(LogReaderService.class));
+			LogService log = systemContext.getService(systemContext.getServiceReference(LogService.class));
+			final CountDownLatch blocked = new CountDownLatch(1);
+			final CountDownLatch release = new CountDownLatch(1);
+			LogListener listener = new LogListener() {
+				@Override
+				public void logged(LogEntry entry) {
+					blocked.countDown();
+					try {
+						release.await(30, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+
+				@Override
+				public String toString() {
+					return getName();
+				}
+			};
+			reader.addLogListener(listener);
+			log.log(LogService.LOG_ERROR, getName());
+			assertTrue("Timed out waiting for the listener.", blocked.await(30, TimeUnit.SECONDS));
+			// one entry is being delivered; five wait and at least the rest are dropped
+			for (int i = 0; i < 20; i++) {
+				log.log(LogService.LOG_ERROR, getName() + i);
+			}
+			assertEquals("Wrong backlog.", 5, ((ExtendedLogReaderServiceImpl) reader).getBacklog(listener));
+			release.countDown();
+			reader.removeLogListener(listener);
+		} finally {
+			ExtendedLogReaderServiceFactory.setErrorStream(null);
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+		String reported = errors.toString();
+		assertTrue("Missing dropped entries: " + reported, reported.startsWith("LogListener " + getName() + " dropped "));
+		// other framework entries may also have been dropped
+		long dropped = Long.parseLong(reported.substring(("LogListener " + getName() + " dropped ").length(), reported.indexOf(" log entries;")));
+		assertTrue("Too few dropped entries: " + reported, dropped >= 15);
+		assertTrue("Wrong peak backlog: " + reported, reported.contains("the peak backlog was 5 of 5 log entries."));
+	}
+
+	public void testAsynchronousLogWriter() throws BundleException, IOException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		File logFile = new File(config, getName() + ".log");
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EclipseStarter.PROP_LOGFILE, logFile.getAbsolutePath());
+		configuration.put("eclipse.log.async", "true");
+		configuration.put("eclipse.log.async.queue.max", "5");
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			FrameworkLog log = systemContext.getService(systemContext.getServiceReference(FrameworkLog.class));
+			for (int i = 0; i < 100; i++) {
+				log.log(new FrameworkLogEntry(getName(), FrameworkLogEntry.ERROR, 0, getName() + i, 0, null, null));
+			}
+		} finally {
+			// stopping the framework writes all queued entries
+			equinox.stop();
+			try {
+				equinox.waitForStop(10000);
+			} catch (InterruptedException e) {
+				fail("Unexpected interrupted exception", e); //$NON-NLS-1$
+			}
+		}
+		// errors are never dropped even though the queue is small
+		List<String> messages = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile), "UTF-8"));
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.startsWith("!MESSAGE " + getName())) {
+					messages.add(line.substring("!MESSAGE ".length()));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals("Wrong number of errors logged.", 100, messages.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals("Wrong error logged.", getName() + i, messages.get(i));
+		}
+	}
+
+	public void testStagedInstalls() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		File bundles = new File(config, "bundles");
+		bundles.mkdirs();
+		List<String> locations = new ArrayList<String>();
+		for (int i = 0; i < 8; i++) {
+			Map<String, String> headers = new HashMap<String, String>();
+			headers.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			headers.put(Constants.BUNDLE_SYMBOLICNAME, "staged" + i);
+			headers.put(Constants.BUNDLE_VERSION, "1.0." + i);
+			headers.put(Constants.EXPORT_PACKAGE, "staged" + i);
+			if (i == 3) {
+				// an invalid manifest must fail the same way
+				headers.remove(Constants.BUNDLE_SYMBOLICNAME);
+			}
+			locations.add(createBundle(bundles, "staged" + i, headers).toURI().toString());
+		}
+		List<String> serial = installBundles(new File(config, "serial"), locations, false);
+		List<String> staged = installBundles(new File(config, "staged"), locations, true);
+		assertEquals("Wrong staged installs.", serial, staged);
+
+		// only the stream returned for a staged location installs the staged content
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, new File(config, "other").getAbsolutePath());
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			ExecutorService executor = Executors.newFixedThreadPool(2);
+			Map<String, InputStream> streams;
+			try {
+				streams = getStorage(equinox).stageInstalls(Collections.singletonMap(locations.get(0), new URL(locations.get(0))), executor);
+			} finally {
+				executor.shutdown();
+			}
+			Bundle other = equinox.getBundleContext().installBundle(locations.get(0), new URL(locations.get(1)).openStream());
+			assertEquals("Wrong content installed.", "staged1", other.getSymbolicName());
+			streams.get(locations.get(0)).close();
+			getStorage(equinox).discardStagedInstalls();
+		} finally {
+			equinox.stop();
+			equinox.waitForStop(10000);
+		}
+	}
+
+	private static Storage getStorage(Equinox equinox) {
+		return ((BundleInfo.Generation) ((ModuleRevision) equinox.adapt(BundleRevision.class)).getRevisionInfo()).getBundleInfo().getStorage();
+	}
+
+	private List<String> installBundles(File config, List<String> locations, boolean stage) throws Exception {
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		try {
+			BundleContext systemContext = equinox.getBundleContext();
+			Map<String, InputStream> staged = Collections.emptyMap();
+			if (stage) {
+				Map<String, URL> contents = new LinkedHashMap<String, URL>();
+				for (String location : locations) {
+					contents.put(location, new URL(location));
+				}
+				ExecutorService executor = Executors.newFixedThreadPool(4);
+				try {
+					staged = getStorage(equinox).stageInstalls(contents, executor);
+				} finally {
+					executor.shutdown();
+				}
+			}
+			// describe each install result, including the failures
+			List<String> result = new ArrayList<String>();
+			for (String location : locations) {
+				try {
+					Bundle b = staged.containsKey(location) ? systemContext.installBundle(location, staged.get(location)) : systemContext.installBundle(location);
+					result.add(b.getBundleId() + " " + b.getLocation() + " " + b.getSymbolicName() + " " + b.getVersion() + " " + b.getState() + " " + new TreeMap<String, String>(asMap(b.getHeaders(""))));
+				} catch (BundleException e) {
+					result.add(location + " " + e.getType());
+				}
+			}
+			result.add(String.valueOf(systemContext.getBundles().length));
+			return result;
+		} finally {
+			equinox.stop();
+			equinox.waitForStop(10000);
+		}
+	}
+
+	private static Map<String, String> asMap(Dictionary<String, String> headers) {
+		Map<String, String> result = new HashMap<String, String>();
+		for (Enumeration<String> keys = headers.keys(); keys.hasMoreElements();) {
+			String key = keys.nextElement();
+			result.put(key, headers.get(key));
+		}
+		return result;
+	}
+
+	public void testAsynchronousLogWriterInterruptedStop() throws BundleException, IOException, InterruptedException, InvalidSyntaxException {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		File logFile = new File(config, getName() + ".log");
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put(EclipseStarter.PROP_LOGFILE, logFile.getAbsolutePath());
+		configuration.put("eclipse.log.async", "true");
+		configuration.put("eclipse.log.async.queue.max", "5");
+
+		Equinox equinox = new Equinox(configuration);
+		equinox.start();
+		final AtomicInteger interrupts = new AtomicInteger();
+		BundleContext systemContext = equinox.getBundleContext();
+		final FrameworkLog log = systemContext.getService(systemContext.getServiceReference(FrameworkLog.class));
+		systemContext.addServiceListener(new ServiceListener() {
+			@Override
+			public void serviceChanged(ServiceEvent event) {
+				if (event.getType() == ServiceEvent.UNREGISTERING) {
+					// the log writer is stopped by an interrupted thread right after this
+					if (interrupts.getAndIncrement() == 0) {
+						for (int i = 0; i < 100; i++) {
+							log.log(new FrameworkLogEntry(getName(), FrameworkLogEntry.ERROR, 0, getName() + i, 0, null, null));
+						}
+					}
+					Thread.currentThread().interrupt();
+				}
+			}
+		}, "(" + Constants.OBJECTCLASS + "=" + FrameworkLog.class.getName() + ")");
+		equinox.stop();
+		FrameworkEvent stopEvent = equinox.waitForStop(30000);
+		assertEquals("Framework did not stop.", FrameworkEvent.STOPPED, stopEvent.getType());
+		assertTrue("The stopping thread was not interrupted.", interrupts.get() > 0);
+
+		// the errors logged before the interrupted stop are all written
+		List<String> messages = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(logFile), "UTF-8"));
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.startsWith("!MESSAGE " + getName())) {
+					messages.add(line.substring("!MESSAGE ".length()));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		assertEquals("Wrong number of errors logged.", 100, messages.size());
+	}
+
 	public void testConfigPercentChar() throws BundleException, IOException {
 		doTestConfigSpecialChar('%');
 	}
@@ -3022,6 +3915,26 @@ public class SystemBundleTests extends AbstractBundleTests {
 
 	}
 
+	private String readURL(URL url) {
+		StringBuffer sb = new StringBuffer();
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()));
+			try {
+				for (String line = reader.readLine(); line != null;) {
+					sb.append(line);
+					line = reader.readLine();
+					if (line != null)
+						sb.append('\n');
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			fail("Unexpected exception reading url: " + url.toExternalForm(), e); //$NON-NLS-1$
+		}
+		return sb.toString();
+	}
+
 	void checkActiveThreadType(Equinox equinox, boolean expectIsDeamon) {
 		String uuid = equinox.getBundleContext().getProperty(Constants.FRAMEWORK_UUID);
 		ThreadGroup topGroup = Thread.currentThread().getThreadGroup();
@@ -233,6 +233,42 @@ public class TestModuleContainer extends AbstractTest {
 		Assert.assertNull("Unexpected resoltuion exception", report.getResolutionException());
 	}
 
+	@Test
+	public void testResolveAfterProviderChanges() throws BundleException, IOException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+
+		Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, container);
+		container.resolve(Arrays.asList(systemBundle), true);
+
+		Map<String, String> consumerManifest = new HashMap<String, String>();
+		consumerManifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		consumerManifest.put(Constants.BUNDLE_SYMBOLICNAME, "consumer");
+		consumerManifest.put(Constants.IMPORT_PACKAGE, "provider.a; version=\"[1.0,2.0)\"");
+		Module consumer = installDummyModule(consumerManifest, "consumer", container);
+
+		ResolutionReport report = container.resolve(Arrays.asList(consumer), true);
+		Assert.assertNotNull("Expected a resolution exception", report.getResolutionException());
+
+		Map<String, String> providerManifest = new HashMap<String, String>();
+		providerManifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		providerManifest.put(Constants.BUNDLE_SYMBOLICNAME, "provider");
+		providerManifest.put(Constants.EXPORT_PACKAGE, "provider.a; version=1.0");
+		Module provider = installDummyModule(providerManifest, "provider", container);
+
+		// the new provider must be found
+		report = container.resolve(Arrays.asList(consumer), true);
+		Assert.assertNull("Unexpected resolution exception", report.getResolutionException());
+
+		container.uninstall(provider);
+		container.refresh(Arrays.asList(provider));
+		Assert.assertEquals("Wrong state for consumer.", State.INSTALLED, consumer.getState());
+
+		// the removed provider must not be found
+		report = container.resolve(Arrays.asList(consumer), true);
+		Assert.assertNotNull("Expected a resolution exception", report.getResolutionException());
+	}
+
 	@Test
 	public void testMultiHost() throws BundleException, IOException {
 		DummyContainerAdaptor adaptor = createDummyAdaptor();
@@ -2589,6 +2625,67 @@ public class TestModuleContainer extends AbstractTest {
 		}
 	}
 
+	@Test
+	public void testParallelStartLevel() throws BundleException, IOException, InterruptedException {
+		DummyContainerAdaptor adaptor = createDummyAdaptor();
+		ModuleContainer container = adaptor.getContainer();
+		DummyModuleDatabase database = adaptor.getDatabase();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		adaptor.setStartLevelExecutor(executor);
+
+		// install the system.bundle
+		Module systemBundle = installDummyModule("system.bundle.MF", Constants.SYSTEM_BUNDLE_LOCATION, Constants.SYSTEM_BUNDLE_SYMBOLICNAME, null, null, container);
+		ResolutionReport report = container.resolve(Arrays.asList(systemBundle), true);
+		Assert.assertNull("Failed to resolve system.bundle.", report.getResolutionException());
+		systemBundle.start();
+
+		// install a provider and a bunch of modules that depend on it, all in the same start level
+		Map<String, String> manifest = new HashMap<String, String>();
+		manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+		manifest.put(Constants.BUNDLE_SYMBOLICNAME, "provider");
+		manifest.put(Constants.EXPORT_PACKAGE, "provider");
+		Module provider = installDummyModule(manifest, manifest.get(Constants.BUNDLE_SYMBOLICNAME), container);
+		List<Module> modules = new ArrayList<Module>();
+		for (int i = 0; i < 10; i++) {
+			manifest.clear();
+			manifest.put(Constants.BUNDLE_MANIFESTVERSION, "2");
+			manifest.put(Constants.BUNDLE_SYMBOLICNAME, "module." + i);
+			manifest.put(Constants.IMPORT_PACKAGE, "provider");
+			modules.add(installDummyModule(manifest, manifest.get(Constants.BUNDLE_SYMBOLICNAME), container));
+		}
+		modules.add(provider);
+		for (Module module : modules) {
+			module.setStartLevel(2);
+			module.start();
+		}
+		database.getModuleEvents();
+		database.getContainerEvents();
+
+		try {
+			container.getFrameworkStartLevel().setStartLevel(2);
+			List<DummyContainerEvent> containerEvents = database.getContainerEvents(1);
+			Assert.assertEquals("Wrong container events.", Arrays.asList(new DummyContainerEvent(ContainerEvent.START_LEVEL, systemBundle, null)), containerEvents);
+			// the start level event must only be fired once all modules of the level are activated
+			for (Module module : modules) {
+				Assert.assertEquals("Wrong state: " + module, State.ACTIVE, module.getState());
+			}
+			// the provider must be activated before the modules that depend on it
+			List<DummyModuleEvent> moduleEvents = database.getModuleEvents();
+			int providerStarted = moduleEvents.indexOf(new DummyModuleEvent(provider, ModuleEvent.STARTED, State.ACTIVE));
+			Assert.assertTrue("Provider was not started.", providerStarted >= 0);
+			for (Module module : modules) {
+				if (module != provider) {
+					int moduleStarting = moduleEvents.indexOf(new DummyModuleEvent(module, ModuleEvent.STARTING, State.STARTING));
+					Assert.assertTrue("Module started before its provider: " + module, moduleStarting > providerStarted);
+				}
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(5, TimeUnit.MINUTES);
+			systemBundle.stop();
+		}
+	}
+
 	@Test
 	public void testSystemBundleOnDemandFragments() throws BundleException, IOException {
 		DummyContainerAdaptor adaptor = createDummyAdaptor();
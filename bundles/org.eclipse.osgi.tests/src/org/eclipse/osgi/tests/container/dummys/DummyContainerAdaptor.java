@@ -31,6 +31,7 @@ public class DummyContainerAdaptor extends ModuleContainerAdaptor {
 	private final ResolverHookFactory resolverHookFactory;
 	private final DebugOptions debugOptions;
 	private volatile Executor resolverExecutor;
+	private volatile Executor startLevelExecutor;
 
 	public DummyContainerAdaptor(ModuleCollisionHook collisionHook, Map<String, String> configuration) {
 		this(collisionHook, configuration, new DummyResolverHookFactory());
@@ -123,4 +124,13 @@ public class DummyContainerAdaptor extends ModuleContainerAdaptor {
 		return super.getResolverExecutor();
 	}
 
+	public void setStartLevelExecutor(Executor executor) {
+		this.startLevelExecutor = executor;
+	}
+
+	@Override
+	public Executor getStartLevelExecutor() {
+		return this.startLevelExecutor;
+	}
+
 }
@@ -343,6 +343,62 @@ public abstract class FilterTests extends TestCase {
 		assertFalse("does match filter", f1.match(new DictionaryServiceReference(hash)));
 	}
 
+	public void testMixedValueTypes() {
+		Filter f1 = null;
+		try {
+			f1 = createFilter("(value>=10)");
+		} catch (InvalidSyntaxException e) {
+			fail("invalid syntax", e);
+		}
+		// the same filter must convert its operand for each value type it is compared with
+		Hashtable hash = new Hashtable();
+		for (int i = 0; i < 2; i++) {
+			hash.put("value", new Integer(20));
+			assertTrue("does not match filter", f1.match(hash));
+			hash.put("value", new Long(5));
+			assertFalse("does match filter", f1.match(hash));
+			hash.put("value", new Short((short) 10));
+			assertTrue("does not match filter", f1.match(hash));
+			hash.put("value", new Byte((byte) 9));
+			assertFalse("does match filter", f1.match(hash));
+			hash.put("value", new Double(10.5));
+			assertTrue("does not match filter", f1.match(hash));
+			hash.put("value", new Float(9.5));
+			assertFalse("does match filter", f1.match(hash));
+			hash.put("value", "09");
+			assertFalse("does match filter", f1.match(hash));
+			hash.put("value", new Version("10.1"));
+			assertTrue("does not match filter", f1.match(hash));
+			hash.put("value", new SampleComparable("11"));
+			assertTrue("does not match filter", f1.match(hash));
+			hash.put("value", new SampleComparable("9"));
+			assertFalse("does match filter", f1.match(hash));
+			// the attribute is looked up in a case insensitive manner
+			hash.remove("value");
+			hash.put("VALUE", new Integer(20));
+			assertTrue("does not match filter", f1.match(hash));
+			assertTrue("does not match filter", f1.match(new DictionaryServiceReference(hash)));
+			hash.remove("VALUE");
+		}
+
+		try {
+			f1 = createFilter("(value=abc)");
+		} catch (InvalidSyntaxException e) {
+			fail("invalid syntax", e);
+		}
+		// an operand that cannot be converted never matches
+		for (int i = 0; i < 2; i++) {
+			hash.put("value", new Integer(20));
+			assertFalse("does match filter", f1.match(hash));
+			hash.put("value", new Version("1.0"));
+			assertFalse("does match filter", f1.match(hash));
+			hash.put("value", "abc");
+			assertTrue("does not match filter", f1.match(hash));
+			hash.put("value", new Character('a'));
+			assertTrue("does not match filter", f1.match(hash));
+		}
+	}
+
 	public static class SampleComparable implements Comparable {
 		private int value = -1;
 
@@ -32,6 +32,7 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 	private static final String HOOK_CONFIGURATOR_CLASS = "org.eclipse.osgi.tests.classloader.hooks.a.TestHookConfigurator";
 	private static final String REJECT_PROP = "classloader.hooks.a.reject";
 	private static final String BAD_TRANSFORM_PROP = "classloader.hooks.a.bad.transform";
+	private static final String RECORDED_CLASS_PROP = "classloader.hooks.a.recorded.class";
 
 	private Map<String, String> configuration;
 	private Framework framework;
@@ -41,6 +42,7 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 		super.setUp();
 		setRejectTransformation(false);
 		setBadTransform(false);
+		System.getProperties().remove(RECORDED_CLASS_PROP);
 		String loc = bundleInstaller.getBundleLocation(HOOK_CONFIGURATOR_BUNDLE);
 		loc = loc.substring(loc.indexOf("file:"));
 		classLoader.addURL(new URL(loc));
@@ -120,6 +122,13 @@ public class ClassLoaderHookTests extends AbstractFrameworkHookTests {
 		}
 	}
 
+	public void testEventRecorderHook() throws Exception {
+		initAndStartFramework();
+		Bundle b = installBundle();
+		b.loadClass(TEST_CLASSNAME);
+		assertEquals("Wrong class recorded.", TEST_CLASSNAME, System.getProperty(RECORDED_CLASS_PROP));
+	}
+
 	private void refreshBundles(Collection<Bundle> bundles) throws InterruptedException {
 		final CountDownLatch refreshSignal = new CountDownLatch(1);
 		framework.adapt(FrameworkWiring.class).refreshBundles(bundles, new FrameworkListener() {
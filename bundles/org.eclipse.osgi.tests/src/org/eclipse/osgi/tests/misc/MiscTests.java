@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.misc;
 
+import java.io.File;
 import junit.framework.*;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.equinox.launcher.Main;
 import org.eclipse.osgi.container.ModuleWiring;
 import org.eclipse.osgi.internal.loader.BundleLoader;
 import org.eclipse.osgi.internal.loader.sources.SingleSourcePackage;
@@ -49,4 +51,69 @@ public class MiscTests extends TestCase {
 		assertFalse("sources are equal", p111.equals(p112)); //$NON-NLS-1$
 		assertFalse("sources are equal", p212.equals(p211)); //$NON-NLS-1$
 	}
+
+	public void testLauncherSearchCache() throws Exception {
+		File root = OSGiTestsActivator.getContext().getDataFile(getName());
+		File plugins = new File(root, "plugins"); //$NON-NLS-1$
+		File config = new File(root, "configuration"); //$NON-NLS-1$
+		new File(plugins, "test.search_1.0.0").mkdirs(); //$NON-NLS-1$
+		String configArea = System.getProperty("osgi.configuration.area"); //$NON-NLS-1$
+		String searchCache = System.getProperty("eclipse.launcher.searchCache"); //$NON-NLS-1$
+		try {
+			System.setProperty("osgi.configuration.area", config.toURI().toURL().toExternalForm()); //$NON-NLS-1$
+			System.setProperty("eclipse.launcher.searchCache", "true"); //$NON-NLS-1$ //$NON-NLS-2$
+			SearchCacheMain main = new SearchCacheMain();
+			assertTrue("Wrong search result", main.searchFor("test.search", plugins.getAbsolutePath()).endsWith("test.search_1.0.0/")); //$NON-NLS-1$ //$NON-NLS-2$
+			main.saveSearchCache();
+			File cacheDir = new File(config, "org.eclipse.equinox.launcher"); //$NON-NLS-1$
+			String[] cacheFiles = cacheDir.list();
+			assertNotNull("No cache directory", cacheFiles); //$NON-NLS-1$
+			assertEquals("Wrong cache files", 1, cacheFiles.length); //$NON-NLS-1$
+			assertEquals("Wrong cache file", ".searchCache", cacheFiles[0]); //$NON-NLS-1$ //$NON-NLS-2$
+
+			// add a newer version without changing the timestamp of the directory; the cached result is used
+			long lastModified = plugins.lastModified();
+			new File(plugins, "test.search_2.0.0").mkdirs(); //$NON-NLS-1$
+			plugins.setLastModified(lastModified);
+			main = new SearchCacheMain();
+			assertTrue("Expected the cached result", main.searchFor("test.search", plugins.getAbsolutePath()).endsWith("test.search_1.0.0/")); //$NON-NLS-1$ //$NON-NLS-2$
+			main.saveSearchCache();
+
+			// remove the cached result without changing the timestamp of the directory; the directory is searched again
+			new File(plugins, "test.search_1.0.0").delete(); //$NON-NLS-1$
+			plugins.setLastModified(lastModified);
+			main = new SearchCacheMain();
+			assertTrue("Expected a search for a missing result", main.searchFor("test.search", plugins.getAbsolutePath()).endsWith("test.search_2.0.0/")); //$NON-NLS-1$ //$NON-NLS-2$
+			main.saveSearchCache();
+
+			// a changed timestamp searches the directory again and replaces the cached result
+			new File(plugins, "test.search_3.0.0").mkdirs(); //$NON-NLS-1$
+			plugins.setLastModified(lastModified + 10000);
+			main = new SearchCacheMain();
+			assertTrue("Expected a new search", main.searchFor("test.search", plugins.getAbsolutePath()).endsWith("test.search_3.0.0/")); //$NON-NLS-1$ //$NON-NLS-2$
+			main.saveSearchCache();
+			assertEquals("Wrong cache files", 1, cacheDir.list().length); //$NON-NLS-1$
+		} finally {
+			if (configArea == null)
+				System.getProperties().remove("osgi.configuration.area"); //$NON-NLS-1$
+			else
+				System.setProperty("osgi.configuration.area", configArea); //$NON-NLS-1$
+			if (searchCache == null)
+				System.getProperties().remove("eclipse.launcher.searchCache"); //$NON-NLS-1$
+			else
+				System.setProperty("eclipse.launcher.searchCache", searchCache); //$NON-NLS-1$
+		}
+	}
+
+	static class SearchCacheMain extends Main {
+		@Override
+		public String searchFor(String target, String start) {
+			return super.searchFor(target, start);
+		}
+
+		@Override
+		public void saveSearchCache() {
+			super.saveSearchCache();
+		}
+	}
 }
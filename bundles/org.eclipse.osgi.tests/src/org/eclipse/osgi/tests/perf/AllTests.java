@@ -28,6 +28,7 @@ public class AllTests extends TestSuite {
 		TestSuite suite = new TestSuite(AllTests.class.getName());
 		suite.addTest(StatePerformanceTest.suite());
 		suite.addTest(StateUsesPerformanceTest.suite());
+		suite.addTest(FilterPerformanceTest.suite());
 		return suite;
 	}
 }
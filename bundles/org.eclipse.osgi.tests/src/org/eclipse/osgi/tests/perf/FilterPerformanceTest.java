@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.tests.perf;
+
+import java.util.*;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import org.eclipse.core.tests.harness.CoreTest;
+import org.eclipse.core.tests.harness.PerformanceTestRunner;
+import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.osgi.framework.*;
+
+public class FilterPerformanceTest extends CoreTest {
+	private static final String[] FILTERS = new String[] {"(objectClass=java.lang.Runnable)", //$NON-NLS-1$
+			"(&(objectClass=java.lang.Runnable)(service.ranking>=10))", //$NON-NLS-1$
+			"(&(objectClass=java.lang.Runnable)(version>=1.2.0)(!(version>=2.0.0)))", //$NON-NLS-1$
+			"(|(name=perf*)(count<=100)(enabled=true))", //$NON-NLS-1$
+			"(&(NAME~=PERFTEST)(weight>=1.5))"}; //$NON-NLS-1$
+
+	public static Test suite() {
+		return new TestSuite(FilterPerformanceTest.class);
+	}
+
+	public FilterPerformanceTest(String name) {
+		super(name);
+	}
+
+	public void testCreateFilter() {
+		new PerformanceTestRunner() {
+			protected void test() {
+				try {
+					for (int i = 0; i < 10000; i++) {
+						for (String filter : FILTERS) {
+							FrameworkUtil.createFilter(filter);
+						}
+					}
+				} catch (InvalidSyntaxException e) {
+					fail("Failed to create filter.", e); //$NON-NLS-1$
+				}
+			}
+		}.run(this, 10, 10);
+	}
+
+	public void testMatchServiceReference() throws InvalidSyntaxException {
+		final Filter[] filters = new Filter[FILTERS.length];
+		for (int i = 0; i < filters.length; i++) {
+			filters[i] = FrameworkUtil.createFilter(FILTERS[i]);
+		}
+		final List<ServiceRegistration<Runnable>> registrations = new ArrayList<ServiceRegistration<Runnable>>();
+		BundleContext context = OSGiTestsActivator.getContext();
+		Runnable runIt = new Runnable() {
+			public void run() {
+				// nothing
+			}
+		};
+		for (int i = 0; i < 20; i++) {
+			Dictionary<String, Object> props = new Hashtable<String, Object>();
+			props.put(Constants.SERVICE_RANKING, Integer.valueOf(i));
+			props.put("version", new Version(1, i, 0)); //$NON-NLS-1$
+			props.put("name", "perftest" + i); //$NON-NLS-1$ //$NON-NLS-2$
+			props.put("count", Long.valueOf(i * 10)); //$NON-NLS-1$
+			props.put("enabled", Boolean.valueOf(i % 2 == 0)); //$NON-NLS-1$
+			props.put("weight", Double.valueOf(i / 10.0)); //$NON-NLS-1$
+			registrations.add(context.registerService(Runnable.class, runIt, props));
+		}
+		try {
+			new PerformanceTestRunner() {
+				protected void test() {
+					for (int i = 0; i < 1000; i++) {
+						for (ServiceRegistration<Runnable> registration : registrations) {
+							ServiceReference<Runnable> reference = registration.getReference();
+							for (Filter filter : filters) {
+								filter.match(reference);
+							}
+						}
+					}
+				}
+			}.run(this, 10, 10);
+		} finally {
+			for (ServiceRegistration<Runnable> registration : registrations) {
+				registration.unregister();
+			}
+		}
+	}
+}
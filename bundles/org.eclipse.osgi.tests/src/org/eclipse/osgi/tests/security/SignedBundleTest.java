@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others.
+ * Copyright (c) 2007, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,16 +10,20 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.security;
 
-import java.io.File;
+import java.io.*;
 import java.security.SignatureException;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.zip.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.tests.session.ConfigurationSessionTestSuite;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.launch.Equinox;
 import org.eclipse.osgi.signedcontent.*;
-import org.osgi.framework.Bundle;
-import org.osgi.framework.BundleException;
+import org.eclipse.osgi.tests.OSGiTestsActivator;
+import org.osgi.framework.*;
 
 public class SignedBundleTest extends BaseSecurityTest {
 
@@ -966,4 +970,125 @@ public class SignedBundleTest extends BaseSecurityTest {
 			}
 		}
 	}
+
+	public void testVerifiedEntriesCache() throws Exception {
+		File config = OSGiTestsActivator.getContext().getDataFile(getName()); //$NON-NLS-1$
+		config.mkdirs();
+		File testJar = copyEntryFile(getTestJarPath("signed_with_corrupt"));
+		Map<String, Object> configuration = new HashMap<String, Object>();
+		configuration.put(Constants.FRAMEWORK_STORAGE, config.getAbsolutePath());
+		configuration.put("osgi.signedcontent.support", "all");
+		configuration.put(EquinoxConfiguration.PROP_SIGNED_CONTENT_VERIFY_CACHE, "true");
+
+		String signedClass = "org/eclipse/equinox/security/junit/SignedClass.class"; //$NON-NLS-1$
+		String corruptClass = "org/eclipse/equinox/security/junit/CorruptClass.class"; //$NON-NLS-1$
+		long bid = -1;
+		// the signed content is persisted on the first launch; the entries are verified on the second launch
+		// and loaded from the cache on the third launch; before the fourth launch an entry is changed without
+		// changing its size, its CRC-32 in the central directory or the last modified time of the jar
+		for (int i = 0; i < 4; i++) {
+			if (i == 3) {
+				long lastModified = testJar.lastModified();
+				tamperEntry(testJar, signedClass);
+				testJar.setLastModified(lastModified);
+			}
+			Equinox equinox = new Equinox(configuration);
+			equinox.start();
+			try {
+				BundleContext systemContext = equinox.getBundleContext();
+				Bundle testBundle = bid == -1 ? systemContext.installBundle("reference:file:" + testJar.getAbsolutePath()) : systemContext.getBundle(bid); //$NON-NLS-1$
+				bid = testBundle.getBundleId();
+				if (i > 1) {
+					// a verified entry is read without digesting it again
+					assertFalse("Expected a cached verification", isDigested(testBundle, signedClass));
+					assertTrue("The corrupted entry must be digested", isDigested(testBundle, corruptClass));
+				}
+				ServiceReference<SignedContentFactory> factoryRef = systemContext.getServiceReference(SignedContentFactory.class);
+				SignedContent signedContent = systemContext.getService(factoryRef).getSignedContent(testBundle);
+				assertTrue("Should be signed", signedContent.isSigned());
+				SignedContentEntry[] entries = signedContent.getSignedEntries();
+				assertNotNull("Entries is null", entries);
+				for (int j = 0; j < entries.length; j++) {
+					boolean corrupt = corruptClass.equals(entries[j].getName()) || (i == 3 && signedClass.equals(entries[j].getName()));
+					try {
+						entries[j].verify();
+						if (corrupt)
+							fail("Expected a corruption for: " + entries[j].getName());
+					} catch (InvalidContentException e) {
+						if (!corrupt)
+							fail("Unexpected corruption in: " + entries[j].getName(), e);
+					}
+				}
+				if (i == 3) {
+					// the content of the cached entry is still checked when it is read
+					assertTrue("The changed entry must be digested", isDigested(testBundle, signedClass));
+				}
+			} finally {
+				equinox.stop();
+				equinox.waitForStop(10000);
+			}
+		}
+	}
+
+	private static boolean isDigested(Bundle bundle, String entryPath) throws IOException {
+		InputStream in = bundle.getEntry(entryPath).openStream();
+		try {
+			return in.getClass().getName().endsWith("DigestedInputStream"); //$NON-NLS-1$
+		} finally {
+			in.close();
+		}
+	}
+
+	/*
+	 * Changes the last byte of an entry and forges the CRC-32 of the changed entry
+	 * in the central directory to be the CRC-32 of the original entry.
+	 */
+	private static void tamperEntry(File jar, String entryPath) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long crc;
+		ZipFile zipFile = new ZipFile(jar);
+		try {
+			crc = zipFile.getEntry(entryPath).getCrc();
+			ZipOutputStream zipOut = new ZipOutputStream(out);
+			for (Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements();) {
+				ZipEntry entry = entries.nextElement();
+				ByteArrayOutputStream content = new ByteArrayOutputStream();
+				InputStream in = zipFile.getInputStream(entry);
+				try {
+					byte[] buffer = new byte[8192];
+					for (int read = in.read(buffer); read != -1; read = in.read(buffer))
+						content.write(buffer, 0, read);
+				} finally {
+					in.close();
+				}
+				byte[] bytes = content.toByteArray();
+				if (entryPath.equals(entry.getName()))
+					bytes[bytes.length - 1]++;
+				zipOut.putNextEntry(new ZipEntry(entry.getName()));
+				zipOut.write(bytes);
+				zipOut.closeEntry();
+			}
+			zipOut.close();
+		} finally {
+			zipFile.close();
+		}
+		byte[] bytes = out.toByteArray();
+		byte[] name = entryPath.getBytes("UTF-8"); //$NON-NLS-1$
+		for (int i = 0; i + 46 < bytes.length; i++) {
+			// central directory file header signature 0x02014b50
+			if (bytes[i] != 0x50 || bytes[i + 1] != 0x4b || bytes[i + 2] != 0x01 || bytes[i + 3] != 0x02)
+				continue;
+			int nameLength = (bytes[i + 28] & 0xff) | ((bytes[i + 29] & 0xff) << 8);
+			if (nameLength == name.length && Arrays.equals(name, Arrays.copyOfRange(bytes, i + 46, i + 46 + nameLength))) {
+				for (int j = 0; j < 4; j++)
+					bytes[i + 16 + j] = (byte) (crc >>> (8 * j));
+			}
+		}
+		OutputStream fileOut = new FileOutputStream(jar);
+		try {
+			fileOut.write(bytes);
+		} finally {
+			fileOut.close();
+		}
+	}
 }
@@ -10,9 +10,12 @@
  *******************************************************************************/
 package org.eclipse.osgi.tests.serviceregistry;
 
-import java.util.Hashtable;
+import java.io.Serializable;
+import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.osgi.tests.OSGiTestsActivator;
@@ -523,6 +526,196 @@ public class ServiceRegistryTests extends AbstractBundleTests {
 
 	}
 
+	public void testConcurrentLookupOrdering() throws InterruptedException {
+		final String className = getName();
+		final BundleContext context = OSGiTestsActivator.getContext();
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		final AtomicBoolean done = new AtomicBoolean(false);
+		Thread[] lookups = new Thread[4];
+		for (int i = 0; i < lookups.length; i++) {
+			lookups[i] = new Thread(new Runnable() {
+				public void run() {
+					while (!done.get() && failure.get() == null) {
+						try {
+							ServiceReference[] refs = context.getServiceReferences(className, null);
+							if (refs == null) {
+								continue;
+							}
+							// rankings change concurrently; only check invariants that hold while they do
+							Set<ServiceReference> unique = new HashSet<ServiceReference>();
+							for (ServiceReference ref : refs) {
+								if (ref == null || !unique.add(ref)) {
+									failure.compareAndSet(null, "Wrong lookup result: " + Arrays.asList(refs)); //$NON-NLS-1$
+								}
+							}
+						} catch (InvalidSyntaxException e) {
+							failure.compareAndSet(null, e.getMessage());
+						} catch (RuntimeException e) {
+							failure.compareAndSet(null, e.toString());
+						}
+					}
+				}
+			}, className + i);
+			lookups[i].start();
+		}
+
+		List<ServiceRegistration> registrations = new ArrayList<ServiceRegistration>();
+		try {
+			Hashtable props = new Hashtable();
+			for (int i = 0; i < 200; i++) {
+				props.put(Constants.SERVICE_RANKING, new Integer(i % 7));
+				registrations.add(context.registerService(className, new Object(), props));
+				if (i % 3 == 0) {
+					// change the ranking of a previous registration
+					ServiceRegistration previous = registrations.get(i / 2);
+					props.put(Constants.SERVICE_RANKING, new Integer(-i));
+					previous.setProperties(props);
+				}
+			}
+			done.set(true);
+			for (Thread lookup : lookups) {
+				lookup.join();
+			}
+			assertNull(failure.get(), failure.get());
+			// the rankings are frozen now; the lookup must be ordered
+			ServiceReference[] refs = context.getServiceReferences(className, null);
+			assertEquals("Wrong number of services.", registrations.size(), refs.length); //$NON-NLS-1$
+			for (int j = 1; j < refs.length; j++) {
+				assertTrue("Wrong ranking order: " + refs[j - 1] + " " + refs[j], refs[j - 1].compareTo(refs[j]) > 0); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} catch (InvalidSyntaxException e) {
+			fail("Unexpected syntax error", e); //$NON-NLS-1$
+		} finally {
+			done.set(true);
+			for (Thread lookup : lookups) {
+				lookup.join();
+			}
+			for (ServiceRegistration registration : registrations) {
+				registration.unregister();
+			}
+		}
+		assertNull("Found services after unregister.", context.getServiceReference(className)); //$NON-NLS-1$
+	}
+
+	public void testConcurrentGetUngetService() throws InterruptedException {
+		final BundleContext context = OSGiTestsActivator.getContext();
+		final Object service = new Object();
+		ServiceRegistration reg = context.registerService(Object.class.getName(), service, null);
+		final ServiceReference ref = reg.getReference();
+		final AtomicReference<String> failure = new AtomicReference<String>();
+		try {
+			// hold one use so the other threads can use the lock free path
+			assertSame("Wrong service.", service, context.getService(ref)); //$NON-NLS-1$
+			Thread[] users = new Thread[4];
+			for (int i = 0; i < users.length; i++) {
+				users[i] = new Thread(new Runnable() {
+					public void run() {
+						for (int j = 0; j < 10000 && failure.get() == null; j++) {
+							if (context.getService(ref) != service) {
+								failure.compareAndSet(null, "Wrong service."); //$NON-NLS-1$
+							}
+							if (!context.ungetService(ref)) {
+								failure.compareAndSet(null, "Service was not in use."); //$NON-NLS-1$
+							}
+						}
+					}
+				}, getName() + i);
+				users[i].start();
+			}
+			for (Thread user : users) {
+				user.join();
+			}
+			assertNull(failure.get(), failure.get());
+			assertNotNull("Service should still be in use.", ref.getUsingBundles()); //$NON-NLS-1$
+			assertTrue("Service was not in use.", context.ungetService(ref)); //$NON-NLS-1$
+			assertNull("Service should not be in use.", ref.getUsingBundles()); //$NON-NLS-1$
+			assertFalse("Service should not be in use.", context.ungetService(ref)); //$NON-NLS-1$
+
+			context.getService(ref);
+			context.getService(ref);
+		} finally {
+			reg.unregister();
+		}
+		assertNull("Service should not be in use after unregister.", ref.getUsingBundles()); //$NON-NLS-1$
+		assertFalse("Service should not be in use after unregister.", context.ungetService(ref)); //$NON-NLS-1$
+	}
+
+	public void testServiceListenerObjectClasses() {
+		final String testMethodName = getName();
+		final int[] results = new int[] {0, 0, 0};
+		ServiceListener runnableOrComparableListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				results[0]++;
+			}
+		};
+		ServiceListener serializableListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				results[1]++;
+			}
+		};
+		ServiceListener propertyListener = new ServiceListener() {
+			public void serviceChanged(ServiceEvent event) {
+				results[2]++;
+			}
+		};
+		BundleContext context = OSGiTestsActivator.getContext();
+		try {
+			context.addServiceListener(runnableOrComparableListener, "(&(|(objectclass=java.lang.Runnable)(objectclass=java.lang.Comparable))(" + testMethodName.toLowerCase() + "=true))"); //$NON-NLS-1$ //$NON-NLS-2$
+			context.addServiceListener(serializableListener, "(&(objectclass=java.io.Serializable)(" + testMethodName.toLowerCase() + "=true))"); //$NON-NLS-1$ //$NON-NLS-2$
+			context.addServiceListener(propertyListener, "(" + testMethodName.toLowerCase() + "=true)"); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (InvalidSyntaxException e) {
+			fail("filter error", e); //$NON-NLS-1$
+		}
+		ServiceRegistration reg = null;
+		try {
+			Hashtable props = new Hashtable();
+			props.put(testMethodName, Boolean.TRUE);
+			// the listener indexed by both classes must only get the event once
+			reg = context.registerService(new String[] {Runnable.class.getName(), Comparable.class.getName()}, new RunnableComparable(), props);
+			assertEquals("Wrong number of events for runnable or comparable listener", 1, results[0]); //$NON-NLS-1$
+			assertEquals("Wrong number of events for serializable listener", 0, results[1]); //$NON-NLS-1$
+			assertEquals("Wrong number of events for property listener", 1, results[2]); //$NON-NLS-1$
+			reg.unregister();
+			reg = null;
+			clearResults(results);
+
+			reg = context.registerService(Serializable.class.getName(), testMethodName, props);
+			assertEquals("Wrong number of events for runnable or comparable listener", 0, results[0]); //$NON-NLS-1$
+			assertEquals("Wrong number of events for serializable listener", 1, results[1]); //$NON-NLS-1$
+			assertEquals("Wrong number of events for property listener", 1, results[2]); //$NON-NLS-1$
+			clearResults(results);
+
+			// no longer matches the filters
+			props.put(testMethodName, Boolean.FALSE);
+			reg.setProperties(props);
+			assertEquals("Wrong number of events for serializable listener", 1, results[1]); //$NON-NLS-1$
+			assertEquals("Wrong number of events for property listener", 1, results[2]); //$NON-NLS-1$
+			clearResults(results);
+
+			context.removeServiceListener(serializableListener);
+			props.put(testMethodName, Boolean.TRUE);
+			reg.setProperties(props);
+			assertEquals("Wrong number of events for serializable listener", 0, results[1]); //$NON-NLS-1$
+			assertEquals("Wrong number of events for property listener", 1, results[2]); //$NON-NLS-1$
+		} finally {
+			if (reg != null)
+				reg.unregister();
+			context.removeServiceListener(runnableOrComparableListener);
+			context.removeServiceListener(serializableListener);
+			context.removeServiceListener(propertyListener);
+		}
+	}
+
+	static class RunnableComparable implements Runnable, Comparable<Object> {
+		public void run() {
+			// nothing
+		}
+
+		public int compareTo(Object o) {
+			return 0;
+		}
+	}
+
 	private void clearResults(boolean[] results) {
 		for (int i = 0; i < results.length; i++)
 			results[i] = false;
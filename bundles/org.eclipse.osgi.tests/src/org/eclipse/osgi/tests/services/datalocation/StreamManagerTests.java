@@ -11,9 +11,12 @@
 package org.eclipse.osgi.tests.services.datalocation;
 
 import java.io.*;
+import java.util.zip.CRC32;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.framework.internal.reliablefile.ReliableFile;
+import org.eclipse.osgi.framework.internal.reliablefile.ReliableFileInputStream;
 import org.eclipse.osgi.storagemanager.ManagedOutputStream;
 import org.eclipse.osgi.storagemanager.StorageManager;
 import org.eclipse.osgi.tests.OSGiTest;
@@ -427,6 +430,112 @@ public class StreamManagerTests extends OSGiTest {
 		}
 	}
 
+	/**
+	 * This tests that a stream-set is committed as one batch in group commit mode.
+	 *
+	 */
+	public void testGroupCommitStreamSet() {
+		String groupCommit = System.getProperty("osgi.storageManager.groupCommit");
+		String useReliableFiles = System.getProperty("osgi.useReliableFiles");
+		try {
+			System.setProperty("osgi.storageManager.groupCommit", "true");
+			testGroupCommitStreamSet(true);
+			testGroupCommitStreamSet(false);
+		} finally {
+			if (groupCommit == null)
+				System.getProperties().remove("osgi.storageManager.groupCommit");
+			else
+				System.setProperty("osgi.storageManager.groupCommit", groupCommit);
+			if (useReliableFiles == null)
+				System.getProperties().remove("osgi.useReliableFiles");
+			else
+				System.setProperty("osgi.useReliableFiles", useReliableFiles);
+		}
+	}
+
+	private void testGroupCommitStreamSet(boolean reliable) {
+		File mgrDir;
+		if (reliable)
+			mgrDir = new File(base, "groupCommitReliable");
+		else
+			mgrDir = new File(base, "groupCommitStd");
+		String fileName1 = "testGroup1.txt";
+		String fileName2 = "testGroup2.txt";
+		String fileName3 = "testGroup3.txt";
+		try {
+			System.setProperty("osgi.useReliableFiles", reliable ? "true" : "false"); // force reliable files
+			manager1 = new StorageManager(mgrDir, null);
+			manager1.open(true);
+			ManagedOutputStream[] outs = manager1.getOutputStreamSet(new String[] {fileName1, fileName2});
+			outs[0].write("group contents #1".getBytes());
+			outs[1].write("group contents #2".getBytes());
+			outs[0].close();
+			assertNull(manager1.lookup(fileName1, false));
+			assertNull(manager1.lookup(fileName2, false));
+			outs[1].close();
+			assertEquals(1, manager1.getId(fileName1));
+			assertEquals(1, manager1.getId(fileName2));
+
+			ManagedOutputStream out = manager1.getOutputStream(fileName3);
+			out.write("single contents".getBytes());
+			out.close();
+			assertEquals(1, manager1.getId(fileName3));
+			manager1.close();
+			manager1 = null;
+
+			// open a new manager & check the committed table and contents
+			manager2 = new StorageManager(mgrDir, null);
+			manager2.open(true);
+			assertEquals(1, manager2.getId(fileName1));
+			assertEquals(1, manager2.getId(fileName2));
+			assertEquals(1, manager2.getId(fileName3));
+			InputStream[] ins = manager2.getInputStreamSet(new String[] {fileName1, fileName2});
+			assertEquals("group contents #1", getInputStreamContents(ins[0]));
+			assertEquals("group contents #2", getInputStreamContents(ins[1]));
+			assertEquals("single contents", getInputStreamContents(manager2.getInputStream(fileName3)));
+			manager2.close();
+			manager2 = null;
+		} catch (IOException e) {
+			fail("unexepected exception", e);
+		}
+	}
+
+	/**
+	 * This tests that reliable files with a CRC-32C checksum are read and
+	 * that a checksum which does not match its signature is detected.
+	 */
+	public void testReliableFileChecksums() {
+		File file = new File(base, "testChecksums.txt");
+		String contents1 = "test reliable file contents #1";
+		// the CRC-32C check value of "123456789" is e3069283 and the CRC-32 check value is cbf43926
+		String contents2 = "123456789";
+		try {
+			base.mkdirs();
+			CRC32 crc = new CRC32();
+			crc.update(contents1.getBytes());
+			String hex = Long.toHexString(crc.getValue());
+			while (hex.length() < 8)
+				hex = "0" + hex;
+			writeToFile(new File(base, file.getName() + ".1"), contents1 + ".crc" + hex + ".v1\n");
+			writeToFile(new File(base, file.getName() + ".2"), contents2 + ".crce3069283.v2\n");
+			// a CRC-32 value with the CRC-32C signature is corrupt
+			writeToFile(new File(base, file.getName() + ".3"), contents2 + ".crccbf43926.v2\n");
+
+			// the latest generation is corrupt, the CRC-32C generation is the best available
+			assertEquals(contents2, getInputStreamContents(new ReliableFileInputStream(file)));
+			try {
+				new ReliableFileInputStream(file, ReliableFile.GENERATION_LATEST, ReliableFile.OPEN_FAIL_ON_PRIMARY).close();
+				fail("opened a corrupt generation");
+			} catch (IOException e) {
+				//good
+			}
+			assertEquals(contents2, getInputStreamContents(new ReliableFileInputStream(file, 2, ReliableFile.OPEN_FAIL_ON_PRIMARY)));
+			assertEquals(contents1, getInputStreamContents(new ReliableFileInputStream(file, 1, ReliableFile.OPEN_FAIL_ON_PRIMARY)));
+		} catch (IOException e) {
+			fail("unexepected exception", e);
+		}
+	}
+
 	/**
 	 * This tests if aborting a managed stream-set works as expected
 	 *
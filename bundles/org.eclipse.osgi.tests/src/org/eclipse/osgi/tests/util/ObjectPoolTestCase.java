@@ -101,6 +101,50 @@ public class ObjectPoolTestCase extends CoreTest {
 		doGC();
 	}
 
+	public void testObjectPoolBulk() {
+		int num = 2000;
+		Object[] objects = new Object[num + 1];
+		for (int i = 0; i < num; i++) {
+			objects[i] = getName() + "_" + i; //$NON-NLS-1$
+		}
+		long misses = ObjectPool.getMissCount();
+		ObjectPool.intern(objects);
+		assertNull("Null element changed.", objects[num]); //$NON-NLS-1$
+		assertTrue("Wrong miss count.", ObjectPool.getMissCount() >= misses + num); //$NON-NLS-1$
+		assertTrue("Wrong pool size.", ObjectPool.size() >= num); //$NON-NLS-1$
+
+		Object[] duplicates = new Object[num];
+		for (int i = 0; i < num; i++) {
+			duplicates[i] = getName() + "_" + i; //$NON-NLS-1$
+		}
+		long hits = ObjectPool.getHitCount();
+		ObjectPool.intern(duplicates);
+		assertTrue("Wrong hit count.", ObjectPool.getHitCount() >= hits + num); //$NON-NLS-1$
+		for (int i = 0; i < num; i++) {
+			assertTrue("Strings are not the same: " + objects[i], objects[i] == duplicates[i]); //$NON-NLS-1$
+			assertTrue("Strings are not the same: " + objects[i], objects[i] == ObjectPool.intern(getName() + "_" + i)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		objects = null;
+		duplicates = null;
+		doGC();
+	}
+
+	public void testObjectPoolSuspend() {
+		String test1 = getName() + "_1"; //$NON-NLS-1$
+		assertTrue("Strings are not the same: " + test1, test1 == ObjectPool.intern(test1)); //$NON-NLS-1$
+		ObjectPool.suspendInterning();
+		try {
+			String test2 = getName() + "_1"; //$NON-NLS-1$
+			assertTrue("Strings are not the same: " + test2, test2 == ObjectPool.intern(test2)); //$NON-NLS-1$
+			String test3 = getName() + "_3"; //$NON-NLS-1$
+			assertTrue("Strings are not the same: " + test3, test3 == ObjectPool.intern(test3)); //$NON-NLS-1$
+		} finally {
+			ObjectPool.resumeInterning();
+		}
+		String test2 = getName() + "_1"; //$NON-NLS-1$
+		assertTrue("Strings are not the same: " + test2, test1 == ObjectPool.intern(test2)); //$NON-NLS-1$
+	}
+
 	private static void doGC() {
 		// We go through great effort to force the VM to throw our weakly referenced objects away.
 		System.gc();
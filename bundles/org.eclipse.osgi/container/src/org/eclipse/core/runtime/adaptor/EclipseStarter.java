@@ -17,8 +17,7 @@ import java.net.*;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
 import java.util.*;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.internal.adaptor.*;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleRevision;
@@ -27,8 +26,7 @@ import org.eclipse.osgi.framework.log.FrameworkLog;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.framework.util.FilePath;
 import org.eclipse.osgi.internal.debug.Debug;
-import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
-import org.eclipse.osgi.internal.framework.EquinoxContainer;
+import org.eclipse.osgi.internal.framework.*;
 import org.eclipse.osgi.internal.location.EquinoxLocations;
 import org.eclipse.osgi.internal.location.LocationHelper;
 import org.eclipse.osgi.internal.messages.Msg;
@@ -38,6 +36,7 @@ import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.service.environment.EnvironmentInfo;
 import org.eclipse.osgi.service.runnable.ApplicationLauncher;
 import org.eclipse.osgi.service.runnable.StartupMonitor;
+import org.eclipse.osgi.storage.Storage;
 import org.eclipse.osgi.storage.url.reference.Handler;
 import org.eclipse.osgi.util.ManifestElement;
 import org.eclipse.osgi.util.NLS;
@@ -964,43 +963,101 @@ public class EclipseStarter {
 	}
 
 	private static void installBundles(InitialBundle[] initialBundles, Bundle[] curInitBundles, List<Bundle> startBundles, List<Bundle> lazyActivationBundles, List<Bundle> toRefresh) {
-		for (int i = 0; i < initialBundles.length; i++) {
-			Bundle osgiBundle = getBundleByLocation(initialBundles[i].locationString, curInitBundles);
-			try {
-				// don't need to install if it is already installed
-				if (osgiBundle == null) {
-					InputStream in = LocationHelper.getStream(initialBundles[i].location);
-					try {
-						osgiBundle = context.installBundle(initialBundles[i].locationString, in);
-					} catch (BundleException e) {
-						if (e.getType() == BundleException.DUPLICATE_BUNDLE_ERROR) {
-							continue;
-							// TODO should attempt to lookup the existing bundle
+		// optionally stage the bundles which need to be installed concurrently; they are still installed in order below
+		Storage storage = ((BundleContextImpl) context).getContainer().getStorage();
+		Map<String, InputStream> staged = stageBundles(storage, initialBundles, curInitBundles);
+		try {
+			for (int i = 0; i < initialBundles.length; i++) {
+				Bundle osgiBundle = getBundleByLocation(initialBundles[i].locationString, curInitBundles);
+				try {
+					// don't need to install if it is already installed
+					if (osgiBundle == null) {
+						// only the stream returned for a staged bundle installs the staged content
+						InputStream in = staged.get(initialBundles[i].locationString);
+						if (in == null)
+							in = LocationHelper.getStream(initialBundles[i].location);
+						try {
+							osgiBundle = context.installBundle(initialBundles[i].locationString, in);
+						} catch (BundleException e) {
+							if (e.getType() == BundleException.DUPLICATE_BUNDLE_ERROR) {
+								continue;
+								// TODO should attempt to lookup the existing bundle
+							}
+							throw e;
 						}
-						throw e;
+						// only check for lazy activation header if this is a newly installed bundle and is not marked for persistent start
+						if (!initialBundles[i].start && hasLazyActivationPolicy(osgiBundle))
+							lazyActivationBundles.add(osgiBundle);
 					}
-					// only check for lazy activation header if this is a newly installed bundle and is not marked for persistent start
-					if (!initialBundles[i].start && hasLazyActivationPolicy(osgiBundle))
-						lazyActivationBundles.add(osgiBundle);
-				}
-				// always set the startlevel incase it has changed (bug 111549)
-				// this is a no-op if the level is the same as previous launch.
-				if ((osgiBundle.getState() & Bundle.UNINSTALLED) == 0 && initialBundles[i].level >= 0) {
-					osgiBundle.adapt(BundleStartLevel.class).setStartLevel(initialBundles[i].level);
+					// always set the startlevel incase it has changed (bug 111549)
+					// this is a no-op if the level is the same as previous launch.
+					if ((osgiBundle.getState() & Bundle.UNINSTALLED) == 0 && initialBundles[i].level >= 0) {
+						osgiBundle.adapt(BundleStartLevel.class).setStartLevel(initialBundles[i].level);
+					}
+					// if this bundle is supposed to be started then add it to the start list
+					if (initialBundles[i].start)
+						startBundles.add(osgiBundle);
+					// include basic bundles in case they were not resolved before
+					if ((osgiBundle.getState() & Bundle.INSTALLED) != 0)
+						toRefresh.add(osgiBundle);
+				} catch (BundleException e) {
+					FrameworkLogEntry entry = new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, 0, NLS.bind(Msg.ECLIPSE_STARTUP_FAILED_INSTALL, initialBundles[i].location), 0, e, null);
+					log.log(entry);
+				} catch (IOException e) {
+					FrameworkLogEntry entry = new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, 0, NLS.bind(Msg.ECLIPSE_STARTUP_FAILED_INSTALL, initialBundles[i].location), 0, e, null);
+					log.log(entry);
 				}
-				// if this bundle is supposed to be started then add it to the start list
-				if (initialBundles[i].start)
-					startBundles.add(osgiBundle);
-				// include basic bundles in case they were not resolved before
-				if ((osgiBundle.getState() & Bundle.INSTALLED) != 0)
-					toRefresh.add(osgiBundle);
-			} catch (BundleException e) {
-				FrameworkLogEntry entry = new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, 0, NLS.bind(Msg.ECLIPSE_STARTUP_FAILED_INSTALL, initialBundles[i].location), 0, e, null);
-				log.log(entry);
-			} catch (IOException e) {
-				FrameworkLogEntry entry = new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, 0, NLS.bind(Msg.ECLIPSE_STARTUP_FAILED_INSTALL, initialBundles[i].location), 0, e, null);
-				log.log(entry);
 			}
+		} finally {
+			if (!staged.isEmpty()) {
+				// discard the content of any bundles which were staged but not installed
+				storage.discardStagedInstalls();
+			}
+		}
+	}
+
+	/*
+	 * Stages the content of the initial bundles which are not installed yet using the
+	 * install threads if more than one install thread is configured.  Returns the streams
+	 * to install the staged bundles with by location.
+	 */
+	private static Map<String, InputStream> stageBundles(Storage storage, InitialBundle[] initialBundles, Bundle[] curInitBundles) {
+		String threadCntProp = getProperty(EquinoxConfiguration.PROP_INSTALL_THREAD_COUNT);
+		int threadCnt;
+		try {
+			// by default the bundles are installed one at a time
+			threadCnt = threadCntProp == null ? 1 : Integer.parseInt(threadCntProp);
+		} catch (NumberFormatException e) {
+			threadCnt = 1;
+		}
+		// a value of zero or less means use the number of processors
+		if (threadCnt <= 0)
+			threadCnt = Runtime.getRuntime().availableProcessors();
+		if (threadCnt == 1)
+			return Collections.emptyMap();
+		// the staging tasks open the content
+		Map<String, URL> contents = new LinkedHashMap<>();
+		for (InitialBundle initialBundle : initialBundles) {
+			if (getBundleByLocation(initialBundle.locationString, curInitBundles) == null) {
+				contents.put(initialBundle.locationString, initialBundle.location);
+			}
+		}
+		if (contents.size() < 2)
+			return Collections.emptyMap();
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCnt, contents.size()), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Initial Bundle Installer"); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			return storage.stageInstalls(contents, executor);
+		} finally {
+			// the submitted tasks still complete
+			executor.shutdown();
 		}
 	}
 
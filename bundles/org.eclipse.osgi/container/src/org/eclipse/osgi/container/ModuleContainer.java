@@ -13,7 +13,7 @@ package org.eclipse.osgi.container;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.osgi.container.Module.*;
@@ -1576,7 +1576,11 @@ public final class ModuleContainer implements DebugOptionsListener {
 							if (debugStartLevel) {
 								Debug.println("StartLevel: incremented active start level to; " + toStartLevel); //$NON-NLS-1$
 							}
+							long startTime = debugStartLevel ? System.currentTimeMillis() : 0;
 							incStartLevel(toStartLevel, moduleDatabase.getSortedModules(Sort.BY_START_LEVEL));
+							if (debugStartLevel) {
+								Debug.println("StartLevel: time to increment start level " + toStartLevel + ": " + (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+							}
 						}
 					} else {
 						for (int i = currentSL; i > newStartLevel; i--) {
@@ -1585,7 +1589,11 @@ public final class ModuleContainer implements DebugOptionsListener {
 							if (debugStartLevel) {
 								Debug.println("StartLevel: decremented active start level to " + toStartLevel); //$NON-NLS-1$
 							}
+							long startTime = debugStartLevel ? System.currentTimeMillis() : 0;
 							decStartLevel(toStartLevel, moduleDatabase.getSortedModules(Sort.BY_START_LEVEL, Sort.BY_DEPENDENCY));
+							if (debugStartLevel) {
+								Debug.println("StartLevel: time to decrement start level " + toStartLevel + ": " + (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+							}
 						}
 					}
 					if (currentSL > 0 && newStartLevel > 0) {
@@ -1604,8 +1612,178 @@ public final class ModuleContainer implements DebugOptionsListener {
 		}
 
 		private void incStartLevel(int toStartLevel, List<Module> sortedModules) {
-			incStartLevel(toStartLevel, sortedModules, true);
-			incStartLevel(toStartLevel, sortedModules, false);
+			Executor executor = adaptor.getStartLevelExecutor();
+			if (executor == null) {
+				incStartLevel(toStartLevel, sortedModules, true);
+				incStartLevel(toStartLevel, sortedModules, false);
+				return;
+			}
+			List<Module> levelModules = getLevelModules(toStartLevel, sortedModules);
+			incStartLevel(toStartLevel, levelModules, true, executor);
+			incStartLevel(toStartLevel, levelModules, false, executor);
+		}
+
+		/**
+		 * Returns the modules to be resumed for the specified start level ordered by their dependencies.
+		 * Any module that is not resolved yet is resolved in a single resolve operation
+		 * so that the dependencies between the modules are known before activating them.
+		 */
+		private List<Module> getLevelModules(int toStartLevel, List<Module> sortedModules) {
+			List<Module> levelModules = new ArrayList<>();
+			List<Module> unresolved = new ArrayList<>();
+			for (Module module : sortedModules) {
+				try {
+					int moduleStartLevel = module.getStartLevel();
+					if (moduleStartLevel < toStartLevel) {
+						// skip modules who should have already been started
+						continue;
+					} else if (moduleStartLevel > toStartLevel) {
+						// any remaining modules have a greater startlevel than the active startlevel
+						break;
+					}
+					if (module.isPersistentlyStarted()) {
+						levelModules.add(module);
+						if (State.INSTALLED.equals(module.getState())) {
+							unresolved.add(module);
+						}
+					}
+				} catch (IllegalStateException e) {
+					// been uninstalled
+					continue;
+				}
+			}
+			if (!unresolved.isEmpty() && !isRefreshingSystemModule()) {
+				resolve(unresolved, false);
+			}
+			moduleDatabase.readLock();
+			try {
+				moduleDatabase.sortModules(levelModules, Sort.BY_DEPENDENCY);
+			} finally {
+				moduleDatabase.readUnlock();
+			}
+			return levelModules;
+		}
+
+		private void incStartLevel(int toStartLevel, List<Module> levelModules, boolean lazyOnly, Executor executor) {
+			// maps each module queued for activation to the latch released once its activation is done
+			Map<Module, CountDownLatch> queued = new HashMap<>();
+			try {
+				for (Module module : levelModules) {
+					if (isRefreshingSystemModule()) {
+						return;
+					}
+					boolean isLazyStart = module.isLazyActivate();
+					if (lazyOnly ? isLazyStart : !isLazyStart) {
+						// only wait for providers queued before this module; this avoids waiting on cycles
+						List<CountDownLatch> providers = getQueuedProviders(module, queued);
+						CountDownLatch done = new CountDownLatch(1);
+						queued.put(module, done);
+						try {
+							executor.execute(new StartLevelActivation(module, toStartLevel, providers, done));
+						} catch (RejectedExecutionException e) {
+							// the executor is shutting down; activate the module on the start level thread
+							new StartLevelActivation(module, toStartLevel, Collections.<CountDownLatch> emptyList(), done).run();
+						}
+					}
+				}
+			} finally {
+				// the START_LEVEL event must not be fired until all the modules of the level are done;
+				// keep waiting if interrupted and restore the interrupt once all are done
+				boolean interrupted = false;
+				for (CountDownLatch done : queued.values()) {
+					while (true) {
+						try {
+							done.await();
+							break;
+						} catch (InterruptedException e) {
+							interrupted = true;
+						}
+					}
+				}
+				if (interrupted) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		private List<CountDownLatch> getQueuedProviders(Module module, Map<Module, CountDownLatch> queued) {
+			if (queued.isEmpty()) {
+				return Collections.emptyList();
+			}
+			ModuleRevision current = module.getCurrentRevision();
+			ModuleWiring wiring = current == null ? null : current.getWiring();
+			if (wiring == null) {
+				return Collections.emptyList();
+			}
+			List<CountDownLatch> result = new ArrayList<>(0);
+			for (ModuleWire wire : wiring.getRequiredModuleWires(null)) {
+				ModuleRequirement req = wire.getRequirement();
+				// dynamic package requirements do not influence the activation order
+				if (PackageNamespace.PACKAGE_NAMESPACE.equals(req.getNamespace()) && PackageNamespace.RESOLUTION_DYNAMIC.equals(req.getDirectives().get(Namespace.REQUIREMENT_RESOLUTION_DIRECTIVE))) {
+					continue;
+				}
+				CountDownLatch providerDone = queued.get(wire.getProvider().getRevisions().getModule());
+				if (providerDone != null && !result.contains(providerDone)) {
+					result.add(providerDone);
+				}
+			}
+			return result;
+		}
+
+		boolean await(CountDownLatch latch) {
+			try {
+				latch.await();
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			}
+		}
+
+		/**
+		 * Activates a single module of a start level once all the modules it
+		 * depends on from the same start level are done activating.
+		 */
+		private class StartLevelActivation implements Runnable {
+			private final Module module;
+			private final int startLevel;
+			private final List<CountDownLatch> providers;
+			private final CountDownLatch done;
+
+			StartLevelActivation(Module module, int startLevel, List<CountDownLatch> providers, CountDownLatch done) {
+				this.module = module;
+				this.startLevel = startLevel;
+				this.providers = providers;
+				this.done = done;
+			}
+
+			@Override
+			public void run() {
+				try {
+					for (CountDownLatch provider : providers) {
+						if (!await(provider)) {
+							return;
+						}
+					}
+					if (isRefreshingSystemModule()) {
+						return;
+					}
+					if (debugStartLevel) {
+						Debug.println("StartLevel: resuming bundle; " + ContainerStartLevel.this.toString(module) + "; with startLevel=" + startLevel); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					try {
+						module.start(StartOptions.TRANSIENT_IF_AUTO_START, StartOptions.TRANSIENT_RESUME);
+					} catch (BundleException e) {
+						adaptor.publishContainerEvent(ContainerEvent.ERROR, module, e);
+					} catch (IllegalStateException e) {
+						// been uninstalled
+					} catch (RuntimeException e) {
+						adaptor.publishContainerEvent(ContainerEvent.ERROR, module, e);
+					}
+				} finally {
+					done.countDown();
+				}
+			}
 		}
 
 		private void incStartLevel(int toStartLevel, List<Module> sortedModules, boolean lazyOnly) {
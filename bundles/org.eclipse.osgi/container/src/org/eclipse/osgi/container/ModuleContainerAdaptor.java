@@ -11,6 +11,7 @@
 package org.eclipse.osgi.container;
 
 import java.io.DataInputStream;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.concurrent.Executor;
 import org.eclipse.osgi.container.Module.Settings;
@@ -272,6 +273,18 @@ public abstract class ModuleContainerAdaptor {
 		// do nothing by default
 	}
 
+	/**
+	 * This is called after the resolver has completed a resolve operation.
+	 * @param triggers the revisions that triggered the resolve operation
+	 * @param dynamic true if the resolve operation was for a dynamic import
+	 * @param resolved the number of revisions wired by the resolve operation
+	 * @param durationNanos the time spent in the resolve operation, in nanoseconds
+	 * @since 3.12
+	 */
+	public void resolveCompleted(Collection<ModuleRevision> triggers, boolean dynamic, int resolved, long durationNanos) {
+		// do nothing by default
+	}
+
 	/**
 	 * Returns the debug options for the module container.
 	 * @return the debug options for the module container, or null if there are no debug options.
@@ -295,6 +308,18 @@ public abstract class ModuleContainerAdaptor {
 		};
 	}
 
+	/**
+	 * Returns the executor used to activate the modules of a start level concurrently.
+	 * A {@code null} value indicates that the modules of a start level are activated
+	 * one at a time on the start level thread.
+	 * @return the executor used to activate the modules of a start level, may be {@code null}
+	 * @since 3.12
+	 */
+	public Executor getStartLevelExecutor() {
+		// by default modules are activated one at a time
+		return null;
+	}
+
 	/**
 	 * Allows a builder to be modified before it is used by the container. This gets
 	 * call when a new module is {@link ModuleContainer#install(Module, String, ModuleRevisionBuilder, Object) installed}
@@ -27,8 +27,27 @@ import org.osgi.service.resolver.ResolutionException;
  */
 class ModuleResolutionReport implements ResolutionReport {
 
+	/**
+	 * The timed phases of a resolution operation.
+	 */
+	static enum Phase {
+		/**
+		 * Finding the candidate capabilities for the requirements.
+		 */
+		POPULATE,
+		/**
+		 * Selecting a consistent set of candidates, including the uses constraint checks.
+		 */
+		USES,
+		/**
+		 * Creating the wirings for the resolved revisions.
+		 */
+		WIRING
+	}
+
 	static class Builder {
 		private final Map<Resource, List<Entry>> resourceToEntries = new HashMap<>();
+		private final Map<Phase, Long> times = new EnumMap<>(Phase.class);
 
 		public void addEntry(Resource resource, Entry.Type type, Object data) {
 			List<Entry> entries = resourceToEntries.get(resource);
@@ -39,8 +58,13 @@ class ModuleResolutionReport implements ResolutionReport {
 			entries.add(new EntryImpl(type, data));
 		}
 
+		public void addTime(Phase phase, long nanos) {
+			Long current = times.get(phase);
+			times.put(phase, current == null ? nanos : current + nanos);
+		}
+
 		public ModuleResolutionReport build(Map<Resource, List<Wire>> resolutionResult, ResolutionException cause) {
-			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause);
+			return new ModuleResolutionReport(resolutionResult, resourceToEntries, cause, new EnumMap<>(times));
 		}
 	}
 
@@ -67,11 +91,17 @@ class ModuleResolutionReport implements ResolutionReport {
 	private final Map<Resource, List<Entry>> entries;
 	private final ResolutionException resolutionException;
 	private final Map<Resource, List<Wire>> resolutionResult;
+	private final Map<Phase, Long> times;
 
 	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries, ResolutionException cause) {
+		this(resolutionResult, entries, cause, null);
+	}
+
+	ModuleResolutionReport(Map<Resource, List<Wire>> resolutionResult, Map<Resource, List<Entry>> entries, ResolutionException cause, Map<Phase, Long> times) {
 		this.entries = entries == null ? Collections.<Resource, List<Entry>> emptyMap() : Collections.unmodifiableMap(new HashMap<>(entries));
 		this.resolutionResult = resolutionResult == null ? Collections.<Resource, List<Wire>> emptyMap() : Collections.unmodifiableMap(resolutionResult);
 		this.resolutionException = cause;
+		this.times = times == null ? Collections.<Phase, Long> emptyMap() : Collections.unmodifiableMap(times);
 	}
 
 	@Override
@@ -88,6 +118,16 @@ class ModuleResolutionReport implements ResolutionReport {
 		return resolutionResult;
 	}
 
+	/**
+	 * Returns the time spent in the specified phase of the resolution operation.
+	 * @param phase the phase
+	 * @return the time spent in the phase in nanoseconds
+	 */
+	long getTime(Phase phase) {
+		Long time = times.get(phase);
+		return time == null ? 0 : time.longValue();
+	}
+
 	private static String getResolutionReport0(String prepend, ModuleRevision revision, Map<Resource, List<ResolutionReport.Entry>> reportEntries, Set<BundleRevision> visited) {
 		if (prepend == null) {
 			prepend = ""; //$NON-NLS-1$
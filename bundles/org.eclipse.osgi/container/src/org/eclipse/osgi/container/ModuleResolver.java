@@ -14,8 +14,10 @@ import java.security.Permission;
 import java.util.*;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.felix.resolver.*;
 import org.eclipse.osgi.container.ModuleRequirement.DynamicModuleRequirement;
+import org.eclipse.osgi.container.ModuleResolutionReport.Phase;
 import org.eclipse.osgi.container.namespaces.EquinoxFragmentNamespace;
 import org.eclipse.osgi.internal.container.InternalUtils;
 import org.eclipse.osgi.internal.debug.Debug;
@@ -62,6 +64,11 @@ final class ModuleResolver {
 	private static final int DEFAULT_BATCH_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(2);
 	final int resolverRevisionBatchSize;
 	final int resolverBatchTimeout;
+	/*
+	 * The batch size used by the next resolve operation.  This starts out as the
+	 * configured batch size and is adapted to the time it takes to resolve batches.
+	 */
+	volatile int adaptiveBatchSize;
 
 	void setDebugOptions() {
 		DebugOptions options = adaptor.getDebugOptions();
@@ -97,6 +104,7 @@ final class ModuleResolver {
 		this.resolverRevisionBatchSize = parseInteger(batchSizeConfig, DEFAULT_BATCH_SIZE, 1);
 		String batchTimeoutConfig = this.adaptor.getProperty(EquinoxConfiguration.PROP_RESOLVER_BATCH_TIMEOUT);
 		this.resolverBatchTimeout = parseInteger(batchTimeoutConfig, DEFAULT_BATCH_TIMEOUT, BATCH_MIN_TIMEOUT);
+		this.adaptiveBatchSize = resolverRevisionBatchSize;
 
 	}
 
@@ -564,6 +572,10 @@ final class ModuleResolver {
 		 * has occurred.
 		 */
 		private final Map<Resource, Map<Requirement, Set<Capability>>> unresolvedProviders = new HashMap<>();
+		/*
+		 * The time spent finding providers; the resolver may find providers from more than one thread.
+		 */
+		private final AtomicLong populateTime = new AtomicLong();
 
 		ResolveProcess(Collection<ModuleRevision> unresolved, Collection<ModuleRevision> triggers, boolean triggersMandatory, Map<ModuleRevision, ModuleWiring> wirings, ModuleDatabase moduleDatabase) {
 			this.unresolved = unresolved;
@@ -613,8 +625,10 @@ final class ModuleResolver {
 						.append(origReq.getResource()) //
 						.toString());
 			}
+			long start = System.nanoTime();
 			List<ModuleCapability> candidates = moduleDatabase.findCapabilities(lookupReq);
 			List<Capability> result = filterProviders(origReq, candidates);
+			populateTime.addAndGet(System.nanoTime() - start);
 			if (DEBUG_PROVIDERS) {
 				StringBuilder builder = new StringBuilder("RESOLVER: Capabilities being returned to the resolver"); //$NON-NLS-1$
 				int i = 0;
@@ -907,6 +921,7 @@ final class ModuleResolver {
 				throw new IllegalStateException(Msg.ModuleResolver_RecursiveError);
 			}
 			threadResolving.set(Boolean.TRUE);
+			long start = System.nanoTime();
 			try {
 				try {
 					hook = adaptor.getResolverHookFactory().begin(InternalUtils.asListBundleRevision((List<? extends BundleRevision>) triggers));
@@ -960,7 +975,13 @@ final class ModuleResolver {
 					if (DEBUG_WIRING) {
 						printWirings(result);
 					}
+					reportBuilder.addTime(Phase.POPULATE, populateTime.get());
 					report = reportBuilder.build(result, re);
+					if (DEBUG_ROOTS) {
+						for (Phase phase : Phase.values()) {
+							Debug.println("Resolver: time in " + phase + " phase:  " + TimeUnit.NANOSECONDS.toMillis(report.getTime(phase)) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						}
+					}
 					if (DEBUG_REPORT) {
 						if (report.getResolutionException() != null) {
 							Debug.printStackTrace(report.getResolutionException());
@@ -977,6 +998,7 @@ final class ModuleResolver {
 						((ResolutionReport.Listener) hook).handleResolutionReport(report);
 					hook.end();
 				}
+				adaptor.resolveCompleted(triggers, dynamicReq != null, result == null ? 0 : result.size(), System.nanoTime() - start);
 				return report;
 			} finally {
 				threadResolving.set(Boolean.FALSE);
@@ -1015,6 +1037,7 @@ final class ModuleResolver {
 			// make a copy so we do not modify the input
 			revisions = new LinkedList<>(revisions);
 			List<Resource> toResolve = new ArrayList<>();
+			int batchSize = adaptiveBatchSize;
 			try {
 				for (Iterator<ModuleRevision> iResources = revisions.iterator(); iResources.hasNext();) {
 					ModuleRevision single = iResources.next();
@@ -1022,19 +1045,23 @@ final class ModuleResolver {
 					if (!wirings.containsKey(single) && !failedToResolve.contains(single)) {
 						toResolve.add(single);
 					}
-					if (toResolve.size() == resolverRevisionBatchSize || !iResources.hasNext()) {
+					if (toResolve.size() >= batchSize || !iResources.hasNext()) {
 						if (DEBUG_ROOTS) {
 							Debug.println("Resolver: resolving " + toResolve.size() + " in batch."); //$NON-NLS-1$ //$NON-NLS-2$
 							for (Resource root : toResolve) {
 								Debug.println("    Resolving root bundle: " + root); //$NON-NLS-1$
 							}
 						}
+						long batchStart = System.currentTimeMillis();
 						resolveRevisions(toResolve, isMandatory, logger, result);
+						batchSize = adaptBatchSize(batchSize, toResolve.size(), System.currentTimeMillis() - batchStart);
 						toResolve.clear();
 					}
 					maxUsedMemory = Math.max(maxUsedMemory, Runtime.getRuntime().freeMemory() - initialFreeMemory);
 				}
 			} catch (ResolutionTimeout timeoutException) {
+				// use smaller batches for the following resolve operations
+				adaptiveBatchSize = Math.max(1, toResolve.size() / 2);
 				// revert back to single bundle resolves
 				resolveRevisionsIndividually(isMandatory, logger, result, toResolve, revisions);
 			} catch (OutOfMemoryError memoryError) {
@@ -1043,12 +1070,34 @@ final class ModuleResolver {
 			}
 
 			if (DEBUG_ROOTS) {
-				Debug.println("Resolver: resolve batch size:  " + resolverRevisionBatchSize); //$NON-NLS-1$
+				Debug.println("Resolver: resolve batch size:  " + batchSize); //$NON-NLS-1$
 				Debug.println("Resolver: time to resolve:  " + (System.currentTimeMillis() - startTime) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
 				Debug.println("Resolver: max used memory: " + maxUsedMemory / (1024 * 1024) + "Mo"); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 		}
 
+		/*
+		 * Adapts the batch size to the time it took to resolve a batch.  A batch which
+		 * takes more than a quarter of the batch timeout halves the batch size; a full batch
+		 * which takes less than a sixteenth of the batch timeout grows the batch size back
+		 * towards the configured batch size.
+		 */
+		private int adaptBatchSize(int batchSize, int resolved, long time) {
+			int newBatchSize = batchSize;
+			if (time > resolverBatchTimeout / 4) {
+				newBatchSize = Math.max(1, resolved / 2);
+			} else if (time < resolverBatchTimeout / 16 && resolved >= batchSize && batchSize < resolverRevisionBatchSize) {
+				newBatchSize = batchSize > resolverRevisionBatchSize / 2 ? resolverRevisionBatchSize : batchSize * 2;
+			}
+			if (newBatchSize != batchSize) {
+				if (DEBUG_ROOTS) {
+					Debug.println("Resolver: batch of " + resolved + " resolved in " + time + "ms; using batch size:  " + newBatchSize); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				}
+				adaptiveBatchSize = newBatchSize;
+			}
+			return newBatchSize;
+		}
+
 		private void resolveRevisionsIndividually(boolean isMandatory, ResolveLogger logger, Map<Resource, List<Wire>> result, Collection<Resource> toResolve, Collection<ModuleRevision> revisions) throws ResolutionException {
 			checkTimeout = false;
 			for (Resource resource : toResolve) {
@@ -1071,7 +1120,13 @@ final class ModuleResolver {
 			Map<Resource, List<Wire>> interimResults = null;
 			try {
 				transitivelyResolveFailures.addAll(revisions);
-				interimResults = new ResolverImpl(logger, this).resolve(this);
+				long populateStart = populateTime.get();
+				long start = System.nanoTime();
+				try {
+					interimResults = new ResolverImpl(logger, this).resolve(this);
+				} finally {
+					addUsesTime(System.nanoTime() - start, populateTime.get() - populateStart);
+				}
 				applyInterimResultToWiringCopy(interimResults);
 				if (DEBUG_ROOTS) {
 					Debug.println("Resolver: resolved " + interimResults.size() + " bundles."); //$NON-NLS-1$ //$NON-NLS-2$
@@ -1110,13 +1165,20 @@ final class ModuleResolver {
 			}
 		}
 
+		private void addUsesTime(long resolveTime, long populateTime) {
+			// the time spent populating candidates during the resolve is accounted for separately
+			reportBuilder.addTime(Phase.USES, Math.max(0, resolveTime - populateTime));
+		}
+
 		private void applyInterimResultToWiringCopy(Map<Resource, List<Wire>> interimResult) {
 			if (!interimResult.isEmpty()) {
+				long start = System.nanoTime();
 				// update the copy of wirings to include interim results
 				Map<ModuleRevision, ModuleWiring> updatedWirings = generateDelta(interimResult, wirings);
 				for (Map.Entry<ModuleRevision, ModuleWiring> updatedWiring : updatedWirings.entrySet()) {
 					wirings.put(updatedWiring.getKey(), updatedWiring.getValue());
 				}
+				reportBuilder.addTime(Phase.WIRING, System.nanoTime() - start);
 			}
 		}
 
@@ -1276,7 +1338,13 @@ final class ModuleResolver {
 
 		private Map<Resource, List<Wire>> resolveDynamic() throws ResolutionException {
 			List<Capability> dynamicMatches = findProviders0(dynamicReq.getOriginal(), dynamicReq);
-			return new ResolverImpl(new Logger(0), null).resolve(this, dynamicReq.getRevision(), dynamicReq.getOriginal(), dynamicMatches);
+			long populateStart = populateTime.get();
+			long start = System.nanoTime();
+			try {
+				return new ResolverImpl(new Logger(0), null).resolve(this, dynamicReq.getRevision(), dynamicReq.getOriginal(), dynamicMatches);
+			} finally {
+				addUsesTime(System.nanoTime() - start, populateTime.get() - populateStart);
+			}
 		}
 
 		private void filterResolvable() {
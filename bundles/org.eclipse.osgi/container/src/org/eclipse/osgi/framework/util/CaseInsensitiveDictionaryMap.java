@@ -135,6 +135,18 @@ public class CaseInsensitiveDictionaryMap<K, V> extends Dictionary<K, V> impleme
 		return key;
 	}
 
+	/**
+	 * Returns a case-insensitive wrapping of the specified key. The returned
+	 * object can be used as the key for {@link #get(Object)} to avoid wrapping
+	 * the same String key on each lookup.
+	 *
+	 * @param key The String key.
+	 * @return A case-insensitive wrapping of the key.
+	 */
+	public static Object caseInsensitiveKey(String key) {
+		return new CaseInsensitiveKey(requireNonNull(key));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -393,8 +405,8 @@ public class CaseInsensitiveDictionaryMap<K, V> extends Dictionary<K, V> impleme
 				return h;
 			}
 			h = 1;
-			for (char c : key.toCharArray()) {
-				h = 31 * h + Character.toLowerCase(Character.toUpperCase(c));
+			for (int i = 0, length = key.length(); i < length; i++) {
+				h = 31 * h + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
 			}
 			return hashCode = h;
 		}
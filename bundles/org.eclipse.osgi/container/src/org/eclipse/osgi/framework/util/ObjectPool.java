@@ -1,10 +1,10 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2016 IBM Corporation and others.
+ * Copyright (c) 2009, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
  * http://www.eclipse.org/legal/epl-v10.html
- * 
+ *
  * Contributors:
  *     IBM Corporation - initial API and implementation
  *******************************************************************************/
@@ -15,35 +15,170 @@ import java.util.Map;
 import java.util.WeakHashMap;
 import org.eclipse.osgi.internal.debug.Debug;
 
+/**
+ * A pool of weakly referenced objects used to share equal objects.
+ * <p>
+ * The pool is split into segments which are locked independently, so
+ * objects can be interned concurrently by many threads.
+ */
 public class ObjectPool {
 	//private static String OPTION_DEBUG_OBJECTPOOL_ADDS = Debug.ECLIPSE_OSGI + "/debug/objectPool/adds"; //$NON-NLS-1$
 	//private static String OPTION_DEBUG_OBJECTPOOL_DUPS = Debug.ECLIPSE_OSGI + "/debug/objectPool/dups"; //$NON-NLS-1$
 	// TODO need to set these
 	private static final boolean DEBUG_OBJECTPOOL_ADDS = false;
 	private static final boolean DEBUG_OBJECTPOOL_DUPS = false;
-	private static Map<Object, WeakReference<Object>> objectCache = new WeakHashMap<>();
+	// must be a power of two
+	private static final int NUM_SEGMENTS = 32;
+	private static final Segment[] segments = new Segment[NUM_SEGMENTS];
+	static {
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			segments[i] = new Segment();
+		}
+	}
+	// the number of times interning has been suspended by the current thread
+	private static final ThreadLocal<int[]> suspended = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	static class Segment {
+		final Map<Object, WeakReference<Object>> objectCache = new WeakHashMap<>();
+		/* @GuardedBy("this") */
+		long hits;
+		/* @GuardedBy("this") */
+		long misses;
+
+		/* must be called while holding the lock of this segment */
+		Object intern(Object obj) {
+			WeakReference<Object> ref = objectCache.get(obj);
+			Object refValue = ref == null ? null : ref.get();
+			if (refValue != null) {
+				hits++;
+				if (DEBUG_OBJECTPOOL_DUPS)
+					Debug.println("[ObjectPool] Found duplicate object: " + getObjectString(refValue)); //$NON-NLS-1$
+				return refValue;
+			}
+			misses++;
+			objectCache.put(obj, new WeakReference<>(obj));
+			if (DEBUG_OBJECTPOOL_ADDS)
+				Debug.println("[ObjectPool] Added unique object to pool: " + getObjectString(obj) + " Pool size: " + objectCache.size()); //$NON-NLS-1$ //$NON-NLS-2$
+			return obj;
+		}
+	}
 
 	@SuppressWarnings("unchecked")
 	public static <T> T intern(T obj) {
-		synchronized (objectCache) {
-			WeakReference<Object> ref = objectCache.get(obj);
-			if (ref != null) {
-				Object refValue = ref.get();
-				if (refValue != null) {
-					obj = (T) refValue;
-					if (DEBUG_OBJECTPOOL_DUPS)
-						Debug.println("[ObjectPool] Found duplicate object: " + getObjectString(obj)); //$NON-NLS-1$
+		if (obj == null || suspended.get()[0] > 0)
+			return obj;
+		Segment segment = segments[getSegmentIndex(obj)];
+		synchronized (segment) {
+			return (T) segment.intern(obj);
+		}
+	}
+
+	/**
+	 * Interns each of the objects in the specified array.  Each element of the
+	 * array is replaced with the interned object.  The lock of each segment of
+	 * the pool is only acquired once for all of the objects in the array.
+	 * @param objs the objects to intern, <code>null</code> elements are ignored
+	 */
+	public static void intern(Object[] objs) {
+		if (objs.length == 0 || suspended.get()[0] > 0)
+			return;
+		int[] segmentIndexes = new int[objs.length];
+		boolean[] used = new boolean[NUM_SEGMENTS];
+		for (int i = 0; i < objs.length; i++) {
+			if (objs[i] != null) {
+				segmentIndexes[i] = getSegmentIndex(objs[i]);
+				used[segmentIndexes[i]] = true;
+			}
+		}
+		for (int s = 0; s < NUM_SEGMENTS; s++) {
+			if (!used[s])
+				continue;
+			Segment segment = segments[s];
+			synchronized (segment) {
+				for (int i = 0; i < objs.length; i++) {
+					if (objs[i] != null && segmentIndexes[i] == s)
+						objs[i] = segment.intern(objs[i]);
 				}
-			} else {
-				objectCache.put(obj, new WeakReference<Object>(obj));
-				if (DEBUG_OBJECTPOOL_ADDS)
-					Debug.println("[ObjectPool] Added unique object to pool: " + getObjectString(obj) + " Pool size: " + objectCache.size()); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 		}
-		return obj;
 	}
 
-	private static String getObjectString(Object obj) {
+	/**
+	 * Suspends interning for the current thread.  While interning is suspended
+	 * the intern methods return the objects passed to them without adding them
+	 * to the pool.  This avoids filling the pool with objects that are only used
+	 * briefly.  Each call must be followed by a call to {@link #resumeInterning()}.
+	 */
+	public static void suspendInterning() {
+		suspended.get()[0]++;
+	}
+
+	/**
+	 * Resumes interning for the current thread after a call to {@link #suspendInterning()}.
+	 */
+	public static void resumeInterning() {
+		int[] count = suspended.get();
+		if (count[0] > 0)
+			count[0]--;
+	}
+
+	/**
+	 * Returns the number of objects in the pool.  The count may include objects
+	 * which have been garbage collected but are not yet removed from the pool.
+	 * @return the number of objects in the pool
+	 */
+	public static int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.objectCache.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of times an equal object was found in the pool.
+	 * @return the number of times an equal object was found in the pool
+	 */
+	public static long getHitCount() {
+		long hits = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				hits += segment.hits;
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Returns the number of times an object was added to the pool.
+	 * @return the number of times an object was added to the pool
+	 */
+	public static long getMissCount() {
+		long misses = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				misses += segment.misses;
+			}
+		}
+		return misses;
+	}
+
+	private static int getSegmentIndex(Object obj) {
+		int h = obj.hashCode();
+		// spread the higher bits into the lower bits used to select the segment
+		h ^= (h >>> 16);
+		h ^= (h >>> 7);
+		return h & (NUM_SEGMENTS - 1);
+	}
+
+	static String getObjectString(Object obj) {
 		return "[(" + obj.getClass().getName() + ") " + obj.toString() + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 }
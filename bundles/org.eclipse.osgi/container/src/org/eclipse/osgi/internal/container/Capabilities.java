@@ -11,6 +11,8 @@
 package org.eclipse.osgi.internal.container;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.eclipse.osgi.container.ModuleCapability;
@@ -29,6 +31,14 @@ public class Capabilities {
 		private final Set<ModuleCapability> all = new HashSet<>();
 		private final Set<ModuleCapability> nonStringIndexes = new HashSet<>(0);
 		private final boolean matchMandatory;
+		// Caches the capabilities matching a requirement filter.  The matching capabilities
+		// only depend on the filter, so the cached matches are reused by all requirements
+		// and resolve operations until a capability which may match is added or removed.
+		// The matches of filters with an index key are cached by index key; other filters
+		// are cached in the unindexed matches.  The caches may be updated concurrently
+		// by readers of the module database.
+		private final ConcurrentMap<String, ConcurrentMap<String, List<ModuleCapability>>> indexedMatches = new ConcurrentHashMap<>();
+		private final ConcurrentMap<String, List<ModuleCapability>> unindexedMatches = new ConcurrentHashMap<>();
 
 		NamespaceSet(String name) {
 			this.name = name;
@@ -40,6 +50,7 @@ public class Capabilities {
 				throw new IllegalArgumentException("Invalid namespace: " + capability.getNamespace() + ": expecting: " + name); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 			all.add(capability);
+			unindexedMatches.clear();
 			// by convention we index by the namespace attribute
 			Object index = capability.getAttributes().get(name);
 			if (index == null) {
@@ -63,7 +74,10 @@ public class Capabilities {
 		private void addIndex(Object indexKey, ModuleCapability capability) {
 			if (!(indexKey instanceof String)) {
 				nonStringIndexes.add(capability);
+				// may match any filter with an index key
+				indexedMatches.clear();
 			} else {
+				indexedMatches.remove(indexKey);
 				Set<ModuleCapability> capabilities = indexes.get(indexKey);
 				if (capabilities == null) {
 					capabilities = new HashSet<>(1);
@@ -78,6 +92,7 @@ public class Capabilities {
 				throw new IllegalArgumentException("Invalid namespace: " + capability.getNamespace() + ": expecting: " + name); //$NON-NLS-1$//$NON-NLS-2$
 			}
 			all.remove(capability);
+			unindexedMatches.clear();
 			// by convention we index by the namespace attribute
 			Object index = capability.getAttributes().get(name);
 			if (index == null) {
@@ -101,7 +116,9 @@ public class Capabilities {
 		private void removeIndex(Object indexKey, ModuleCapability capability) {
 			if (!(indexKey instanceof String)) {
 				nonStringIndexes.remove(capability);
+				indexedMatches.clear();
 			} else {
+				indexedMatches.remove(indexKey);
 				Set<ModuleCapability> capabilities = indexes.get(indexKey);
 				if (capabilities != null) {
 					capabilities.remove(capability);
@@ -124,12 +141,21 @@ public class Capabilities {
 			}
 			Object syntheticAttr = requirement.getAttributes().get(SYNTHETIC_REQUIREMENT);
 			boolean synthetic = syntheticAttr instanceof Boolean ? ((Boolean) syntheticAttr).booleanValue() : false;
+			String indexKey = f == null ? null : f.getPrimaryKeyValue(name);
+
+			// synthetic requirements are rare and ignore the mandatory directive; they are not cached
+			ConcurrentMap<String, List<ModuleCapability>> cache = synthetic ? null : getMatchCache(indexKey);
+			String cacheKey = filterSpec == null ? "" : filterSpec; //$NON-NLS-1$
+			List<ModuleCapability> cached = cache == null ? null : cache.get(cacheKey);
+			if (cached != null) {
+				// return a mutable snapshot
+				return new ArrayList<>(cached);
+			}
 
 			List<ModuleCapability> result;
 			if (filterSpec == null) {
 				result = match(null, all, synthetic);
 			} else {
-				String indexKey = f.getPrimaryKeyValue(name);
 				if (indexKey == null) {
 					result = match(f, all, synthetic);
 				} else {
@@ -149,9 +175,27 @@ public class Capabilities {
 					}
 				}
 			}
+			if (cache != null) {
+				cache.put(cacheKey, new ArrayList<>(result));
+			}
 			return result;
 		}
 
+		private ConcurrentMap<String, List<ModuleCapability>> getMatchCache(String indexKey) {
+			if (indexKey == null) {
+				return unindexedMatches;
+			}
+			ConcurrentMap<String, List<ModuleCapability>> cache = indexedMatches.get(indexKey);
+			if (cache == null) {
+				cache = new ConcurrentHashMap<>();
+				ConcurrentMap<String, List<ModuleCapability>> existing = indexedMatches.putIfAbsent(indexKey, cache);
+				if (existing != null) {
+					cache = existing;
+				}
+			}
+			return cache;
+		}
+
 		private List<ModuleCapability> match(Filter f, Set<ModuleCapability> candidates, boolean synthetic) {
 			List<ModuleCapability> result = new ArrayList<>(1);
 			for (ModuleCapability candidate : candidates) {
@@ -15,11 +15,13 @@ import java.io.*;
 import java.net.URLConnection;
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleWiring;
 import org.eclipse.osgi.container.namespaces.EquinoxModuleDataNamespace;
 import org.eclipse.osgi.framework.eventmgr.EventDispatcher;
 import org.eclipse.osgi.internal.debug.Debug;
+import org.eclipse.osgi.internal.hookregistry.EventRecorderHook;
 import org.eclipse.osgi.internal.loader.BundleLoader;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.internal.serviceregistry.*;
@@ -53,9 +55,11 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 	final Debug debug;
 
 	/** Services that bundle is using. Key is ServiceRegistrationImpl,
-	 Value is ServiceUse */
-	/* @GuardedBy("contextLock") */
-	private HashMap<ServiceRegistrationImpl<?>, ServiceUse<?>> servicesInUse;
+	 Value is ServiceUse. The map is concurrent so that a ServiceUse can be looked
+	 up without locking, but structural changes are still made while holding the
+	 map's monitor. The field is only assigned while holding contextLock; it is
+	 volatile so that it can be read without the lock. */
+	private volatile ConcurrentHashMap<ServiceRegistrationImpl<?>, ServiceUse<?>> servicesInUse;
 
 	/** The current instantiation of the activator. */
 	private BundleActivator activator;
@@ -720,8 +724,12 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 			if (debug.DEBUG_BUNDLE_TIME) {
 				Debug.println("Starting " + bundle); //$NON-NLS-1$
 			}
+			List<EventRecorderHook> recorders = container.getConfiguration().getHookRegistry().getEventRecorderHooks();
+			long activationStart = recorders.isEmpty() ? 0 : System.nanoTime();
+			boolean successful = false;
 			try {
 				startActivator(activator);
+				successful = true;
 			} catch (BundleException be) {
 				activator = null;
 				throw be;
@@ -729,6 +737,12 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 				if (debug.DEBUG_BUNDLE_TIME) {
 					Debug.println("End starting " + bundle + " " + (System.currentTimeMillis() - start)); //$NON-NLS-1$ //$NON-NLS-2$
 				}
+				if (!recorders.isEmpty()) {
+					long duration = System.nanoTime() - activationStart;
+					for (EventRecorderHook recorder : recorders) {
+						recorder.bundleActivated(bundle.getBundleId(), successful, duration);
+					}
+				}
 			}
 		}
 
@@ -860,9 +874,7 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 	 * this context.
 	 */
 	public Map<ServiceRegistrationImpl<?>, ServiceUse<?>> getServicesInUseMap() {
-		synchronized (contextLock) {
-			return servicesInUse;
-		}
+		return servicesInUse;
 	}
 
 	/**
@@ -873,7 +885,7 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 		synchronized (contextLock) {
 			if (servicesInUse == null)
 				// Cannot predict how many services a bundle will use, start with a small table.
-				servicesInUse = new HashMap<>(10);
+				servicesInUse = new ConcurrentHashMap<>(10);
 		}
 	}
 
@@ -969,7 +981,7 @@ public class BundleContextImpl implements BundleContext, EventDispatcher<Object,
 	public Filter createFilter(String filter) throws InvalidSyntaxException {
 		checkValid();
 
-		return FilterImpl.newInstance(filter, container.getConfiguration().getDebug().DEBUG_FILTER);
+		return container.createFilter(filter);
 	}
 
 	/**
@@ -198,10 +198,30 @@ public class EquinoxConfiguration implements EnvironmentInfo {
 	public static final String PROP_MODULE_AUTO_START_ON_RESOLVE = "osgi.module.auto.start.on.resolve"; //$NON-NLS-1$
 	public static final String PROP_ALLOW_RESTRICTED_PROVIDES = "osgi.equinox.allow.restricted.provides"; //$NON-NLS-1$
 	public static final String PROP_LOG_HISTORY_MAX = "equinox.log.history.max"; //$NON-NLS-1$
+	public static final String PROP_LOG_LISTENER_THREAD_COUNT = "equinox.log.listener.thread.count"; //$NON-NLS-1$
+	public static final String PROP_LOG_LISTENER_BACKLOG_MAX = "equinox.log.listener.backlog.max"; //$NON-NLS-1$
+	public static final String PROP_LOG_LISTENER_OVERFLOW = "equinox.log.listener.overflow"; //$NON-NLS-1$
 
 	public static final String PROP_RESOLVER_THREAD_COUNT = "equinox.resolver.thead.count"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_REVISION_BATCH_SIZE = "equinox.resolver.revision.batch.size"; //$NON-NLS-1$
 	public static final String PROP_RESOLVER_BATCH_TIMEOUT = "equinox.resolver.batch.timeout"; //$NON-NLS-1$
+	public static final String PROP_RESOLVER_WORK_STEALING = "equinox.resolver.work.stealing"; //$NON-NLS-1$
+
+	public static final String PROP_START_LEVEL_THREAD_COUNT = "equinox.start.level.thread.count"; //$NON-NLS-1$
+
+	public static final String PROP_EVENT_DISPATCH_THREAD_COUNT = "equinox.event.dispatch.thread.count"; //$NON-NLS-1$
+
+	public static final String PROP_INSTALL_THREAD_COUNT = "equinox.install.thread.count"; //$NON-NLS-1$
+
+	public static final String PROP_CLASSPATH_INDEX = "equinox.classpath.index"; //$NON-NLS-1$
+
+	public static final String PROP_LOCALIZED_HEADERS_CACHE = "equinox.localized.headers.cache"; //$NON-NLS-1$
+
+	public static final String PROP_SIGNED_CONTENT_VERIFY_CACHE = "equinox.signedcontent.verify.cache"; //$NON-NLS-1$
+
+	public static final String PROP_SIGNED_CONTENT_VERIFY_THREAD_COUNT = "equinox.signedcontent.verify.thread.count"; //$NON-NLS-1$
+
+	public static final String PROP_MAPPED_BUNDLE_FILES = "equinox.bundlefile.mapped"; //$NON-NLS-1$
 
 	public static final String PROP_SYSTEM_PROVIDE_HEADER = "equinox.system.provide.header"; //$NON-NLS-1$
 	public static final String SYSTEM_PROVIDE_HEADER_ORIGINAL = "original"; //$NON-NLS-1$
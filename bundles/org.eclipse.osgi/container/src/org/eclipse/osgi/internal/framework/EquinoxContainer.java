@@ -20,6 +20,7 @@ import org.eclipse.osgi.framework.util.SecureAction;
 import org.eclipse.osgi.internal.framework.legacy.PackageAdminImpl;
 import org.eclipse.osgi.internal.framework.legacy.StartLevelImpl;
 import org.eclipse.osgi.internal.hookregistry.HookRegistry;
+import org.eclipse.osgi.internal.loader.BootDelegationMatcher;
 import org.eclipse.osgi.internal.location.EquinoxLocations;
 import org.eclipse.osgi.internal.log.EquinoxLogServices;
 import org.eclipse.osgi.internal.messages.Msg;
@@ -43,13 +44,23 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 	private final Storage storage;
 	private final PackageAdmin packageAdmin;
 	private final StartLevel startLevel;
-	private final Set<String> bootDelegation;
-	private final String[] bootDelegationStems;
-	private final boolean bootDelegateAll;
+	private final BootDelegationMatcher bootDelegation;
 	private final EquinoxEventPublisher eventPublisher;
 
 	private final Object monitor = new Object();
 
+	//maximum number of parsed filters kept in the filter cache
+	private static final int MAX_CACHED_FILTERS = 1024;
+	//cache of parsed filters by filter string; the least recently used filter is removed when the cache is full
+	private final Map<String, FilterImpl> filterCache = new LinkedHashMap<String, FilterImpl>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, FilterImpl> eldest) {
+			return size() > MAX_CACHED_FILTERS;
+		}
+	};
+
 	private ServiceRegistry serviceRegistry;
 	private ContextFinder contextFinder;
 
@@ -78,25 +89,7 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 		// TODO ideally this should be in equinox configuration or perhaps in storage
 		String bootDelegationProp = equinoxConfig.getConfiguration(Constants.FRAMEWORK_BOOTDELEGATION);
 		String[] bootPackages = ManifestElement.getArrayFromList(bootDelegationProp, ","); //$NON-NLS-1$
-		HashSet<String> exactMatch = new HashSet<>(bootPackages.length);
-		List<String> stemMatch = new ArrayList<>(bootPackages.length);
-		boolean delegateAllValue = false;
-		for (int i = 0; i < bootPackages.length; i++) {
-			if (bootPackages[i].equals("*")) { //$NON-NLS-1$
-				delegateAllValue = true;
-				exactMatch.clear();
-				stemMatch.clear();
-				break;
-			} else if (bootPackages[i].endsWith("*")) { //$NON-NLS-1$
-				if (bootPackages[i].length() > 2 && bootPackages[i].endsWith(".*")) //$NON-NLS-1$
-					stemMatch.add(bootPackages[i].substring(0, bootPackages[i].length() - 1));
-			} else {
-				exactMatch.add(bootPackages[i]);
-			}
-		}
-		bootDelegateAll = delegateAllValue;
-		bootDelegation = exactMatch;
-		bootDelegationStems = stemMatch.isEmpty() ? null : stemMatch.toArray(new String[stemMatch.size()]);
+		bootDelegation = new BootDelegationMatcher(bootPackages);
 	}
 
 	public Storage getStorage() {
@@ -132,15 +125,37 @@ public class EquinoxContainer implements ThreadFactory, Runnable {
 	}
 
 	public boolean isBootDelegationPackage(String name) {
-		if (bootDelegateAll)
-			return true;
-		if (bootDelegation.contains(name))
-			return true;
-		if (bootDelegationStems != null)
-			for (int i = 0; i < bootDelegationStems.length; i++)
-				if (name.startsWith(bootDelegationStems[i]))
-					return true;
-		return false;
+		return bootDelegation.isBootDelegationPackage(name);
+	}
+
+	public BootDelegationMatcher getBootDelegation() {
+		return bootDelegation;
+	}
+
+	/**
+	 * Creates a filter for the bundle contexts of this container.  Parsed filters are
+	 * immutable, so the same filter is returned for the same filter string while it
+	 * is kept in the filter cache.  Filters created in debug mode are not cached.
+	 * @param filterString the filter string
+	 * @return the filter
+	 * @throws InvalidSyntaxException if the filter string is invalid
+	 */
+	public FilterImpl createFilter(String filterString) throws InvalidSyntaxException {
+		boolean debug = equinoxConfig.getDebug().DEBUG_FILTER;
+		if (debug || filterString == null)
+			return FilterImpl.newInstance(filterString, debug);
+		FilterImpl result;
+		synchronized (filterCache) {
+			result = filterCache.get(filterString);
+		}
+		if (result == null) {
+			// parse outside of the lock; a filter parsed twice concurrently is equal
+			result = FilterImpl.newInstance(filterString, false);
+			synchronized (filterCache) {
+				filterCache.put(filterString, result);
+			}
+		}
+		return result;
 	}
 
 	void init() {
@@ -14,12 +14,14 @@ import java.lang.reflect.Method;
 import java.security.ProtectionDomain;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.osgi.container.*;
 import org.eclipse.osgi.container.Module.Settings;
 import org.eclipse.osgi.container.Module.State;
 import org.eclipse.osgi.internal.container.AtomicLazyInitializer;
 import org.eclipse.osgi.internal.hookregistry.ClassLoaderHook;
+import org.eclipse.osgi.internal.hookregistry.EventRecorderHook;
 import org.eclipse.osgi.internal.loader.*;
 import org.eclipse.osgi.internal.permadmin.BundlePermissions;
 import org.eclipse.osgi.service.debug.DebugOptions;
@@ -53,6 +55,9 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 	final AtomicLazyInitializer<Executor> executor = new AtomicLazyInitializer<>();
 	final Callable<Executor> lazyExecutorCreator;
 
+	final AtomicLazyInitializer<Executor> startLevelExecutor = new AtomicLazyInitializer<>();
+	final Callable<Executor> lazyStartLevelExecutorCreator;
+
 	public EquinoxContainerAdaptor(EquinoxContainer container, Storage storage, Map<Long, Generation> initial) {
 		this.container = container;
 		this.storage = storage;
@@ -61,6 +66,7 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		this.moduleClassLoaderParent = getModuleClassLoaderParent(container.getConfiguration());
 		this.lastSecurityAdminFlush = new AtomicLong();
 		this.lazyExecutorCreator = createLazyExecutorCreator(container.getConfiguration());
+		this.lazyStartLevelExecutorCreator = createLazyStartLevelExecutorCreator(container.getConfiguration());
 	}
 
 	private Callable<Executor> createLazyExecutorCreator(EquinoxConfiguration config) {
@@ -71,6 +77,10 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		} catch (NumberFormatException e) {
 			threadCntTmp = -1;
 		}
+		if (Boolean.parseBoolean(config.getConfiguration(EquinoxConfiguration.PROP_RESOLVER_WORK_STEALING))) {
+			// the resolving thread only waits for the pool, so use the number of processors
+			return createLazyWorkStealingExecutorCreator(threadCntTmp <= 0 ? Runtime.getRuntime().availableProcessors() : threadCntTmp);
+		}
 		// use the number of processors - 1 because we use the current thread when rejected
 		final int maxThreads = threadCntTmp <= 0 ? Math.max(Runtime.getRuntime().availableProcessors() - 1, 1) : threadCntTmp;
 		return new Callable<Executor>() {
@@ -111,6 +121,64 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		};
 	}
 
+	private Callable<Executor> createLazyWorkStealingExecutorCreator(final int parallelism) {
+		return new Callable<Executor>() {
+			@Override
+			public Executor call() throws Exception {
+				// Tasks submitted by the resolver from a worker thread are queued on that worker and
+				// may be stolen by idle workers; idle workers terminate after a short timeout
+				ForkJoinWorkerThreadFactory threadFactory = new ForkJoinWorkerThreadFactory() {
+					@Override
+					public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+						ForkJoinWorkerThread t = new ForkJoinWorkerThread(pool) {
+							// the constructor is protected
+						};
+						t.setName("Resolver thread - " + EquinoxContainerAdaptor.this.toString()); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				};
+				return new ForkJoinPool(parallelism, threadFactory, null, false);
+			}
+		};
+	}
+
+	private Callable<Executor> createLazyStartLevelExecutorCreator(EquinoxConfiguration config) {
+		String threadCntProp = config.getConfiguration(EquinoxConfiguration.PROP_START_LEVEL_THREAD_COUNT);
+		int threadCntTmp;
+		try {
+			// by default modules are activated one at a time on the start level thread
+			threadCntTmp = threadCntProp == null ? 1 : Integer.parseInt(threadCntProp);
+		} catch (NumberFormatException e) {
+			threadCntTmp = 1;
+		}
+		// a value of zero or less means use the number of processors
+		final int maxThreads = threadCntTmp <= 0 ? Runtime.getRuntime().availableProcessors() : threadCntTmp;
+		if (maxThreads == 1) {
+			return null;
+		}
+		return new Callable<Executor>() {
+			@Override
+			public Executor call() throws Exception {
+				// use an unbounded FIFO queue; the start level thread waits on modules in the order they are queued
+				BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>();
+				// try to name the threads with useful name
+				ThreadFactory threadFactory = new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "Start Level Worker - " + EquinoxContainerAdaptor.this.toString()); //$NON-NLS-1$
+						t.setDaemon(true);
+						return t;
+					}
+				};
+				ThreadPoolExecutor result = new ThreadPoolExecutor(maxThreads, maxThreads, 10, TimeUnit.SECONDS, queue, threadFactory);
+				// Always want to go to zero threads when idle
+				result.allowCoreThreadTimeOut(true);
+				return result;
+			}
+		};
+	}
+
 	private static ClassLoader getModuleClassLoaderParent(EquinoxConfiguration configuration) {
 		// allow hooks to determine the parent class loader
 		for (ClassLoaderHook hook : configuration.getHookRegistry().getClassLoaderHooks()) {
@@ -329,6 +397,21 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		hooks.initEnd();
 	}
 
+	@Override
+	public void resolveCompleted(Collection<ModuleRevision> triggers, boolean dynamic, int resolved, long durationNanos) {
+		List<EventRecorderHook> recorders = container.getConfiguration().getHookRegistry().getEventRecorderHooks();
+		if (recorders.isEmpty())
+			return;
+		long[] bundleIds = new long[triggers.size()];
+		int i = 0;
+		for (ModuleRevision trigger : triggers) {
+			bundleIds[i++] = trigger.getRevisions().getModule().getId().longValue();
+		}
+		for (EventRecorderHook recorder : recorders) {
+			recorder.resolved(bundleIds, dynamic, resolved, durationNanos);
+		}
+	}
+
 	@Override
 	public DebugOptions getDebugOptions() {
 		return container.getConfiguration().getDebugOptions();
@@ -346,6 +429,21 @@ public class EquinoxContainerAdaptor extends ModuleContainerAdaptor {
 		}
 	}
 
+	@Override
+	public Executor getStartLevelExecutor() {
+		if (lazyStartLevelExecutorCreator == null) {
+			return null;
+		}
+		return startLevelExecutor.getInitialized(lazyStartLevelExecutorCreator);
+	}
+
+	public void shutdownStartLevelExecutor() {
+		Executor current = startLevelExecutor.getAndClear();
+		if (current instanceof ExecutorService) {
+			((ExecutorService) current).shutdown();
+		}
+	}
+
 	@Override
 	public ModuleRevisionBuilder adaptModuleRevisionBuilder(ModuleEvent operation, Module origin, ModuleRevisionBuilder builder, Object revisionInfo) {
 		Generation generation = (Generation) revisionInfo;
@@ -13,7 +13,6 @@ package org.eclipse.osgi.internal.framework;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import org.eclipse.osgi.framework.eventmgr.*;
 import org.eclipse.osgi.internal.debug.Debug;
@@ -59,7 +58,23 @@ public class EquinoxEventPublisher {
 
 	void init() {
 		// create our event manager on init()
-		resetEventManager(new EventManager("Framework Event Dispatcher: " + toString())); //$NON-NLS-1$
+		int threadCount = getEventThreadCount();
+		// the delivery statistics are traced when the event manager is closed
+		boolean keepStatistics = threadCount > 1 || container.getConfiguration().getDebug().DEBUG_EVENTS;
+		resetEventManager(new EventManager("Framework Event Dispatcher: " + toString(), null, threadCount, keepStatistics)); //$NON-NLS-1$
+	}
+
+	private int getEventThreadCount() {
+		String threadCntProp = container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_EVENT_DISPATCH_THREAD_COUNT);
+		int threadCnt;
+		try {
+			// by default a single thread delivers all asynchronous events
+			threadCnt = threadCntProp == null ? 1 : Integer.parseInt(threadCntProp);
+		} catch (NumberFormatException e) {
+			threadCnt = 1;
+		}
+		// a value of zero or less means use the number of processors
+		return threadCnt <= 0 ? Runtime.getRuntime().availableProcessors() : threadCnt;
 	}
 
 	void close() {
@@ -80,10 +95,25 @@ public class EquinoxEventPublisher {
 			eventManager = newEventManager;
 		}
 		if (currentEventManager != null) {
+			if (container.getConfiguration().getDebug().DEBUG_EVENTS) {
+				traceStatistics(currentEventManager);
+			}
 			currentEventManager.close();
 		}
 	}
 
+	private static void traceStatistics(EventManager manager) {
+		Debug.println("Asynchronous event queue depth: " + manager.getQueueDepth()); //$NON-NLS-1$
+		for (Map.Entry<Object, EventManager.ListenerStatistics> entry : manager.getListenerStatistics().entrySet()) {
+			EventManager.ListenerStatistics statistics = entry.getValue();
+			long count = statistics.getCount();
+			long average = count == 0 ? 0 : statistics.getTotalLatency() / count;
+			Debug.println("Asynchronous events delivered to " + entry.getKey() + ": " + count //$NON-NLS-1$ //$NON-NLS-2$
+					+ ", average latency: " + TimeUnit.NANOSECONDS.toMicros(average) + "us" //$NON-NLS-1$ //$NON-NLS-2$
+					+ ", max latency: " + TimeUnit.NANOSECONDS.toMicros(statistics.getMaxLatency()) + "us"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
 	public <K, V, E> ListenerQueue<K, V, E> newListenerQueue() {
 		synchronized (this.monitor) {
 			return new ListenerQueue<>(eventManager);
@@ -417,24 +447,16 @@ public class EquinoxEventPublisher {
 	}
 
 	void flushFrameworkEvents() {
-		EventDispatcher<Object, Object, CountDownLatch> dispatcher = new EventDispatcher<Object, Object, CountDownLatch>() {
-			@Override
-			public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, CountDownLatch flushedSignal) {
-				// Signal that we have flushed all events
-				flushedSignal.countDown();
-			}
-		};
-
-		ListenerQueue<Object, Object, CountDownLatch> queue = newListenerQueue();
-		queue.queueListeners(Collections.<Object, Object> singletonMap(dispatcher, dispatcher).entrySet(), dispatcher);
-
-		// fire event with the flushedSignal latch
-		CountDownLatch flushedSignal = new CountDownLatch(1);
-		queue.dispatchEventAsynchronous(0, flushedSignal);
-
+		EventManager currentEventManager;
+		synchronized (this.monitor) {
+			currentEventManager = eventManager;
+		}
+		if (currentEventManager == null) {
+			return;
+		}
 		try {
-			// Wait for the flush signal; timeout after 30 seconds
-			flushedSignal.await(30, TimeUnit.SECONDS);
+			// Wait for the queued events to be delivered; timeout after 30 seconds
+			currentEventManager.flush(TimeUnit.SECONDS.toMillis(30));
 		} catch (InterruptedException e) {
 			// ignore but reset the interrupted flag
 			Thread.currentThread().interrupt();
@@ -297,7 +297,7 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			case GREATER :
 			case LESS :
 			case APPROX : {
-				Object prop = (map == null) ? null : map.get(attr);
+				Object prop = getProperty(map);
 
 				return compare(op, prop, value);
 			}
@@ -307,7 +307,7 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 					Debug.println("PRESENT(" + attr + ")"); //$NON-NLS-1$ //$NON-NLS-2$
 				}
 
-				Object prop = (map == null) ? null : map.get(attr);
+				Object prop = getProperty(map);
 
 				return prop != null;
 			}
@@ -316,6 +316,25 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 		return false;
 	}
 
+	/**
+	 * Returns the value of the attribute of this filter from the specified map.
+	 * The case insensitive key of the attribute is resolved when the filter
+	 * is parsed so looking up the value in a case insensitive map, such
+	 * as the service properties, does not need to wrap the attribute again.
+	 * 
+	 * @param map The map to get the value from, may be {@code null}.
+	 * @return The value of the attribute or {@code null}.
+	 */
+	private Object getProperty(Map<String, ?> map) {
+		if (map == null) {
+			return null;
+		}
+		if (map instanceof CaseInsensitiveDictionaryMap) {
+			return ((CaseInsensitiveDictionaryMap<String, ?>) map).get(attrKey);
+		}
+		return map.get(attr);
+	}
+
 	/**
 	 * Returns this <code>Filter</code> object's filter string.
 	 * <p>
@@ -481,8 +500,12 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 
 	/** filter attribute or null if operation AND, OR or NOT */
 	private final String attr;
+	/** case insensitive key of the filter attribute or null if operation AND, OR or NOT */
+	private final Object attrKey;
 	/** filter operands */
 	private final Object value;
+	/** filter operand converted to the compared value types or null if not a comparison operation */
+	private final Operand operand;
 	/** debug mode */
 	private final boolean debug;
 
@@ -492,7 +515,9 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 	FilterImpl(int operation, String attr, Object value, boolean debug) {
 		this.op = operation;
 		this.attr = attr;
+		this.attrKey = attr == null ? null : CaseInsensitiveDictionaryMap.caseInsensitiveKey(attr);
 		this.value = value;
+		this.operand = value instanceof String ? new Operand((String) value) : null;
 		this.debug = debug;
 	}
 
@@ -784,7 +809,7 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 				}
 
 				string = approxString(string);
-				String string2 = approxString((String) value2);
+				String string2 = operand.approxValue();
 
 				return string.equalsIgnoreCase(string2);
 			}
@@ -813,12 +838,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		int intval2;
-		try {
-			intval2 = Integer.parseInt(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Object converted = operand.integerValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		int intval2 = ((Integer) converted).intValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -857,12 +881,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		long longval2;
-		try {
-			longval2 = Long.parseLong(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Object converted = operand.longValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		long longval2 = ((Long) converted).longValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -901,12 +924,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		byte byteval2;
-		try {
-			byteval2 = Byte.parseByte(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Object converted = operand.byteValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		byte byteval2 = ((Byte) converted).byteValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -945,12 +967,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		short shortval2;
-		try {
-			shortval2 = Short.parseShort(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Object converted = operand.shortValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		short shortval2 = ((Short) converted).shortValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -989,12 +1010,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		char charval2;
-		try {
-			charval2 = ((String) value2).charAt(0);
-		} catch (IndexOutOfBoundsException e) {
+		Object converted = operand.characterValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		char charval2 = ((Character) converted).charValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1033,7 +1053,7 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		boolean boolval2 = Boolean.valueOf(((String) value2).trim()).booleanValue();
+		boolean boolval2 = operand.booleanValue().booleanValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1072,12 +1092,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		float floatval2;
-		try {
-			floatval2 = Float.parseFloat(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Object converted = operand.floatValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		float floatval2 = ((Float) converted).floatValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1116,12 +1135,11 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			return false;
 		}
 
-		double doubleval2;
-		try {
-			doubleval2 = Double.parseDouble(((String) value2).trim());
-		} catch (IllegalArgumentException e) {
+		Object converted = operand.doubleValue();
+		if (converted == Operand.INVALID) {
 			return false;
 		}
+		double doubleval2 = ((Double) converted).doubleValue();
 		switch (operation) {
 			case EQUAL : {
 				if (debug) {
@@ -1207,8 +1225,12 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 			}
 			return false;
 		}
+		Object converted = operand.versionValue();
+		if (converted == Operand.INVALID) {
+			return false;
+		}
 		try {
-			Version version = Version.valueOf(((String) value2).trim());
+			Version version = (Version) converted;
 
 			switch (operation) {
 				case EQUAL : {
@@ -1363,6 +1385,152 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 		return changed ? new String(output, 0, cursor) : input;
 	}
 
+	/**
+	 * The operand of a comparison filter converted to the value types it is
+	 * compared with. Each conversion is done at most once, the first time the
+	 * operand is compared with a value of that type, instead of on every match.
+	 * The converted values are immutable; racing threads at worst convert the
+	 * operand more than once.
+	 */
+	private static final class Operand {
+		/** marker for an operand that cannot be converted to a type */
+		static final Object INVALID = new Object();
+
+		private final String string;
+		private Object integerValue;
+		private Object longValue;
+		private Object byteValue;
+		private Object shortValue;
+		private Object characterValue;
+		private Object floatValue;
+		private Object doubleValue;
+		private Boolean booleanValue;
+		private Object versionValue;
+		private String approxValue;
+
+		Operand(String string) {
+			this.string = string;
+		}
+
+		Object integerValue() {
+			Object result = integerValue;
+			if (result == null) {
+				try {
+					result = Integer.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				integerValue = result;
+			}
+			return result;
+		}
+
+		Object longValue() {
+			Object result = longValue;
+			if (result == null) {
+				try {
+					result = Long.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				longValue = result;
+			}
+			return result;
+		}
+
+		Object byteValue() {
+			Object result = byteValue;
+			if (result == null) {
+				try {
+					result = Byte.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				byteValue = result;
+			}
+			return result;
+		}
+
+		Object shortValue() {
+			Object result = shortValue;
+			if (result == null) {
+				try {
+					result = Short.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				shortValue = result;
+			}
+			return result;
+		}
+
+		Object characterValue() {
+			Object result = characterValue;
+			if (result == null) {
+				result = string.isEmpty() ? INVALID : Character.valueOf(string.charAt(0));
+				characterValue = result;
+			}
+			return result;
+		}
+
+		Object floatValue() {
+			Object result = floatValue;
+			if (result == null) {
+				try {
+					result = Float.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				floatValue = result;
+			}
+			return result;
+		}
+
+		Object doubleValue() {
+			Object result = doubleValue;
+			if (result == null) {
+				try {
+					result = Double.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				doubleValue = result;
+			}
+			return result;
+		}
+
+		Boolean booleanValue() {
+			Boolean result = booleanValue;
+			if (result == null) {
+				result = Boolean.valueOf(string.trim());
+				booleanValue = result;
+			}
+			return result;
+		}
+
+		Object versionValue() {
+			Object result = versionValue;
+			if (result == null) {
+				try {
+					result = Version.valueOf(string.trim());
+				} catch (IllegalArgumentException e) {
+					result = INVALID;
+				}
+				versionValue = result;
+			}
+			return result;
+		}
+
+		String approxValue() {
+			String result = approxValue;
+			if (result == null) {
+				result = approxString(string);
+				approxValue = result;
+			}
+			return result;
+		}
+	}
+
 	/**
 	 * Returns the leftmost required objectClass value for the filter to evaluate to true.
 	 * 
@@ -1403,6 +1571,49 @@ public class FilterImpl implements Filter /* since Framework 1.1 */ {
 		return null;
 	}
 
+	/**
+	 * Returns the primary key values of which at least one is required for the filter to evaluate to true.
+	 * Unlike {@link #getPrimaryKeyValue(String)} this also handles '|' clauses where each clause
+	 * requires a primary key value.
+	 * This is useful for indexing the filter by the candidates it can match.
+	 * <p>
+	 * (primaryKey=org.acme.BrickService) returns [org.acme.BrickService]<br>
+	 * (|(primaryKey=org.acme.BrickService)(primaryKey=org.acme.CementService)) returns [org.acme.BrickService, org.acme.CementService]<br>
+	 * (|(primaryKey=org.acme.BrickService)(vendor=IBM)) returns null
+	 * @param primaryKey the primary key
+	 * @return The required primary key values or null if none could be determined.
+	 */
+	public List<String> getPrimaryKeyValues(String primaryKey) {
+		switch (op) {
+			case EQUAL :
+				if (attr.equalsIgnoreCase(primaryKey) && (value instanceof String))
+					return Collections.singletonList((String) value);
+				break;
+			case AND :
+				// the values required by any one of the clauses are required by the whole filter
+				for (FilterImpl clause : (FilterImpl[]) value) {
+					List<String> result = clause.getPrimaryKeyValues(primaryKey);
+					if (result != null)
+						return result;
+				}
+				break;
+			case OR :
+				// every clause must require a value
+				List<String> results = new ArrayList<>();
+				for (FilterImpl clause : (FilterImpl[]) value) {
+					List<String> result = clause.getPrimaryKeyValues(primaryKey);
+					if (result == null)
+						return null;
+					for (String r : result) {
+						if (!results.contains(r))
+							results.add(r);
+					}
+				}
+				return results.isEmpty() ? null : results;
+		}
+		return null;
+	}
+
 	public List<FilterImpl> getChildren() {
 		if (value instanceof FilterImpl[]) {
 			return new ArrayList<>(Arrays.asList((FilterImpl[]) value));
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.hookregistry;
+
+/**
+ * A hook that records framework operations together with their durations.
+ * A recorder can forward the operations to a structured event sink such as
+ * JDK Flight Recorder.  The framework only takes timestamps for an operation
+ * when at least one event recorder hook is configured, so the operations are
+ * not measured at all otherwise.
+ * <p>
+ * Recorders are called on the thread performing the operation, often while
+ * class loading or service registry work is in progress.  Implementations
+ * must be fast and must not call back into the framework.
+ */
+public abstract class EventRecorderHook {
+	/**
+	 * Records the definition of a class by a bundle class loader.
+	 * @param bundleId the id of the bundle defining the class
+	 * @param className the name of the class
+	 * @param defined true if the class was newly defined by this operation
+	 * @param durationNanos the time spent processing and defining the class, in nanoseconds
+	 */
+	public void classDefined(long bundleId, String className, boolean defined, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records a search of the required bundles of a bundle for the source of a package.
+	 * Lookups answered from the package source cache are not recorded.
+	 * @param bundleId the id of the bundle searching for the package
+	 * @param packageName the name of the package
+	 * @param found true if a source for the package was found
+	 * @param durationNanos the time spent searching, in nanoseconds
+	 */
+	public void packageSourceSearched(long bundleId, String packageName, boolean found, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records a resolve operation performed by the module resolver.
+	 * @param bundleIds the ids of the bundles that triggered the operation
+	 * @param dynamic true if the operation resolved a dynamic import
+	 * @param resolved the number of revisions wired by the operation
+	 * @param durationNanos the time spent resolving, in nanoseconds
+	 */
+	public void resolved(long[] bundleIds, boolean dynamic, int resolved, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records the call of a bundle activator's start method.
+	 * @param bundleId the id of the bundle being activated
+	 * @param successful true if the activator started successfully
+	 * @param durationNanos the time spent in the activator, in nanoseconds
+	 */
+	public void bundleActivated(long bundleId, boolean successful, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records a service registration.
+	 * @param bundleId the id of the bundle registering the service
+	 * @param serviceId the id of the registered service
+	 * @param durationNanos the time spent registering the service, including the
+	 * delivery of the registered event, in nanoseconds
+	 */
+	public void serviceRegistered(long bundleId, long serviceId, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records a service reference lookup.
+	 * @param bundleId the id of the bundle looking up the services
+	 * @param className the class name used for the lookup, may be null
+	 * @param filter the filter used for the lookup, may be null
+	 * @param found the number of service references found
+	 * @param durationNanos the time spent in the lookup, in nanoseconds
+	 */
+	public void servicesLookedUp(long bundleId, String className, String filter, int found, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records the retrieval of a service object.
+	 * @param bundleId the id of the bundle getting the service
+	 * @param serviceId the id of the service
+	 * @param durationNanos the time spent getting the service object, in nanoseconds
+	 */
+	public void serviceGotten(long bundleId, long serviceId, long durationNanos) {
+		// do nothing by default
+	}
+
+	/**
+	 * Records the delivery of a service event to the service listeners.
+	 * @param bundleId the id of the bundle that registered the service
+	 * @param serviceId the id of the service
+	 * @param type the service event type
+	 * @param durationNanos the time spent calling hooks and listeners, in nanoseconds
+	 */
+	public void serviceEventDelivered(long bundleId, long serviceId, int type, long durationNanos) {
+		// do nothing by default
+	}
+}
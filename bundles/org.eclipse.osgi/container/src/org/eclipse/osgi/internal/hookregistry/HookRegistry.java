@@ -20,8 +20,10 @@ import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.eclipse.osgi.internal.hooks.DevClassLoadingHook;
 import org.eclipse.osgi.internal.hooks.EclipseLazyStarter;
+import org.eclipse.osgi.internal.loader.classpath.ClasspathIndexHook;
 import org.eclipse.osgi.internal.signedcontent.SignedBundleHook;
 import org.eclipse.osgi.internal.weaving.WeavingHookConfigurator;
+import org.eclipse.osgi.storage.LocalizedHeadersHook;
 import org.eclipse.osgi.util.ManifestElement;
 
 /**
@@ -77,6 +79,8 @@ public final class HookRegistry {
 	private final List<BundleFileWrapperFactoryHook> bundleFileWrapperFactoryHooksRO = Collections.unmodifiableList(bundleFileWrapperFactoryHooks);
 	private final List<ActivatorHookFactory> activatorHookFactories = new ArrayList<>();
 	private final List<ActivatorHookFactory> activatorHookFactoriesRO = Collections.unmodifiableList(activatorHookFactories);
+	private final List<EventRecorderHook> eventRecorderHooks = new ArrayList<>();
+	private final List<EventRecorderHook> eventRecorderHooksRO = Collections.unmodifiableList(eventRecorderHooks);
 
 	public HookRegistry(EquinoxContainer container) {
 		this.container = container;
@@ -102,6 +106,12 @@ public final class HookRegistry {
 			addClassLoaderHook(new DevClassLoadingHook(container.getConfiguration()));
 			addClassLoaderHook(new EclipseLazyStarter(container));
 			addClassLoaderHook(new WeavingHookConfigurator(container));
+			if (Boolean.valueOf(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_CLASSPATH_INDEX)).booleanValue()) {
+				addStorageHookFactory(new ClasspathIndexHook());
+			}
+			if (Boolean.valueOf(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_LOCALIZED_HEADERS_CACHE)).booleanValue()) {
+				addStorageHookFactory(new LocalizedHeadersHook());
+			}
 			configurators.add(SignedBundleHook.class.getName());
 			loadConfigurators(configurators, errors);
 			// set to read-only
@@ -228,6 +238,14 @@ public final class HookRegistry {
 		return activatorHookFactoriesRO;
 	}
 
+	/**
+	 * Returns the configured event recorder hooks
+	 * @return the configured event recorder hooks
+	 */
+	public List<EventRecorderHook> getEventRecorderHooks() {
+		return eventRecorderHooksRO;
+	}
+
 	private <H> void add(H hook, List<H> hooks) {
 		if (initialized)
 			throw new IllegalStateException("Cannot add hooks dynamically."); //$NON-NLS-1$
@@ -267,6 +285,14 @@ public final class HookRegistry {
 		add(activatorHookFactory, activatorHookFactories);
 	}
 
+	/**
+	 * Adds an event recorder hook to this hook registry.
+	 * @param eventRecorderHook an event recorder hook object.
+	 */
+	public void addEventRecorderHook(EventRecorderHook eventRecorderHook) {
+		add(eventRecorderHook, eventRecorderHooks);
+	}
+
 	/**
 	 * Returns the configuration associated with this hook registry.
 	 * @return the configuration associated with this hook registry.
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.loader;
+
+import java.util.Arrays;
+
+/**
+ * Matches class, resource and package names against the java.* rule and the
+ * packages of the org.osgi.framework.bootdelegation property.  The rules are
+ * compiled into one prefix trie which is walked directly over the characters
+ * of a class or resource name, so no package name has to be created to decide
+ * whether a name is delegated to the parent class loader.
+ */
+public final class BootDelegationMatcher {
+	/** The name is not delegated to the parent */
+	public static final int NONE = 0;
+	/** The name is in a java.* package; it is only searched in the parent */
+	public static final int JAVA = 1;
+	/** The name is in a boot delegation package; the parent is searched first */
+	public static final int BOOT = 2;
+
+	private static final class Node {
+		char[] chars = new char[0];
+		Node[] children = new Node[0];
+		/** a package ends at this node */
+		boolean exact;
+		/** a package stem ending with '.' ends at this node */
+		boolean stem;
+		/** the java. prefix ends at this node */
+		boolean java;
+
+		Node getChild(char c) {
+			for (int i = 0; i < chars.length; i++) {
+				if (chars[i] == c)
+					return children[i];
+			}
+			return null;
+		}
+
+		Node addChild(char c) {
+			Node child = getChild(c);
+			if (child == null) {
+				child = new Node();
+				chars = Arrays.copyOf(chars, chars.length + 1);
+				chars[chars.length - 1] = c;
+				children = Arrays.copyOf(children, children.length + 1);
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+
+	private final Node root = new Node();
+	private final boolean bootDelegateAll;
+
+	/**
+	 * Creates a matcher for the specified boot delegation packages.
+	 * @param bootPackages the values of the org.osgi.framework.bootdelegation property
+	 */
+	public BootDelegationMatcher(String[] bootPackages) {
+		boolean delegateAllValue = false;
+		for (int i = 0; i < bootPackages.length; i++) {
+			if (bootPackages[i].equals("*")) { //$NON-NLS-1$
+				delegateAllValue = true;
+				break;
+			} else if (bootPackages[i].endsWith("*")) { //$NON-NLS-1$
+				if (bootPackages[i].length() > 2 && bootPackages[i].endsWith(".*")) //$NON-NLS-1$
+					add(bootPackages[i].substring(0, bootPackages[i].length() - 1)).stem = true;
+			} else {
+				add(bootPackages[i]).exact = true;
+			}
+		}
+		bootDelegateAll = delegateAllValue;
+		add(BundleLoader.JAVA_PACKAGE).java = true;
+	}
+
+	private Node add(String prefix) {
+		Node node = root;
+		for (int i = 0; i < prefix.length(); i++)
+			node = node.addChild(prefix.charAt(i));
+		return node;
+	}
+
+	/**
+	 * Returns true if the package is in the boot delegation list.
+	 * @param pkgName the dot separated package name
+	 * @return true if the package is in the boot delegation list
+	 */
+	public boolean isBootDelegationPackage(String pkgName) {
+		return match(pkgName, 0, pkgName.length(), pkgName.length(), false, false) == BOOT;
+	}
+
+	/**
+	 * Returns how a class is delegated to the parent.
+	 * @param className the name of the class
+	 * @return {@link #JAVA} if the class name starts with java., {@link #BOOT} if the
+	 * package of the class is in the boot delegation list, otherwise {@link #NONE}
+	 */
+	public int matchClass(String className) {
+		int pkgEnd = className.lastIndexOf('.');
+		if (pkgEnd <= 0)
+			return isBootDelegationPackage(BundleLoader.DEFAULT_PACKAGE) ? BOOT : NONE;
+		// java. must prefix the class name which may be one character longer than the package
+		return match(className, 0, pkgEnd, pkgEnd + 1, true, false);
+	}
+
+	/**
+	 * Returns how a resource is delegated to the parent.
+	 * @param resourceName the name of the resource
+	 * @return {@link #JAVA} if the package of the resource starts with java., {@link #BOOT} if the
+	 * package of the resource is in the boot delegation list, otherwise {@link #NONE}
+	 */
+	public int matchResource(String resourceName) {
+		int begin = ((resourceName.length() > 1) && (resourceName.charAt(0) == '/')) ? 1 : 0;
+		int pkgEnd = resourceName.lastIndexOf('/');
+		if (pkgEnd <= begin)
+			return isBootDelegationPackage(BundleLoader.DEFAULT_PACKAGE) ? BOOT : NONE;
+		return match(resourceName, begin, pkgEnd, pkgEnd, true, true);
+	}
+
+	/**
+	 * Walks the trie over name[begin, limit).
+	 * @param name the name to match
+	 * @param begin the index of the first package character
+	 * @param pkgEnd the index after the last package character
+	 * @param limit the index after the last character java. may use
+	 * @param checkJava true if the java. prefix is matched
+	 * @param resource true if '/' separates the segments of the name
+	 * @return the delegation of the name
+	 */
+	private int match(String name, int begin, int pkgEnd, int limit, boolean checkJava, boolean resource) {
+		int result = bootDelegateAll ? BOOT : NONE;
+		Node node = root;
+		for (int i = begin;; i++) {
+			if (checkJava && node.java)
+				return JAVA;
+			if (node.stem && i <= pkgEnd)
+				result = BOOT;
+			if (node.exact && i == pkgEnd)
+				result = BOOT;
+			if (i >= limit)
+				return result;
+			char c = name.charAt(i);
+			if (resource && c == '/')
+				c = '.';
+			node = node.getChild(c);
+			if (node == null)
+				return result;
+		}
+	}
+}
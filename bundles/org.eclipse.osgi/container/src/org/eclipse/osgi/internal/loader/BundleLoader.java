@@ -17,18 +17,19 @@ import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.eclipse.osgi.container.*;
 import org.eclipse.osgi.container.builders.OSGiManifestBuilderFactory;
 import org.eclipse.osgi.container.namespaces.EquinoxModuleDataNamespace;
-import org.eclipse.osgi.framework.util.KeyedElement;
-import org.eclipse.osgi.framework.util.KeyedHashSet;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.eclipse.osgi.internal.hookregistry.ClassLoaderHook;
+import org.eclipse.osgi.internal.hookregistry.EventRecorderHook;
 import org.eclipse.osgi.internal.loader.buddy.PolicyHandler;
 import org.eclipse.osgi.internal.loader.sources.*;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
@@ -77,28 +78,32 @@ public class BundleLoader extends ModuleLoader {
 	private final Collection<String> exportedPackages;
 	private final BundleLoaderSources exportSources;
 
-	/* cache of required package sources. Key is packagename, value is PackageSource */
-	private final KeyedHashSet requiredSources = new KeyedHashSet(false);
+	/* cache of required package sources. Key is packagename, value is PackageSource; NullPackageSource for packages not found */
+	private final ConcurrentMap<String, PackageSource> requiredSources = new ConcurrentHashMap<>();
 	/* cache of imported packages. Key is packagename, Value is PackageSource */
-	private final KeyedHashSet importedSources = new KeyedHashSet(false);
+	private final ConcurrentMap<String, PackageSource> importedSources = new ConcurrentHashMap<>();
 	private final List<ModuleWire> requiredBundleWires;
 
-	/* @GuardedBy("importedSources") */
-	private boolean importsInitialized = false;
-	/* @GuardedBy("importedSources") */
-	private boolean dynamicAllPackages;
+	/* used to initialize the imported sources and to update the dynamic imports */
+	private final Object importsMonitor = new Object();
+	/* written while holding importsMonitor */
+	private volatile boolean importsInitialized = false;
+	/* written while holding importsMonitor */
+	private volatile boolean dynamicAllPackages;
 	/* If not null, list of package stems to import dynamically. */
-	/* @GuardedBy("importedSources") */
-	private String[] dynamicImportPackageStems;
-	/* @GuardedBy("importedSources") */
+	/* written while holding importsMonitor; the array is never modified once published */
+	private volatile String[] dynamicImportPackageStems;
 	/* If not null, list of package names to import dynamically. */
-	private String[] dynamicImportPackages;
+	/* written while holding importsMonitor; the array is never modified once published */
+	private volatile String[] dynamicImportPackages;
 
 	private final Object classLoaderCreatedMonitor = new Object();
 	/* @GuardedBy("classLoaderCreatedMonitor") */
 	private ModuleClassLoader classLoaderCreated;
 	private volatile ModuleClassLoader classloader;
 	private final ClassLoader parent;
+	/* the java.* and boot delegation rules of the container */
+	private final BootDelegationMatcher parentDelegation;
 	private final AtomicBoolean triggerClassLoaded = new AtomicBoolean(false);
 
 	/**
@@ -142,6 +147,7 @@ public class BundleLoader extends ModuleLoader {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
 		this.parent = parent;
+		this.parentDelegation = container.getBootDelegation();
 
 		// init the provided packages set
 		exportSources = new BundleLoaderSources(this);
@@ -379,20 +385,21 @@ public class BundleLoader extends ModuleLoader {
 	}
 
 	Class<?> findClass(String name, boolean checkParent) throws ClassNotFoundException {
-		if (checkParent && parent != null && name.startsWith(JAVA_PACKAGE))
+		int delegation = checkParent && parent != null ? parentDelegation.matchClass(name) : BootDelegationMatcher.NONE;
+		if (delegation == BootDelegationMatcher.JAVA)
 			// 1) if startsWith "java." delegate to parent and terminate search
 			// we want to throw ClassNotFoundExceptions if a java.* class cannot be loaded from the parent.
 			return parent.loadClass(name);
-		return findClassInternal(name, checkParent);
+		return findClassInternal(name, checkParent, delegation);
 	}
 
-	private Class<?> findClassInternal(String name, boolean checkParent) throws ClassNotFoundException {
+	private Class<?> findClassInternal(String name, boolean checkParent, int delegation) throws ClassNotFoundException {
 		if (debug.DEBUG_LOADER)
 			Debug.println("BundleLoader[" + this + "].findClassInternal(" + name + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		String pkgName = getPackageName(name);
 		boolean bootDelegation = false;
 		// follow the OSGi delegation model
-		if (checkParent && parent != null && container.isBootDelegationPackage(pkgName)) {
+		if (delegation == BootDelegationMatcher.BOOT) {
 			// 2) if part of the bootdelegation list then delegate to parent and continue of failure
 			try {
 				return parent.loadClass(name);
@@ -573,11 +580,12 @@ public class BundleLoader extends ModuleLoader {
 		// follow the OSGi delegation model
 		// First check the parent classloader for system resources, if it is a java resource.
 		if (parent != null) {
-			if (pkgName.startsWith(JAVA_PACKAGE))
+			int delegation = parentDelegation.matchResource(name);
+			if (delegation == BootDelegationMatcher.JAVA)
 				// 1) if startsWith "java." delegate to parent and terminate search
 				// we never delegate java resource requests past the parent
 				return parent.getResource(name);
-			else if (container.isBootDelegationPackage(pkgName)) {
+			else if (delegation == BootDelegationMatcher.BOOT) {
 				// 2) if part of the bootdelegation list then delegate to parent and continue of failure
 				URL result = parent.getResource(name);
 				if (result != null)
@@ -663,11 +671,12 @@ public class BundleLoader extends ModuleLoader {
 		// follow the OSGi delegation model
 		// First check the parent classloader for system resources, if it is a java resource.
 		if (parent != null) {
-			if (pkgName.startsWith(JAVA_PACKAGE))
+			int delegation = parentDelegation.matchResource(name);
+			if (delegation == BootDelegationMatcher.JAVA)
 				// 1) if startsWith "java." delegate to parent and terminate search
 				// we never delegate java resource requests past the parent
 				return parent.getResources(name);
-			else if (container.isBootDelegationPackage(pkgName)) {
+			else if (delegation == BootDelegationMatcher.BOOT) {
 				// 2) if part of the bootdelegation list then delegate to parent and continue
 				result = compoundEnumerations(result, parent.getResources(name));
 				bootDelegation = true;
@@ -748,13 +757,8 @@ public class BundleLoader extends ModuleLoader {
 		boolean subPackages = (options & BundleWiring.LISTRESOURCES_RECURSE) != 0;
 		List<String> packages = new ArrayList<>();
 		// search imported package names
-		KeyedHashSet importSources = getImportedSources(null);
-		KeyedElement[] imports;
-		synchronized (importSources) {
-			imports = importSources.elements();
-		}
-		for (KeyedElement keyedElement : imports) {
-			String id = ((PackageSource) keyedElement).getId();
+		for (PackageSource importSource : getImportedSources(null).values()) {
+			String id = importSource.getId();
 			if (id.equals(pkgName) || (subPackages && isSubPackage(pkgName, id)))
 				packages.add(id);
 		}
@@ -877,23 +881,23 @@ public class BundleLoader extends ModuleLoader {
 		if (pkgname.startsWith("java.")) //$NON-NLS-1$
 			return true;
 
-		synchronized (importedSources) {
-			/* "*" shortcut */
-			if (dynamicAllPackages)
-				return true;
-
-			/* match against specific names */
-			if (dynamicImportPackages != null)
-				for (int i = 0; i < dynamicImportPackages.length; i++)
-					if (pkgname.equals(dynamicImportPackages[i]))
-						return true;
-
-			/* match against names with trailing wildcards */
-			if (dynamicImportPackageStems != null)
-				for (int i = 0; i < dynamicImportPackageStems.length; i++)
-					if (pkgname.startsWith(dynamicImportPackageStems[i]))
-						return true;
-		}
+		/* "*" shortcut */
+		if (dynamicAllPackages)
+			return true;
+
+		/* match against specific names */
+		String[] currentPackages = dynamicImportPackages;
+		if (currentPackages != null)
+			for (int i = 0; i < currentPackages.length; i++)
+				if (pkgname.equals(currentPackages[i]))
+					return true;
+
+		/* match against names with trailing wildcards */
+		String[] currentStems = dynamicImportPackageStems;
+		if (currentStems != null)
+			for (int i = 0; i < currentStems.length; i++)
+				if (pkgname.startsWith(currentStems[i]))
+					return true;
 		return false;
 	}
 
@@ -985,15 +989,14 @@ public class BundleLoader extends ModuleLoader {
 	/**
 	 * Adds a list of DynamicImport-Package manifest elements to the dynamic
 	 * import tables of this BundleLoader.  Duplicate packages are checked and
-	 * not added again.  This method is not thread safe.  Callers should ensure
-	 * synchronization when calling this method.
+	 * not added again.
 	 * @param packages the DynamicImport-Package elements to add.
 	 */
 	private void addDynamicImportPackage(String[] packages) {
 		if (packages == null)
 			return;
 
-		synchronized (importedSources) {
+		synchronized (importsMonitor) {
 			int size = packages.length;
 			List<String> stems;
 			if (dynamicImportPackageStems == null) {
@@ -1093,14 +1096,14 @@ public class BundleLoader extends ModuleLoader {
 	}
 
 	private PackageSource findImportedSource(String pkgName, Collection<BundleLoader> visited) {
-		KeyedHashSet imports = getImportedSources(visited);
-		synchronized (imports) {
-			return (PackageSource) imports.getByKey(pkgName);
-		}
+		return getImportedSources(visited).get(pkgName);
 	}
 
-	private KeyedHashSet getImportedSources(Collection<BundleLoader> visited) {
-		synchronized (importedSources) {
+	private Map<String, PackageSource> getImportedSources(Collection<BundleLoader> visited) {
+		if (importsInitialized) {
+			return importedSources;
+		}
+		synchronized (importsMonitor) {
 			if (importsInitialized) {
 				return importedSources;
 			}
@@ -1109,7 +1112,7 @@ public class BundleLoader extends ModuleLoader {
 				for (ModuleWire importWire : importWires) {
 					PackageSource source = createExportPackageSource(importWire, visited);
 					if (source != null) {
-						importedSources.add(source);
+						importedSources.putIfAbsent(source.getId(), source);
 					}
 				}
 			}
@@ -1130,21 +1133,19 @@ public class BundleLoader extends ModuleLoader {
 				if (debug.DEBUG_LOADER) {
 					Debug.println("BundleLoader[" + this + "] using dynamic import source: " + source); //$NON-NLS-1$ //$NON-NLS-2$
 				}
-				synchronized (importedSources) {
-					importedSources.add(source);
-				}
-				return source;
+				PackageSource existing = importedSources.putIfAbsent(source.getId(), source);
+				return existing != null ? existing : source;
 			}
 		}
 		return null;
 	}
 
 	private PackageSource findRequiredSource(String pkgName, Collection<BundleLoader> visited) {
-		synchronized (requiredSources) {
-			PackageSource result = (PackageSource) requiredSources.getByKey(pkgName);
-			if (result != null)
-				return result.isNullSource() ? null : result;
-		}
+		PackageSource cached = requiredSources.get(pkgName);
+		if (cached != null)
+			return cached.isNullSource() ? null : cached;
+		List<EventRecorderHook> recorders = container.getConfiguration().getHookRegistry().getEventRecorderHooks();
+		long start = recorders.isEmpty() ? 0 : System.nanoTime();
 		if (visited == null)
 			visited = new ArrayList<>();
 		if (!visited.contains(this))
@@ -1170,8 +1171,15 @@ public class BundleLoader extends ModuleLoader {
 			PackageSource[] srcs = result.toArray(new PackageSource[result.size()]);
 			source = createMultiSource(pkgName, srcs);
 		}
-		synchronized (requiredSources) {
-			requiredSources.add(source);
+		PackageSource existing = requiredSources.putIfAbsent(pkgName, source);
+		if (existing != null)
+			source = existing;
+		if (!recorders.isEmpty()) {
+			long duration = System.nanoTime() - start;
+			long bundleId = wiring.getRevision().getRevisions().getModule().getId().longValue();
+			for (EventRecorderHook recorder : recorders) {
+				recorder.packageSourceSearched(bundleId, pkgName, !source.isNullSource(), duration);
+			}
 		}
 		return source.isNullSource() ? null : source;
 	}
@@ -12,6 +12,7 @@ package org.eclipse.osgi.internal.loader.buddy;
 
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.osgi.container.ModuleContainerAdaptor.ContainerEvent;
 import org.eclipse.osgi.internal.framework.EquinoxBundle;
 import org.eclipse.osgi.internal.loader.BundleLoader;
@@ -34,15 +35,79 @@ public class PolicyHandler implements SynchronousBundleListener {
 	//List of the policies as well as cache for the one that have been created. The size of this array never changes over time. This is why the synchronization is not done when iterating over it.
 	private volatile Object[] policies = null;
 
-	//Support to cut class / resource loading cycles in the context of one thread. The contained object is a set of classname
-	private final ThreadLocal<Set<String>> beingLoaded;
+	//Support to cut class / resource loading cycles in the context of one thread. The contained object is a stack of the names being loaded
+	private final ThreadLocal<LoadingStack> beingLoaded;
 	private final PackageAdmin packageAdmin;
 
+	//Cache of the classes and resources found by the policies and of the names nothing was found for.
+	//The cache is replaced when the policies are reinitialized so results computed with the old policies are discarded.
+	private volatile LookupCache cache = new LookupCache();
+	//The maximum number of names nothing was found for that are remembered for classes and for resources
+	private static final int MAX_NOT_FOUND = 1000;
+
+	/**
+	 * The results of the class and resource lookups done with one set of policies.
+	 * The found classes and resources are only held until the policies are reinitialized
+	 * on the next resolve or unresolve.  The names nothing was found for are not bounded
+	 * by the content of the buddies, so they are forgotten once there are too many of them.
+	 */
+	private static final class LookupCache {
+		final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+		final Map<String, URL> resources = new ConcurrentHashMap<>();
+		final Map<String, Boolean> missingClasses = new ConcurrentHashMap<>();
+		final Map<String, Boolean> missingResources = new ConcurrentHashMap<>();
+
+		static void addMissing(Map<String, Boolean> missing, String name) {
+			if (missing.size() >= MAX_NOT_FOUND)
+				missing.clear();
+			missing.put(name, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * A stack of the class and resource names being loaded by a thread.
+	 * The array is reused so that tracking the names does not allocate.
+	 */
+	private static final class LoadingStack {
+		String[] names = new String[4];
+		int size = 0;
+
+		boolean contains(String name) {
+			for (int i = 0; i < size; i++) {
+				if (names[i].equals(name))
+					return true;
+			}
+			return false;
+		}
+
+		void push(String name) {
+			if (size == names.length)
+				names = Arrays.copyOf(names, size * 2);
+			names[size++] = name;
+		}
+
+		void remove(String name) {
+			// normally the name is on top of the stack
+			for (int i = size - 1; i >= 0; i--) {
+				if (names[i].equals(name)) {
+					System.arraycopy(names, i + 1, names, i, size - i - 1);
+					names[--size] = null;
+					return;
+				}
+			}
+		}
+	}
+
 	public PolicyHandler(BundleLoader loader, List<String> buddyList, PackageAdmin packageAdmin) {
 		policedLoader = loader;
 		this.originalBuddyList = buddyList;
 		policies = buddyList.toArray();
-		beingLoaded = new ThreadLocal<>();
+		beingLoaded = new ThreadLocal<LoadingStack>() {
+			@Override
+			protected LoadingStack initialValue() {
+				return new LoadingStack();
+			}
+		};
 		this.packageAdmin = packageAdmin;
 	}
 
@@ -129,6 +194,12 @@ public class PolicyHandler implements SynchronousBundleListener {
 	}
 
 	public Class<?> doBuddyClassLoading(String name) {
+		LookupCache current = cache;
+		Class<?> cached = current.classes.get(name);
+		if (cached != null)
+			return cached;
+		if (current.missingClasses.containsKey(name))
+			return null;
 		if (startLoading(name) == false)
 			return null;
 
@@ -141,10 +212,20 @@ public class PolicyHandler implements SynchronousBundleListener {
 				result = policy.loadClass(name);
 		}
 		stopLoading(name);
+		if (result == null)
+			LookupCache.addMissing(current.missingClasses, name);
+		else
+			current.classes.put(name, result);
 		return result;
 	}
 
 	public URL doBuddyResourceLoading(String name) {
+		LookupCache current = cache;
+		URL cached = current.resources.get(name);
+		if (cached != null)
+			return cached;
+		if (current.missingResources.containsKey(name))
+			return null;
 		if (startLoading(name) == false)
 			return null;
 
@@ -157,6 +238,10 @@ public class PolicyHandler implements SynchronousBundleListener {
 				result = policy.loadResource(name);
 		}
 		stopLoading(name);
+		if (result == null)
+			LookupCache.addMissing(current.missingResources, name);
+		else
+			current.resources.put(name, result);
 		return result;
 	}
 
@@ -187,15 +272,10 @@ public class PolicyHandler implements SynchronousBundleListener {
 	}
 
 	private boolean startLoading(String name) {
-		Set<String> classesAndResources = beingLoaded.get();
-		if (classesAndResources != null && classesAndResources.contains(name))
+		LoadingStack classesAndResources = beingLoaded.get();
+		if (classesAndResources.contains(name))
 			return false;
-
-		if (classesAndResources == null) {
-			classesAndResources = new HashSet<>(3);
-			beingLoaded.set(classesAndResources);
-		}
-		classesAndResources.add(name);
+		classesAndResources.push(name);
 		return true;
 	}
 
@@ -214,7 +294,8 @@ public class PolicyHandler implements SynchronousBundleListener {
 	public void bundleChanged(BundleEvent event) {
 		if ((event.getType() & (BundleEvent.RESOLVED | BundleEvent.UNRESOLVED)) == 0)
 			return;
-		// reinitialize the policies
+		// reinitialize the policies and discard the cached results
 		policies = originalBuddyList.toArray();
+		cache = new LookupCache();
 	}
 }
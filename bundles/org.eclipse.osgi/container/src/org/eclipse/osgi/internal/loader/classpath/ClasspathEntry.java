@@ -47,6 +47,8 @@ public class ClasspathEntry {
 	private final ManifestPackageAttributes mainManifestPackageAttributes;
 	private final Map<String, ManifestPackageAttributes> perPackageManifestAttributes;
 	private KeyedHashSet userObjects = null;
+	// the directories contained in the bundle file; null if the bundle file is not indexed
+	private volatile Set<String> directories = null;
 
 	// TODO Note that PDE has internal dependency on this field type/name (bug 267238)
 	@SuppressWarnings("unused")
@@ -157,6 +159,18 @@ public class ClasspathEntry {
 		return null;
 	}
 
+	void setDirectories(Set<String> directories) {
+		this.directories = directories;
+	}
+
+	/**
+	 * Returns the directories contained in the bundle file of this classpath entry.
+	 * @return the directories or null if the bundle file is not indexed
+	 */
+	Set<String> getDirectories() {
+		return directories;
+	}
+
 	ManifestPackageAttributes manifestPackageAttributesFor(String packageName) {
 		ManifestPackageAttributes perPackage = perPackageManifestAttributes == null ? null : perPackageManifestAttributes.get(packageName);
 		if (perPackage != null) {
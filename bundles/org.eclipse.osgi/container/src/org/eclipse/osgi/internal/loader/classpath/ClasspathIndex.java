@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.loader.classpath;
+
+import java.util.*;
+
+/**
+ * An immutable map of directory -> class path entries for the class path of a
+ * host and the fragments attached to it.  The positions of the class path
+ * entries are the class path indexes used for resource URLs; the host entries
+ * come first followed by the entries of each fragment.
+ * <p>
+ * Class path entries without a {@link ClasspathEntry#getDirectories() directory index}
+ * may contain any directory and are included in the result of every lookup.
+ */
+final class ClasspathIndex {
+	private final FragmentClasspath[] fragments;
+	private final ClasspathEntry[] entries;
+	// directory -> positions of the entries that may contain the directory
+	private final Map<String, int[]> positions;
+	// positions of the entries which are not indexed
+	private final int[] unindexed;
+
+	private ClasspathIndex(FragmentClasspath[] fragments, ClasspathEntry[] entries, Map<String, int[]> positions, int[] unindexed) {
+		this.fragments = fragments;
+		this.entries = entries;
+		this.positions = positions;
+		this.unindexed = unindexed;
+	}
+
+	static ClasspathIndex create(ClasspathEntry[] hostEntries, FragmentClasspath[] fragments) {
+		List<ClasspathEntry> all = new ArrayList<>(Arrays.asList(hostEntries));
+		for (FragmentClasspath fragment : fragments)
+			all.addAll(Arrays.asList(fragment.getEntries()));
+		ClasspathEntry[] entries = all.toArray(new ClasspathEntry[all.size()]);
+
+		List<Integer> unindexed = new ArrayList<>();
+		Map<String, List<Integer>> directories = new HashMap<>();
+		for (int i = 0; i < entries.length; i++) {
+			if (entries[i] == null)
+				continue;
+			Set<String> dirs = entries[i].getDirectories();
+			if (dirs == null) {
+				unindexed.add(i);
+				// an unindexed entry may contain the directories of the entries indexed so far
+				for (List<Integer> list : directories.values())
+					list.add(i);
+				continue;
+			}
+			for (String dir : dirs) {
+				List<Integer> list = directories.get(dir);
+				if (list == null) {
+					// the entries which are not indexed may also contain the directory
+					list = new ArrayList<>(unindexed);
+					directories.put(dir, list);
+				}
+				list.add(i);
+			}
+		}
+		Map<String, int[]> positions = new HashMap<>(directories.size() * 4 / 3 + 1);
+		for (Map.Entry<String, List<Integer>> dir : directories.entrySet())
+			positions.put(dir.getKey(), toArray(dir.getValue()));
+		return new ClasspathIndex(fragments, entries, positions, toArray(unindexed));
+	}
+
+	private static int[] toArray(List<Integer> list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++)
+			result[i] = list.get(i).intValue();
+		return result;
+	}
+
+	/**
+	 * Returns true if this index was built for the specified fragments.
+	 */
+	boolean isCurrent(FragmentClasspath[] currentFragments) {
+		return fragments == currentFragments;
+	}
+
+	/**
+	 * Returns true if at least one class path entry is indexed.
+	 */
+	boolean isIndexed() {
+		return !positions.isEmpty();
+	}
+
+	ClasspathEntry getEntry(int position) {
+		return entries[position];
+	}
+
+	/**
+	 * Returns the positions of the class path entries which may contain the specified entry path.
+	 * @param path the entry path
+	 * @return the positions in class path order
+	 */
+	int[] getPositions(String path) {
+		if (positions.isEmpty())
+			return unindexed;
+		int[] result = positions.get(ClasspathIndexHook.getDirectory(path));
+		return result == null ? unindexed : result;
+	}
+
+	/**
+	 * Returns the positions of the class path entries which may contain the specified class.
+	 * @param classname the class name
+	 * @return the positions in class path order
+	 */
+	int[] getClassPositions(String classname) {
+		if (positions.isEmpty())
+			return unindexed;
+		int lastDot = classname.lastIndexOf('.');
+		String dir = lastDot < 0 ? "" : classname.substring(0, lastDot).replace('.', '/'); //$NON-NLS-1$
+		int[] result = positions.get(dir);
+		return result == null ? unindexed : result;
+	}
+}
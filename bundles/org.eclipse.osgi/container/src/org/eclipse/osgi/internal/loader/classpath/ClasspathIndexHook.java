@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.loader.classpath;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.osgi.internal.hookregistry.StorageHookFactory;
+import org.eclipse.osgi.storage.BundleInfo.Generation;
+import org.eclipse.osgi.storage.bundlefile.BundleFile;
+import org.osgi.framework.BundleException;
+
+/**
+ * A storage hook factory that persists an index of the directories contained
+ * in each class path entry of a generation.  The index allows the
+ * {@link ClasspathManager} to skip the class path entries that cannot contain
+ * a requested class or resource without probing their bundle files.
+ * <p>
+ * The index is kept per generation, so a new index is built whenever a
+ * bundle is installed or updated.  The index of a class path entry is also
+ * rebuilt when the last modified time or the length of its file changes, which
+ * happens when the content of a bundle installed by reference changes in place.
+ * Only class path entries which are backed by an archive are indexed; the
+ * content of directories may change at any time.
+ */
+public class ClasspathIndexHook extends StorageHookFactory<Object, Object, ClasspathIndexHook.StorageHookImpl> {
+	private static final int STORAGE_VERSION = 1;
+
+	@Override
+	public int getStorageVersion() {
+		return STORAGE_VERSION;
+	}
+
+	@Override
+	protected StorageHookImpl createStorageHook(Generation generation) {
+		return new StorageHookImpl(generation);
+	}
+
+	/**
+	 * Returns the directory which contains the specified entry path.  The empty
+	 * string is returned for entries in the root directory.
+	 * @param path the entry path
+	 * @return the directory which contains the entry path
+	 */
+	static String getDirectory(String path) {
+		int begin = path.length() > 0 && path.charAt(0) == '/' ? 1 : 0;
+		int end = path.length();
+		if (end > begin && path.charAt(end - 1) == '/')
+			end--;
+		int lastSlash = path.lastIndexOf('/', end - 1);
+		return lastSlash < begin ? "" : path.substring(begin, lastSlash); //$NON-NLS-1$
+	}
+
+	/**
+	 * The directories of one class path entry together with the last modified
+	 * time and the length of the file the directories were read from.
+	 */
+	static final class EntryIndex {
+		final long lastModified;
+		final long length;
+		final Set<String> directories;
+
+		EntryIndex(long lastModified, long length, Set<String> directories) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.directories = directories;
+		}
+
+		boolean isCurrent(File file) {
+			return lastModified == file.lastModified() && length == file.length();
+		}
+	}
+
+	static class StorageHookImpl extends StorageHookFactory.StorageHook<Object, Object> {
+		// a map of class path -> index of the directories contained in the class path entry
+		private final ConcurrentMap<String, EntryIndex> index = new ConcurrentHashMap<>();
+
+		public StorageHookImpl(Generation generation) {
+			super(generation, ClasspathIndexHook.class);
+		}
+
+		@Override
+		public void initialize(Dictionary<String, String> manifest) throws BundleException {
+			// the index is built lazily when the class path entries are created
+		}
+
+		@Override
+		public void load(Object loadContext, DataInputStream is) throws IOException {
+			int numEntries = is.readInt();
+			for (int i = 0; i < numEntries; i++) {
+				String cp = is.readUTF();
+				long lastModified = is.readLong();
+				long length = is.readLong();
+				int numDirs = is.readInt();
+				Set<String> dirs = new HashSet<>(numDirs);
+				for (int j = 0; j < numDirs; j++) {
+					dirs.add(is.readUTF());
+				}
+				index.put(cp, new EntryIndex(lastModified, length, Collections.unmodifiableSet(dirs)));
+			}
+		}
+
+		@Override
+		public void save(Object saveContext, DataOutputStream os) throws IOException {
+			// take a snapshot; entries may be added concurrently by class loaders
+			Map<String, EntryIndex> current = new HashMap<>(index);
+			os.writeInt(current.size());
+			for (Map.Entry<String, EntryIndex> entry : current.entrySet()) {
+				os.writeUTF(entry.getKey());
+				EntryIndex entryIndex = entry.getValue();
+				os.writeLong(entryIndex.lastModified);
+				os.writeLong(entryIndex.length);
+				os.writeInt(entryIndex.directories.size());
+				for (String dir : entryIndex.directories) {
+					os.writeUTF(dir);
+				}
+			}
+		}
+
+		/**
+		 * Returns the directories contained in the class path entry for the specified
+		 * class path.  The index is built from the bundle file if it is not yet known
+		 * or if the last modified time or the length of the file of the bundle file
+		 * changed since the index was built.
+		 * @param cp the class path of the class path entry
+		 * @param bundleFile the bundle file of the class path entry
+		 * @return the directories contained in the class path entry or <code>null</code>
+		 * if the bundle file is not backed by a file and cannot be indexed
+		 */
+		Set<String> getDirectories(String cp, BundleFile bundleFile) {
+			File file = bundleFile.getBaseFile();
+			if (file == null || !file.isFile()) {
+				return null;
+			}
+			EntryIndex entryIndex = index.get(cp);
+			if (entryIndex != null && entryIndex.isCurrent(file)) {
+				return entryIndex.directories;
+			}
+			// read the time and length before the content so a concurrent change is detected next time
+			long lastModified = file.lastModified();
+			long length = file.length();
+			entryIndex = new EntryIndex(lastModified, length, Collections.unmodifiableSet(buildIndex(bundleFile)));
+			index.put(cp, entryIndex);
+			getGeneration().getBundleInfo().getStorage().storageHookDataChanged();
+			return entryIndex.directories;
+		}
+
+		private static Set<String> buildIndex(BundleFile bundleFile) {
+			Set<String> dirs = new HashSet<>();
+			// the root directory is always present
+			dirs.add(""); //$NON-NLS-1$
+			Enumeration<String> paths = bundleFile.getEntryPaths("", true); //$NON-NLS-1$
+			if (paths == null) {
+				return dirs;
+			}
+			while (paths.hasMoreElements()) {
+				String dir = getDirectory(paths.nextElement());
+				// add the directory and all of its parents; stop once a known directory is found
+				while (dir.length() > 0 && dirs.add(dir)) {
+					dir = getDirectory(dir);
+				}
+			}
+			return dirs;
+		}
+	}
+}
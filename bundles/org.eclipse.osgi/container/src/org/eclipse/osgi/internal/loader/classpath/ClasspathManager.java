@@ -21,6 +21,7 @@ import org.eclipse.osgi.framework.util.ArrayMap;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.hookregistry.ClassLoaderHook;
+import org.eclipse.osgi.internal.hookregistry.EventRecorderHook;
 import org.eclipse.osgi.internal.hookregistry.HookRegistry;
 import org.eclipse.osgi.internal.loader.ModuleClassLoader;
 import org.eclipse.osgi.internal.loader.ModuleClassLoader.DefineClassResult;
@@ -60,6 +61,8 @@ public class ClasspathManager {
 	private final ClasspathEntry[] entries;
 	// TODO Note that PDE has internal dependency on this field type/name (bug 267238)
 	private volatile FragmentClasspath[] fragments;
+	// the directory index of the host and fragment classpath entries; rebuilt when fragments are attached
+	private volatile ClasspathIndex classpathIndex;
 	// a Map<String,String> where "libname" is the key and libpath" is the value
 	private ArrayMap<String, String> loadedLibraries = null;
 	// used to detect recusive defineClass calls for the same class on the same class loader (bug 345500)
@@ -192,7 +195,7 @@ public class ClasspathManager {
 
 	public static boolean addStandardClassPathEntry(ArrayList<ClasspathEntry> result, String cp, ClasspathManager hostManager, Generation generation) {
 		if (cp.equals(".")) { //$NON-NLS-1$
-			result.add(hostManager.createClassPathEntry(generation.getBundleFile(), generation));
+			result.add(hostManager.createClassPathEntry(generation.getBundleFile(), generation, cp));
 			return true;
 		}
 		ClasspathEntry element = hostManager.getClasspath(cp, generation);
@@ -278,7 +281,7 @@ public class ClasspathManager {
 		else if ((file = cpGeneration.getBundleFile().getFile(cp, false)) != null)
 			bundlefile = createBundleFile(file, cpGeneration);
 		if (bundlefile != null)
-			return createClassPathEntry(bundlefile, cpGeneration);
+			return createClassPathEntry(bundlefile, cpGeneration, cp);
 		return null;
 	}
 
@@ -332,6 +335,18 @@ public class ClasspathManager {
 		return entry;
 	}
 
+	private ClasspathEntry createClassPathEntry(BundleFile bundlefile, Generation source, String cp) {
+		ClasspathEntry entry = createClassPathEntry(bundlefile, source);
+		// only index archives; the content of a directory may change for the same generation
+		if (!source.isDirectory()) {
+			ClasspathIndexHook.StorageHookImpl indexHook = source.getStorageHook(ClasspathIndexHook.class);
+			if (indexHook != null) {
+				entry.setDirectories(indexHook.getDirectories(cp, entry.getBundleFile()));
+			}
+		}
+		return entry;
+	}
+
 	/**
 	 * Finds a local resource by searching the ClasspathEntry objects of the classpath manager.
 	 * This method will first call all the configured class loading hooks 
@@ -358,26 +373,12 @@ public class ClasspathManager {
 	}
 
 	private URL findLocalResourceImpl(String resource, int classPathIndex) {
-		URL result = null;
-		int curIndex = 0;
-		for (int i = 0; i < entries.length; i++) {
-			if (entries[i] != null) {
-				result = findResourceImpl(resource, entries[i].getBundleFile(), curIndex);
-				if (result != null && (classPathIndex == -1 || classPathIndex == curIndex))
-					return result;
-			}
-			curIndex++;
-		}
-		// look in fragments
-		FragmentClasspath[] currentFragments = getFragmentClasspaths();
-		for (int i = 0; i < currentFragments.length; i++) {
-			ClasspathEntry[] fragEntries = currentFragments[i].getEntries();
-			for (int j = 0; j < fragEntries.length; j++) {
-				result = findResourceImpl(resource, fragEntries[j].getBundleFile(), curIndex);
-				if (result != null && (classPathIndex == -1 || classPathIndex == curIndex))
-					return result;
-				curIndex++;
-			}
+		// search the host entries followed by the fragment entries that may contain the resource
+		ClasspathIndex index = getClasspathIndex();
+		for (int curIndex : index.getPositions(resource)) {
+			URL result = findResourceImpl(resource, index.getEntry(curIndex).getBundleFile(), curIndex);
+			if (result != null && (classPathIndex == -1 || classPathIndex == curIndex))
+				return result;
 		}
 		return null;
 	}
@@ -389,25 +390,12 @@ public class ClasspathManager {
 	 */
 	public Enumeration<URL> findLocalResources(String resource) {
 		List<URL> resources = new ArrayList<>(6);
-		int classPathIndex = 0;
-		for (int i = 0; i < entries.length; i++) {
-			if (entries[i] != null) {
-				URL url = findResourceImpl(resource, entries[i].getBundleFile(), classPathIndex);
-				if (url != null)
-					resources.add(url);
-			}
-			classPathIndex++;
-		}
-		// look in fragments
-		FragmentClasspath[] currentFragments = getFragmentClasspaths();
-		for (int i = 0; i < currentFragments.length; i++) {
-			ClasspathEntry[] fragEntries = currentFragments[i].getEntries();
-			for (int j = 0; j < fragEntries.length; j++) {
-				URL url = findResourceImpl(resource, fragEntries[j].getBundleFile(), classPathIndex);
-				if (url != null)
-					resources.add(url);
-				classPathIndex++;
-			}
+		// search the host entries followed by the fragment entries that may contain the resource
+		ClasspathIndex index = getClasspathIndex();
+		for (int classPathIndex : index.getPositions(resource)) {
+			URL url = findResourceImpl(resource, index.getEntry(classPathIndex).getBundleFile(), classPathIndex);
+			if (url != null)
+				resources.add(url);
 		}
 		if (resources.size() > 0)
 			return Collections.enumeration(resources);
@@ -435,26 +423,12 @@ public class ClasspathManager {
 	 * @return the requested entry or null if the entry does not exist
 	 */
 	public BundleEntry findLocalEntry(String path, int classPathIndex) {
-		BundleEntry result = null;
-		int curIndex = 0;
-		for (int i = 0; i < entries.length; i++) {
-			if (entries[i] != null) {
-				result = findEntryImpl(path, entries[i].getBundleFile());
-				if (result != null && (classPathIndex == -1 || classPathIndex == curIndex))
-					return result;
-			}
-			curIndex++;
-		}
-		// look in fragments
-		FragmentClasspath[] currentFragments = getFragmentClasspaths();
-		for (int i = 0; i < currentFragments.length; i++) {
-			ClasspathEntry[] fragEntries = currentFragments[i].getEntries();
-			for (int j = 0; j < fragEntries.length; j++) {
-				result = findEntryImpl(path, fragEntries[j].getBundleFile());
-				if (result != null && (classPathIndex == -1 || classPathIndex == curIndex))
-					return result;
-				curIndex++;
-			}
+		// search the host entries followed by the fragment entries that may contain the path
+		ClasspathIndex index = getClasspathIndex();
+		for (int curIndex : index.getPositions(path)) {
+			BundleEntry result = findEntryImpl(path, index.getEntry(curIndex).getBundleFile());
+			if (result != null && (classPathIndex == -1 || classPathIndex == curIndex))
+				return result;
 		}
 		return null;
 	}
@@ -466,22 +440,12 @@ public class ClasspathManager {
 	 */
 	public Enumeration<BundleEntry> findLocalEntries(String path) {
 		List<BundleEntry> objects = new ArrayList<>(6);
-		for (int i = 0; i < entries.length; i++) {
-			if (entries[i] != null) {
-				BundleEntry result = findEntryImpl(path, entries[i].getBundleFile());
-				if (result != null)
-					objects.add(result);
-			}
-		}
-		// look in fragments
-		FragmentClasspath[] currentFragments = getFragmentClasspaths();
-		for (int i = 0; i < currentFragments.length; i++) {
-			ClasspathEntry[] fragEntries = currentFragments[i].getEntries();
-			for (int j = 0; j < fragEntries.length; j++) {
-				BundleEntry result = findEntryImpl(path, fragEntries[j].getBundleFile());
-				if (result != null)
-					objects.add(result);
-			}
+		// search the host entries followed by the fragment entries that may contain the path
+		ClasspathIndex index = getClasspathIndex();
+		for (int position : index.getPositions(path)) {
+			BundleEntry result = findEntryImpl(path, index.getEntry(position).getBundleFile());
+			if (result != null)
+				objects.add(result);
 		}
 		if (objects.size() > 0)
 			return Collections.enumeration(objects);
@@ -532,25 +496,31 @@ public class ClasspathManager {
 	}
 
 	private Class<?> findLocalClassImpl(String classname, List<ClassLoaderHook> hooks) throws ClassNotFoundException {
-		Class<?> result = null;
-		for (int i = 0; i < entries.length; i++) {
-			if (entries[i] != null) {
-				result = findClassImpl(classname, entries[i], hooks);
-				if (result != null)
-					return result;
-			}
+		// search the host entries followed by the fragment entries that may contain the class
+		ClasspathIndex index = getClasspathIndex();
+		for (int position : index.getClassPositions(classname)) {
+			Class<?> result = findClassImpl(classname, index.getEntry(position), hooks);
+			if (result != null)
+				return result;
 		}
-		// look in fragments.
+		throw new ClassNotFoundException(classname);
+	}
+
+	private ClasspathIndex getClasspathIndex() {
 		FragmentClasspath[] currentFragments = getFragmentClasspaths();
-		for (int i = 0; i < currentFragments.length; i++) {
-			ClasspathEntry[] fragEntries = currentFragments[i].getEntries();
-			for (int j = 0; j < fragEntries.length; j++) {
-				result = findClassImpl(classname, fragEntries[j], hooks);
-				if (result != null)
-					return result;
-			}
+		ClasspathIndex current = classpathIndex;
+		if (current == null || !current.isCurrent(currentFragments)) {
+			classpathIndex = current = ClasspathIndex.create(entries, currentFragments);
 		}
-		throw new ClassNotFoundException(classname);
+		return current;
+	}
+
+	/**
+	 * Returns true if the class path entries are searched with a directory index.
+	 * @return true if at least one class path entry is indexed
+	 */
+	public boolean isIndexed() {
+		return getClasspathIndex().isIndexed();
 	}
 
 	private Class<?> findClassImpl(String name, ClasspathEntry classpathEntry, List<ClassLoaderHook> hooks) {
@@ -609,6 +579,8 @@ public class ClasspathManager {
 	 * @return the defined class
 	 */
 	private Class<?> defineClass(String name, byte[] classbytes, ClasspathEntry classpathEntry, BundleEntry entry, List<ClassLoaderHook> hooks) {
+		List<EventRecorderHook> recorders = hookRegistry.getEventRecorderHooks();
+		long start = recorders.isEmpty() ? 0 : System.nanoTime();
 		DefineClassResult result = null;
 		try {
 			definePackage(name, classpathEntry);
@@ -636,6 +608,13 @@ public class ClasspathManager {
 			for (ClassLoaderHook hook : hooks) {
 				hook.recordClassDefine(name, defined, classbytes, classpathEntry, entry, this);
 			}
+			if (!recorders.isEmpty()) {
+				long duration = System.nanoTime() - start;
+				long bundleId = generation.getBundleInfo().getBundleId();
+				for (EventRecorderHook recorder : recorders) {
+					recorder.classDefined(bundleId, name, defined != null, duration);
+				}
+			}
 		}
 		// return either the pre-loaded class or the newly defined class
 		return result == null ? null : result.clazz;
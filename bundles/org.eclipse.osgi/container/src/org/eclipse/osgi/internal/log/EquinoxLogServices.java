@@ -15,10 +15,12 @@ import java.io.File;
 import java.io.Writer;
 import java.util.Dictionary;
 import java.util.Hashtable;
+import java.util.concurrent.*;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
 import org.eclipse.osgi.framework.log.FrameworkLog;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.internal.log.ExecutorTaskQueue.OverflowPolicy;
 import org.eclipse.osgi.service.datalocation.Location;
 import org.eclipse.osgi.storage.StorageUtil;
 import org.osgi.framework.*;
@@ -30,6 +32,7 @@ public class EquinoxLogServices {
 
 	// The eclipse log file extension */
 	private static final String LOG_EXT = ".log"; //$NON-NLS-1$
+	private static final int DEFAULT_LISTENER_BACKLOG_MAX = 1000;
 	private final LogServiceManager logServiceManager;
 	private final EquinoxLogFactory eclipseLogFactory;
 	private final EquinoxLogWriter logWriter;
@@ -81,11 +84,52 @@ public class EquinoxLogServices {
 				// ignore and use 0
 			}
 		}
-		logServiceManager = new LogServiceManager(logHistoryMax, logWriter, perfWriter);
+		ExtendedLogReaderServiceFactory logReaderServiceFactory = createLogReaderServiceFactory(environmentInfo, logHistoryMax);
+		logServiceManager = new LogServiceManager(logReaderServiceFactory, logWriter, perfWriter);
 		eclipseLogFactory = new EquinoxLogFactory(logWriter, logServiceManager);
 		rootFrameworkLog = eclipseLogFactory.createFrameworkLog(null, logWriter);
 	}
 
+	private static ExtendedLogReaderServiceFactory createLogReaderServiceFactory(EquinoxConfiguration environmentInfo, int logHistoryMax) {
+		String threadCntProp = environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_LISTENER_THREAD_COUNT);
+		int threadCnt = 0;
+		if (threadCntProp != null) {
+			try {
+				threadCnt = Integer.parseInt(threadCntProp);
+			} catch (NumberFormatException e) {
+				// ignore and use 0
+			}
+		}
+		if (threadCnt <= 0) {
+			// by default each asynchronous listener uses its own thread
+			return new ExtendedLogReaderServiceFactory(logHistoryMax);
+		}
+		String backlogMaxProp = environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_LISTENER_BACKLOG_MAX);
+		int backlogMax = DEFAULT_LISTENER_BACKLOG_MAX;
+		if (backlogMaxProp != null) {
+			try {
+				backlogMax = Integer.parseInt(backlogMaxProp);
+			} catch (NumberFormatException e) {
+				// ignore and use the default
+			}
+		}
+		OverflowPolicy overflowPolicy = OverflowPolicy.parse(environmentInfo.getConfiguration(EquinoxConfiguration.PROP_LOG_LISTENER_OVERFLOW), OverflowPolicy.BLOCK);
+
+		// use an unbounded queue; each listener has at most one task waiting in the executor
+		ThreadFactory threadFactory = new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Equinox Log Listener Dispatcher"); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			}
+		};
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCnt, threadCnt, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+		// Always want to go to zero threads when idle
+		executor.allowCoreThreadTimeOut(true);
+		return new ExtendedLogReaderServiceFactory(logHistoryMax, executor, backlogMax, overflowPolicy);
+	}
+
 	private ServiceRegistration<?> frameworkLogReg;
 	private ServiceRegistration<?> perfLogReg;
 
@@ -93,6 +137,8 @@ public class EquinoxLogServices {
 	 * @throws BundleException  
 	 */
 	public void start(BundleContext context) throws BundleException {
+		logWriter.startAsync();
+		perfWriter.startAsync();
 		logServiceManager.start(context);
 		frameworkLogReg = StorageUtil.register(FrameworkLog.class.getName(), eclipseLogFactory, context);
 		perfLogReg = registerPerformanceLog(context);
@@ -105,6 +151,9 @@ public class EquinoxLogServices {
 		frameworkLogReg.unregister();
 		perfLogReg.unregister();
 		logServiceManager.stop(context);
+		// write all waiting log entries; later entries are written synchronously
+		logWriter.stopAsync();
+		perfWriter.stopAsync();
 	}
 
 	public FrameworkLog getFrameworkLog() {
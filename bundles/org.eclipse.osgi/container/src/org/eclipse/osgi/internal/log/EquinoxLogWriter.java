@@ -13,13 +13,15 @@ package org.eclipse.osgi.internal.log;
 import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.security.AccessController;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
 import org.eclipse.equinox.log.*;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.framework.util.SecureAction;
 import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
+import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleException;
 import org.osgi.service.log.LogEntry;
@@ -67,6 +69,26 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 
 	/** The system property used to specify command line args should be omitted from the log */
 	private static final String PROP_LOG_INCLUDE_COMMAND_LINE = "eclipse.log.include.commandline"; //$NON-NLS-1$
+
+	//Constants for asynchronous writing
+	/** The system property used to specify log entries should be written by a background thread */
+	private static final String PROP_LOG_ASYNC = "eclipse.log.async"; //$NON-NLS-1$
+	/** The system property used to specify the maximum number of log entries waiting to be written */
+	private static final String PROP_LOG_ASYNC_QUEUE_MAX = "eclipse.log.async.queue.max"; //$NON-NLS-1$
+	/** The system property used to specify the maximum time in milliseconds before written log entries are flushed */
+	private static final String PROP_LOG_ASYNC_FLUSH_INTERVAL = "eclipse.log.async.flush.interval"; //$NON-NLS-1$
+	/** The system property used to specify the number of written log entries which causes a flush */
+	private static final String PROP_LOG_ASYNC_FLUSH_ENTRIES = "eclipse.log.async.flush.entries"; //$NON-NLS-1$
+	/** The default maximum number of log entries waiting to be written */
+	private static final int DEFAULT_ASYNC_QUEUE_MAX = 10000;
+	/** The default maximum time in milliseconds before written log entries are flushed */
+	private static final int DEFAULT_ASYNC_FLUSH_INTERVAL = 1000;
+	/** The default number of written log entries which causes a flush */
+	private static final int DEFAULT_ASYNC_FLUSH_ENTRIES = 100;
+	/** The maximum number of log entries written by the background thread while holding the lock */
+	private static final int ASYNC_BATCH_MAX = 64;
+	/** The maximum time in milliseconds to wait for the background thread to write the waiting log entries when stopping */
+	private static final long ASYNC_STOP_TIMEOUT = 10000;
 	private static final SecureAction secureAction = AccessController.doPrivileged(SecureAction.createSecureAction());
 
 	/** Indicates if the console messages should be printed to the console (System.out) */
@@ -94,6 +116,9 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	private int logLevel = FrameworkLogEntry.OK;
 	private boolean includeCommandLine = true;
 
+	/** The background appender if log entries are written asynchronously; otherwise null */
+	private volatile LogAppender appender;
+
 	/**
 	 * Constructs an EclipseLog which uses the specified File to log messages to
 	 * @param outFile a file to log messages to
@@ -224,7 +249,7 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		}
 	}
 
-	public void close() {
+	public synchronized void close() {
 		try {
 			if (writer != null) {
 				Writer tmpWriter = writer;
@@ -271,20 +296,39 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		}
 	}
 
-	private synchronized void log(FrameworkLogEntry logEntry) {
+	private void log(FrameworkLogEntry logEntry) {
 		if (logEntry == null)
 			return;
 		if (!isLoggable(logEntry.getSeverity()))
 			return;
+		LogAppender current = appender;
+		if (current != null && current.append(logEntry)) {
+			return;
+		}
+		synchronized (this) {
+			writeLogEntry(logEntry, new Date(), true);
+		}
+	}
+
+	/*
+	 * Writes a log entry.  If flush is true then the log is flushed and the log file is
+	 * closed after the entry is written; otherwise the log file is left open for more entries.
+	 * Must be called while holding the lock of this writer.
+	 */
+	private void writeLogEntry(FrameworkLogEntry logEntry, Date date, boolean flush) {
 		try {
-			checkLogFileSize();
-			openFile();
+			if (writer == null) {
+				// only check the size of a closed log file; a rotated file must not be open
+				checkLogFileSize();
+				openFile();
+			}
 			if (newSession) {
 				writeSession();
 				newSession = false;
 			}
-			writeLog(0, logEntry);
-			writer.flush();
+			writeLog(0, logEntry, date);
+			if (flush)
+				writer.flush();
 		} catch (Exception e) {
 			// any exceptions during logging should be caught 
 			System.err.println("An exception occurred while writing to the platform log:");//$NON-NLS-1$
@@ -293,17 +337,104 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 			//we failed to write, so dump log entry to console instead
 			try {
 				writer = logForErrorStream();
-				writeLog(0, logEntry);
+				writeLog(0, logEntry, date);
 				writer.flush();
 			} catch (Exception e2) {
 				System.err.println("An exception occurred while logging to the console:");//$NON-NLS-1$
 				e2.printStackTrace(System.err);
 			}
+		} finally {
+			if (flush)
+				closeFile();
+		}
+	}
+
+	/*
+	 * Flushes the log entries written by writeLogEntry without flushing and closes the log file.
+	 * Must be called while holding the lock of this writer.
+	 */
+	private void flushLogEntries() {
+		if (writer == null)
+			return;
+		try {
+			writer.flush();
+		} catch (IOException e) {
+			System.err.println("An exception occurred while writing to the platform log:");//$NON-NLS-1$
+			e.printStackTrace(System.err);
 		} finally {
 			closeFile();
 		}
 	}
 
+	/**
+	 * Starts writing log entries with a background thread if the
+	 * eclipse.log.async property is set to true.
+	 */
+	void startAsync() {
+		if (environmentInfo == null || !"true".equals(environmentInfo.getConfiguration(PROP_LOG_ASYNC))) //$NON-NLS-1$
+			return;
+		synchronized (this) {
+			if (appender != null)
+				return;
+			int queueMax = getIntConfiguration(PROP_LOG_ASYNC_QUEUE_MAX, DEFAULT_ASYNC_QUEUE_MAX);
+			int flushInterval = getIntConfiguration(PROP_LOG_ASYNC_FLUSH_INTERVAL, DEFAULT_ASYNC_FLUSH_INTERVAL);
+			int flushEntries = getIntConfiguration(PROP_LOG_ASYNC_FLUSH_ENTRIES, DEFAULT_ASYNC_FLUSH_ENTRIES);
+			appender = new LogAppender(queueMax, flushInterval, flushEntries);
+			appender.start();
+		}
+	}
+
+	/**
+	 * Stops the background thread.  All log entries waiting to be written are
+	 * written and flushed before this method returns unless that takes longer
+	 * than the stop timeout.  Log entries are written synchronously afterwards.
+	 */
+	void stopAsync() {
+		LogAppender current;
+		synchronized (this) {
+			current = appender;
+			appender = null;
+		}
+		if (current == null)
+			return;
+		current.stop();
+		long dropped = current.getDroppedCount();
+		if (dropped > 0) {
+			log(new FrameworkLogEntry(EquinoxContainer.NAME, FrameworkLogEntry.WARNING, 0, "The asynchronous log writer dropped " + dropped + " log entries because too many entries were waiting to be written.", 0, null, null)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Returns the number of log entries which were queued to be written by the background thread.
+	 * @return the number of queued log entries
+	 */
+	long getQueuedCount() {
+		LogAppender current = appender;
+		return current == null ? 0 : current.getQueuedCount();
+	}
+
+	/**
+	 * Returns the number of log entries which were dropped because too many log entries were
+	 * waiting to be written by the background thread.
+	 * @return the number of dropped log entries
+	 */
+	long getDroppedCount() {
+		LogAppender current = appender;
+		return current == null ? 0 : current.getDroppedCount();
+	}
+
+	private int getIntConfiguration(String key, int defaultValue) {
+		String value = environmentInfo.getConfiguration(key);
+		if (value != null) {
+			try {
+				return Integer.parseInt(value);
+			} catch (NumberFormatException e) {
+				// ignore and use the default
+			}
+		}
+		return defaultValue;
+	}
+
 	public synchronized void setWriter(Writer newWriter, boolean append) {
 		setOutput(null, newWriter, append);
 	}
@@ -462,17 +593,18 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 * a sub-entry.
 	 * @param depth the depth of th entry
 	 * @param entry the entry to log
+	 * @param date the time the entry was logged
 	 * @throws IOException if any error occurs writing to the log
 	 */
-	private void writeLog(int depth, FrameworkLogEntry entry) throws IOException {
-		writeEntry(depth, entry);
+	private void writeLog(int depth, FrameworkLogEntry entry, Date date) throws IOException {
+		writeEntry(depth, entry, date);
 		writeMessage(entry);
 		writeStack(entry);
 
 		FrameworkLogEntry[] children = entry.getChildren();
 		if (children != null) {
 			for (int i = 0; i < children.length; i++) {
-				writeLog(depth + 1, children[i]);
+				writeLog(depth + 1, children[i], date);
 			}
 		}
 	}
@@ -483,9 +615,10 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	 * a sub-entry.
 	 * @param depth the depth of th entry
 	 * @param entry the entry to write the header for
+	 * @param date the time the entry was logged
 	 * @throws IOException if any error occurs writing to the log
 	 */
-	private void writeEntry(int depth, FrameworkLogEntry entry) throws IOException {
+	private void writeEntry(int depth, FrameworkLogEntry entry, Date date) throws IOException {
 		if (depth == 0) {
 			writeln(); // write a blank line before all !ENTRY tags bug #64406
 			write(ENTRY);
@@ -501,7 +634,7 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 		writeSpace();
 		write(Integer.toString(entry.getBundleCode()));
 		writeSpace();
-		write(getDate(new Date()));
+		write(getDate(date));
 		writeln();
 	}
 
@@ -735,4 +868,172 @@ class EquinoxLogWriter implements SynchronousLogListener, LogFilter {
 	public String getLoggerName() {
 		return loggerName;
 	}
+
+	/**
+	 * Writes log entries with a background thread.  The entries are written in batches
+	 * and flushed once the flush interval has passed or enough entries have been written.
+	 */
+	private final class LogAppender implements Runnable {
+		// marks the end of the entries to write when stopping
+		private final QueuedEntry stopMarker = new QueuedEntry(null);
+		private final LinkedBlockingQueue<QueuedEntry> queue;
+		private final int flushInterval;
+		private final int flushEntries;
+		private final Thread thread;
+		/* @GuardedBy("this") */
+		private boolean stopped;
+		/* @GuardedBy("this") */
+		private long queuedCount;
+		/* @GuardedBy("this") */
+		private long droppedCount;
+		// the number of errors waiting for room in the queue
+		/* @GuardedBy("this") */
+		private int blockedAppends;
+
+		LogAppender(int queueMax, int flushInterval, int flushEntries) {
+			this.queue = new LinkedBlockingQueue<>(Math.max(1, queueMax));
+			this.flushInterval = Math.max(0, flushInterval);
+			this.flushEntries = Math.max(1, flushEntries);
+			this.thread = new Thread(this, "Equinox Log Writer: " + loggerName); //$NON-NLS-1$
+			this.thread.setDaemon(true);
+		}
+
+		void start() {
+			thread.start();
+		}
+
+		/*
+		 * Queues the entry to be written; returns false if the appender is stopped.
+		 * Errors wait for room in the queue so they are never dropped; other entries
+		 * are dropped if the queue is full.
+		 */
+		boolean append(FrameworkLogEntry logEntry) {
+			QueuedEntry queued = new QueuedEntry(logEntry);
+			synchronized (this) {
+				if (stopped)
+					return false;
+				if (queue.offer(queued)) {
+					queuedCount++;
+					return true;
+				}
+				if (logEntry.getSeverity() != FrameworkLogEntry.ERROR) {
+					droppedCount++;
+					return true;
+				}
+				// stop waits for the error to be queued before queuing the stop marker
+				blockedAppends++;
+			}
+			boolean added = false;
+			try {
+				// wait without holding the lock so other entries can be dropped meanwhile
+				queue.put(queued);
+				added = true;
+			} catch (InterruptedException e) {
+				// write the error on the current thread instead
+				Thread.currentThread().interrupt();
+			} finally {
+				synchronized (this) {
+					blockedAppends--;
+					if (added)
+						queuedCount++;
+					notifyAll();
+				}
+			}
+			return added;
+		}
+
+		void stop() {
+			synchronized (this) {
+				if (stopped)
+					return;
+				stopped = true;
+			}
+			long deadline = System.currentTimeMillis() + ASYNC_STOP_TIMEOUT;
+			boolean interrupted = false;
+			synchronized (this) {
+				// the background thread makes room for the blocked errors
+				for (long remaining = ASYNC_STOP_TIMEOUT; blockedAppends > 0 && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+					try {
+						wait(remaining);
+					} catch (InterruptedException e) {
+						interrupted = true;
+					}
+				}
+			}
+			// no more entries can be queued; the marker is the last entry
+			boolean marked = false;
+			for (long remaining = deadline - System.currentTimeMillis(); !marked && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+				try {
+					marked = queue.offer(stopMarker, remaining, TimeUnit.MILLISECONDS);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			for (long remaining = deadline - System.currentTimeMillis(); marked && thread.isAlive() && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+				try {
+					thread.join(remaining);
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+
+		synchronized long getQueuedCount() {
+			return queuedCount;
+		}
+
+		synchronized long getDroppedCount() {
+			return droppedCount;
+		}
+
+		public void run() {
+			List<QueuedEntry> batch = new ArrayList<>(ASYNC_BATCH_MAX);
+			int unflushed = 0;
+			long flushTime = 0;
+			boolean stopping = false;
+			while (!stopping) {
+				try {
+					QueuedEntry next;
+					if (unflushed == 0) {
+						next = queue.take();
+					} else {
+						next = queue.poll(Math.max(0, flushTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+					}
+					if (next != null) {
+						batch.add(next);
+						queue.drainTo(batch, ASYNC_BATCH_MAX - 1);
+					}
+				} catch (InterruptedException e) {
+					// nobody interrupts this thread; keep writing
+				}
+				synchronized (EquinoxLogWriter.this) {
+					for (QueuedEntry queued : batch) {
+						if (queued == stopMarker) {
+							stopping = true;
+						} else {
+							if (unflushed++ == 0)
+								flushTime = System.currentTimeMillis() + flushInterval;
+							writeLogEntry(queued.entry, queued.date, false);
+						}
+					}
+					if (unflushed > 0 && (stopping || unflushed >= flushEntries || System.currentTimeMillis() >= flushTime)) {
+						flushLogEntries();
+						unflushed = 0;
+					}
+				}
+				batch.clear();
+			}
+		}
+	}
+
+	private static final class QueuedEntry {
+		final FrameworkLogEntry entry;
+		final Date date = new Date();
+
+		QueuedEntry(FrameworkLogEntry entry) {
+			this.entry = entry;
+		}
+	}
 }
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * ExecutorTaskQueue is a utility class that will allow asynchronous but serialized
+ * execution of tasks using a shared executor.  Many queues may share the same executor;
+ * the tasks of each queue are executed in order and never concurrently.
+ * <p>
+ * The number of tasks waiting in a queue is bounded.  The {@link OverflowPolicy}
+ * of the queue decides what happens to a new task when the queue is full.
+ */
+public class ExecutorTaskQueue implements Runnable {
+	/**
+	 * The policies for new tasks put into a full queue
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The new task is discarded
+		 */
+		DROP,
+		/**
+		 * The caller waits until the queue has room for the new task
+		 */
+		BLOCK,
+		/**
+		 * The oldest waiting task is discarded to make room for the new task
+		 */
+		COALESCE;
+
+		/**
+		 * Returns the overflow policy with the specified name ignoring case.
+		 * @param name the name of the policy
+		 * @param defaultPolicy the policy to return if the name is null or not known
+		 * @return the overflow policy
+		 */
+		public static OverflowPolicy parse(String name, OverflowPolicy defaultPolicy) {
+			if (name != null) {
+				for (OverflowPolicy policy : values()) {
+					if (policy.name().equalsIgnoreCase(name.trim())) {
+						return policy;
+					}
+				}
+			}
+			return defaultPolicy;
+		}
+	}
+
+	// the maximum number of tasks to run before giving other queues a chance to use the executor
+	private static final int MAX_BATCH = 64;
+	// used to avoid blocking a thread which is executing the tasks of a queue
+	private static final ThreadLocal<Boolean> executingTasks = new ThreadLocal<>();
+
+	private final Executor executor;
+	private final int maxBacklog;
+	private final OverflowPolicy overflowPolicy;
+	/* @GuardedBy("this") */
+	private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+	/* @GuardedBy("this") */
+	private boolean scheduled;
+	/* @GuardedBy("this") */
+	private int peakBacklog;
+	/* @GuardedBy("this") */
+	private long droppedCount;
+
+	public ExecutorTaskQueue(Executor executor, int maxBacklog, OverflowPolicy overflowPolicy) {
+		this.executor = executor;
+		this.maxBacklog = Math.max(1, maxBacklog);
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	public void put(Runnable newTask) {
+		synchronized (this) {
+			while (tasks.size() >= maxBacklog) {
+				if (overflowPolicy == OverflowPolicy.COALESCE) {
+					tasks.removeFirst();
+					droppedCount++;
+				} else if (overflowPolicy == OverflowPolicy.BLOCK && executingTasks.get() == null) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						// give up on the task but reset the interrupted flag
+						Thread.currentThread().interrupt();
+						droppedCount++;
+						return;
+					}
+				} else {
+					// never block a thread executing tasks; it may be the one which must make room
+					droppedCount++;
+					return;
+				}
+			}
+			tasks.addLast(newTask);
+			peakBacklog = Math.max(peakBacklog, tasks.size());
+			if (scheduled) {
+				return;
+			}
+			scheduled = true;
+		}
+		schedule();
+	}
+
+	private void schedule() {
+		try {
+			executor.execute(this);
+		} catch (RejectedExecutionException e) {
+			// the executor is shutdown; run the tasks on the current thread
+			run();
+		}
+	}
+
+	public void run() {
+		boolean nested = executingTasks.get() != null;
+		executingTasks.set(Boolean.TRUE);
+		boolean idle = false;
+		try {
+			for (int i = 0; i < MAX_BATCH; i++) {
+				Runnable task;
+				synchronized (this) {
+					task = tasks.pollFirst();
+					if (task == null) {
+						scheduled = false;
+						idle = true;
+						return;
+					}
+					// wake up any threads waiting for room in the queue
+					notifyAll();
+				}
+				task.run();
+			}
+		} finally {
+			if (!nested) {
+				executingTasks.remove();
+			}
+			// also reached if a task threw an error; the queue must not stay scheduled without running
+			if (!idle && !setIdle()) {
+				// more tasks are waiting; reschedule to let other queues run
+				schedule();
+			}
+		}
+	}
+
+	private synchronized boolean setIdle() {
+		if (tasks.isEmpty()) {
+			scheduled = false;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the number of tasks waiting in this queue.
+	 * @return the number of tasks waiting in this queue
+	 */
+	public synchronized int getBacklog() {
+		return tasks.size();
+	}
+
+	/**
+	 * Returns the largest number of tasks which have been waiting in this queue.
+	 * @return the largest number of tasks which have been waiting in this queue
+	 */
+	public synchronized int getPeakBacklog() {
+		return peakBacklog;
+	}
+
+	/**
+	 * Returns the number of tasks which have been discarded because this queue was full.
+	 * @return the number of tasks discarded
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+}
@@ -11,9 +11,11 @@ import java.io.PrintStream;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.*;
+import java.util.concurrent.Executor;
 import org.eclipse.equinox.log.LogFilter;
 import org.eclipse.equinox.log.SynchronousLogListener;
 import org.eclipse.osgi.framework.util.ArrayMap;
+import org.eclipse.osgi.internal.log.ExecutorTaskQueue.OverflowPolicy;
 import org.osgi.framework.*;
 import org.osgi.service.log.LogEntry;
 import org.osgi.service.log.LogListener;
@@ -53,8 +55,11 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 	private ArrayMap<LogListener, Object[]> listeners = new ArrayMap<>(5);
 	private LogFilter[] filters = null;
 	private final ThreadLocal<int[]> nestedCallCount = new ThreadLocal<>();
-	private final LinkedList<LogEntry> history;
-	private final int maxHistory;
+	private final LogHistory history;
+	// if not null then all asynchronous listeners share this executor
+	private final Executor listenerExecutor;
+	private final int maxListenerBacklog;
+	private final OverflowPolicy overflowPolicy;
 
 	static boolean safeIsLoggable(LogFilter filter, Bundle bundle, String name, int level) {
 		try {
@@ -99,9 +104,24 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 	}
 
 	public ExtendedLogReaderServiceFactory(int maxHistory) {
-		this.maxHistory = maxHistory;
+		this(maxHistory, null, 0, null);
+	}
+
+	/**
+	 * Creates a log reader service factory.
+	 * @param maxHistory the maximum number of log entries kept in the history
+	 * @param listenerExecutor the executor shared by all asynchronous log listeners, if
+	 * <code>null</code> then each asynchronous listener uses its own thread
+	 * @param maxListenerBacklog the maximum number of log entries waiting to be delivered
+	 * to a listener when a listener executor is used
+	 * @param overflowPolicy the policy for log entries when the backlog of a listener is full
+	 */
+	public ExtendedLogReaderServiceFactory(int maxHistory, Executor listenerExecutor, int maxListenerBacklog, OverflowPolicy overflowPolicy) {
+		this.listenerExecutor = listenerExecutor;
+		this.maxListenerBacklog = maxListenerBacklog;
+		this.overflowPolicy = overflowPolicy;
 		if (maxHistory > 0) {
-			history = new LinkedList<>();
+			history = new LogHistory(maxHistory);
 		} else {
 			history = null;
 		}
@@ -209,9 +229,11 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 				LogFilter filter = (LogFilter) listenerObjects[0];
 				if (safeIsLoggable(filter, bundle, name, level)) {
 					LogListener listener = listenersCopy.getKey(i);
-					SerializedTaskQueue taskQueue = (SerializedTaskQueue) listenerObjects[1];
-					if (taskQueue != null) {
-						taskQueue.put(new LogTask(logEntry, listener));
+					Object taskQueue = listenerObjects[1];
+					if (taskQueue instanceof ExecutorTaskQueue) {
+						((ExecutorTaskQueue) taskQueue).put(new LogTask(logEntry, listener));
+					} else if (taskQueue != null) {
+						((SerializedTaskQueue) taskQueue).put(new LogTask(logEntry, listener));
 					} else {
 						// log synchronously
 						safeLogged(listener, logEntry);
@@ -225,12 +247,7 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 
 	private void storeEntry(LogEntry logEntry) {
 		if (history != null) {
-			synchronized (history) {
-				if (history.size() == maxHistory) {
-					history.removeFirst();
-				}
-				history.addLast(logEntry);
-			}
+			history.add(logEntry);
 		}
 	}
 
@@ -241,7 +258,7 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 			Object[] listenerObjects = listenersCopy.get(listener);
 			if (listenerObjects == null) {
 				// Only create a task queue for non-SynchronousLogListeners
-				SerializedTaskQueue taskQueue = (listener instanceof SynchronousLogListener) ? null : new SerializedTaskQueue(listener.toString());
+				Object taskQueue = (listener instanceof SynchronousLogListener) ? null : createTaskQueue(listener);
 				listenerObjects = new Object[] {filter, taskQueue};
 			} else if (filter != listenerObjects[0]) {
 				// update the filter
@@ -255,6 +272,13 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 		}
 	}
 
+	private Object createTaskQueue(LogListener listener) {
+		if (listenerExecutor != null) {
+			return new ExecutorTaskQueue(listenerExecutor, maxListenerBacklog, overflowPolicy);
+		}
+		return new SerializedTaskQueue(listener.toString());
+	}
+
 	private void recalculateFilters(ArrayMap<LogListener, Object[]> listenersCopy) {
 		List<LogFilter> filtersList = new ArrayList<>();
 		int size = listenersCopy.size();
@@ -275,23 +299,62 @@ public class ExtendedLogReaderServiceFactory implements ServiceFactory<ExtendedL
 	}
 
 	void removeLogListener(LogListener listener) {
+		Object[] listenerObjects;
 		listenersLock.writeLock();
 		try {
 			ArrayMap<LogListener, Object[]> listenersCopy = new ArrayMap<>(listeners.getKeys(), listeners.getValues());
+			listenerObjects = listenersCopy.get(listener);
 			listenersCopy.remove(listener);
 			recalculateFilters(listenersCopy);
 			listeners = listenersCopy;
 		} finally {
 			listenersLock.writeUnlock();
 		}
+		if (listenerObjects != null && listenerObjects[1] instanceof ExecutorTaskQueue) {
+			ExecutorTaskQueue taskQueue = (ExecutorTaskQueue) listenerObjects[1];
+			long dropped = taskQueue.getDroppedCount();
+			if (dropped > 0) {
+				// the listener missed log entries; report how far behind it fell
+				getErrorStream().println("LogListener " + listener + " dropped " + dropped + " log entries; the peak backlog was " + taskQueue.getPeakBacklog() + " of " + maxListenerBacklog + " log entries."); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+			}
+		}
+	}
+
+	/**
+	 * Returns the task queues of the asynchronous log listeners which share the
+	 * listener executor.  The queues provide the backlog of each listener.
+	 * @return the task queues of the asynchronous log listeners
+	 */
+	Map<LogListener, ExecutorTaskQueue> getListenerQueues() {
+		ArrayMap<LogListener, Object[]> listenersCopy;
+		listenersLock.readLock();
+		try {
+			listenersCopy = listeners;
+		} finally {
+			listenersLock.readUnlock();
+		}
+		Map<LogListener, ExecutorTaskQueue> result = new HashMap<>();
+		int size = listenersCopy.size();
+		for (int i = 0; i < size; i++) {
+			Object taskQueue = listenersCopy.getValue(i)[1];
+			if (taskQueue instanceof ExecutorTaskQueue) {
+				result.put(listenersCopy.getKey(i), (ExecutorTaskQueue) taskQueue);
+			}
+		}
+		return result;
 	}
 
 	Enumeration<?> getLog() {
 		if (history == null) {
 			return EMPTY_ENUMERATION;
 		}
-		synchronized (history) {
-			return Collections.enumeration(new ArrayList<>(history));
+		return history.getLog();
+	}
+
+	Enumeration<LogEntry> getLog(Bundle bundle, String loggerName, int maxLevel) {
+		if (history == null) {
+			return Collections.emptyEnumeration();
 		}
+		return history.getLog(bundle, loggerName, maxLevel);
 	}
 }
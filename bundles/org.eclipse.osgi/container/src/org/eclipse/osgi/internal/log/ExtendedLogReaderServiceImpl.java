@@ -10,6 +10,8 @@ package org.eclipse.osgi.internal.log;
 import java.util.*;
 import org.eclipse.equinox.log.ExtendedLogReaderService;
 import org.eclipse.equinox.log.LogFilter;
+import org.osgi.framework.Bundle;
+import org.osgi.service.log.LogEntry;
 import org.osgi.service.log.LogListener;
 
 public class ExtendedLogReaderServiceImpl implements ExtendedLogReaderService {
@@ -42,6 +44,32 @@ public class ExtendedLogReaderServiceImpl implements ExtendedLogReaderService {
 		return factory.getLog();
 	}
 
+	/**
+	 * Returns the entries in the log history which match the specified bundle, logger name and level.
+	 * Selecting the entries of the most severe levels does not require looking at all the entries
+	 * of the history.
+	 * @param bundle the bundle of the entries, or <code>null</code> for the entries of all bundles
+	 * @param loggerName the logger name of the entries, or <code>null</code> for the entries of all loggers
+	 * @param maxLevel the least severe level of the entries
+	 * @return the matching entries, oldest first
+	 */
+	public Enumeration<LogEntry> getLog(Bundle bundle, String loggerName, int maxLevel) {
+		checkShutdown();
+		return factory.getLog(bundle, loggerName, maxLevel);
+	}
+
+	/**
+	 * Returns the number of log entries waiting to be delivered to an asynchronous
+	 * log listener which uses the shared listener executor.
+	 * @param listener the log listener
+	 * @return the number of waiting log entries, or -1 if the listener does not use the listener executor
+	 */
+	public int getBacklog(LogListener listener) {
+		checkShutdown();
+		ExecutorTaskQueue taskQueue = factory.getListenerQueues().get(listener);
+		return taskQueue == null ? -1 : taskQueue.getBacklog();
+	}
+
 	public synchronized void removeLogListener(LogListener listener) {
 		checkShutdown();
 		if (listener == null)
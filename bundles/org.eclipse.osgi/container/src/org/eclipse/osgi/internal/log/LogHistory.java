@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.internal.log;
+
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.eclipse.equinox.log.ExtendedLogEntry;
+import org.osgi.framework.Bundle;
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogService;
+
+/**
+ * A fixed size history of log entries.  Entries are stored in a ring buffer
+ * without locking; once the history is full the oldest entry is overwritten
+ * by each new entry.
+ * <p>
+ * The positions of the entries of each of the standard log levels are also kept
+ * in a ring buffer of their own so that the entries up to a given level can be read
+ * without looking at the entries of the less severe levels.  The level rings do not
+ * reference the entries, so the history never retains more entries than its capacity.
+ * <p>
+ * Reading the history does not copy it.  An enumeration returned by this class
+ * contains the entries in the history at the time the enumeration was created, oldest
+ * first, except for entries which are overwritten before the enumeration reaches them.
+ * Entries added concurrently with the creation of an enumeration may be missing from it.
+ */
+class LogHistory {
+	static final class Slot {
+		// the position of the slot in the ring which contains it
+		final long index;
+		// the position of the entry in the complete history
+		final long sequence;
+		// null for the slots of the level rings; the entry is in the history at the sequence
+		final LogEntry entry;
+
+		Slot(long index, long sequence, LogEntry entry) {
+			this.index = index;
+			this.sequence = sequence;
+			this.entry = entry;
+		}
+	}
+
+	static final class Ring {
+		private final AtomicReferenceArray<Slot> slots;
+
+		Ring(int capacity) {
+			slots = new AtomicReferenceArray<>(capacity);
+		}
+
+		void set(Slot slot) {
+			int i = (int) (slot.index % slots.length());
+			Slot current;
+			do {
+				current = slots.get(i);
+				if (current != null && current.index > slot.index) {
+					// a writer which was delayed must not overwrite a newer slot
+					return;
+				}
+			} while (!slots.compareAndSet(i, current, slot));
+		}
+
+		/*
+		 * Returns the slot at the specified index, or null if the slot has not been
+		 * written yet or has been overwritten
+		 */
+		Slot get(long index) {
+			Slot slot = slots.get((int) (index % slots.length()));
+			return slot != null && slot.index == index ? slot : null;
+		}
+
+		long getStart(long end) {
+			return Math.max(0, end - slots.length());
+		}
+	}
+
+	/*
+	 * The next positions of the history and of the level rings.  The ends are never
+	 * changed; a writer claims its positions in the history and in its level ring
+	 * together by replacing the ends with a single compare and set.
+	 */
+	static final class Ends {
+		final long all;
+		final long[] levels;
+
+		Ends(long all, long[] levels) {
+			this.all = all;
+			this.levels = levels;
+		}
+
+		Ends next(int level) {
+			long[] nextLevels = levels.clone();
+			nextLevels[level]++;
+			return new Ends(all + 1, nextLevels);
+		}
+	}
+
+	private final int capacity;
+	private final Ring all;
+	// the rings of the standard log levels, indexed by level; other levels use the last ring
+	private final Ring[] levels = new Ring[LogService.LOG_DEBUG + 2];
+	private final AtomicReference<Ends> ends = new AtomicReference<>(new Ends(0, new long[levels.length]));
+
+	LogHistory(int capacity) {
+		this.capacity = capacity;
+		this.all = new Ring(capacity);
+		for (int i = 0; i < levels.length; i++) {
+			// index 0 is not a standard level
+			levels[i] = i == 0 ? null : new Ring(capacity);
+		}
+	}
+
+	void add(LogEntry entry) {
+		int level = getLevelIndex(entry.getLevel());
+		Ends claimed;
+		do {
+			// claim both positions together so the level rings are in the order of the history
+			claimed = ends.get();
+		} while (!ends.compareAndSet(claimed, claimed.next(level)));
+		all.set(new Slot(claimed.all, claimed.all, entry));
+		levels[level].set(new Slot(claimed.levels[level], claimed.all, null));
+	}
+
+	/**
+	 * Returns the entries in the history.
+	 * @return the entries in the history, oldest first
+	 */
+	Enumeration<LogEntry> getLog() {
+		long end = ends.get().all;
+		return new HistoryEnumeration(end, new Ring[] {all}, new long[] {end}, null, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the entries in the history which match the specified bundle, logger name and level.
+	 * @param bundle the bundle of the entries, or <code>null</code> for the entries of all bundles
+	 * @param loggerName the logger name of the entries, or <code>null</code> for the entries of all loggers
+	 * @param maxLevel the least severe level of the entries
+	 * @return the matching entries in the history, oldest first
+	 */
+	Enumeration<LogEntry> getLog(Bundle bundle, String loggerName, int maxLevel) {
+		Ends current = ends.get();
+		if (maxLevel < LogService.LOG_ERROR || maxLevel >= LogService.LOG_DEBUG) {
+			return new HistoryEnumeration(current.all, new Ring[] {all}, new long[] {current.all}, bundle, loggerName, maxLevel);
+		}
+		// use the rings of the standard levels up to the max level and the ring of the other levels
+		Ring[] rings = new Ring[maxLevel + 1];
+		long[] ringEnds = new long[maxLevel + 1];
+		System.arraycopy(levels, LogService.LOG_ERROR, rings, 0, maxLevel);
+		System.arraycopy(current.levels, LogService.LOG_ERROR, ringEnds, 0, maxLevel);
+		rings[maxLevel] = levels[levels.length - 1];
+		ringEnds[maxLevel] = current.levels[levels.length - 1];
+		return new HistoryEnumeration(current.all, rings, ringEnds, bundle, loggerName, maxLevel);
+	}
+
+	private int getLevelIndex(int level) {
+		return level >= LogService.LOG_ERROR && level <= LogService.LOG_DEBUG ? level : levels.length - 1;
+	}
+
+	/*
+	 * Merges the entries of one or more rings in the order of the history
+	 */
+	private final class HistoryEnumeration implements Enumeration<LogEntry> {
+		private final Ring[] rings;
+		private final long[] positions;
+		private final long[] ends;
+		// entries outside of these sequences were not in the history when the enumeration was created
+		private final long firstSequence;
+		private final long endSequence;
+		private final Bundle bundle;
+		private final String loggerName;
+		private final int maxLevel;
+		private LogEntry next;
+
+		HistoryEnumeration(long allEnd, Ring[] rings, long[] ends, Bundle bundle, String loggerName, int maxLevel) {
+			this.rings = rings;
+			this.positions = new long[rings.length];
+			this.ends = ends;
+			for (int i = 0; i < rings.length; i++) {
+				positions[i] = rings[i].getStart(ends[i]);
+			}
+			this.firstSequence = Math.max(0, allEnd - capacity);
+			this.endSequence = allEnd;
+			this.bundle = bundle;
+			this.loggerName = loggerName;
+			this.maxLevel = maxLevel;
+			this.next = findNext();
+		}
+
+		public boolean hasMoreElements() {
+			return next != null;
+		}
+
+		public LogEntry nextElement() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			LogEntry result = next;
+			next = findNext();
+			return result;
+		}
+
+		private LogEntry findNext() {
+			while (true) {
+				int oldest = -1;
+				Slot oldestSlot = null;
+				for (int i = 0; i < rings.length; i++) {
+					Slot slot = peek(i);
+					if (slot != null && (oldestSlot == null || slot.sequence < oldestSlot.sequence)) {
+						oldest = i;
+						oldestSlot = slot;
+					}
+				}
+				if (oldestSlot == null) {
+					return null;
+				}
+				positions[oldest]++;
+				LogEntry entry = getEntry(oldestSlot);
+				if (entry != null && matches(entry)) {
+					return entry;
+				}
+			}
+		}
+
+		private Slot peek(int i) {
+			for (; positions[i] < ends[i]; positions[i]++) {
+				Slot slot = rings[i].get(positions[i]);
+				if (slot != null && slot.sequence >= firstSequence && slot.sequence < endSequence) {
+					return slot;
+				}
+			}
+			return null;
+		}
+
+		/*
+		 * Returns the entry of a slot, or null if the entry has been overwritten in the history
+		 */
+		private LogEntry getEntry(Slot slot) {
+			if (slot.entry != null) {
+				return slot.entry;
+			}
+			Slot historySlot = all.get(slot.sequence);
+			return historySlot == null ? null : historySlot.entry;
+		}
+
+		private boolean matches(LogEntry entry) {
+			if (entry.getLevel() > maxLevel) {
+				return false;
+			}
+			if (bundle != null && bundle != entry.getBundle()) {
+				return false;
+			}
+			if (loggerName != null) {
+				return entry instanceof ExtendedLogEntry && loggerName.equals(((ExtendedLogEntry) entry).getLoggerName());
+			}
+			return true;
+		}
+	}
+}
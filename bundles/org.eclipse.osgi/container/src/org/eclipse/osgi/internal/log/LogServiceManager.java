@@ -30,7 +30,11 @@ public class LogServiceManager implements BundleListener, FrameworkListener, Ser
 	private EventAdminAdapter eventAdminAdapter;
 
 	public LogServiceManager(int maxHistory, LogListener... systemListeners) {
-		logReaderServiceFactory = new ExtendedLogReaderServiceFactory(maxHistory);
+		this(new ExtendedLogReaderServiceFactory(maxHistory), systemListeners);
+	}
+
+	public LogServiceManager(ExtendedLogReaderServiceFactory logReaderServiceFactory, LogListener... systemListeners) {
+		this.logReaderServiceFactory = logReaderServiceFactory;
 		logServiceFactory = new ExtendedLogServiceFactory(logReaderServiceFactory);
 		systemBundleLog = logServiceFactory.getLogService(new MockSystemBundle());
 		for (LogListener logListener : systemListeners) {
@@ -11,6 +11,7 @@
 
 package org.eclipse.osgi.internal.serviceregistry;
 
+import java.util.List;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
 import org.eclipse.osgi.internal.framework.FilterImpl;
@@ -33,6 +34,8 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 	private final boolean unfiltered;
 	/** an objectClass required by the filter */
 	private final String objectClass;
+	/** the objectClass values of which the filter requires one; null if the listener can match any objectClass */
+	private final String[] objectClasses;
 	/** indicates whether the listener has been removed */
 	private volatile boolean removed;
 	private final Debug debug;
@@ -51,8 +54,18 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 		if (filterstring == null) {
 			this.filter = null;
 			this.objectClass = null;
+			this.objectClasses = null;
 		} else {
-			FilterImpl filterImpl = FilterImpl.newInstance(filterstring, context.getContainer().getConfiguration().getDebug().DEBUG_FILTER);
+			FilterImpl filterImpl = context.getContainer().createFilter(filterstring);
+			List<String> classes = unfiltered ? null : filterImpl.getPrimaryKeyValues(Constants.OBJECTCLASS);
+			if (classes == null) {
+				this.objectClasses = null;
+			} else {
+				this.objectClasses = new String[classes.size()];
+				for (int i = 0; i < this.objectClasses.length; i++) {
+					this.objectClasses[i] = classes.get(i).intern();
+				}
+			}
 			String clazz = filterImpl.getRequiredObjectClass();
 			if (unfiltered || (clazz == null)) {
 				this.objectClass = null;
@@ -186,6 +199,32 @@ class FilteredServiceListener implements ServiceListener, ListenerHook.ListenerI
 		return removed;
 	}
 
+	/**
+	 * Returns the objectClass values of which the filter requires one. The
+	 * values are used to index the listener.
+	 * @return The interned objectClass values or <code>null</code> if the
+	 * listener can match a service with any objectClass.
+	 */
+	String[] getObjectClasses() {
+		return objectClasses;
+	}
+
+	/**
+	 * Returns the real listener.
+	 * @return The service listener which was added.
+	 */
+	ServiceListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Returns the bundle context which added the listener.
+	 * @return The bundle context of the listener.
+	 */
+	BundleContextImpl getContext() {
+		return context;
+	}
+
 	/** 
 	 * Mark the service listener registration as removed.
 	 */
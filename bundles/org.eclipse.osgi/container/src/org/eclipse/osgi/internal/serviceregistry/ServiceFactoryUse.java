@@ -122,6 +122,26 @@ public class ServiceFactoryUse<S> extends ServiceUse<S> {
 		return service;
 	}
 
+	/**
+	 * Service factory uses always take the locking path.
+	 * 
+	 * @return null
+	 */
+	@Override
+	S tryGetService() {
+		return null;
+	}
+
+	/**
+	 * Service factory uses always take the locking path.
+	 * 
+	 * @return false
+	 */
+	@Override
+	boolean tryUngetService() {
+		return false;
+	}
+
 	/**
 	 * Unget a service's service object.
 	 * 
@@ -75,8 +75,8 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	private final Object registrationLock = new Object();
 
 	/** The registration state */
-	/* @GuardedBy("registrationLock") */
-	private int state;
+	/* modified while holding registrationLock; volatile so it can be read without the lock */
+	private volatile int state;
 	private static final int REGISTERED = 0x00;
 	private static final int UNREGISTERING = 0x01;
 	private static final int UNREGISTERED = 0x02;
@@ -257,9 +257,7 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 	 * @return true if unregistered; otherwise false.
 	 */
 	boolean isUnregistered() {
-		synchronized (registrationLock) {
-			return state == UNREGISTERED;
-		}
+		return state == UNREGISTERED;
 	}
 
 	/**
@@ -470,6 +468,21 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 		if (registry.debug.DEBUG_SERVICES) {
 			Debug.println("getService[" + user.getBundleImpl() + "](" + this + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		}
+		if (consumer == ServiceConsumer.singletonConsumer) {
+			/* If the user already uses this singleton service then only the use
+			 * count needs to be incremented, which can be done without locking. */
+			@SuppressWarnings("unchecked")
+			ServiceUse<S> use = (ServiceUse<S>) servicesInUse.get(this);
+			if (use != null) {
+				S serviceObject = use.tryGetService();
+				/* if the ServiceUse was released in the meantime then
+				 * fall back to the locking path to check the registration state */
+				if ((serviceObject != null) && (servicesInUse.get(this) == use)) {
+					user.checkValid();
+					return serviceObject;
+				}
+			}
+		}
 		/* Use a while loop to support retry if a call to a ServiceFactory fails */
 		while (true) {
 			ServiceUse<S> use;
@@ -577,6 +590,14 @@ public class ServiceRegistrationImpl<S> implements ServiceRegistration<S>, Compa
 		if (registry.debug.DEBUG_SERVICES) {
 			Debug.println("ungetService[" + user.getBundleImpl() + "](" + this + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 		}
+		if (consumer == ServiceConsumer.singletonConsumer) {
+			/* If the use count stays above zero the ServiceUse is not discarded
+			 * and the use count can be decremented without locking. */
+			ServiceUse<?> use = servicesInUse.get(this);
+			if ((use != null) && use.tryUngetService()) {
+				return true;
+			}
+		}
 
 		ServiceUse<S> use;
 		synchronized (servicesInUse) {
@@ -13,12 +13,16 @@ package org.eclipse.osgi.internal.serviceregistry;
 
 import java.security.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.eclipse.osgi.container.Module;
 import org.eclipse.osgi.container.ModuleRevision;
 import org.eclipse.osgi.framework.eventmgr.*;
 import org.eclipse.osgi.internal.debug.Debug;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
+import org.eclipse.osgi.internal.hookregistry.EventRecorderHook;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
 import org.eclipse.osgi.util.NLS;
@@ -45,16 +49,20 @@ public class ServiceRegistry {
 	 * The {@literal List<ServiceRegistrationImpl<?>>}s are both sorted 
 	 * in the natural order of ServiceRegistrationImpl and also are sets in that
 	 * there must be no two entries in a List which are equal.
+	 * The Lists are immutable snapshots which are replaced (copy-on-write)
+	 * while holding the registry lock so that lookups do not need to lock.
 	 */
-	/* @GuardedBy("this") */
-	private final Map<String, List<ServiceRegistrationImpl<?>>> publishedServicesByClass;
+	/* @GuardedBy("this") for writes */
+	private final ConcurrentHashMap<String, List<ServiceRegistrationImpl<?>>> publishedServicesByClass;
 
 	/** All published services. 
 	 * The List is both sorted in the natural order of ServiceRegistrationImpl and also is a
 	 * set in that there must be no two entries in the List which are equal.
+	 * The List is an immutable snapshot which is replaced (copy-on-write)
+	 * while holding the registry lock so that lookups do not need to lock.
 	 */
-	/* @GuardedBy("this") */
-	private final List<ServiceRegistrationImpl<?>> allPublishedServices;
+	/* @GuardedBy("this") for writes */
+	private volatile List<ServiceRegistrationImpl<?>> allPublishedServices;
 
 	/** Published services by BundleContextImpl.  
 	 * The {@literal List<ServiceRegistrationImpl<?>>}s are NOT sorted 
@@ -65,8 +73,7 @@ public class ServiceRegistry {
 	private final Map<BundleContextImpl, List<ServiceRegistrationImpl<?>>> publishedServicesByContext;
 
 	/** next free service id. */
-	/* @GuardedBy("this") */
-	private long serviceid;
+	private final AtomicLong serviceid;
 
 	/** Active Service Listeners.
 	 * {@literal Map<BundleContextImpl,CopyOnWriteIdentityMap<ServiceListener,FilteredServiceListener>>}.
@@ -74,6 +81,16 @@ public class ServiceRegistry {
 	/* @GuardedBy("serviceEventListeners") */
 	private final Map<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> serviceEventListeners;
 
+	/** Active Service Listeners indexed by the objectClass values their filter requires.
+	 * Listeners which can match any objectClass are kept in {@link #wildcardServiceListeners}.
+	 * The arrays are replaced and never modified so events can be delivered without a snapshot.
+	 * Updates are made while holding the serviceEventListeners lock.
+	 */
+	private final ConcurrentMap<String, FilteredServiceListener[]> serviceListenersByObjectClass;
+	/** Active Service Listeners whose filter does not restrict the objectClass. */
+	private volatile FilteredServiceListener[] wildcardServiceListeners;
+	private static final FilteredServiceListener[] emptyListeners = new FilteredServiceListener[0];
+
 	/** initial capacity of the main data structure */
 	private static final int initialCapacity = 50;
 	/** initial capacity of the nested data structure */
@@ -81,6 +98,7 @@ public class ServiceRegistry {
 	/** container which created this service registry */
 	private final EquinoxContainer container;
 	private final BundleContextImpl systemBundleContext;
+	private final List<EventRecorderHook> eventRecorders;
 	final Debug debug;
 
 	/**
@@ -90,11 +108,14 @@ public class ServiceRegistry {
 	public ServiceRegistry(EquinoxContainer container) {
 		this.container = container;
 		this.debug = container.getConfiguration().getDebug();
-		serviceid = 1;
-		publishedServicesByClass = new HashMap<>(initialCapacity);
+		this.eventRecorders = container.getConfiguration().getHookRegistry().getEventRecorderHooks();
+		serviceid = new AtomicLong(1);
+		publishedServicesByClass = new ConcurrentHashMap<>(initialCapacity);
 		publishedServicesByContext = new HashMap<>(initialCapacity);
-		allPublishedServices = new ArrayList<>(initialCapacity);
+		allPublishedServices = Collections.<ServiceRegistrationImpl<?>> emptyList();
 		serviceEventListeners = new HashMap<>(initialCapacity);
+		serviceListenersByObjectClass = new ConcurrentHashMap<>(initialCapacity);
+		wildcardServiceListeners = emptyListeners;
 		Module systemModule = container.getStorage().getModuleContainer().getModule(0);
 		systemBundleContext = (BundleContextImpl) systemModule.getBundle().getBundleContext();
 		systemBundleContext.provisionServicesInUseMap();
@@ -221,11 +242,19 @@ public class ServiceRegistry {
 			}
 		}
 
+		long start = eventRecorders.isEmpty() ? 0 : System.nanoTime();
 		ServiceRegistrationImpl<?> registration = new ServiceRegistrationImpl<>(this, context, clazzes, service);
 		registration.register(properties);
 		if (copy.contains(listenerHookName)) {
 			notifyNewListenerHook(registration);
 		}
+		if (!eventRecorders.isEmpty()) {
+			long duration = System.nanoTime() - start;
+			long bundleId = context.getBundleImpl().getBundleId();
+			for (EventRecorderHook recorder : eventRecorders) {
+				recorder.serviceRegistered(bundleId, registration.getId(), duration);
+			}
+		}
 		return registration;
 	}
 
@@ -305,6 +334,7 @@ public class ServiceRegistry {
 		if (debug.DEBUG_SERVICES) {
 			Debug.println((allservices ? "getAllServiceReferences(" : "getServiceReferences(") + clazz + ", \"" + filterstring + "\")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 		}
+		long start = eventRecorders.isEmpty() ? 0 : System.nanoTime();
 		Filter filter = (filterstring == null) ? null : context.createFilter(filterstring);
 		List<ServiceRegistrationImpl<?>> registrations = lookupServiceRegistrations(clazz, filter);
 		List<ServiceReferenceImpl<?>> references = new ArrayList<>(registrations.size());
@@ -337,6 +367,13 @@ public class ServiceRegistry {
 		notifyFindHooks(context, clazz, filterstring, allservices, shrinkable);
 
 		int size = references.size();
+		if (!eventRecorders.isEmpty()) {
+			long duration = System.nanoTime() - start;
+			long bundleId = context.getBundleImpl().getBundleId();
+			for (EventRecorderHook recorder : eventRecorders) {
+				recorder.servicesLookedUp(bundleId, clazz, filterstring, size, duration);
+			}
+		}
 		if (size == 0) {
 			return null;
 		}
@@ -458,7 +495,17 @@ public class ServiceRegistry {
 	public <S> S getService(BundleContextImpl context, ServiceReferenceImpl<S> reference) {
 		/* test for permission to get the service */
 		checkGetServicePermission(reference);
-		return reference.getRegistration().getService(context, ServiceConsumer.singletonConsumer);
+		if (eventRecorders.isEmpty()) {
+			return reference.getRegistration().getService(context, ServiceConsumer.singletonConsumer);
+		}
+		long start = System.nanoTime();
+		S service = reference.getRegistration().getService(context, ServiceConsumer.singletonConsumer);
+		long duration = System.nanoTime() - start;
+		long bundleId = context.getBundleImpl().getBundleId();
+		for (EventRecorderHook recorder : eventRecorders) {
+			recorder.serviceGotten(bundleId, reference.getRegistration().getId(), duration);
+		}
+		return service;
 	}
 
 	/**
@@ -719,6 +766,10 @@ public class ServiceRegistry {
 				serviceEventListeners.put(context, listeners);
 			}
 			oldFilteredListener = listeners.put(listener, filteredListener);
+			if (oldFilteredListener != null) {
+				unindexServiceListener(oldFilteredListener);
+			}
+			indexServiceListener(filteredListener);
 		}
 
 		if (oldFilteredListener != null) {
@@ -750,6 +801,9 @@ public class ServiceRegistry {
 				return; // this context has no listeners to begin with
 			}
 			oldFilteredListener = listeners.remove(listener);
+			if (oldFilteredListener != null) {
+				unindexServiceListener(oldFilteredListener);
+			}
 		}
 
 		if (oldFilteredListener == null) {
@@ -769,6 +823,11 @@ public class ServiceRegistry {
 		Map<ServiceListener, FilteredServiceListener> removedListenersMap;
 		synchronized (serviceEventListeners) {
 			removedListenersMap = serviceEventListeners.remove(context);
+			if (removedListenersMap != null) {
+				for (FilteredServiceListener oldFilteredListener : removedListenersMap.values()) {
+					unindexServiceListener(oldFilteredListener);
+				}
+			}
 		}
 		if ((removedListenersMap == null) || removedListenersMap.isEmpty()) {
 			return;
@@ -810,22 +869,69 @@ public class ServiceRegistry {
 	}
 
 	void publishServiceEventPrivileged(final ServiceEvent event) {
+		if (eventRecorders.isEmpty()) {
+			deliverServiceEventPrivileged(event);
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			deliverServiceEventPrivileged(event);
+		} finally {
+			long duration = System.nanoTime() - start;
+			ServiceRegistrationImpl<?> registration = ((ServiceReferenceImpl<?>) event.getServiceReference()).getRegistration();
+			long bundleId = registration.getRegisteringBundle().getBundleId();
+			for (EventRecorderHook recorder : eventRecorders) {
+				recorder.serviceEventDelivered(bundleId, registration.getId(), event.getType(), duration);
+			}
+		}
+	}
+
+	private void deliverServiceEventPrivileged(final ServiceEvent event) {
+		String[] classes = ((ServiceReferenceImpl<?>) event.getServiceReference()).getClasses();
+		if (!lookupServiceRegistrations(eventHookName, null).isEmpty() || !lookupServiceRegistrations(eventListenerHookName, null).isEmpty()) {
+			deliverServiceEventWithHooksPrivileged(event, classes);
+			return;
+		}
+
+		/* deliver the event directly to the candidate listeners */
+		if (classes.length == 1) {
+			dispatchServiceEvent(serviceListenersByObjectClass.get(classes[0]), null, event);
+		} else {
+			/* listeners indexed by more than one objectClass must only be called once */
+			Set<FilteredServiceListener> dispatched = null;
+			for (String clazz : classes) {
+				FilteredServiceListener[] listeners = serviceListenersByObjectClass.get(clazz);
+				if ((listeners != null) && (dispatched == null)) {
+					dispatched = Collections.newSetFromMap(new IdentityHashMap<FilteredServiceListener, Boolean>());
+				}
+				dispatchServiceEvent(listeners, dispatched, event);
+			}
+		}
+		dispatchServiceEvent(wildcardServiceListeners, null, event);
+	}
+
+	/**
+	 * Deliver a ServiceEvent when EventHook or EventListenerHook services are
+	 * registered. A snapshot of the candidate listeners is built for the hooks
+	 * to shrink.
+	 * 
+	 * @param event The ServiceEvent to deliver.
+	 * @param classes The objectClass values of the service.
+	 */
+	private void deliverServiceEventWithHooksPrivileged(final ServiceEvent event, String[] classes) {
 		/* Build the listener snapshot */
-		Map<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> listenerSnapshot;
-		Set<Map.Entry<ServiceListener, FilteredServiceListener>> systemServiceListenersOrig = null;
+		Map<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> listenerSnapshot = new HashMap<>();
+		for (String clazz : classes) {
+			addToSnapshot(listenerSnapshot, serviceListenersByObjectClass.get(clazz));
+		}
+		addToSnapshot(listenerSnapshot, wildcardServiceListeners);
 		BundleContextImpl systemContext = null;
-		synchronized (serviceEventListeners) {
-			listenerSnapshot = new HashMap<>(serviceEventListeners.size());
-			for (Map.Entry<BundleContextImpl, CopyOnWriteIdentityMap<ServiceListener, FilteredServiceListener>> entry : serviceEventListeners.entrySet()) {
-				Map<ServiceListener, FilteredServiceListener> listeners = entry.getValue();
-				if (!listeners.isEmpty()) {
-					if (entry.getKey().getBundleImpl().getBundleId() == 0) {
-						systemContext = entry.getKey();
-						// make a copy that we can use to discard hook removals later
-						systemServiceListenersOrig = listeners.entrySet();
-					}
-					listenerSnapshot.put(entry.getKey(), listeners.entrySet());
-				}
+		Set<Map.Entry<ServiceListener, FilteredServiceListener>> systemServiceListenersOrig = null;
+		for (Map.Entry<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> entry : listenerSnapshot.entrySet()) {
+			if (entry.getKey().getBundleImpl().getBundleId() == 0) {
+				systemContext = entry.getKey();
+				// make a copy that we can use to discard hook removals later
+				systemServiceListenersOrig = new LinkedHashSet<>(entry.getValue());
 			}
 		}
 
@@ -847,19 +953,132 @@ public class ServiceRegistry {
 			// It is more simple to just replace with the original snapshot.
 			listenerSnapshot.put(systemContext, systemServiceListenersOrig);
 		}
-		if (listenerSnapshot.isEmpty()) {
+
+		/* deliver the event to the snapshot */
+		for (Set<Map.Entry<ServiceListener, FilteredServiceListener>> listenerSet : listenerSnapshot.values()) {
+			for (Map.Entry<ServiceListener, FilteredServiceListener> listener : listenerSet) {
+				dispatchServiceEvent(listener.getValue(), event);
+			}
+		}
+	}
+
+	/**
+	 * Add listeners to a listener snapshot grouped by bundle context.
+	 * 
+	 * @param listenerSnapshot The snapshot to add to.
+	 * @param listeners The listeners to add, may be null.
+	 */
+	private static void addToSnapshot(Map<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> listenerSnapshot, FilteredServiceListener[] listeners) {
+		if (listeners == null) {
 			return;
 		}
+		for (FilteredServiceListener listener : listeners) {
+			Set<Map.Entry<ServiceListener, FilteredServiceListener>> listenerSet = listenerSnapshot.get(listener.getContext());
+			if (listenerSet == null) {
+				listenerSet = new LinkedHashSet<>();
+				listenerSnapshot.put(listener.getContext(), listenerSet);
+			}
+			listenerSet.add(new AbstractMap.SimpleImmutableEntry<>(listener.getListener(), listener));
+		}
+	}
 
-		/* deliver the event to the snapshot */
-		ListenerQueue<ServiceListener, FilteredServiceListener, ServiceEvent> queue = container.newListenerQueue();
-		for (Map.Entry<BundleContextImpl, Set<Map.Entry<ServiceListener, FilteredServiceListener>>> entry : listenerSnapshot.entrySet()) {
-			@SuppressWarnings({"unchecked", "rawtypes"})
-			EventDispatcher<ServiceListener, FilteredServiceListener, ServiceEvent> dispatcher = (EventDispatcher) entry.getKey();
-			Set<Map.Entry<ServiceListener, FilteredServiceListener>> listenerSet = entry.getValue();
-			queue.queueListeners(listenerSet, dispatcher);
+	/**
+	 * Dispatch a ServiceEvent to an array of listeners.
+	 * 
+	 * @param listeners The listeners, may be null.
+	 * @param dispatched If not null, the listeners which already got the event.
+	 * Listeners indexed by more than one objectClass are added to it.
+	 * @param event The ServiceEvent to dispatch.
+	 */
+	private static void dispatchServiceEvent(FilteredServiceListener[] listeners, Set<FilteredServiceListener> dispatched, ServiceEvent event) {
+		if (listeners == null) {
+			return;
+		}
+		for (FilteredServiceListener listener : listeners) {
+			if ((dispatched != null) && (listener.getObjectClasses().length > 1) && !dispatched.add(listener)) {
+				continue;
+			}
+			dispatchServiceEvent(listener, event);
+		}
+	}
+
+	/**
+	 * Dispatch a ServiceEvent to a listener through the bundle context of the listener.
+	 * 
+	 * @param listener The listener.
+	 * @param event The ServiceEvent to dispatch.
+	 */
+	private static void dispatchServiceEvent(FilteredServiceListener listener, ServiceEvent event) {
+		try {
+			listener.getContext().dispatchEvent(listener.getListener(), listener, SERVICEEVENT, event);
+		} catch (Throwable t) {
+			/* Consume and ignore any exceptions thrown by the listener */
 		}
-		queue.dispatchEventSynchronous(SERVICEEVENT, event);
+	}
+
+	/**
+	 * Add a listener to the objectClass index.
+	 * 
+	 * @param listener The listener to add.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private void indexServiceListener(FilteredServiceListener listener) {
+		String[] classes = listener.getObjectClasses();
+		if (classes == null) {
+			wildcardServiceListeners = addListener(wildcardServiceListeners, listener);
+			return;
+		}
+		for (String clazz : classes) {
+			FilteredServiceListener[] listeners = serviceListenersByObjectClass.get(clazz);
+			serviceListenersByObjectClass.put(clazz, addListener(listeners == null ? emptyListeners : listeners, listener));
+		}
+	}
+
+	/**
+	 * Remove a listener from the objectClass index.
+	 * 
+	 * @param listener The listener to remove.
+	 */
+	/* @GuardedBy("serviceEventListeners") */
+	private void unindexServiceListener(FilteredServiceListener listener) {
+		String[] classes = listener.getObjectClasses();
+		if (classes == null) {
+			wildcardServiceListeners = removeListener(wildcardServiceListeners, listener);
+			return;
+		}
+		for (String clazz : classes) {
+			FilteredServiceListener[] listeners = serviceListenersByObjectClass.get(clazz);
+			if (listeners == null) {
+				continue;
+			}
+			listeners = removeListener(listeners, listener);
+			if (listeners.length == 0) {
+				serviceListenersByObjectClass.remove(clazz);
+			} else {
+				serviceListenersByObjectClass.put(clazz, listeners);
+			}
+		}
+	}
+
+	private static FilteredServiceListener[] addListener(FilteredServiceListener[] listeners, FilteredServiceListener listener) {
+		FilteredServiceListener[] result = Arrays.copyOf(listeners, listeners.length + 1);
+		result[listeners.length] = listener;
+		return result;
+	}
+
+	private static FilteredServiceListener[] removeListener(FilteredServiceListener[] listeners, FilteredServiceListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				if (listeners.length == 1) {
+					return emptyListeners;
+				}
+				FilteredServiceListener[] result = new FilteredServiceListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, result, 0, i);
+				System.arraycopy(listeners, i + 1, result, i, result.length - i);
+				return result;
+			}
+		}
+		return listeners;
 	}
 
 	/**
@@ -878,10 +1097,8 @@ public class ServiceRegistry {
 	 * 
 	 * @return next service id.
 	 */
-	synchronized long getNextServiceId() {
-		long id = serviceid;
-		serviceid = id + 1;
-		return id;
+	long getNextServiceId() {
+		return serviceid.getAndIncrement();
 	}
 
 	/**
@@ -903,24 +1120,18 @@ public class ServiceRegistry {
 		contextServices.add(registration);
 
 		// Add the ServiceRegistrationImpl to the list of Services published by Class Name.
-		int insertIndex;
 		for (String clazz : registration.getClasses()) {
 			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
 
 			if (services == null) {
-				services = new ArrayList<>(initialSubCapacity);
-				publishedServicesByClass.put(clazz, services);
+				services = Collections.<ServiceRegistrationImpl<?>> emptyList();
 			}
 
-			// The list is sorted, so we must find the proper location to insert
-			insertIndex = -Collections.binarySearch(services, registration) - 1;
-			services.add(insertIndex, registration);
+			publishedServicesByClass.put(clazz, copyAndInsert(services, registration));
 		}
 
 		// Add the ServiceRegistrationImpl to the list of all published Services.
-		// The list is sorted, so we must find the proper location to insert
-		insertIndex = -Collections.binarySearch(allPublishedServices, registration) - 1;
-		allPublishedServices.add(insertIndex, registration);
+		allPublishedServices = copyAndInsert(allPublishedServices, registration);
 	}
 
 	/**
@@ -937,21 +1148,14 @@ public class ServiceRegistry {
 
 		// Remove the ServiceRegistrationImpl from the list of Services published by Class Name
 		// and then add at the correct index.
-		int insertIndex;
 		for (String clazz : registration.getClasses()) {
 			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-			services.remove(registration);
-			// The list is sorted, so we must find the proper location to insert
-			insertIndex = -Collections.binarySearch(services, registration) - 1;
-			services.add(insertIndex, registration);
+			publishedServicesByClass.put(clazz, copyAndInsert(copyAndRemove(services, registration), registration));
 		}
 
 		// Remove the ServiceRegistrationImpl from the list of all published Services
 		// and then add at the correct index.
-		allPublishedServices.remove(registration);
-		// The list is sorted, so we must find the proper location to insert
-		insertIndex = -Collections.binarySearch(allPublishedServices, registration) - 1;
-		allPublishedServices.add(insertIndex, registration);
+		allPublishedServices = copyAndInsert(copyAndRemove(allPublishedServices, registration), registration);
 	}
 
 	/**
@@ -971,15 +1175,47 @@ public class ServiceRegistry {
 
 		// Remove the ServiceRegistrationImpl from the list of Services published by Class Name.
 		for (String clazz : registration.getClasses()) {
-			List<ServiceRegistrationImpl<?>> services = publishedServicesByClass.get(clazz);
-			services.remove(registration);
+			List<ServiceRegistrationImpl<?>> services = copyAndRemove(publishedServicesByClass.get(clazz), registration);
 			if (services.isEmpty()) { // remove empty list
 				publishedServicesByClass.remove(clazz);
+			} else {
+				publishedServicesByClass.put(clazz, services);
 			}
 		}
 
 		// Remove the ServiceRegistrationImpl from the list of all published Services.
-		allPublishedServices.remove(registration);
+		allPublishedServices = copyAndRemove(allPublishedServices, registration);
+	}
+
+	/**
+	 * Returns an immutable copy of the specified sorted list with the registration
+	 * inserted at its proper location.
+	 * 
+	 * @param services The sorted list of registrations.
+	 * @param registration The ServiceRegistration to insert.
+	 * @return An immutable sorted copy of the list including the registration.
+	 */
+	private static List<ServiceRegistrationImpl<?>> copyAndInsert(List<ServiceRegistrationImpl<?>> services, ServiceRegistrationImpl<?> registration) {
+		// The list is sorted, so we must find the proper location to insert
+		int insertIndex = -Collections.binarySearch(services, registration) - 1;
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services.size() + 1);
+		result.addAll(services.subList(0, insertIndex));
+		result.add(registration);
+		result.addAll(services.subList(insertIndex, services.size()));
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Returns an immutable copy of the specified sorted list without the registration.
+	 * 
+	 * @param services The sorted list of registrations.
+	 * @param registration The ServiceRegistration to remove.
+	 * @return An immutable sorted copy of the list without the registration.
+	 */
+	private static List<ServiceRegistrationImpl<?>> copyAndRemove(List<ServiceRegistrationImpl<?>> services, ServiceRegistrationImpl<?> registration) {
+		List<ServiceRegistrationImpl<?>> result = new ArrayList<>(services);
+		result.remove(registration);
+		return Collections.unmodifiableList(result);
 	}
 
 	/**
@@ -988,44 +1224,40 @@ public class ServiceRegistry {
 	 * @param clazz The class name with which the service was registered or
 	 *        <code>null</code> for all services.
 	 * @param filter The filter criteria.
-	 * @return List<ServiceRegistrationImpl>
+	 * @return An immutable List<ServiceRegistrationImpl>
 	 */
 	private List<ServiceRegistrationImpl<?>> lookupServiceRegistrations(String clazz, Filter filter) {
+		/* No lock is needed; the published lists are immutable snapshots */
 		List<ServiceRegistrationImpl<?>> result;
-		synchronized (this) {
-			if (clazz == null) { /* all services */
-				result = allPublishedServices;
-			} else {
-				/* services registered under the class name */
-				result = publishedServicesByClass.get(clazz);
-			}
-
-			if ((result == null) || result.isEmpty()) {
-				List<ServiceRegistrationImpl<?>> empty = Collections.<ServiceRegistrationImpl<?>> emptyList();
-				return empty;
-			}
+		if (clazz == null) { /* all services */
+			result = allPublishedServices;
+		} else {
+			/* services registered under the class name */
+			result = publishedServicesByClass.get(clazz);
+		}
 
-			result = new LinkedList<>(result); /* make a new list since we don't want to change the real list */
+		if ((result == null) || result.isEmpty()) {
+			List<ServiceRegistrationImpl<?>> empty = Collections.<ServiceRegistrationImpl<?>> emptyList();
+			return empty;
 		}
 
 		if (filter == null) {
 			return result;
 		}
 
-		for (Iterator<ServiceRegistrationImpl<?>> iter = result.iterator(); iter.hasNext();) {
-			ServiceRegistrationImpl<?> registration = iter.next();
+		List<ServiceRegistrationImpl<?>> matches = new ArrayList<>(result.size());
+		for (ServiceRegistrationImpl<?> registration : result) {
 			ServiceReferenceImpl<?> reference;
 			try {
 				reference = registration.getReferenceImpl();
 			} catch (IllegalStateException e) {
-				iter.remove(); /* service was unregistered after we left the synchronized block above */
-				continue;
+				continue; /* service was unregistered after the snapshot was taken */
 			}
-			if (!filter.match(reference)) {
-				iter.remove();
+			if (filter.match(reference)) {
+				matches.add(registration);
 			}
 		}
-		return result;
+		return matches;
 	}
 
 	/**
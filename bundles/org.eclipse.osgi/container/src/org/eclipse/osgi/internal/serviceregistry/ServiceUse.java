@@ -11,6 +11,7 @@
 
 package org.eclipse.osgi.internal.serviceregistry;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import org.eclipse.osgi.internal.framework.BundleContextImpl;
 import org.eclipse.osgi.internal.messages.Msg;
 import org.osgi.framework.ServiceException;
@@ -28,9 +29,10 @@ public class ServiceUse<S> {
 	/** ServiceDescription of the registered service */
 	final ServiceRegistrationImpl<S> registration;
 
-	/** bundle's use count for this service */
-	/* @GuardedBy("this") */
-	private int useCount;
+	/** bundle's use count for this service. The count is only changed while
+	 * holding the monitor of this object, except by the lock free paths of
+	 * {@link #tryGetService()} and {@link #tryUngetService()}. */
+	private final AtomicInteger useCount = new AtomicInteger();
 
 	/**
 	 * Constructs a service use encapsulating the service object.
@@ -39,7 +41,6 @@ public class ServiceUse<S> {
 	 * @param   registration ServiceRegistration of the service
 	 */
 	ServiceUse(BundleContextImpl context, ServiceRegistrationImpl<S> registration) {
-		this.useCount = 0;
 		this.registration = registration;
 	}
 
@@ -55,6 +56,54 @@ public class ServiceUse<S> {
 		return registration.getServiceObject();
 	}
 
+	/**
+	 * Get a service's service object and increment the use count without
+	 * locking this object.
+	 * 
+	 * <p>
+	 * This only succeeds if the use count is already greater than zero.
+	 * A use count of zero means the service use is new or is about to be
+	 * discarded, in which case the caller must take the locking path.
+	 * Service factory uses must always take the locking path.
+	 * 
+	 * @return The service object or null if the locking path must be used.
+	 */
+	S tryGetService() {
+		while (true) {
+			int current = useCount.get();
+			if (current <= 0) {
+				return null;
+			}
+			if (current == Integer.MAX_VALUE) {
+				throw new ServiceException(Msg.SERVICE_USE_OVERFLOW);
+			}
+			if (useCount.compareAndSet(current, current + 1)) {
+				return registration.getServiceObject();
+			}
+		}
+	}
+
+	/**
+	 * Decrement the use count without locking this object.
+	 * 
+	 * <p>
+	 * This only succeeds if the use count stays greater than zero so that
+	 * the service use never needs to be discarded by this method.
+	 * 
+	 * @return true if the use count was decremented; false if the locking path must be used.
+	 */
+	boolean tryUngetService() {
+		while (true) {
+			int current = useCount.get();
+			if (current <= 1) {
+				return false;
+			}
+			if (useCount.compareAndSet(current, current - 1)) {
+				return true;
+			}
+		}
+	}
+
 	/**
 	 * Unget a service's service object.
 	 * 
@@ -142,7 +191,7 @@ public class ServiceUse<S> {
 	 */
 	/* @GuardedBy("this") */
 	boolean inUse() {
-		return useCount > 0;
+		return useCount.get() > 0;
 	}
 
 	/**
@@ -150,10 +199,15 @@ public class ServiceUse<S> {
 	 */
 	/* @GuardedBy("this") */
 	void incrementUse() {
-		if (useCount == Integer.MAX_VALUE) {
-			throw new ServiceException(Msg.SERVICE_USE_OVERFLOW);
+		while (true) {
+			int current = useCount.get();
+			if (current == Integer.MAX_VALUE) {
+				throw new ServiceException(Msg.SERVICE_USE_OVERFLOW);
+			}
+			if (useCount.compareAndSet(current, current + 1)) {
+				return;
+			}
 		}
-		useCount++;
 	}
 
 	/**
@@ -162,7 +216,7 @@ public class ServiceUse<S> {
 	/* @GuardedBy("this") */
 	void decrementUse() {
 		assert inUse();
-		useCount--;
+		useCount.decrementAndGet();
 	}
 
 	/**
@@ -170,6 +224,6 @@ public class ServiceUse<S> {
 	 */
 	/* @GuardedBy("this") */
 	void resetUse() {
-		useCount = 0;
+		useCount.set(0);
 	}
 }
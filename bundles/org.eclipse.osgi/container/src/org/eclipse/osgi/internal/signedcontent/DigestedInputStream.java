@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2012 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
 import org.eclipse.osgi.signedcontent.InvalidContentException;
 import org.eclipse.osgi.signedcontent.SignerInfo;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
@@ -31,23 +32,30 @@ class DigestedInputStream extends FilterInputStream {
 	private final byte result[][];
 	private final BundleEntry entry;
 	private final BundleFile bundleFile;
+	private final SignedContentImpl signedContent;
+	// the CRC-32 of the content; recorded with the entry once the digests match
+	private final CRC32 crc = new CRC32();
 	private long remaining;
+	private long count = 0;
 
 	/**
 	 * Constructs an InputStream that uses another InputStream as a source and
 	 * calculates the digest. At the end of the stream an exception will be
 	 * thrown if the calculated digest doesn't match the passed digest.
 	 * 
-	 * @param in the stream to use as an input source.
+	 * @param entry the entry to digest.
+	 * @param bundleFile the bundle file of the entry.
+	 * @param signedContent the signed content notified when the digests match.
 	 * @param signerInfos the signers.
 	 * @param results the expected digest.
 	 * @throws IOException 
 	 * @throws NoSuchAlgorithmException 
 	 */
-	DigestedInputStream(BundleEntry entry, BundleFile bundleFile, SignerInfo[] signerInfos, byte results[][], long size) throws IOException, NoSuchAlgorithmException {
+	DigestedInputStream(BundleEntry entry, BundleFile bundleFile, SignedContentImpl signedContent, SignerInfo[] signerInfos, byte results[][], long size) throws IOException, NoSuchAlgorithmException {
 		super(entry.getInputStream());
 		this.entry = entry;
 		this.bundleFile = bundleFile;
+		this.signedContent = signedContent;
 		this.remaining = size;
 		this.digests = new MessageDigest[signerInfos.length];
 		for (int i = 0; i < signerInfos.length; i++)
@@ -86,7 +94,9 @@ class DigestedInputStream extends FilterInputStream {
 		if (c != -1) {
 			for (int i = 0; i < digests.length; i++)
 				digests[i].update((byte) c);
+			crc.update(c);
 			remaining--;
+			count++;
 		} else {
 			// We hit eof so set remaining to zero
 			remaining = 0;
@@ -103,6 +113,7 @@ class DigestedInputStream extends FilterInputStream {
 			if (!MessageDigest.isEqual(result[i], rc))
 				throw new InvalidContentException(NLS.bind(SignedContentMessages.File_In_Jar_Is_Tampered, entry.getName(), bundleFile.getBaseFile()), null);
 		}
+		signedContent.entryVerified(entry, result, count, crc.getValue());
 	}
 
 	/**
@@ -122,7 +133,9 @@ class DigestedInputStream extends FilterInputStream {
 		if (rc != -1) {
 			for (int i = 0; i < digests.length; i++)
 				digests[i].update(b, off, rc);
+			crc.update(b, off, rc);
 			remaining -= rc;
+			count += rc;
 		} else {
 			// We hit eof so set remaining to zero
 			remaining = 0;
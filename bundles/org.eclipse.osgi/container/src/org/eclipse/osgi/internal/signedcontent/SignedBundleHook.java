@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2016 IBM Corporation and others.
+ * Copyright (c) 2006, 2017 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -19,13 +19,16 @@ import java.security.*;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.ZipFile;
 import org.eclipse.osgi.framework.log.FrameworkLogEntry;
 import org.eclipse.osgi.framework.util.SecureAction;
 import org.eclipse.osgi.internal.framework.EquinoxBundle;
+import org.eclipse.osgi.internal.framework.EquinoxConfiguration;
 import org.eclipse.osgi.internal.framework.EquinoxContainer;
 import org.eclipse.osgi.internal.hookregistry.*;
 import org.eclipse.osgi.internal.service.security.KeyStoreTrustEngine;
+import org.eclipse.osgi.internal.signedcontent.SignedContentImpl.VerifiedEntry;
 import org.eclipse.osgi.internal.signedcontent.SignedStorageHook.StorageHookImpl;
 import org.eclipse.osgi.service.security.TrustEngine;
 import org.eclipse.osgi.signedcontent.*;
@@ -67,6 +70,9 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 	private ServiceTracker<TrustEngine, TrustEngine> trustEngineTracker;
 	private BundleContext context;
 	private EquinoxContainer container;
+	private boolean cacheVerifiedEntries;
+	private int verifyThreadCount;
+	private ThreadPoolExecutor verifyExecutor;
 
 	@Override
 	public BundleActivator createActivator() {
@@ -146,6 +152,30 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 			trustEngineTracker.close();
 			trustEngineTracker = null;
 		}
+		synchronized (this) {
+			if (verifyExecutor != null) {
+				verifyExecutor.shutdown();
+				verifyExecutor = null;
+			}
+		}
+	}
+
+	private synchronized Executor getVerifyExecutor() {
+		if (verifyExecutor == null) {
+			// try to name the threads with useful name
+			ThreadFactory threadFactory = new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "Signed Content Verifier"); //$NON-NLS-1$
+					t.setDaemon(true);
+					return t;
+				}
+			};
+			verifyExecutor = new ThreadPoolExecutor(verifyThreadCount, verifyThreadCount, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+			// Always want to go to zero threads when idle
+			verifyExecutor.allowCoreThreadTimeOut(true);
+		}
+		return verifyExecutor;
 	}
 
 	public BundleFileWrapper wrapBundleFile(BundleFile bundleFile, Generation generation, boolean base) {
@@ -153,12 +183,18 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 			if (bundleFile != null) {
 				StorageHookImpl hook = generation.getStorageHook(SignedStorageHook.class);
 				SignedBundleFile signedBaseFile;
+				boolean verifyEntries = false;
 				if (base && hook != null) {
 					signedBaseFile = new SignedBundleFile(bundleFile, hook.signedContent, supportSignedBundles, this);
 					if (hook.signedContent == null) {
 						signedBaseFile.initializeSignedContent();
 						SignedContentImpl signedContent = signedBaseFile.getSignedContent();
 						hook.signedContent = signedContent != null && signedContent.isSigned() ? signedContent : null;
+						if (hook.signedContent != null && cacheVerifiedEntries) {
+							// first time the content is processed; verify all entries in the background
+							hook.signedContent.setVerifiedEntries(new ConcurrentHashMap<String, VerifiedEntry>(), generation);
+							verifyEntries = true;
+						}
 					}
 				} else
 					signedBaseFile = new SignedBundleFile(bundleFile, null, supportSignedBundles, this);
@@ -167,6 +203,8 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 				if (signedContent != null && signedContent.isSigned()) {
 					// only use the signed file if there are certs
 					signedContent.setContent(signedBaseFile);
+					if (verifyEntries)
+						signedContent.verifyEntries(getVerifyExecutor());
 					return new BundleFileWrapper(signedBaseFile);
 				}
 			}
@@ -194,8 +232,20 @@ public class SignedBundleHook implements ActivatorHookFactory, BundleFileWrapper
 		}
 		trustEngineNameProp = hookRegistry.getConfiguration().getConfiguration(SignedContentConstants.TRUST_ENGINE);
 
+		EquinoxConfiguration configuration = hookRegistry.getConfiguration();
+		cacheVerifiedEntries = (supportSignedBundles & VERIFY_RUNTIME) != 0 && Boolean.valueOf(configuration.getConfiguration(EquinoxConfiguration.PROP_SIGNED_CONTENT_VERIFY_CACHE)).booleanValue();
+		String threadCntProp = configuration.getConfiguration(EquinoxConfiguration.PROP_SIGNED_CONTENT_VERIFY_THREAD_COUNT);
+		try {
+			verifyThreadCount = threadCntProp == null ? 0 : Integer.parseInt(threadCntProp);
+		} catch (NumberFormatException e) {
+			verifyThreadCount = 0;
+		}
+		// a value of zero or less means use the number of processors
+		if (verifyThreadCount <= 0)
+			verifyThreadCount = Runtime.getRuntime().availableProcessors();
+
 		if ((supportSignedBundles & VERIFY_CERTIFICATE) != 0) {
-			hookRegistry.addStorageHookFactory(new SignedStorageHook());
+			hookRegistry.addStorageHookFactory(new SignedStorageHook(cacheVerifiedEntries));
 			hookRegistry.addBundleFileWrapperFactoryHook(this);
 		}
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2016 IBM Corporation and others. All rights reserved.
+ * Copyright (c) 2007, 2017 IBM Corporation and others. All rights reserved.
  * This program and the accompanying materials are made available under the
  * terms of the Eclipse Public License v1.0 which accompanies this distribution,
  * and is available at http://www.eclipse.org/legal/epl-v10.html
@@ -10,10 +10,13 @@ package org.eclipse.osgi.internal.signedcontent;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.*;
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.osgi.signedcontent.*;
+import org.eclipse.osgi.storage.BundleInfo.Generation;
 import org.eclipse.osgi.storage.bundlefile.BundleEntry;
 import org.eclipse.osgi.storage.bundlefile.BundleFile;
 import org.eclipse.osgi.util.NLS;
@@ -29,6 +32,10 @@ public class SignedContentImpl implements SignedContent {
 	// map of tsa singers keyed by SignerInfo -> {tsa_SignerInfo, signingTime}
 	private Map<SignerInfo, Object[]> tsaSignerInfos;
 	volatile private boolean checkedValid = false;
+	// the entries which passed content verification keyed by entry path
+	private volatile ConcurrentMap<String, VerifiedEntry> verifiedEntries;
+	// the generation which persists the verified entries
+	private volatile Generation verifiedEntriesGeneration;
 
 	public SignedContentImpl(SignerInfo[] signerInfos, Map<String, Object> contentMDResults) {
 		this.signerInfos = signerInfos == null ? EMPTY_SIGNERINFO : signerInfos;
@@ -113,6 +120,116 @@ public class SignedContentImpl implements SignedContent {
 		return contentMDResults;
 	}
 
+	/**
+	 * An entry which passed content verification.  The record is only used while the
+	 * digests of the entry in the manifest and the size of the entry are unchanged.
+	 * The content of the entry is still checked against the CRC-32 of the verified
+	 * content each time the entry is read.
+	 */
+	static final class VerifiedEntry {
+		final byte[][] digests;
+		final long size;
+		final long crc;
+
+		VerifiedEntry(byte[][] digests, long size, long crc) {
+			this.digests = digests;
+			this.size = size;
+			this.crc = crc;
+		}
+
+		boolean matches(byte[][] currentDigests, long currentSize) {
+			if (size != currentSize || digests.length != currentDigests.length)
+				return false;
+			for (int i = 0; i < digests.length; i++)
+				if (!MessageDigest.isEqual(digests[i], currentDigests[i]))
+					return false;
+			return true;
+		}
+	}
+
+	/**
+	 * Enables recording of the entries which pass content verification.  A recorded
+	 * entry is not digested again; its content is only checked against the CRC-32 of
+	 * the content which was verified.
+	 * @param entries the entries already verified keyed by entry path
+	 * @param generation the generation which persists the verified entries
+	 */
+	void setVerifiedEntries(ConcurrentMap<String, VerifiedEntry> entries, Generation generation) {
+		this.verifiedEntriesGeneration = generation;
+		this.verifiedEntries = entries;
+	}
+
+	Map<String, VerifiedEntry> getVerifiedEntries() {
+		return verifiedEntries;
+	}
+
+	private void storageHookDataChanged() {
+		Generation generation = verifiedEntriesGeneration;
+		if (generation != null)
+			generation.getBundleInfo().getStorage().storageHookDataChanged();
+	}
+
+	/*
+	 * Returns the record of an entry if it was verified with the current digests and size
+	 */
+	private VerifiedEntry getVerifiedEntry(BundleEntry entry, byte[][] digests) {
+		Map<String, VerifiedEntry> current = verifiedEntries;
+		VerifiedEntry verified = current == null ? null : current.get(entry.getName());
+		return verified != null && verified.matches(digests, entry.getSize()) ? verified : null;
+	}
+
+	void entryVerified(BundleEntry entry, byte[][] digests, long size, long crc) {
+		Map<String, VerifiedEntry> current = verifiedEntries;
+		if (current == null)
+			return;
+		VerifiedEntry previous = current.put(entry.getName(), new VerifiedEntry(digests, size, crc));
+		if (previous == null || previous.size != size || previous.crc != crc)
+			storageHookDataChanged();
+	}
+
+	void entryTampered(BundleEntry entry) {
+		Map<String, VerifiedEntry> current = verifiedEntries;
+		if (current != null && current.remove(entry.getName()) != null)
+			storageHookDataChanged();
+	}
+
+	/**
+	 * Verifies the content of all signed entries which are not yet verified.
+	 * The entries are digested in the background using the specified executor.
+	 * Entries which fail verification are not recorded and are verified again when read.
+	 * @param executor the executor used to digest the entries
+	 */
+	void verifyEntries(Executor executor) {
+		final BundleFile currentContent = content;
+		Map<String, VerifiedEntry> current = verifiedEntries;
+		if (contentMDResults == null || current == null || currentContent == null)
+			return;
+		for (final String entryName : contentMDResults.keySet()) {
+			if (current.containsKey(entryName))
+				continue;
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							// reading the entry through the signed content digests it and records the result
+							BundleEntry entry = currentContent.getEntry(entryName);
+							if (entry != null)
+								entry.getBytes();
+						} catch (IOException e) {
+							// the entry is verified again when read
+						} catch (SecurityException e) {
+							// the entry is verified again when read
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				// the framework is shutting down; the entries are verified when read
+				return;
+			}
+		}
+	}
+
 	private boolean containsInfo(SignerInfo signerInfo) {
 		for (int i = 0; i < signerInfos.length; i++)
 			if (signerInfo == signerInfos[i])
@@ -126,8 +243,11 @@ public class SignedContentImpl implements SignedContent {
 		Object[] mdResult = (Object[]) contentMDResults.get(nestedEntry.getName());
 		if (mdResult == null)
 			return null;
+		VerifiedEntry verified = getVerifiedEntry(nestedEntry, (byte[][]) mdResult[1]);
+		if (verified != null)
+			return new VerifiedInputStream(nestedEntry, content, this, verified.crc, verified.size);
 		try {
-			return new DigestedInputStream(nestedEntry, content, (SignerInfo[]) mdResult[0], (byte[][]) mdResult[1], nestedEntry.getSize());
+			return new DigestedInputStream(nestedEntry, content, this, (SignerInfo[]) mdResult[0], (byte[][]) mdResult[1], nestedEntry.getSize());
 		} catch (NoSuchAlgorithmException e) {
 			throw new IOException(e);
 		}
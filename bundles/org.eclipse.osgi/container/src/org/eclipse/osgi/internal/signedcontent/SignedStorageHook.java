@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2016 IBM Corporation and others. All rights reserved.
+ * Copyright (c) 2006, 2017 IBM Corporation and others. All rights reserved.
  * This program and the accompanying materials are made available under the
  * terms of the Eclipse Public License v1.0 which accompanies this distribution,
  * and is available at http://www.eclipse.org/legal/epl-v10.html
@@ -11,14 +11,25 @@ package org.eclipse.osgi.internal.signedcontent;
 import java.io.*;
 import java.security.cert.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import org.eclipse.osgi.internal.hookregistry.StorageHookFactory;
+import org.eclipse.osgi.internal.signedcontent.SignedContentImpl.VerifiedEntry;
 import org.eclipse.osgi.signedcontent.SignedContent;
 import org.eclipse.osgi.signedcontent.SignerInfo;
 import org.eclipse.osgi.storage.BundleInfo.Generation;
 import org.osgi.framework.BundleException;
 
 public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List<SignerInfo>, SignedStorageHook.StorageHookImpl> {
-	private static final int STORAGE_VERSION = 4;
+	private static final int STORAGE_VERSION = 5;
+	private final boolean cacheVerifiedEntries;
+
+	/**
+	 * @param cacheVerifiedEntries whether the entries which pass content verification are persisted
+	 */
+	public SignedStorageHook(boolean cacheVerifiedEntries) {
+		this.cacheVerifiedEntries = cacheVerifiedEntries;
+	}
 
 	public int getStorageVersion() {
 		return STORAGE_VERSION;
@@ -36,14 +47,16 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 
 	@Override
 	protected StorageHookImpl createStorageHook(Generation generation) {
-		return new StorageHookImpl(generation);
+		return new StorageHookImpl(generation, cacheVerifiedEntries);
 	}
 
 	static class StorageHookImpl extends StorageHookFactory.StorageHook<List<SignerInfo>, List<SignerInfo>> {
 		SignedContentImpl signedContent;
+		final boolean cacheVerifiedEntries;
 
-		public StorageHookImpl(Generation generation) {
+		public StorageHookImpl(Generation generation, boolean cacheVerifiedEntries) {
 			super(generation, SignedStorageHook.class);
+			this.cacheVerifiedEntries = cacheVerifiedEntries;
 		}
 
 		@Override
@@ -88,6 +101,23 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 				Date signingDate = new Date(is.readLong());
 				result.addTSASignerInfo(signerInfos[i], tsaSigner, signingDate);
 			}
+			int numVerified = is.readInt();
+			ConcurrentMap<String, VerifiedEntry> verifiedEntries = new ConcurrentHashMap<>(Math.max(numVerified, 0));
+			for (int i = 0; i < numVerified; i++) {
+				String path = is.readUTF();
+				long size = is.readLong();
+				long crc = is.readLong();
+				byte[][] digests = new byte[is.readInt()][];
+				for (int j = 0; j < digests.length; j++) {
+					digests[j] = new byte[is.readInt()];
+					is.readFully(digests[j]);
+				}
+				verifiedEntries.put(path, new VerifiedEntry(digests, size, crc));
+			}
+			if (cacheVerifiedEntries && numVerified >= 0) {
+				// an entry is only used while its digests and size are unchanged
+				result.setVerifiedEntries(verifiedEntries, getGeneration());
+			}
 			signedContent = result;
 		}
 
@@ -150,6 +180,27 @@ public class SignedStorageHook extends StorageHookFactory<List<SignerInfo>, List
 				Date signingTime = signedContent.getSigningTime(signerInfos[i]);
 				os.writeLong(signingTime != null ? signingTime.getTime() : Long.MIN_VALUE);
 			}
+
+			// the verified entries with the digests, size and CRC-32 of the content which was verified
+			Map<String, VerifiedEntry> verifiedEntries = signedContent.getVerifiedEntries();
+			if (verifiedEntries == null) {
+				os.writeInt(-1);
+				return;
+			}
+			// take a snapshot; entries may be verified concurrently by class loaders
+			verifiedEntries = new HashMap<>(verifiedEntries);
+			os.writeInt(verifiedEntries.size());
+			for (Map.Entry<String, VerifiedEntry> entry : verifiedEntries.entrySet()) {
+				VerifiedEntry verified = entry.getValue();
+				os.writeUTF(entry.getKey());
+				os.writeLong(verified.size);
+				os.writeLong(verified.crc);
+				os.writeInt(verified.digests.length);
+				for (int i = 0; i < verified.digests.length; i++) {
+					os.writeInt(verified.digests[i].length);
+					os.write(verified.digests[i]);
+				}
+			}
 		}
 
 		private void saveSignerInfo(SignerInfo signerInfo, DataOutputStream os, List<SignerInfo> saveContext) throws IOException {
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.internal.signedcontent;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+import org.eclipse.osgi.signedcontent.InvalidContentException;
+import org.eclipse.osgi.storage.bundlefile.BundleEntry;
+import org.eclipse.osgi.storage.bundlefile.BundleFile;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * This InputStream reads an entry which already passed content verification.
+ * It will calculate the CRC-32 of the bytes as they are read.  At the end of
+ * the InputStream, it will throw an exception if the calculated CRC-32 does
+ * not match the CRC-32 of the content which was verified.
+ */
+class VerifiedInputStream extends FilterInputStream {
+	private final CRC32 crc = new CRC32();
+	private final long expectedCrc;
+	private final BundleEntry entry;
+	private final BundleFile bundleFile;
+	private final SignedContentImpl signedContent;
+	private long remaining;
+
+	/**
+	 * Constructs an InputStream that uses the content of an entry as a source and
+	 * calculates the CRC-32. At the end of the stream an exception will be
+	 * thrown if the calculated CRC-32 doesn't match the expected CRC-32.
+	 *
+	 * @param entry the verified entry.
+	 * @param bundleFile the bundle file of the entry.
+	 * @param signedContent the signed content notified when the CRC-32 does not match.
+	 * @param expectedCrc the CRC-32 of the verified content.
+	 * @param size the size of the verified content.
+	 * @throws IOException
+	 */
+	VerifiedInputStream(BundleEntry entry, BundleFile bundleFile, SignedContentImpl signedContent, long expectedCrc, long size) throws IOException {
+		super(entry.getInputStream());
+		this.entry = entry;
+		this.bundleFile = bundleFile;
+		this.signedContent = signedContent;
+		this.expectedCrc = expectedCrc;
+		this.remaining = size;
+	}
+
+	/**
+	 * Not supported.
+	 */
+	public synchronized void mark(int readlimit) {
+		// Noop, we don't want to support this
+	}
+
+	/**
+	 * Always returns false.
+	 */
+	public boolean markSupported() {
+		return false;
+	}
+
+	/**
+	 * Read a byte from the InputStream. The CRC-32 is calculated on reads. At the
+	 * end of the stream the calculated CRC-32 must match the expected CRC-32.
+	 *
+	 * @return the character read or -1 at end of stream.
+	 * @throws IOException if there was an problem reading the byte or at the
+	 *         end of the stream the calculated CRC-32 does not match the
+	 *         expected CRC-32.
+	 * @see java.io.InputStream#read()
+	 */
+	public int read() throws IOException {
+		if (remaining <= 0)
+			return -1;
+		int c = super.read();
+		if (c != -1) {
+			crc.update(c);
+			remaining--;
+		} else {
+			// We hit eof before the verified size
+			throw tampered();
+		}
+		if (remaining == 0)
+			verifyCrc();
+		return c;
+	}
+
+	/**
+	 * Read bytes from the InputStream. The CRC-32 is calculated on reads. At the
+	 * end of the stream the calculated CRC-32 must match the expected CRC-32.
+	 *
+	 * @return the number of characters read or -1 at end of stream.
+	 * @throws IOException if there was an problem reading or at the
+	 *         end of the stream the calculated CRC-32 does not match the
+	 *         expected CRC-32.
+	 * @see java.io.InputStream#read()
+	 */
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (remaining <= 0)
+			return -1;
+		int rc = super.read(b, off, (int) Math.min(len, remaining));
+		if (rc != -1) {
+			crc.update(b, off, rc);
+			remaining -= rc;
+		} else {
+			// We hit eof before the verified size
+			throw tampered();
+		}
+		if (remaining == 0)
+			verifyCrc();
+		return rc;
+	}
+
+	private void verifyCrc() throws InvalidContentException {
+		if (crc.getValue() != expectedCrc)
+			throw tampered();
+	}
+
+	private InvalidContentException tampered() {
+		// the entry must be digested again the next time it is read
+		signedContent.entryTampered(entry);
+		return new InvalidContentException(NLS.bind(SignedContentMessages.File_In_Jar_Is_Tampered, entry.getName(), bundleFile.getBaseFile()), null);
+	}
+
+	/**
+	 * Not supported.
+	 *
+	 * @throws IOException always thrown if this method is called since mark/reset is not supported.
+	 * @see java.io.InputStream#reset()
+	 */
+	public synchronized void reset() throws IOException {
+		// Throw IOException, we don't want to support this
+		throw new IOException("Reset not supported"); //$NON-NLS-1$
+	}
+
+	/**
+	 * This method is implemented as a read into a bitbucket.
+	 */
+	public long skip(long n) throws IOException {
+		byte buffer[] = new byte[4096];
+		long count = 0;
+		while (n - count > 0) {
+			int rc = (n - count) > buffer.length ? buffer.length : (int) (n - count);
+			rc = read(buffer, 0, rc);
+			if (rc == -1)
+				break;
+			count += rc;
+		}
+		return count;
+	}
+}
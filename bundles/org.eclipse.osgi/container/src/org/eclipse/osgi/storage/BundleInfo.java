@@ -54,6 +54,7 @@ public final class BundleInfo {
 		private NativeCodeFinder nativeCodeFinder;
 		private List<StorageHook<?, ?>> storageHooks;
 		private long lastModified;
+		private String localizationStamp;
 
 		Generation(long generationId) {
 			this.generationId = generationId;
@@ -120,6 +121,12 @@ public final class BundleInfo {
 			}
 		}
 
+		void setRawHeaders(Map<String, String> rawHeaders) {
+			synchronized (genMonitor) {
+				this.rawHeaders = rawHeaders;
+			}
+		}
+
 		public Dictionary<String, String> getHeaders(String locale) {
 			ManifestLocalization current = getManifestLocalization();
 			return current.getHeaders(locale);
@@ -188,10 +195,29 @@ public final class BundleInfo {
 				this.content = content;
 				this.isDirectory = content == null ? false : Storage.secureAction.isDirectory(content);
 				this.isReference = isReference;
+				this.localizationStamp = null;
 				setLastModified(content);
 			}
 		}
 
+		/**
+		 * Returns the stamp of the content of this generation which is part of the stamp
+		 * of persisted localized headers, or null if localization files may change without
+		 * changing the stamp.  The stamp is computed once for this generation.
+		 * @return the stamp of the content of this generation or null
+		 */
+		String getLocalizationStamp() {
+			synchronized (this.genMonitor) {
+				if (localizationStamp == null && !isDirectory) {
+					// any localization file in a directory may change without changing the manifest;
+					// the content of a reference may be replaced in place
+					long modified = isReference ? Storage.secureAction.lastModified(content) : lastModified;
+					localizationStamp = getBundleId() + "/" + generationId + "/" + modified; //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				return localizationStamp;
+			}
+		}
+
 		private void setLastModified(File content) {
 			if (content == null) {
 				// Bug 477787: content will be null when the osgi.framework configuration property contains an invalid value.
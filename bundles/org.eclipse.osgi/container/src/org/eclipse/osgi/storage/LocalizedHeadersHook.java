@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.storage;
+
+import java.io.*;
+import java.util.*;
+import org.eclipse.osgi.internal.hookregistry.StorageHookFactory;
+import org.eclipse.osgi.storage.BundleInfo.Generation;
+import org.osgi.framework.BundleException;
+
+/**
+ * A storage hook factory that persists the localized header values of each
+ * generation per locale.  The persisted values allow the {@link ManifestLocalization}
+ * to localize the headers of a bundle without loading the localization property
+ * files from the bundle.  The other headers still come from the bundle manifest.
+ * <p>
+ * The localization property files may come from the host or the fragments
+ * of a bundle.  The values of each locale are therefore persisted with a
+ * stamp of the generations they were loaded from.  Values are only used
+ * if their stamp matches the current stamp.  Only the values of the most
+ * recently localized locales are kept.
+ */
+public class LocalizedHeadersHook extends StorageHookFactory<Object, Object, LocalizedHeadersHook.StorageHookImpl> {
+	private static final int STORAGE_VERSION = 1;
+	// the maximum number of locales persisted for each generation
+	static final int MAX_LOCALES = 4;
+
+	@Override
+	public int getStorageVersion() {
+		return STORAGE_VERSION;
+	}
+
+	@Override
+	protected StorageHookImpl createStorageHook(Generation generation) {
+		return new StorageHookImpl(generation);
+	}
+
+	static final class LocalizedHeaders {
+		final String stamp;
+		final Map<String, String> headers;
+
+		LocalizedHeaders(String stamp, Map<String, String> headers) {
+			this.stamp = stamp;
+			this.headers = headers;
+		}
+	}
+
+	static class StorageHookImpl extends StorageHookFactory.StorageHook<Object, Object> {
+		// a map of locale -> localized headers in least recently used order
+		/* @GuardedBy("localizedHeaders") */
+		private final LinkedHashMap<String, LocalizedHeaders> localizedHeaders = new LinkedHashMap<String, LocalizedHeaders>(MAX_LOCALES + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, LocalizedHeaders> eldest) {
+				return size() > MAX_LOCALES;
+			}
+		};
+
+		public StorageHookImpl(Generation generation) {
+			super(generation, LocalizedHeadersHook.class);
+		}
+
+		@Override
+		public void initialize(Dictionary<String, String> manifest) throws BundleException {
+			// the headers are persisted lazily when they are localized
+		}
+
+		@Override
+		public void load(Object loadContext, DataInputStream is) throws IOException {
+			int numLocales = is.readInt();
+			for (int i = 0; i < numLocales; i++) {
+				String locale = is.readUTF();
+				String stamp = is.readUTF();
+				int numHeaders = is.readInt();
+				Map<String, String> headers = new HashMap<>(numHeaders);
+				for (int j = 0; j < numHeaders; j++) {
+					headers.put(readString(is), readString(is));
+				}
+				synchronized (localizedHeaders) {
+					localizedHeaders.put(locale, new LocalizedHeaders(stamp, Collections.unmodifiableMap(headers)));
+				}
+			}
+		}
+
+		@Override
+		public void save(Object saveContext, DataOutputStream os) throws IOException {
+			// take a snapshot; headers may be localized concurrently
+			Map<String, LocalizedHeaders> current;
+			synchronized (localizedHeaders) {
+				current = new LinkedHashMap<>(localizedHeaders);
+			}
+			os.writeInt(current.size());
+			for (Map.Entry<String, LocalizedHeaders> entry : current.entrySet()) {
+				os.writeUTF(entry.getKey());
+				os.writeUTF(entry.getValue().stamp);
+				Map<String, String> headers = entry.getValue().headers;
+				os.writeInt(headers.size());
+				for (Map.Entry<String, String> header : headers.entrySet()) {
+					writeString(header.getKey(), os);
+					writeString(header.getValue(), os);
+				}
+			}
+		}
+
+		/**
+		 * Returns the persisted localized header values for the specified locale.
+		 * @param locale the locale of the headers
+		 * @param stamp the stamp of the generations the values must be loaded from
+		 * @return the persisted values or <code>null</code> if the values are not
+		 * persisted or were loaded from other generations
+		 */
+		Map<String, String> getHeaders(String locale, String stamp) {
+			LocalizedHeaders headers;
+			synchronized (localizedHeaders) {
+				headers = localizedHeaders.get(locale);
+			}
+			return headers != null && headers.stamp.equals(stamp) ? headers.headers : null;
+		}
+
+		/**
+		 * Persists the localized header values for the specified locale.
+		 * @param locale the locale of the headers
+		 * @param stamp the stamp of the generations the values were loaded from
+		 * @param headers the localized header values
+		 */
+		void putHeaders(String locale, String stamp, Map<String, String> headers) {
+			synchronized (localizedHeaders) {
+				localizedHeaders.put(locale, new LocalizedHeaders(stamp, Collections.unmodifiableMap(new HashMap<>(headers))));
+			}
+			getGeneration().getBundleInfo().getStorage().storageHookDataChanged();
+		}
+
+		// header values such as Export-Package may be too long for writeUTF
+		private static void writeString(String string, DataOutputStream os) throws IOException {
+			byte[] data = string.getBytes("UTF-8"); //$NON-NLS-1$
+			os.writeInt(data.length);
+			os.write(data);
+		}
+
+		private static String readString(DataInputStream is) throws IOException {
+			byte[] data = new byte[is.readInt()];
+			is.readFully(data);
+			return new String(data, "UTF-8"); //$NON-NLS-1$
+		}
+	}
+}
@@ -61,8 +61,24 @@ public class ManifestLocalization {
 				return currentDefault;
 			return rawHeaders;
 		}
+		LocalizedHeadersHook.StorageHookImpl headersHook = generation.getStorageHook(LocalizedHeadersHook.class);
+		String stamp = headersHook == null ? null : getLocalizationStamp();
+		if (stamp != null) {
+			Map<String, String> persistedHeaders = headersHook.getHeaders(localeString, stamp);
+			if (persistedHeaders != null) {
+				CaseInsensitiveDictionaryMap<String, String> localeHeaders = new CaseInsensitiveDictionaryMap<>(this.rawHeaders);
+				localeHeaders.putAll(persistedHeaders);
+				Dictionary<String, String> result = localeHeaders.asUnmodifiableDictionary();
+				if (isDefaultLocale) {
+					defaultLocaleHeaders = result;
+				}
+				return result;
+			}
+		}
 		ResourceBundle localeProperties = getResourceBundle(localeString, isDefaultLocale);
 		CaseInsensitiveDictionaryMap<String, String> localeHeaders = new CaseInsensitiveDictionaryMap<>(this.rawHeaders);
+		// only the localized values are persisted; the others are in the raw headers
+		Map<String, String> localizedValues = stamp == null ? null : new HashMap<String, String>();
 		for (Entry<String, String> entry : localeHeaders.entrySet()) {
 			String value = entry.getValue();
 			if (value.startsWith("%") && (value.length() > 1)) { //$NON-NLS-1$
@@ -73,8 +89,14 @@ public class ManifestLocalization {
 					value = propertiesKey;
 				}
 				entry.setValue(value);
+				if (localizedValues != null) {
+					localizedValues.put(entry.getKey(), value);
+				}
 			}
 		}
+		if (stamp != null) {
+			headersHook.putHeaders(localeString, stamp, localizedValues);
+		}
 		Dictionary<String, String> result = localeHeaders.asUnmodifiableDictionary();
 		if (isDefaultLocale) {
 			defaultLocaleHeaders = result;
@@ -173,7 +195,46 @@ public class ManifestLocalization {
 		}
 	}
 
-	private URL findResource(String resource) {
+	/*
+	 * Returns a stamp of the generations the localization files are loaded from, or null
+	 * if the localized headers must not be persisted.  The stamp also includes the default
+	 * locale because the localization files of the default locale are used when a requested
+	 * locale has none.
+	 */
+	private String getLocalizationStamp() {
+		StringBuilder stamp = new StringBuilder(Locale.getDefault().toString()).append(',').append(defaultRoot);
+		ModuleWiring searchWiring = getSearchWiring();
+		if (searchWiring == null) {
+			if (!appendGeneration(stamp, generation.getRevision()))
+				return null;
+		} else {
+			if (!appendGeneration(stamp, searchWiring.getRevision()))
+				return null;
+			List<ModuleWire> fragmentWires = searchWiring.getProvidedModuleWires(HostNamespace.HOST_NAMESPACE);
+			if (fragmentWires != null) {
+				for (ModuleWire fragmentWire : fragmentWires) {
+					if (!appendGeneration(stamp, fragmentWire.getRequirer()))
+						return null;
+				}
+			}
+		}
+		return stamp.toString();
+	}
+
+	private static boolean appendGeneration(StringBuilder stamp, ModuleRevision revision) {
+		Object revisionInfo = revision.getRevisionInfo();
+		if (!(revisionInfo instanceof Generation)) {
+			stamp.append(',').append(revision.getRevisions().getModule().getId());
+			return true;
+		}
+		String generationStamp = ((Generation) revisionInfo).getLocalizationStamp();
+		if (generationStamp == null)
+			return false;
+		stamp.append(',').append(generationStamp);
+		return true;
+	}
+
+	private ModuleWiring getSearchWiring() {
 		ModuleWiring searchWiring = generation.getRevision().getWiring();
 		if (searchWiring != null) {
 			if ((generation.getRevision().getTypes() & BundleRevision.TYPE_FRAGMENT) != 0) {
@@ -192,6 +253,11 @@ public class ManifestLocalization {
 				}
 			}
 		}
+		return searchWiring;
+	}
+
+	private URL findResource(String resource) {
+		ModuleWiring searchWiring = getSearchWiring();
 		if (searchWiring != null) {
 			int lastSlash = resource.lastIndexOf('/');
 			String path = lastSlash > 0 ? resource.substring(0, lastSlash) : "/"; //$NON-NLS-1$
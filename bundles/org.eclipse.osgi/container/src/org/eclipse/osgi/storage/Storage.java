@@ -14,7 +14,9 @@ import java.io.*;
 import java.net.*;
 import java.security.*;
 import java.util.*;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import org.eclipse.core.runtime.adaptor.EclipseStarter;
 import org.eclipse.osgi.container.*;
 import org.eclipse.osgi.container.ModuleRevisionBuilder.GenericInfo;
@@ -78,11 +80,15 @@ public class Storage {
 	private final ModuleContainer moduleContainer;
 	private final Object saveMonitor = new Object();
 	private long lastSavedTimestamp = -1;
+	private volatile boolean storageHookDataChanged = false;
 	private final LockSet<Long> idLocks = new LockSet<>();
+	// the bundles staged for a later install by location; see stageInstalls
+	private final ConcurrentMap<String, StagedContentStream> stagedInstalls = new ConcurrentHashMap<>();
 	private final MRUBundleFileList mruList;
 	private final FrameworkExtensionInstaller extensionInstaller;
 	private final List<String> cachedHeaderKeys = Arrays.asList(Constants.BUNDLE_SYMBOLICNAME, Constants.BUNDLE_ACTIVATIONPOLICY, "Service-Component"); //$NON-NLS-1$
 	private final boolean allowRestrictedProvides;
+	private final boolean mappedBundleFiles;
 
 	public static Storage createStorage(EquinoxContainer container) throws IOException, BundleException {
 		Storage storage = new Storage(container);
@@ -100,6 +106,7 @@ public class Storage {
 		equinoxContainer = container;
 		extensionInstaller = new FrameworkExtensionInstaller(container.getConfiguration());
 		allowRestrictedProvides = Boolean.parseBoolean(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_ALLOW_RESTRICTED_PROVIDES));
+		mappedBundleFiles = Boolean.parseBoolean(container.getConfiguration().getConfiguration(EquinoxConfiguration.PROP_MAPPED_BUNDLE_FILES));
 
 		// we need to set the install path as soon as possible so we can determine
 		// the absolute location of install relative URLs
@@ -344,6 +351,7 @@ public class Storage {
 		}
 		mruList.shutdown();
 		adaptor.shutdownResolverExecutor();
+		adaptor.shutdownStartLevelExecutor();
 	}
 
 	private boolean needUpdate(ModuleRevision currentRevision, ModuleRevisionBuilder newBuilder) {
@@ -494,41 +502,202 @@ public class Storage {
 			throw new BundleException("The framework storage area is read only.", BundleException.INVALID_OPERATION); //$NON-NLS-1$
 		}
 		URL sourceURL = content.getURL();
+		InputStream in = getInputStream(content);
+
+		// Check if the bundle already exists at this location
+		// before doing the staging and generation creation.
+		// This is important since some installers seem to continually
+		// re-install bundles using the same location each startup
+		Generation existing = getExistingGeneration(origin, bundleLocation, in);
+		// only the stream returned by stageInstalls uses the staged content
+		StagedContentStream stagedInstall = in instanceof StagedContentStream && stagedInstalls.remove(bundleLocation, in) ? (StagedContentStream) in : null;
+		if (existing != null) {
+			if (stagedInstall != null) {
+				discard(stagedInstall.staged);
+			}
+			return existing;
+		}
+
+		if (stagedInstall != null) {
+			StagedBundle stagedBundle = getStagedBundle(stagedInstall.staged);
+			if (stagedBundle.content != null) {
+				// the content has already been staged
+				return install(origin, bundleLocation, stagedBundle.content, stagedBundle.isReference, stagedBundle.headers, stagedBundle.builder);
+			}
+		}
+		if (in instanceof StagedContentStream) {
+			// the content was not staged for this install; read it from its source
+			in = ((StagedContentStream) in).open();
+		}
+		boolean isReference = in instanceof ReferenceInputStream;
+		File staged = stageContent(in, sourceURL);
+		return install(origin, bundleLocation, staged, isReference, null, null);
+	}
+
+	/**
+	 * Stages the content of bundles which are about to be installed using the specified executor.
+	 * Staging opens and copies the content into the storage area, reads the bundle manifest and builds
+	 * the revision builder of a bundle.  None of this depends on the bundle id or on the module
+	 * database, so the bundles are staged concurrently.  The staged content is only used by a later
+	 * {@link #install(Module, String, URLConnection) install} of a staged location with the stream
+	 * returned for that location; the bundles are still installed one at a time in the order they
+	 * are installed.  If the returned stream is read instead it opens the content from its source.
+	 * The content of staged locations which are not installed must be discarded with
+	 * {@link #discardStagedInstalls()}.
+	 * @param contents the URL of the content of the bundles to stage by location
+	 * @param executor the executor used to stage the bundles
+	 * @return the streams to install the staged bundles with by location
+	 */
+	public Map<String, InputStream> stageInstalls(Map<String, URL> contents, Executor executor) {
+		if (osgiLocation.isReadOnly()) {
+			// the installs will fail
+			return Collections.emptyMap();
+		}
+		Map<String, InputStream> result = new HashMap<>();
+		for (final Map.Entry<String, URL> content : contents.entrySet()) {
+			FutureTask<StagedBundle> staged = new FutureTask<>(new Callable<StagedBundle>() {
+				@Override
+				public StagedBundle call() throws BundleException {
+					return stage(content.getKey(), content.getValue());
+				}
+			});
+			StagedContentStream stagedInstall = new StagedContentStream(content.getValue(), staged);
+			StagedContentStream previous = stagedInstalls.put(content.getKey(), stagedInstall);
+			if (previous != null) {
+				discard(previous.staged);
+			}
+			result.put(content.getKey(), stagedInstall);
+			executor.execute(staged);
+		}
+		return result;
+	}
+
+	/**
+	 * Discards the staged content of the locations which have not been installed.
+	 */
+	public void discardStagedInstalls() {
+		for (Iterator<StagedContentStream> iStaged = stagedInstalls.values().iterator(); iStaged.hasNext();) {
+			StagedContentStream stagedInstall = iStaged.next();
+			iStaged.remove();
+			discard(stagedInstall.staged);
+		}
+	}
+
+	private StagedBundle stage(String bundleLocation, URL sourceURL) throws BundleException {
+		if (moduleContainer.getModule(bundleLocation) != null) {
+			// already installed; the install will find the existing module
+			return new StagedBundle(null, false, null, null);
+		}
 		InputStream in;
 		try {
-			in = content.getInputStream();
+			in = LocationHelper.getStream(sourceURL);
 		} catch (Throwable e) {
 			throw new BundleException("Error reading bundle content.", e); //$NON-NLS-1$
 		}
+		boolean isReference = in instanceof ReferenceInputStream;
+		File staged = stageContent(in, sourceURL);
+		try {
+			Map<String, String> headers = readManifest(staged);
+			return new StagedBundle(staged, isReference, headers, getBuilder(headers));
+		} catch (BundleException e) {
+			deleteStaged(staged, isReference);
+			throw e;
+		} catch (RuntimeException e) {
+			deleteStaged(staged, isReference);
+			throw e;
+		}
+	}
 
-		// Check if the bundle already exists at this location
-		// before doing the staging and generation creation.
-		// This is important since some installers seem to continually
-		// re-install bundles using the same location each startup
+	private static StagedBundle getStagedBundle(Future<StagedBundle> stagedInstall) throws BundleException {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return stagedInstall.get();
+				} catch (InterruptedException e) {
+					// the install must not leave the staging task behind
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof BundleException) {
+				throw (BundleException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new BundleException("Error occurred installing a bundle.", cause); //$NON-NLS-1$
+		} catch (CancellationException e) {
+			throw new BundleException("Error occurred installing a bundle.", e); //$NON-NLS-1$
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static void discard(Future<StagedBundle> stagedInstall) {
+		if (stagedInstall.cancel(false)) {
+			// the content was never staged
+			return;
+		}
+		try {
+			getStagedBundle(stagedInstall).discard();
+		} catch (BundleException e) {
+			// nothing was staged
+		} catch (RuntimeException e) {
+			// nothing was staged
+		}
+	}
+
+	private static void closeStream(InputStream in) {
+		try {
+			in.close();
+		} catch (IOException e) {
+			// ignore
+		}
+	}
+
+	private static InputStream getInputStream(URLConnection content) throws BundleException {
+		try {
+			return content.getInputStream();
+		} catch (Throwable e) {
+			throw new BundleException("Error reading bundle content.", e); //$NON-NLS-1$
+		}
+	}
+
+	private Generation getExistingGeneration(Module origin, String bundleLocation, InputStream in) throws BundleException {
 		Module existingLocation = moduleContainer.getModule(bundleLocation);
-		if (existingLocation != null) {
-			// NOTE this same logic is also in the ModuleContainer
-			// This is necessary because the container does the location locking.
-			// Another thread could win the location lock and install before this thread does.
+		if (existingLocation == null) {
+			return null;
+		}
+		// NOTE this same logic is also in the ModuleContainer
+		// This is necessary because the container does the location locking.
+		// Another thread could win the location lock and install before this thread does.
+		if (in != null) {
 			try {
 				in.close();
 			} catch (IOException e) {
 				// ignore
 			}
-			if (origin != null) {
-				// Check that the existing location is visible from the origin module
-				Bundle bundle = origin.getBundle();
-				BundleContext context = bundle == null ? null : bundle.getBundleContext();
-				if (context != null && context.getBundle(existingLocation.getId()) == null) {
-					Bundle b = existingLocation.getBundle();
-					throw new BundleException(NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation, new Object[] {b.getSymbolicName(), b.getVersion(), bundleLocation}), BundleException.REJECTED_BY_HOOK);
-				}
+		}
+		if (origin != null) {
+			// Check that the existing location is visible from the origin module
+			Bundle bundle = origin.getBundle();
+			BundleContext context = bundle == null ? null : bundle.getBundleContext();
+			if (context != null && context.getBundle(existingLocation.getId()) == null) {
+				Bundle b = existingLocation.getBundle();
+				throw new BundleException(NLS.bind(Msg.ModuleContainer_NameCollisionWithLocation, new Object[] {b.getSymbolicName(), b.getVersion(), bundleLocation}), BundleException.REJECTED_BY_HOOK);
 			}
-			return (Generation) existingLocation.getCurrentRevision().getRevisionInfo();
 		}
+		return (Generation) existingLocation.getCurrentRevision().getRevisionInfo();
+	}
 
-		boolean isReference = in instanceof ReferenceInputStream;
-		File staged = stageContent(in, sourceURL);
+	private Generation install(Module origin, String bundleLocation, File staged, boolean isReference, Map<String, String> headers, ModuleRevisionBuilder builder) throws BundleException {
 		Generation generation = null;
 		Long lockedID = getNextRootID();
 		try {
@@ -541,7 +710,17 @@ public class Storage {
 			generation.getBundleFile().open();
 			setStorageHooks(generation);
 
-			ModuleRevisionBuilder builder = getBuilder(generation);
+			if (builder != null) {
+				if (generation.getBundleFile() instanceof BundleFileWrapperChain) {
+					// a bundle file wrapper may change the manifest read from the staged content
+					builder = null;
+				} else {
+					generation.setRawHeaders(headers);
+				}
+			}
+			if (builder == null) {
+				builder = getBuilder(generation);
+			}
 			Module m = moduleContainer.install(origin, bundleLocation, builder, generation);
 			if (!lockedID.equals(m.getId())) {
 				// this revision is already installed. delete the generation
@@ -550,13 +729,7 @@ public class Storage {
 			}
 			return generation;
 		} catch (Throwable t) {
-			if (!isReference) {
-				try {
-					delete(staged);
-				} catch (IOException e) {
-					// tried our best
-				}
-			}
+			deleteStaged(staged, isReference);
 			if (generation != null) {
 				generation.delete();
 				generation.getBundleInfo().delete();
@@ -581,6 +754,50 @@ public class Storage {
 		}
 	}
 
+	void deleteStaged(File staged, boolean isReference) {
+		if (!isReference) {
+			try {
+				delete(staged);
+			} catch (IOException e) {
+				// tried our best
+			}
+		}
+	}
+
+	private Map<String, String> readManifest(File content) throws BundleException {
+		try {
+			InputStream manifest = null;
+			ZipFile zipFile = null;
+			try {
+				if (secureAction.isDirectory(content)) {
+					File manifestFile = new File(content, BundleInfo.OSGI_BUNDLE_MANIFEST);
+					if (secureAction.exists(manifestFile)) {
+						manifest = secureAction.getFileInputStream(manifestFile);
+					}
+				} else {
+					zipFile = secureAction.getZipFile(content);
+					ZipEntry entry = zipFile.getEntry(BundleInfo.OSGI_BUNDLE_MANIFEST);
+					if (entry != null) {
+						manifest = zipFile.getInputStream(entry);
+					}
+				}
+				if (manifest == null) {
+					return Collections.emptyMap();
+				}
+				return Collections.unmodifiableMap(ManifestElement.parseBundleManifest(manifest, new CaseInsensitiveDictionaryMap<String, String>()));
+			} finally {
+				if (manifest != null) {
+					manifest.close();
+				}
+				if (zipFile != null) {
+					zipFile.close();
+				}
+			}
+		} catch (IOException e) {
+			throw new BundleException(Msg.BUNDLE_READ_EXCEPTION, BundleException.READ_ERROR, e);
+		}
+	}
+
 	private void setStorageHooks(Generation generation) throws BundleException {
 		if (generation.getBundleInfo().getBundleId() == 0) {
 			return; // ignore system bundle
@@ -614,17 +831,7 @@ public class Storage {
 			}
 		}
 		if (generation.getBundleInfo().getBundleId() != 0) {
-			ModuleRevisionBuilder builder = allowRestrictedProvides ? OSGiManifestBuilderFactory.createBuilder(mapHeaders, null, null, "") : OSGiManifestBuilderFactory.createBuilder(mapHeaders); //$NON-NLS-1$
-			if ((builder.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0) {
-				for (ModuleRevisionBuilder.GenericInfo reqInfo : builder.getRequirements()) {
-					if (HostNamespace.HOST_NAMESPACE.equals(reqInfo.getNamespace())) {
-						if (HostNamespace.EXTENSION_BOOTCLASSPATH.equals(reqInfo.getDirectives().get(HostNamespace.REQUIREMENT_EXTENSION_DIRECTIVE))) {
-							throw new BundleException("Boot classpath extensions are not supported.", BundleException.UNSUPPORTED_OPERATION, new UnsupportedOperationException()); //$NON-NLS-1$
-						}
-					}
-				}
-			}
-			return builder;
+			return getBuilder(mapHeaders);
 		}
 		// First we must make sure the VM profile has been loaded
 		loadVMProfile(generation);
@@ -634,6 +841,20 @@ public class Storage {
 		return OSGiManifestBuilderFactory.createBuilder(mapHeaders, Constants.SYSTEM_BUNDLE_SYMBOLICNAME, extraExports, extraCapabilities);
 	}
 
+	private ModuleRevisionBuilder getBuilder(Map<String, String> mapHeaders) throws BundleException {
+		ModuleRevisionBuilder builder = allowRestrictedProvides ? OSGiManifestBuilderFactory.createBuilder(mapHeaders, null, null, "") : OSGiManifestBuilderFactory.createBuilder(mapHeaders); //$NON-NLS-1$
+		if ((builder.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0) {
+			for (ModuleRevisionBuilder.GenericInfo reqInfo : builder.getRequirements()) {
+				if (HostNamespace.HOST_NAMESPACE.equals(reqInfo.getNamespace())) {
+					if (HostNamespace.EXTENSION_BOOTCLASSPATH.equals(reqInfo.getDirectives().get(HostNamespace.REQUIREMENT_EXTENSION_DIRECTIVE))) {
+						throw new BundleException("Boot classpath extensions are not supported.", BundleException.UNSUPPORTED_OPERATION, new UnsupportedOperationException()); //$NON-NLS-1$
+					}
+				}
+			}
+		}
+		return builder;
+	}
+
 	private String getSystemExtraCapabilities() {
 		EquinoxConfiguration equinoxConfig = equinoxContainer.getConfiguration();
 		StringBuilder result = new StringBuilder();
@@ -937,6 +1158,8 @@ public class Storage {
 			if (isDirectory) {
 				boolean strictPath = Boolean.parseBoolean(equinoxContainer.getConfiguration().getConfiguration(EquinoxConfiguration.PROPERTY_STRICT_BUNDLE_ENTRY_PATH, Boolean.FALSE.toString()));
 				result = new DirBundleFile(content, strictPath);
+			} else if (mappedBundleFiles) {
+				result = new MappedZipBundleFile(content, generation, mruList, getConfiguration().getDebug());
 			} else {
 				result = new ZipBundleFile(content, generation, mruList, getConfiguration().getDebug());
 			}
@@ -1054,16 +1277,28 @@ public class Storage {
 		}
 	}
 
+	/**
+	 * Indicates that a storage hook has changed its persistent data outside of
+	 * an install or update operation.  The data is persisted on the next save.
+	 */
+	public void storageHookDataChanged() {
+		storageHookDataChanged = true;
+	}
+
 	void save0() throws IOException {
 		StorageManager childStorageManager = null;
 		ManagedOutputStream mos = null;
 		DataOutputStream out = null;
 		boolean success = false;
+		boolean hookDataChanged = false;
 		moduleDatabase.readLock();
 		try {
 			synchronized (this.saveMonitor) {
-				if (lastSavedTimestamp == moduleDatabase.getTimestamp())
+				hookDataChanged = storageHookDataChanged;
+				if (lastSavedTimestamp == moduleDatabase.getTimestamp() && !hookDataChanged)
 					return;
+				// clear before writing so that changes made while saving are picked up by the next save
+				storageHookDataChanged = false;
 				childStorageManager = getChildStorageManager();
 				mos = childStorageManager.getOutputStream(FRAMEWORK_INFO);
 				out = new DataOutputStream(new BufferedOutputStream(mos));
@@ -1078,6 +1313,9 @@ public class Storage {
 				if (mos != null) {
 					mos.abort();
 				}
+				if (hookDataChanged) {
+					storageHookDataChanged = true;
+				}
 			}
 			if (out != null) {
 				try {
@@ -1545,19 +1783,17 @@ public class Storage {
 	}
 
 	public static Enumeration<URL> findEntries(List<Generation> generations, String path, String filePattern, int options) {
-		List<BundleFile> bundleFiles = new ArrayList<>(generations.size());
-		for (Generation generation : generations)
-			bundleFiles.add(generation.getBundleFile());
-		// search all the bundle files
-		List<String> pathList = listEntryPaths(bundleFiles, path, filePattern, options);
-		// return null if no entries found
-		if (pathList.size() == 0)
+		final EntrySearch search = EntrySearch.create(path, filePattern, options);
+		if (search == null)
 			return null;
-		// create an enumeration to enumerate the pathList
-		final String[] pathArray = pathList.toArray(new String[pathList.size()]);
 		final Generation[] generationArray = generations.toArray(new Generation[generations.size()]);
-		return new Enumeration<URL>() {
-			private int curPathIndex = 0;
+		// lazily search the generations in order; a generation is only listed
+		// once the matching entries of the previous generations are consumed
+		Enumeration<URL> result = new Enumeration<URL>() {
+			private final Set<String> found = new HashSet<>();
+			private Iterator<String> curPaths = Collections.<String> emptyList().iterator();
+			private int curPathsIndex = 0;
+			private String curPath = null;
 			private int curDataIndex = 0;
 			private URL nextElement = null;
 
@@ -1579,22 +1815,35 @@ public class Storage {
 
 			private void getNextElement() {
 				nextElement = null;
-				if (curPathIndex >= pathArray.length)
-					// reached the end of the pathArray; no more elements
-					return;
-				while (nextElement == null && curPathIndex < pathArray.length) {
-					String curPath = pathArray[curPathIndex];
-					// search the generation until we have searched them all
-					while (nextElement == null && curDataIndex < generationArray.length)
-						nextElement = generationArray[curDataIndex++].getEntry(curPath);
-					// we have searched all datas then advance to the next path 
-					if (curDataIndex >= generationArray.length) {
-						curPathIndex++;
+				while (nextElement == null) {
+					if (curPath == null) {
+						while (!curPaths.hasNext()) {
+							if (curPathsIndex >= generationArray.length)
+								// searched all the generations; no more elements
+								return;
+							List<String> paths = search.listEntryPaths(generationArray[curPathsIndex++].getBundleFile());
+							if (paths != null)
+								curPaths = paths.iterator();
+						}
+						curPath = curPaths.next();
+						// prevent duplicates; a path is searched in all the generations when it is first found
+						if (!found.add(curPath)) {
+							curPath = null;
+							continue;
+						}
 						curDataIndex = 0;
 					}
+					// search the generations until we have searched them all
+					while (nextElement == null && curDataIndex < generationArray.length)
+						nextElement = generationArray[curDataIndex++].getEntry(curPath);
+					// we have searched all datas then advance to the next path
+					if (curDataIndex >= generationArray.length)
+						curPath = null;
 				}
 			}
 		};
+		// return null if no entries found
+		return result.hasMoreElements() ? result : null;
 	}
 
 	/**
@@ -1610,43 +1859,88 @@ public class Storage {
 	 * @see BundleWiring#listResources(String, String, int)
 	 */
 	public static List<String> listEntryPaths(List<BundleFile> bundleFiles, String path, String filePattern, int options) {
+		EntrySearch search = EntrySearch.create(path, filePattern, options);
+		if (search == null)
+			return new ArrayList<>(0);
 		// Use LinkedHashSet for optimized performance of contains() plus
 		// ordering guarantees.
 		LinkedHashSet<String> pathList = new LinkedHashSet<>();
-		Filter patternFilter = null;
-		Hashtable<String, String> patternProps = null;
-		if (filePattern != null) {
+		// find the entry paths for the datas
+		for (BundleFile bundleFile : bundleFiles) {
+			List<String> paths = search.listEntryPaths(bundleFile);
+			if (paths != null)
+				pathList.addAll(paths);
+		}
+		return new ArrayList<>(pathList);
+	}
+
+	/**
+	 * A search for the entries of bundle files with a compiled file pattern.
+	 */
+	private static final class EntrySearch {
+		private final String path;
+		// the path of the single entry to search for or null if the pattern is used
+		private final String entryPath;
+		private final EntryPathPattern pattern;
+		private final boolean recurse;
+
+		private EntrySearch(String path, String entryPath, EntryPathPattern pattern, boolean recurse) {
+			this.path = path;
+			this.entryPath = entryPath;
+			this.pattern = pattern;
+			this.recurse = recurse;
+		}
+
+		/**
+		 * Creates a search or returns null if the file pattern is invalid.
+		 */
+		static EntrySearch create(String path, String filePattern, int options) {
+			boolean recurse = (options & BundleWiring.FINDENTRIES_RECURSE) != 0;
+			if (filePattern == null)
+				return new EntrySearch(path, null, null, recurse);
 			// Optimization: If the file pattern does not include a wildcard  or escape char then it must represent a single file.
 			// Avoid pattern matching and use BundleFile.getEntry() if recursion was not requested.
-			if ((options & BundleWiring.FINDENTRIES_RECURSE) == 0 && filePattern.indexOf('*') == -1 && filePattern.indexOf('\\') == -1) {
+			if (!recurse && filePattern.indexOf('*') == -1 && filePattern.indexOf('\\') == -1) {
+				String entryPath;
 				if (path.length() == 0)
-					path = filePattern;
+					entryPath = filePattern;
 				else
-					path += path.charAt(path.length() - 1) == '/' ? filePattern : '/' + filePattern;
-				for (BundleFile bundleFile : bundleFiles) {
-					if (bundleFile.getEntry(path) != null && !pathList.contains(path))
-						pathList.add(path);
-				}
-				return new ArrayList<>(pathList);
+					entryPath = path + (path.charAt(path.length() - 1) == '/' ? filePattern : '/' + filePattern);
+				return new EntrySearch(path, entryPath, null, false);
 			}
 			// For when the file pattern includes a wildcard.
 			try {
-				// create a file pattern filter with 'filename' as the key
-				patternFilter = FilterImpl.newInstance("(filename=" + sanitizeFilterInput(filePattern) + ")"); //$NON-NLS-1$ //$NON-NLS-2$
-				// create a single hashtable to be shared during the recursive search
-				patternProps = new Hashtable<>(2);
+				return new EntrySearch(path, null, EntryPathPattern.compile(filePattern), recurse);
 			} catch (InvalidSyntaxException e) {
 				// TODO something unexpected happened; log error and return nothing
 				//				Bundle b = context == null ? null : context.getBundle();
 				//				eventPublisher.publishFrameworkEvent(FrameworkEvent.ERROR, b, e);
-				return new ArrayList<>(pathList);
+				return null;
 			}
 		}
-		// find the entry paths for the datas
-		for (BundleFile bundleFile : bundleFiles) {
-			listEntryPaths(bundleFile, path, patternFilter, patternProps, options, pathList);
+
+		/**
+		 * Returns the matching entry paths of a bundle file in the order of the bundle file.
+		 * The index of the bundle file is used when it has one.
+		 * @return the matching entry paths or null if there are none
+		 */
+		List<String> listEntryPaths(BundleFile bundleFile) {
+			if (entryPath != null)
+				return bundleFile.getEntry(entryPath) != null ? Collections.singletonList(entryPath) : null;
+			EntryPathIndex index = bundleFile.getEntryPathIndex();
+			if (index != null)
+				return index.listEntryPaths(path, pattern, recurse);
+			Enumeration<String> entryPaths = bundleFile.getEntryPaths(path, recurse);
+			if (entryPaths == null)
+				return null;
+			List<String> result = new ArrayList<>();
+			while (entryPaths.hasMoreElements()) {
+				String entry = entryPaths.nextElement();
+				if (pattern == null || pattern.matches(entry))
+					result.add(entry);
+			}
+			return result;
 		}
-		return new ArrayList<>(pathList);
 	}
 
 	public static String sanitizeFilterInput(String filePattern) throws InvalidSyntaxException {
@@ -1689,47 +1983,6 @@ public class Storage {
 		return buffer == null ? filePattern : buffer.toString();
 	}
 
-	// Use LinkedHashSet for optimized performance of contains() plus ordering 
-	// guarantees.
-	private static LinkedHashSet<String> listEntryPaths(BundleFile bundleFile, String path, Filter patternFilter, Hashtable<String, String> patternProps, int options, LinkedHashSet<String> pathList) {
-		if (pathList == null)
-			pathList = new LinkedHashSet<>();
-		Enumeration<String> entryPaths;
-		if ((options & BundleWiring.FINDENTRIES_RECURSE) != 0)
-			entryPaths = bundleFile.getEntryPaths(path, true);
-		else
-			entryPaths = bundleFile.getEntryPaths(path);
-		if (entryPaths == null)
-			return pathList;
-		while (entryPaths.hasMoreElements()) {
-			String entry = entryPaths.nextElement();
-			int lastSlash = entry.lastIndexOf('/');
-			if (patternProps != null) {
-				int secondToLastSlash = entry.lastIndexOf('/', lastSlash - 1);
-				int fileStart;
-				int fileEnd = entry.length();
-				if (lastSlash < 0)
-					fileStart = 0;
-				else if (lastSlash != entry.length() - 1)
-					fileStart = lastSlash + 1;
-				else {
-					fileEnd = lastSlash; // leave the lastSlash out
-					if (secondToLastSlash < 0)
-						fileStart = 0;
-					else
-						fileStart = secondToLastSlash + 1;
-				}
-				String fileName = entry.substring(fileStart, fileEnd);
-				// set the filename to the current entry
-				patternProps.put("filename", fileName); //$NON-NLS-1$
-			}
-			// prevent duplicates and match on the patternFilter
-			if (!pathList.contains(entry) && (patternFilter == null || patternFilter.matchCase(patternProps)))
-				pathList.add(entry);
-		}
-		return pathList;
-	}
-
 	public String copyToTempLibrary(Generation generation, String absolutePath) {
 		File libTempDir = new File(childRoot, LIB_TEMP);
 		// we assume the absolutePath is a File path
@@ -1841,4 +2094,78 @@ public class Storage {
 		}
 		return storageStream;
 	}
+
+	/**
+	 * The stream returned for a location staged for a later install.  Installing the location with
+	 * this stream uses the staged content.  Reading the stream opens the content from its source.
+	 */
+	private static final class StagedContentStream extends InputStream {
+		final URL source;
+		final Future<StagedBundle> staged;
+		private InputStream in;
+
+		StagedContentStream(URL source, Future<StagedBundle> staged) {
+			this.source = source;
+			this.staged = staged;
+		}
+
+		synchronized InputStream open() throws BundleException {
+			if (in == null) {
+				try {
+					in = LocationHelper.getStream(source);
+				} catch (Throwable e) {
+					throw new BundleException("Error reading bundle content.", e); //$NON-NLS-1$
+				}
+			}
+			return in;
+		}
+
+		private InputStream getSource() throws IOException {
+			try {
+				return open();
+			} catch (BundleException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public int read() throws IOException {
+			return getSource().read();
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			return getSource().read(b, off, len);
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			if (in != null) {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * The content, manifest and revision builder of a bundle staged for a later install.
+	 */
+	private final class StagedBundle {
+		final File content;
+		final boolean isReference;
+		final Map<String, String> headers;
+		final ModuleRevisionBuilder builder;
+
+		StagedBundle(File content, boolean isReference, Map<String, String> headers, ModuleRevisionBuilder builder) {
+			this.content = content;
+			this.isReference = isReference;
+			this.headers = headers;
+			this.builder = builder;
+		}
+
+		void discard() {
+			if (content != null) {
+				deleteStaged(content, isReference);
+			}
+		}
+	}
 }
@@ -98,6 +98,19 @@ abstract public class BundleFile {
 	 */
 	abstract public Enumeration<String> getEntryPaths(String path, boolean recurse);
 
+	/**
+	 * Returns an index of the entry paths of this bundle file.  The index is used
+	 * to find entries without calling {@link #getEntryPaths(String, boolean)}.
+	 * This default implementation returns <code>null</code>.  Bundle files with
+	 * content that does not change may return an index which answers the same
+	 * listings as {@link #getEntryPaths(String, boolean)}.
+	 * @return the index of the entry paths or <code>null</code> if the entry paths
+	 * must be listed with {@link #getEntryPaths(String, boolean)}
+	 */
+	public EntryPathIndex getEntryPathIndex() {
+		return null;
+	}
+
 	/**
 	 * Closes the BundleFile.
 	 * @throws IOException if any error occurs.
@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.storage.bundlefile;
+
+import java.util.*;
+
+/**
+ * An immutable directory tree of the entry paths of a bundle file.
+ * <p>
+ * The index is built once from the recursive entry paths of a bundle file
+ * and answers the same listings as {@link BundleFile#getEntryPaths(String, boolean)}
+ * without enumerating all the entries of the bundle file again.  The paths
+ * are returned in the same order as they are returned by the bundle file.
+ */
+public final class EntryPathIndex {
+	private static final class Node {
+		final String path;
+		// the position of the path in the entry paths of the bundle file
+		final int order;
+		// the region of the file name in the path; excludes the trailing '/' of a directory
+		final int nameBegin;
+		final int nameEnd;
+		Node[] children;
+
+		Node(String path, int order) {
+			this.path = path;
+			this.order = order;
+			int end = path.length();
+			if (end > 0 && path.charAt(end - 1) == '/')
+				end--;
+			this.nameBegin = path.lastIndexOf('/', end - 1) + 1;
+			this.nameEnd = end;
+		}
+	}
+
+	private static final Node[] NO_CHILDREN = new Node[0];
+	private static final Comparator<Node> ORDER = new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			return n1.order < n2.order ? -1 : (n1.order == n2.order ? 0 : 1);
+		}
+	};
+
+	// directory path (ending with '/', the root is "") -> directory node
+	private final Map<String, Node> directories;
+
+	private EntryPathIndex(Map<String, Node> directories) {
+		this.directories = directories;
+	}
+
+	/**
+	 * Creates an index from all the entry paths of a bundle file.
+	 * @param entryPaths the entry paths as returned by <code>getEntryPaths("", true)</code>,
+	 * may be <code>null</code> if the bundle file has no entries.
+	 * @return the index
+	 */
+	public static EntryPathIndex create(Enumeration<String> entryPaths) {
+		Map<String, Node> directories = new HashMap<>();
+		Map<Node, List<Node>> children = new HashMap<>();
+		Node root = new Node("", -1); //$NON-NLS-1$
+		directories.put(root.path, root);
+		children.put(root, new ArrayList<Node>());
+		int order = 0;
+		while (entryPaths != null && entryPaths.hasMoreElements()) {
+			String path = entryPaths.nextElement();
+			if (directories.containsKey(path))
+				continue;
+			Node node = new Node(path, order++);
+			Node parent = getParent(node, directories, children);
+			children.get(parent).add(node);
+			if (path.charAt(path.length() - 1) == '/') {
+				directories.put(path, node);
+				children.put(node, new ArrayList<Node>());
+			}
+		}
+		for (Map.Entry<Node, List<Node>> entry : children.entrySet()) {
+			List<Node> list = entry.getValue();
+			entry.getKey().children = list.isEmpty() ? NO_CHILDREN : list.toArray(new Node[list.size()]);
+		}
+		return new EntryPathIndex(directories);
+	}
+
+	private static Node getParent(Node node, Map<String, Node> directories, Map<Node, List<Node>> children) {
+		String parentPath = node.path.substring(0, node.nameBegin);
+		Node parent = directories.get(parentPath);
+		if (parent == null) {
+			// the parent was not listed before its content; add it now
+			parent = new Node(parentPath, node.order);
+			children.get(getParent(parent, directories, children)).add(parent);
+			directories.put(parentPath, parent);
+			children.put(parent, new ArrayList<Node>());
+		}
+		return parent;
+	}
+
+	/**
+	 * Lists the entry paths in a directory which have a file name matching a pattern.
+	 * @param path the directory path, a leading '/' and missing trailing '/' are allowed
+	 * @param pattern the file name pattern or <code>null</code> to list all paths
+	 * @param recurse true if the entries of sub-directories are listed also
+	 * @return the matching entry paths in the order of the bundle file or
+	 * <code>null</code> if the directory does not exist
+	 */
+	public List<String> listEntryPaths(String path, EntryPathPattern pattern, boolean recurse) {
+		// Strip any leading '/' off of path.
+		if (path.length() > 0 && path.charAt(0) == '/')
+			path = path.substring(1);
+		// Append a '/', if not already there, to path if not an empty string.
+		if (path.length() > 0 && path.charAt(path.length() - 1) != '/')
+			path = new StringBuilder(path).append('/').toString();
+		Node directory = directories.get(path);
+		if (directory == null || directory.children.length == 0)
+			return null;
+		List<Node> matches = new ArrayList<>();
+		collect(directory, pattern, recurse, matches);
+		if (recurse)
+			// a depth first walk does not keep the order of the bundle file
+			Collections.sort(matches, ORDER);
+		List<String> result = new ArrayList<>(matches.size());
+		for (Node match : matches)
+			result.add(match.path);
+		return result;
+	}
+
+	private static void collect(Node directory, EntryPathPattern pattern, boolean recurse, List<Node> matches) {
+		for (Node child : directory.children) {
+			if (pattern == null || pattern.matches(child.path, child.nameBegin, child.nameEnd))
+				matches.add(child);
+			if (recurse && child.children != null)
+				collect(child, pattern, true, matches);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.osgi.storage.bundlefile;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.osgi.framework.InvalidSyntaxException;
+
+/**
+ * A compiled file name pattern as used by findEntries and listResources.
+ * <p>
+ * The pattern matches the same names as the <code>(filename=pattern)</code>
+ * filter used previously: the '*' character matches any sequence of characters,
+ * '\' escapes the following character and all other characters, including
+ * parentheses, match themselves.  The pattern is matched against a region of
+ * an entry path so no file name has to be created for each entry.
+ */
+public final class EntryPathPattern {
+	// the literal segments of the pattern; null stands for a '*'
+	private final String[] segments;
+	// true if the pattern matches all names
+	private final boolean all;
+
+	private EntryPathPattern(String[] segments, boolean all) {
+		this.segments = segments;
+		this.all = all;
+	}
+
+	/**
+	 * Compiles a file name pattern.
+	 * @param filePattern the file name pattern
+	 * @return the compiled pattern
+	 * @throws InvalidSyntaxException if the pattern ends with an escape character
+	 */
+	public static EntryPathPattern compile(String filePattern) throws InvalidSyntaxException {
+		if (filePattern.length() > 0 && filePattern.charAt(0) == '*' && isWhitespaceAfter(filePattern, 1)) {
+			// same as a presence filter
+			return new EntryPathPattern(null, true);
+		}
+		List<String> segments = new ArrayList<>(4);
+		StringBuilder sb = new StringBuilder(filePattern.length());
+		for (int i = 0; i < filePattern.length(); i++) {
+			char c = filePattern.charAt(i);
+			switch (c) {
+				case '*' :
+					if (sb.length() > 0)
+						segments.add(sb.toString());
+					sb.setLength(0);
+					segments.add(null);
+					break;
+				case '\\' :
+					if (++i == filePattern.length())
+						throw new InvalidSyntaxException("Trailing escape characters must be escaped.", filePattern); //$NON-NLS-1$
+					sb.append(filePattern.charAt(i));
+					break;
+				default :
+					sb.append(c);
+					break;
+			}
+		}
+		if (sb.length() > 0 || segments.isEmpty())
+			segments.add(sb.toString());
+		return new EntryPathPattern(segments.toArray(new String[segments.size()]), false);
+	}
+
+	private static boolean isWhitespaceAfter(String s, int begin) {
+		for (int i = begin; i < s.length(); i++) {
+			if (!Character.isWhitespace(s.charAt(i)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if the file name of the specified entry path matches this pattern.
+	 * The file name of a directory path does not include the trailing '/'.
+	 * @param entryPath the entry path
+	 * @return true if the file name matches
+	 */
+	public boolean matches(String entryPath) {
+		if (all)
+			return true;
+		int end = entryPath.length();
+		int lastSlash = entryPath.lastIndexOf('/');
+		if (lastSlash >= 0 && lastSlash == end - 1) {
+			// leave the last slash out
+			end = lastSlash;
+			lastSlash = entryPath.lastIndexOf('/', lastSlash - 1);
+		}
+		return matches(entryPath, lastSlash + 1, end);
+	}
+
+	/**
+	 * Returns true if the region of the specified string matches this pattern.
+	 * @param s the string containing the name
+	 * @param begin the index of the first character of the name
+	 * @param end the index after the last character of the name
+	 * @return true if the name matches
+	 */
+	public boolean matches(String s, int begin, int end) {
+		if (all)
+			return true;
+		int pos = begin;
+		for (int i = 0, size = segments.length; i < size; i++) {
+			String segment = segments[i];
+			if (i + 1 < size) {
+				if (segment == null) {
+					String next = segments[i + 1];
+					if (next == null)
+						continue;
+					int index = s.indexOf(next, pos);
+					if (index == -1 || index + next.length() > end)
+						return false;
+					pos = index + next.length();
+					if (i + 2 < size)
+						// more segments follow; otherwise the last segment must also end the name
+						i++;
+				} else {
+					int len = segment.length();
+					if (pos + len > end || !s.regionMatches(pos, segment, 0, len))
+						return false;
+					pos += len;
+				}
+			} else {
+				if (segment == null)
+					return true;
+				if (size == 1)
+					// no wild cards; the name must be equal to the pattern
+					return end - begin == segment.length() && s.startsWith(segment, begin);
+				int len = segment.length();
+				return end - begin >= len && s.regionMatches(end - len, segment, 0, len);
+			}
+		}
+		return true;
+	}
+}
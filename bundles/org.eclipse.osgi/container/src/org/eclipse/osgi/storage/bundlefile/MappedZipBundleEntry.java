@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage.bundlefile;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.GregorianCalendar;
+import java.util.zip.*;
+
+/**
+ * A BundleEntry for an entry of a {@link MappedZipBundleFile}.  The content
+ * of the entry is read directly from the mapped bundle file.
+ */
+public class MappedZipBundleEntry extends BundleEntry {
+	final MappedZipBundleFile.Entry entry;
+	private final MappedZipBundleFile bundleFile;
+
+	MappedZipBundleEntry(MappedZipBundleFile.Entry entry, MappedZipBundleFile bundleFile) {
+		this.entry = entry;
+		this.bundleFile = bundleFile;
+	}
+
+	/**
+	 * Return an InputStream for the entry.
+	 *
+	 * @return InputStream for the entry
+	 * @exception java.io.IOException
+	 */
+	public InputStream getInputStream() throws IOException {
+		InputStream in = new ByteBufferInputStream(getData(), entry.name);
+		if (entry.method == MappedZipBundleFile.STORED)
+			return in;
+		return new MappedInflaterInputStream(in, entry.size);
+	}
+
+	/**
+	 * Returns the uncompressed content of this entry as a read-only buffer.
+	 * The buffer of a stored entry is a view of the mapped bundle file; the
+	 * content of a compressed entry is inflated into a new buffer.
+	 * @return the uncompressed content of this entry
+	 * @throws IOException if an error occurs reading the content
+	 */
+	public ByteBuffer getByteBuffer() throws IOException {
+		if (entry.method == MappedZipBundleFile.STORED)
+			return getData().asReadOnlyBuffer();
+		return ByteBuffer.wrap(getBytes()).asReadOnlyBuffer();
+	}
+
+	@Override
+	public byte[] getBytes() throws IOException {
+		try {
+			return getBytes(getData());
+		} catch (InternalError e) {
+			throw mappingFault(entry.name, e);
+		}
+	}
+
+	private ByteBuffer getData() throws IOException {
+		try {
+			return MappedZipBundleFile.getData(bundleFile.getMapping(), entry);
+		} catch (InternalError e) {
+			throw mappingFault(entry.name, e);
+		}
+	}
+
+	/**
+	 * The VM reports a fault accessing a mapped file which was truncated or
+	 * replaced in place with an InternalError.
+	 */
+	static IOException mappingFault(String name, InternalError e) {
+		IOException result = new IOException("Unable to read the mapped content: " + name); //$NON-NLS-1$
+		result.initCause(e);
+		return result;
+	}
+
+	private byte[] getBytes(ByteBuffer data) throws IOException {
+		if (entry.method == MappedZipBundleFile.STORED) {
+			byte[] result = new byte[data.remaining()];
+			data.get(result);
+			return result;
+		}
+		// provide an extra dummy byte; required by the inflater when using nowrap
+		byte[] compressed = new byte[data.remaining() + 1];
+		data.get(compressed, 0, compressed.length - 1);
+		byte[] result = new byte[entry.size];
+		Inflater inflater = new Inflater(true);
+		try {
+			inflater.setInput(compressed);
+			int read = 0;
+			while (read < result.length) {
+				int n = inflater.inflate(result, read, result.length - read);
+				if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				read += n;
+			}
+			if (read != result.length)
+				throw new ZipException("Invalid entry size: " + entry.name); //$NON-NLS-1$
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage() + ": " + entry.name); //$NON-NLS-1$
+		} finally {
+			inflater.end();
+		}
+		return result;
+	}
+
+	/**
+	 * Return size of the uncompressed entry.
+	 *
+	 * @return size of entry
+	 */
+	public long getSize() {
+		return entry.size;
+	}
+
+	/**
+	 * Return name of the entry.
+	 *
+	 * @return name of entry
+	 */
+	public String getName() {
+		return entry.name;
+	}
+
+	/**
+	 * Get the modification time for this BundleEntry.
+	 * <p>If the modification time has not been set,
+	 * this method will return <tt>-1</tt>.
+	 *
+	 * @return last modification time.
+	 */
+	public long getTime() {
+		long dosTime = entry.dosTime;
+		GregorianCalendar calendar = new GregorianCalendar((int) (((dosTime >> 25) & 0x7f) + 1980), (int) (((dosTime >> 21) & 0x0f) - 1), (int) ((dosTime >> 16) & 0x1f), (int) ((dosTime >> 11) & 0x1f), (int) ((dosTime >> 5) & 0x3f), (int) ((dosTime << 1) & 0x3e));
+		return calendar.getTimeInMillis();
+	}
+
+	@SuppressWarnings("deprecation")
+	public URL getLocalURL() {
+		try {
+			return new URL("jar:" + bundleFile.basefile.toURL() + "!/" + entry.name); //$NON-NLS-1$//$NON-NLS-2$
+		} catch (MalformedURLException e) {
+			//This can not happen.
+			return null;
+		}
+	}
+
+	@SuppressWarnings("deprecation")
+	public URL getFileURL() {
+		try {
+			File file = bundleFile.getFile(entry.name, false);
+			if (file != null)
+				return file.toURL();
+		} catch (MalformedURLException e) {
+			//This can not happen.
+		}
+		return null;
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+		private final String name;
+		private volatile boolean closed = false;
+
+		ByteBufferInputStream(ByteBuffer buffer, String name) {
+			this.buffer = buffer;
+			this.name = name;
+		}
+
+		private void checkOpen() throws IOException {
+			if (closed)
+				throw new IOException("Stream closed"); //$NON-NLS-1$
+		}
+
+		public int read() throws IOException {
+			checkOpen();
+			try {
+				return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+			} catch (InternalError e) {
+				throw mappingFault(name, e);
+			}
+		}
+
+		public int read(byte[] b, int off, int len) throws IOException {
+			checkOpen();
+			if (len == 0)
+				return 0;
+			int remaining = buffer.remaining();
+			if (remaining == 0)
+				return -1;
+			len = Math.min(len, remaining);
+			try {
+				buffer.get(b, off, len);
+			} catch (InternalError e) {
+				throw mappingFault(name, e);
+			}
+			return len;
+		}
+
+		public long skip(long n) throws IOException {
+			checkOpen();
+			int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		public int available() {
+			return closed ? 0 : buffer.remaining();
+		}
+
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static class MappedInflaterInputStream extends InflaterInputStream {
+		private final int size;
+		private int read = 0;
+		private boolean eof = false;
+		private volatile boolean closed = false;
+
+		MappedInflaterInputStream(InputStream in, int size) {
+			super(in, new Inflater(true), Math.max(1, Math.min(size, BUF_SIZE)));
+			this.size = size;
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (eof)
+				throw new EOFException("Unexpected end of ZLIB input stream"); //$NON-NLS-1$
+			len = in.read(buf, 0, buf.length);
+			if (len == -1) {
+				// provide an extra dummy byte; required by the inflater when using nowrap
+				buf[0] = 0;
+				len = 1;
+				eof = true;
+			}
+			inf.setInput(buf, 0, len);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int length) throws IOException {
+			int n = super.read(b, off, length);
+			if (n > 0)
+				read += n;
+			return n;
+		}
+
+		@Override
+		public int available() throws IOException {
+			if (closed)
+				return 0;
+			return Math.max(0, size - read);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+			inf.end();
+			super.close();
+		}
+	}
+}
@@ -0,0 +1,452 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.storage.bundlefile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.zip.ZipException;
+import org.eclipse.osgi.framework.log.FrameworkLogEntry;
+import org.eclipse.osgi.internal.debug.Debug;
+import org.eclipse.osgi.internal.framework.EquinoxContainer;
+import org.eclipse.osgi.internal.messages.Msg;
+import org.eclipse.osgi.storage.BundleInfo;
+import org.eclipse.osgi.util.NLS;
+
+/**
+ * A ZipBundleFile that maps its base file into memory instead of using a ZipFile.
+ * <p>
+ * The central directory is read once into an immutable index which is kept
+ * for the life time of the bundle file, even when the bundle file is closed.
+ * Entry lookups do not hold any locks and the content of stored entries is
+ * read directly from the mapped buffer.
+ * <p>
+ * The mapping is never unmapped explicitly.  Closing the bundle file only drops
+ * the reference to the mapping, which is released by the garbage collector once
+ * no reader uses it any longer.  Like a ZipBundleFile the mapped bundle file
+ * takes part in the MRU list so the number of mappings referenced by the open
+ * bundle files is bounded by the osgi.bundlefile.limit.
+ * <p>
+ * If the base file cannot be mapped or uses features of the zip format which are
+ * not supported (ZIP64, encryption or compression methods other than deflate)
+ * then the bundle file falls back to the behavior of a ZipBundleFile.
+ */
+public class MappedZipBundleFile extends ZipBundleFile {
+	private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+	private static final int LOCSIG = 0x04034b50;
+	private static final int CENSIG = 0x02014b50;
+	private static final int ENDSIG = 0x06054b50;
+	private static final int LOCHDR = 30;
+	private static final int CENHDR = 46;
+	private static final int ENDHDR = 22;
+	private static final int MAX_COMMENT = 0xffff;
+	static final int STORED = 0;
+	static final int DEFLATED = 8;
+
+	private final BundleInfo.Generation generation;
+	private final Debug debug;
+	// the entry index; never changes once it is read
+	private volatile Index index;
+	// the mapped content; dropped on close and mapped again when needed (guarded by this)
+	private ByteBuffer mapping;
+	// set if the base file cannot be mapped; the ZipBundleFile implementation is used instead
+	private volatile boolean useZipFile = false;
+
+	public MappedZipBundleFile(File basefile, BundleInfo.Generation generation, MRUBundleFileList mruList, Debug debug) throws IOException {
+		super(basefile, generation, mruList, debug);
+		this.generation = generation;
+		this.debug = debug;
+	}
+
+	/**
+	 * An entry of the central directory.
+	 */
+	static final class Entry {
+		final String name;
+		final int order;
+		final int method;
+		final long dosTime;
+		final int compressedSize;
+		final int size;
+		final int localOffset;
+
+		Entry(String name, int order, int method, long dosTime, int compressedSize, int size, int localOffset) {
+			this.name = name;
+			this.order = order;
+			this.method = method;
+			this.dosTime = dosTime;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localOffset = localOffset;
+		}
+
+		boolean isDirectory() {
+			return name.endsWith("/"); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * An immutable index of the central directory.
+	 */
+	private static final class Index {
+		final Map<String, Entry> entries;
+		// entries sorted by name, used for directory searches
+		final Entry[] sorted;
+
+		Index(Map<String, Entry> entries, Entry[] sorted) {
+			this.entries = entries;
+			this.sorted = sorted;
+		}
+
+		/**
+		 * Returns the position of the first entry in the sorted entries which
+		 * has a name that is equal or greater than the specified prefix.
+		 */
+		int first(String prefix) {
+			int low = 0;
+			int high = sorted.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (sorted[mid].name.compareTo(prefix) < 0)
+					low = mid + 1;
+				else
+					high = mid;
+			}
+			return low;
+		}
+
+		/**
+		 * Returns the entries with a name that starts with the specified prefix
+		 * in the order of the central directory.
+		 */
+		List<Entry> startsWith(String prefix) {
+			List<Entry> result = new ArrayList<>();
+			for (int i = first(prefix); i < sorted.length && sorted[i].name.startsWith(prefix); i++)
+				result.add(sorted[i]);
+			Collections.sort(result, new Comparator<Entry>() {
+				@Override
+				public int compare(Entry e1, Entry e2) {
+					return e1.order < e2.order ? -1 : (e1.order == e2.order ? 0 : 1);
+				}
+			});
+			return result;
+		}
+	}
+
+	/**
+	 * Returns the index of this bundle file; reading it if this is the first access.
+	 * @return the index or {@code null} if the ZipBundleFile implementation must be used
+	 */
+	private Index getIndex() {
+		Index current = index;
+		if (current != null || useZipFile)
+			return current;
+		synchronized (this) {
+			if (index == null && !useZipFile) {
+				ByteBuffer mapped = null;
+				try {
+					mapped = map();
+					index = readIndex(mapped);
+					mapping = mapped;
+					mruListAdd();
+				} catch (IOException e) {
+					if (debug.DEBUG_GENERAL)
+						Debug.println("Unable to map bundle file, using a zip file instead: " + basefile + ": " + e.getMessage()); //$NON-NLS-1$ //$NON-NLS-2$
+					useZipFile = true;
+				}
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Returns the mapping of the base file; mapping it if needed.  The returned
+	 * buffer stays valid after the bundle file is closed.
+	 * @return the mapped base file
+	 * @throws IOException if the base file cannot be mapped
+	 */
+	synchronized ByteBuffer getMapping() throws IOException {
+		if (mapping == null) {
+			mapping = map();
+			mruListAdd();
+		} else
+			mruListUse();
+		return mapping;
+	}
+
+	private ByteBuffer map() throws IOException {
+		FileInputStream in = BundleFile.secureAction.getFileInputStream(basefile);
+		try {
+			FileChannel channel = in.getChannel();
+			long length = channel.size();
+			if (length > Integer.MAX_VALUE)
+				throw new IOException("File is too large to map: " + length); //$NON-NLS-1$
+			// the mapping stays valid after the channel is closed
+			ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+			return mapped;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static Index readIndex(ByteBuffer buffer) throws IOException {
+		int length = buffer.limit();
+		int end = findEnd(buffer);
+		int total = getShort(buffer, end + 10);
+		long cenSize = buffer.getInt(end + 12) & 0xffffffffL;
+		long cenOffset = buffer.getInt(end + 16) & 0xffffffffL;
+		if (total == 0xffff || cenSize == 0xffffffffL || cenOffset == 0xffffffffL)
+			throw new ZipException("ZIP64 format is not supported"); //$NON-NLS-1$
+		// allow for data prepended to the archive
+		long base = end - cenSize - cenOffset;
+		if (base < 0)
+			throw new ZipException("Invalid END header"); //$NON-NLS-1$
+
+		Map<String, Entry> entries = new HashMap<>(total * 4 / 3 + 1);
+		int pos = (int) (base + cenOffset);
+		for (int i = 0; i < total; i++) {
+			if (pos + CENHDR > end || buffer.getInt(pos) != CENSIG)
+				throw new ZipException("Invalid CEN header"); //$NON-NLS-1$
+			int flag = getShort(buffer, pos + 8);
+			int method = getShort(buffer, pos + 10);
+			long dosTime = buffer.getInt(pos + 12) & 0xffffffffL;
+			long compressedSize = buffer.getInt(pos + 20) & 0xffffffffL;
+			long size = buffer.getInt(pos + 24) & 0xffffffffL;
+			int nameLength = getShort(buffer, pos + 28);
+			int extraLength = getShort(buffer, pos + 30);
+			int commentLength = getShort(buffer, pos + 32);
+			long localOffset = base + (buffer.getInt(pos + 42) & 0xffffffffL);
+			if ((flag & 1) != 0)
+				throw new ZipException("Encrypted entries are not supported"); //$NON-NLS-1$
+			if (method != STORED && method != DEFLATED)
+				throw new ZipException("Unsupported compression method: " + method); //$NON-NLS-1$
+			if (size > Integer.MAX_VALUE || localOffset + LOCHDR + compressedSize > length || pos + CENHDR + nameLength > end)
+				throw new ZipException("Invalid CEN header"); //$NON-NLS-1$
+			byte[] nameBytes = new byte[nameLength];
+			ByteBuffer nameBuffer = buffer.duplicate();
+			nameBuffer.position(pos + CENHDR);
+			nameBuffer.get(nameBytes);
+			String name = new String(nameBytes, UTF_8);
+			if (!entries.containsKey(name))
+				entries.put(name, new Entry(name, i, method, dosTime, (int) compressedSize, (int) size, (int) localOffset));
+			pos += CENHDR + nameLength + extraLength + commentLength;
+		}
+		Entry[] sorted = entries.values().toArray(new Entry[entries.size()]);
+		Arrays.sort(sorted, new Comparator<Entry>() {
+			@Override
+			public int compare(Entry e1, Entry e2) {
+				return e1.name.compareTo(e2.name);
+			}
+		});
+		return new Index(Collections.unmodifiableMap(entries), sorted);
+	}
+
+	private static int findEnd(ByteBuffer buffer) throws ZipException {
+		int length = buffer.limit();
+		int stop = Math.max(0, length - ENDHDR - MAX_COMMENT);
+		for (int pos = length - ENDHDR; pos >= stop; pos--) {
+			if (buffer.getInt(pos) == ENDSIG && pos + ENDHDR + getShort(buffer, pos + 20) <= length)
+				return pos;
+		}
+		throw new ZipException("END header not found"); //$NON-NLS-1$
+	}
+
+	private static int getShort(ByteBuffer buffer, int pos) {
+		return buffer.getShort(pos) & 0xffff;
+	}
+
+	/**
+	 * Returns a buffer with the (possibly compressed) data of the specified entry.
+	 * The returned buffer is a view of the mapped content.
+	 */
+	static ByteBuffer getData(ByteBuffer mapped, Entry entry) throws IOException {
+		int loc = entry.localOffset;
+		if (mapped.getInt(loc) != LOCSIG)
+			throw new ZipException("Invalid LOC header: " + entry.name); //$NON-NLS-1$
+		int start = loc + LOCHDR + getShort(mapped, loc + 26) + getShort(mapped, loc + 28);
+		if (start + entry.compressedSize > mapped.limit())
+			throw new ZipException("Invalid LOC header: " + entry.name); //$NON-NLS-1$
+		ByteBuffer data = mapped.duplicate();
+		data.limit(start + entry.compressedSize);
+		data.position(start);
+		return data.slice();
+	}
+
+	private static String stripLeadingSlash(String path) {
+		return path.length() > 0 && path.charAt(0) == '/' ? path.substring(1) : path;
+	}
+
+	@Override
+	public BundleEntry getEntry(String path) {
+		Index current = getIndex();
+		if (current == null)
+			return super.getEntry(path);
+		String name = stripLeadingSlash(path);
+		Entry entry = current.entries.get(name);
+		if (entry == null && name.length() > 0 && name.charAt(name.length() - 1) != '/') {
+			// same as ZipFile; look for a directory entry with the same name
+			entry = current.entries.get(name + '/');
+		}
+		if (entry != null && entry.size == 0 && !entry.isDirectory()) {
+			// work around the directory bug see bug 83542
+			Entry dirEntry = current.entries.get(name + '/');
+			if (dirEntry != null)
+				entry = dirEntry;
+		}
+		if (entry == null) {
+			if (path.length() == 0 || path.charAt(path.length() - 1) == '/') {
+				// this is a directory request lets see if any entries exist in this directory
+				if (containsDir(path))
+					return new DirZipBundleEntry(this, path);
+			}
+			return null;
+		}
+		return new MappedZipBundleEntry(entry, this);
+	}
+
+	@Override
+	public boolean containsDir(String dir) {
+		Index current = getIndex();
+		if (current == null)
+			return super.containsDir(dir);
+		if (dir == null)
+			return false;
+		if (dir.length() == 0)
+			return true;
+		if (dir.charAt(0) == '/') {
+			if (dir.length() == 1)
+				return true;
+			dir = dir.substring(1);
+		}
+		if (dir.length() > 0 && dir.charAt(dir.length() - 1) != '/')
+			dir = dir + '/';
+		int first = current.first(dir);
+		return first < current.sorted.length && current.sorted[first].name.startsWith(dir);
+	}
+
+	@Override
+	public Enumeration<String> getEntryPaths(String path, boolean recurse) {
+		if (path == null)
+			throw new NullPointerException();
+		Index current = getIndex();
+		if (current == null)
+			return super.getEntryPaths(path, recurse);
+		// Strip any leading '/' off of path.
+		path = stripLeadingSlash(path);
+		// Append a '/', if not already there, to path if not an empty string.
+		if (path.length() > 0 && path.charAt(path.length() - 1) != '/')
+			path = new StringBuilder(path).append("/").toString(); //$NON-NLS-1$
+
+		LinkedHashSet<String> result = new LinkedHashSet<>();
+		for (Entry entry : current.startsWith(path)) {
+			if (path.length() < entry.name.length())
+				getEntryPaths(path, entry.name.substring(path.length()), recurse, result);
+		}
+		return result.size() == 0 ? null : Collections.enumeration(result);
+	}
+
+	private void getEntryPaths(String path, String entry, boolean recurse, LinkedHashSet<String> entries) {
+		if (entry.length() == 0)
+			return;
+		int slash = entry.indexOf('/');
+		if (slash == -1)
+			entries.add(path + entry);
+		else {
+			path = path + entry.substring(0, slash + 1);
+			entries.add(path);
+			if (recurse)
+				getEntryPaths(path, entry.substring(slash + 1), true, entries);
+		}
+	}
+
+	@Override
+	protected synchronized File extractDirectory(String dirName) {
+		Index current = getIndex();
+		if (current == null)
+			return super.extractDirectory(dirName);
+		for (Entry entry : current.startsWith(dirName)) {
+			if (!entry.isDirectory())
+				getFile(entry.name, false);
+		}
+		return getExtractFile(dirName);
+	}
+
+	@Override
+	public synchronized File getFile(String path, boolean nativeCode) {
+		Index current = getIndex();
+		if (current == null)
+			return super.getFile(path, nativeCode);
+		BundleEntry bundleEntry = getEntry(path);
+		if (!(bundleEntry instanceof MappedZipBundleEntry))
+			return null;
+		Entry entry = ((MappedZipBundleEntry) bundleEntry).entry;
+		try {
+			File nested = getExtractFile(entry.name);
+			if (nested != null) {
+				if (nested.exists()) {
+					/* the entry is already cached */
+					if (debug.DEBUG_GENERAL)
+						Debug.println("File already present: " + nested.getPath()); //$NON-NLS-1$
+					if (nested.isDirectory())
+						// must ensure the complete directory is extracted (bug 182585)
+						extractDirectory(entry.name);
+				} else {
+					if (entry.isDirectory()) {
+						nested.mkdirs();
+						if (!nested.isDirectory()) {
+							if (debug.DEBUG_GENERAL)
+								Debug.println("Unable to create directory: " + nested.getPath()); //$NON-NLS-1$
+							throw new IOException(NLS.bind(Msg.ADAPTOR_DIRECTORY_CREATE_EXCEPTION, nested.getAbsolutePath()));
+						}
+						extractDirectory(entry.name);
+					} else {
+						generation.storeContent(nested, bundleEntry.getInputStream(), nativeCode);
+					}
+				}
+				return nested;
+			}
+		} catch (IOException e) {
+			if (debug.DEBUG_GENERAL)
+				Debug.printStackTrace(e);
+			generation.getBundleInfo().getStorage().getLogServices().log(EquinoxContainer.NAME, FrameworkLogEntry.ERROR, "Unable to extract content: " + generation.getRevision() + ": " + path, e); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (useZipFile) {
+			super.close();
+			return;
+		}
+		synchronized (this) {
+			// the index is kept; the content is mapped again if needed
+			if (mapping != null) {
+				mapping = null;
+				mruListRemove();
+			}
+		}
+	}
+
+	@Override
+	public void open() throws IOException {
+		if (getIndex() == null) {
+			super.open();
+			return;
+		}
+		getMapping();
+	}
+}
@@ -46,6 +46,11 @@ public class ZipBundleFile extends BundleFile {
 
 	private int referenceCount = 0;
 
+	/**
+	 * The index of the entry paths; kept when the zip file is closed
+	 */
+	private volatile EntryPathIndex entryPathIndex;
+
 	public ZipBundleFile(File basefile, BundleInfo.Generation generation, MRUBundleFileList mruList, Debug debug) throws IOException {
 		super(basefile);
 		if (!BundleFile.secureAction.exists(basefile))
@@ -288,6 +293,19 @@ public class ZipBundleFile extends BundleFile {
 		return result.size() == 0 ? null : Collections.enumeration(result);
 	}
 
+	@Override
+	public EntryPathIndex getEntryPathIndex() {
+		EntryPathIndex current = entryPathIndex;
+		if (current == null) {
+			Enumeration<String> entryPaths = getEntryPaths("", true); //$NON-NLS-1$
+			if (entryPaths == null)
+				// empty or unable to open the zip file; do not remember the result
+				return null;
+			entryPathIndex = current = EntryPathIndex.create(entryPaths);
+		}
+		return current;
+	}
+
 	private void getEntryPaths(String path, String entry, boolean recurse, LinkedHashSet<String> entries) {
 		if (entry.length() == 0)
 			return;
@@ -333,19 +351,19 @@ public class ZipBundleFile extends BundleFile {
 		return this.mruList != null && this.mruList.isEnabled();
 	}
 
-	private void mruListRemove() {
+	void mruListRemove() {
 		if (this.mruList != null) {
 			this.mruList.remove(this);
 		}
 	}
 
-	private void mruListUse() {
+	void mruListUse() {
 		if (this.mruList != null) {
 			mruList.use(this);
 		}
 	}
 
-	private void mruListAdd() {
+	void mruListAdd() {
 		if (this.mruList != null) {
 			mruList.add(this);
 		}
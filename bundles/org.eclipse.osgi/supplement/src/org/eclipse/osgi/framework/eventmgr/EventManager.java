@@ -13,8 +13,9 @@ package org.eclipse.osgi.framework.eventmgr;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is the central class for the Event Manager. Each
@@ -94,6 +95,11 @@ import java.util.Set;
  * 
  * <p> The highly dynamic nature of the OSGi framework had necessitated these features for 
  * proper and efficient event delivery.  
+ * 
+ * <p> An EventManager may be constructed with more than one thread for asynchronous
+ * event delivery. Each listener is assigned to one of the threads, so events
+ * are still delivered in order to each listener, but a slow listener only delays
+ * the delivery of events to the listeners assigned to the same thread.
  * @since 3.1
  * @noextend This class is not intended to be subclassed by clients.
  */
@@ -107,12 +113,29 @@ public class EventManager {
 	 */
 	private EventThread<?, ?, ?> thread;
 
+	/**
+	 * EventThreads for asynchronous dispatch of events when more than one
+	 * thread is used.  The listeners are assigned to the threads by their identity.
+	 * Access to this field must be protected by a synchronized region.
+	 */
+	private EventThread<?, ?, ?>[] threads;
+
 	/** 
 	 * Once closed, an attempt to create a new EventThread will result in an 
 	 * IllegalStateException. 
 	 */
 	private boolean closed;
 
+	/**
+	 * The number of threads used for asynchronous event delivery
+	 */
+	private final int threadCount;
+
+	/**
+	 * True if delivery statistics are kept for each listener
+	 */
+	private final boolean keepStatistics;
+
 	/**
 	 * Thread name used for asynchronous event delivery
 	 */
@@ -154,10 +177,52 @@ public class EventManager {
 	 * @since 3.4
 	 */
 	public EventManager(String threadName, ThreadGroup threadGroup) {
+		this(threadName, threadGroup, 1);
+	}
+
+	/**
+	 * EventManager constructor. An EventManager object is responsible for
+	 * the delivery of events to listeners via an EventDispatcher.
+	 * <p>
+	 * When more than one thread is used, events are delivered in order to each
+	 * listener, but no delivery order is guaranteed between different listeners.
+	 *
+	 * @param threadName The name to give the event threads associated with
+	 * this EventManager.  A <code>null</code> value is allowed.
+	 * @param threadGroup The thread group to use for the asynchronous event
+	 * threads associated with this EventManager. A <code>null</code> value is allowed.
+	 * @param threadCount The number of threads to use for asynchronous event delivery.
+	 * A value less than one is treated as one.
+	 * @since 3.12
+	 */
+	public EventManager(String threadName, ThreadGroup threadGroup, int threadCount) {
+		this(threadName, threadGroup, threadCount, threadCount > 1);
+	}
+
+	/**
+	 * EventManager constructor. An EventManager object is responsible for
+	 * the delivery of events to listeners via an EventDispatcher.
+	 * <p>
+	 * When more than one thread is used, events are delivered in order to each
+	 * listener, but no delivery order is guaranteed between different listeners.
+	 *
+	 * @param threadName The name to give the event threads associated with
+	 * this EventManager.  A <code>null</code> value is allowed.
+	 * @param threadGroup The thread group to use for the asynchronous event
+	 * threads associated with this EventManager. A <code>null</code> value is allowed.
+	 * @param threadCount The number of threads to use for asynchronous event delivery.
+	 * A value less than one is treated as one.
+	 * @param keepStatistics true if delivery statistics are kept for each listener.
+	 * @since 3.12
+	 */
+	public EventManager(String threadName, ThreadGroup threadGroup, int threadCount, boolean keepStatistics) {
 		thread = null;
+		threads = null;
 		closed = false;
 		this.threadName = threadName;
 		this.threadGroup = threadGroup;
+		this.threadCount = Math.max(1, threadCount);
+		this.keepStatistics = keepStatistics;
 	}
 
 	/**
@@ -176,9 +241,95 @@ public class EventManager {
 			thread.close();
 			thread = null;
 		}
+		if (threads != null) {
+			for (EventThread<?, ?, ?> t : threads) {
+				t.close();
+			}
+			threads = null;
+		}
 		closed = true;
 	}
 
+	/**
+	 * Waits until the events which are queued for asynchronous delivery by this
+	 * EventManager at the time this method is called have been delivered.
+	 * @param timeout the maximum time to wait in milliseconds
+	 * @return <code>true</code> if the queued events have been delivered;
+	 * <code>false</code> if the timeout expired first
+	 * @throws InterruptedException if the current thread is interrupted while waiting
+	 * @since 3.12
+	 */
+	public boolean flush(long timeout) throws InterruptedException {
+		EventThread<?, ?, ?>[] current;
+		synchronized (this) {
+			if (closed) {
+				return true;
+			}
+			current = threads != null ? threads : (thread != null ? new EventThread<?, ?, ?>[] {thread} : null);
+		}
+		if (current == null) {
+			// nothing has been queued
+			return true;
+		}
+		FlushDispatcher flushDispatcher = new FlushDispatcher();
+		CountDownLatch flushed = new CountDownLatch(current.length);
+		Set<Map.Entry<Object, Object>> flushListener = Collections.<Object, Object> singletonMap(flushDispatcher, flushDispatcher).entrySet();
+		for (EventThread<?, ?, ?> t : current) {
+			@SuppressWarnings("unchecked")
+			EventThread<Object, Object, CountDownLatch> flushThread = (EventThread<Object, Object, CountDownLatch>) t;
+			try {
+				flushThread.postEvent(flushListener, flushDispatcher, 0, flushed);
+			} catch (IllegalStateException e) {
+				// the thread has been closed; nothing more will be delivered by it
+				flushed.countDown();
+			}
+		}
+		return flushed.await(timeout, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the number of events which are queued for asynchronous delivery
+	 * by this EventManager and have not been delivered yet.
+	 * @return the number of queued events
+	 * @since 3.12
+	 */
+	public int getQueueDepth() {
+		EventThread<?, ?, ?>[] current;
+		synchronized (this) {
+			current = threads != null ? threads : (thread != null ? new EventThread<?, ?, ?>[] {thread} : null);
+		}
+		int depth = 0;
+		if (current != null) {
+			for (EventThread<?, ?, ?> t : current) {
+				depth += t.getQueueDepth();
+			}
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns a snapshot of the delivery statistics for the listeners which
+	 * received asynchronous events from this EventManager.  Statistics are only
+	 * kept when more than one thread is used for asynchronous event delivery or
+	 * when this EventManager is constructed to keep them.
+	 * @return a map of listener to the delivery statistics of the listener
+	 * @since 3.12
+	 */
+	public Map<Object, ListenerStatistics> getListenerStatistics() {
+		EventThread<?, ?, ?>[] current;
+		synchronized (this) {
+			current = threads != null ? threads : (thread != null ? new EventThread<?, ?, ?>[] {thread} : null);
+		}
+		if (current == null) {
+			return Collections.emptyMap();
+		}
+		Map<Object, ListenerStatistics> result = new HashMap<>();
+		for (EventThread<?, ?, ?> t : current) {
+			t.getStatistics(result);
+		}
+		return result;
+	}
+
 	/**
 	 * Returns the EventThread to use for dispatching events asynchronously for
 	 * this EventManager.
@@ -194,7 +345,7 @@ public class EventManager {
 			/* if there is no thread, then create a new one */
 			thread = AccessController.doPrivileged(new PrivilegedAction<EventThread<K, V, E>>() {
 				public EventThread<K, V, E> run() {
-					EventThread<K, V, E> t = new EventThread<>(threadGroup, threadName);
+					EventThread<K, V, E> t = new EventThread<>(threadGroup, threadName, keepStatistics);
 					return t;
 				}
 			});
@@ -207,13 +358,93 @@ public class EventManager {
 		return result;
 	}
 
+	/**
+	 * Posts an event to the EventThreads of this EventManager for asynchronous
+	 * delivery.  Each listener list is split by the threads the listeners
+	 * are assigned to.  This method is only used when more than one thread is used.
+	 * This method is package private.
+	 *
+	 * @param queue the listener lists and their dispatchers
+	 * @param eventAction the action for the event
+	 * @param eventObject the object for the event
+	 */
+	<K, V, E> void postEvent(Map<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> queue, int eventAction, E eventObject) {
+		EventThread<K, V, E>[] current = getEventThreads();
+		int numThreads = current.length;
+		synchronized (current) { /* synchronize on the EventThreads to ensure no interleaving of posting to the event threads */
+			for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) {
+				List<List<Map.Entry<K, V>>> split = new ArrayList<>(numThreads);
+				for (int i = 0; i < numThreads; i++) {
+					split.add(null);
+				}
+				for (Map.Entry<K, V> listener : entry.getKey()) {
+					int index = (System.identityHashCode(listener.getKey()) & Integer.MAX_VALUE) % numThreads;
+					List<Map.Entry<K, V>> listeners = split.get(index);
+					if (listeners == null) {
+						listeners = new ArrayList<>(1);
+						split.set(index, listeners);
+					}
+					listeners.add(listener);
+				}
+				for (int i = 0; i < numThreads; i++) {
+					List<Map.Entry<K, V>> listeners = split.get(i);
+					if (listeners != null) {
+						current[i].postEvent(listeners, entry.getValue(), eventAction, eventObject);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns true if more than one thread is used for asynchronous event delivery.
+	 * This method is package private.
+	 */
+	boolean isMultiThreaded() {
+		return threadCount > 1;
+	}
+
+	/**
+	 * Returns the EventThreads to use for dispatching events asynchronously for
+	 * this EventManager when more than one thread is used.
+	 *
+	 * @return EventThreads to use for dispatching events asynchronously for
+	 * this EventManager.
+	 */
+	synchronized <K, V, E> EventThread<K, V, E>[] getEventThreads() {
+		if (closed) {
+			throw new IllegalStateException();
+		}
+		if (threads == null) {
+			/* if there are no threads, then create new ones */
+			threads = AccessController.doPrivileged(new PrivilegedAction<EventThread<?, ?, ?>[]>() {
+				public EventThread<?, ?, ?>[] run() {
+					EventThread<?, ?, ?>[] result = new EventThread<?, ?, ?>[threadCount];
+					for (int i = 0; i < threadCount; i++) {
+						String name = threadName == null ? null : threadName + " [" + i + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+						result[i] = new EventThread<>(threadGroup, name, keepStatistics);
+					}
+					return result;
+				}
+			});
+			/* start the new threads */
+			for (EventThread<?, ?, ?> t : threads) {
+				t.start();
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		EventThread<K, V, E>[] result = (EventThread<K, V, E>[]) threads;
+		return result;
+	}
+
 	/**
 	 * This method calls the EventDispatcher object to complete the dispatch of
 	 * the event. If there are more elements in the list, call dispatchEvent
 	 * on the next item on the list.
 	 * This method is package private.
 	 *
-	 * @param listeners A Set of entries from a CopyOnWriteIdentityMap map.
+	 * @param listeners A Collection of entries from a CopyOnWriteIdentityMap map.
 	 * @param dispatcher Call back object which is called to complete the delivery of
 	 * the event.
 	 * @param eventAction This value was passed by the event source and
@@ -221,23 +452,89 @@ public class EventManager {
 	 * @param eventObject This object was created by the event source and
 	 * is passed to this method. This is passed on to the call back object.
 	 */
-	static <K, V, E> void dispatchEvent(Set<Map.Entry<K, V>> listeners, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
+	static <K, V, E> void dispatchEvent(Collection<Map.Entry<K, V>> listeners, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
 		for (Map.Entry<K, V> listener : listeners) { /* iterate over the list of listeners */
-			final K eventListener = listener.getKey();
-			final V listenerObject = listener.getValue();
-			try {
-				/* Call the EventDispatcher to complete the delivery of the event. */
-				dispatcher.dispatchEvent(eventListener, listenerObject, eventAction, eventObject);
-			} catch (Throwable t) {
-				/* Consume and ignore any exceptions thrown by the listener */
-				if (DEBUG) {
-					System.out.println("Exception in " + eventListener); //$NON-NLS-1$
-					t.printStackTrace();
-				}
+			dispatchEvent(listener, dispatcher, eventAction, eventObject);
+		}
+	}
+
+	private static <K, V, E> void dispatchEvent(Map.Entry<K, V> listener, EventDispatcher<K, V, E> dispatcher, int eventAction, E eventObject) {
+		final K eventListener = listener.getKey();
+		final V listenerObject = listener.getValue();
+		try {
+			/* Call the EventDispatcher to complete the delivery of the event. */
+			dispatcher.dispatchEvent(eventListener, listenerObject, eventAction, eventObject);
+		} catch (Throwable t) {
+			/* Consume and ignore any exceptions thrown by the listener */
+			if (DEBUG) {
+				System.out.println("Exception in " + eventListener); //$NON-NLS-1$
+				t.printStackTrace();
 			}
 		}
 	}
 
+	/**
+	 * The delivery statistics of a listener.
+	 * @since 3.12
+	 */
+	public static final class ListenerStatistics {
+		long count;
+		long totalLatency;
+		long maxLatency;
+
+		ListenerStatistics() {
+			// only created by the event manager
+		}
+
+		void record(long latency) {
+			count++;
+			totalLatency += latency;
+			maxLatency = Math.max(maxLatency, latency);
+		}
+
+		void add(ListenerStatistics other) {
+			count += other.count;
+			totalLatency += other.totalLatency;
+			maxLatency = Math.max(maxLatency, other.maxLatency);
+		}
+
+		/**
+		 * Returns the number of events delivered to the listener.
+		 * @return the number of events delivered to the listener
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the total latency of the events delivered to the listener.
+		 * The latency of an event is the time from queuing the event until the
+		 * listener returns.
+		 * @return the total latency in nanoseconds
+		 */
+		public long getTotalLatency() {
+			return totalLatency;
+		}
+
+		/**
+		 * Returns the maximum latency of the events delivered to the listener.
+		 * @return the maximum latency in nanoseconds
+		 */
+		public long getMaxLatency() {
+			return maxLatency;
+		}
+	}
+
+	/**
+	 * The dispatcher used to flush the event threads.
+	 */
+	static class FlushDispatcher implements EventDispatcher<Object, Object, CountDownLatch> {
+		@Override
+		public void dispatchEvent(Object eventListener, Object listenerObject, int eventAction, CountDownLatch flushed) {
+			flushed.countDown();
+		}
+	}
+
 	/**
 	 * This package private class is used for asynchronously dispatching events.
 	 */
@@ -252,13 +549,15 @@ public class EventManager {
 		 */
 		private static class Queued<K, V, E> {
 			/** listener list for this event */
-			final Set<Map.Entry<K, V>> listeners;
+			final Collection<Map.Entry<K, V>> listeners;
 			/** dispatcher of this event */
 			final EventDispatcher<K, V, E> dispatcher;
 			/** action for this event */
 			final int action;
 			/** object for this event */
 			final E object;
+			/** time this event was queued */
+			final long queued;
 			/** next item in event queue */
 			Queued<K, V, E> next;
 
@@ -270,11 +569,12 @@ public class EventManager {
 			 * @param a Action for this event
 			 * @param o Object for this event
 			 */
-			Queued(Set<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
+			Queued(Collection<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o, long q) {
 				listeners = l;
 				dispatcher = d;
 				action = a;
 				object = o;
+				queued = q;
 				next = null;
 			}
 		}
@@ -283,18 +583,33 @@ public class EventManager {
 		private Queued<K, V, E> head;
 		/** item at the tail of the event queue */
 		private Queued<K, V, E> tail;
+		/** number of items in the event queue */
+		private int size;
 		/** if false the thread must terminate */
 		private volatile boolean running;
+		/** delivery statistics by listener; null if statistics are not kept */
+		private final Map<Object, ListenerStatistics> statistics;
 
 		/**
 		 * Constructor for the event thread. 
 		 * @param threadName Name of the EventThread 
 		 */
 		EventThread(ThreadGroup threadGroup, String threadName) {
+			this(threadGroup, threadName, false);
+		}
+
+		/**
+		 * Constructor for the event thread. 
+		 * @param threadName Name of the EventThread 
+		 * @param keepStatistics true if delivery statistics are kept for each listener
+		 */
+		EventThread(ThreadGroup threadGroup, String threadName, boolean keepStatistics) {
 			super(threadGroup, threadName == null ? getNextName() : threadName);
 			running = true;
 			head = null;
 			tail = null;
+			size = 0;
+			statistics = keepStatistics ? new WeakHashMap<Object, ListenerStatistics>() : null;
 
 			setDaemon(true); /* Mark thread as daemon thread */
 		}
@@ -337,7 +652,11 @@ public class EventManager {
 					if (item == null) {
 						return;
 					}
-					EventManager.dispatchEvent(item.listeners, item.dispatcher, item.action, item.object);
+					if (statistics == null || item.dispatcher instanceof FlushDispatcher) {
+						EventManager.dispatchEvent(item.listeners, item.dispatcher, item.action, item.object);
+					} else {
+						dispatchEvent(item);
+					}
 					// Bug 299589: since the call to getNextEvent() will eventually block for a long time, we need to make sure that the 'item'
 					// variable is cleared of the previous value before the call to getNextEvent(). See VM SPec 2.5.7 for why the compiler 
 					// will not automatically clear this variable for each loop iteration.
@@ -356,6 +675,47 @@ public class EventManager {
 			}
 		}
 
+		private void dispatchEvent(Queued<K, V, E> item) {
+			for (Map.Entry<K, V> listener : item.listeners) {
+				EventManager.dispatchEvent(listener, item.dispatcher, item.action, item.object);
+				long latency = System.nanoTime() - item.queued;
+				synchronized (statistics) {
+					ListenerStatistics listenerStatistics = statistics.get(listener.getKey());
+					if (listenerStatistics == null) {
+						listenerStatistics = new ListenerStatistics();
+						statistics.put(listener.getKey(), listenerStatistics);
+					}
+					listenerStatistics.record(latency);
+				}
+			}
+		}
+
+		/**
+		 * Adds a snapshot of the delivery statistics of this thread to the specified map.
+		 */
+		void getStatistics(Map<Object, ListenerStatistics> result) {
+			if (statistics == null) {
+				return;
+			}
+			synchronized (statistics) {
+				for (Map.Entry<Object, ListenerStatistics> entry : statistics.entrySet()) {
+					ListenerStatistics snapshot = result.get(entry.getKey());
+					if (snapshot == null) {
+						snapshot = new ListenerStatistics();
+						result.put(entry.getKey(), snapshot);
+					}
+					snapshot.add(entry.getValue());
+				}
+			}
+		}
+
+		/**
+		 * Returns the number of items in the event queue.
+		 */
+		synchronized int getQueueDepth() {
+			return size;
+		}
+
 		/**
 		 * This methods takes the input parameters and creates a Queued
 		 * object and queues it.
@@ -366,12 +726,13 @@ public class EventManager {
 		 * @param a Action for this event
 		 * @param o Object for this event
 		 */
-		synchronized void postEvent(Set<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
+		synchronized void postEvent(Collection<Map.Entry<K, V>> l, EventDispatcher<K, V, E> d, int a, E o) {
 			if (!isAlive()) { /* If the thread is not alive, throw an exception */
 				throw new IllegalStateException();
 			}
 
-			Queued<K, V, E> item = new Queued<>(l, d, a, o);
+			Queued<K, V, E> item = new Queued<>(l, d, a, o, statistics == null ? 0 : System.nanoTime());
+			size++;
 
 			if (head == null) /* if the queue was empty */
 			{
@@ -412,6 +773,7 @@ public class EventManager {
 			if (head == null) {
 				tail = null;
 			}
+			size--;
 
 			return item;
 		}
@@ -120,6 +120,10 @@ public class ListenerQueue<K, V, E> {
 		synchronized (this) {
 			readOnly = true;
 		}
+		if (manager.isMultiThreaded()) {
+			manager.postEvent(queue, eventAction, eventObject);
+			return;
+		}
 		EventThread<K, V, E> eventThread = manager.getEventThread();
 		synchronized (eventThread) { /* synchronize on the EventThread to ensure no interleaving of posting to the event thread */
 			for (Map.Entry<Set<Map.Entry<K, V>>, EventDispatcher<K, V, E>> entry : queue.entrySet()) { /* iterate over the list of listener lists */
@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2017 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+
+package org.eclipse.osgi.framework.internal.reliablefile;
+
+import java.util.zip.Checksum;
+
+/**
+ * A table driven CRC-32C (Castagnoli) checksum. This is only used to verify
+ * ReliableFiles written with CRC-32C when the VM does not provide
+ * <code>java.util.zip.CRC32C</code>.
+ */
+class CRC32CChecksum implements Checksum {
+	private static final int[] table = new int[256];
+
+	static {
+		for (int i = 0; i < 256; i++) {
+			int crc = i;
+			for (int j = 0; j < 8; j++)
+				crc = (crc & 1) != 0 ? (crc >>> 1) ^ 0x82F63B78 : crc >>> 1;
+			table[i] = crc;
+		}
+	}
+
+	private int crc = 0xFFFFFFFF;
+
+	public void update(int b) {
+		crc = (crc >>> 8) ^ table[(crc ^ b) & 0xFF];
+	}
+
+	public void update(byte[] b, int off, int len) {
+		int c = crc;
+		for (int i = off, end = off + len; i < end; i++)
+			c = (c >>> 8) ^ table[(c ^ b[i]) & 0xFF];
+		crc = c;
+	}
+
+	public long getValue() {
+		return (~crc) & 0xFFFFFFFFL;
+	}
+
+	public void reset() {
+		crc = 0xFFFFFFFF;
+	}
+}
@@ -12,6 +12,7 @@
 package org.eclipse.osgi.framework.internal.reliablefile;
 
 import java.io.*;
+import java.lang.reflect.Constructor;
 import java.util.*;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
@@ -73,18 +74,30 @@ public class ReliableFile {
 	 * @see org.eclipse.osgi.internal.location.LocationHelper#PROP_OSGI_LOCKING
 	 */
 	public static final String PROP_OSGI_LOCKING = "osgi.locking"; //$NON-NLS-1$
+	/**
+	 * Property to set the checksum algorithm used when writing a ReliableFile. By default 
+	 * CRC-32 is used. The value <code>CRC32C</code> selects the CRC-32C checksum if the VM 
+	 * provides <code>java.util.zip.CRC32C</code>. Files written with either algorithm can be 
+	 * read by this version, but older versions treat CRC-32C files as not having a checksum; 
+	 * only set this property if no older version uses the same files.
+	 */
+	public static final String PROP_CHECKSUM = "osgi.reliableFile.checksum"; //$NON-NLS-1$
 
 	private static final int FILETYPE_VALID = 0;
 	private static final int FILETYPE_CORRUPT = 1;
 	private static final int FILETYPE_NOSIGNATURE = 2;
+	private static final int FILETYPE_OTHER_CHECKSUM = 3;
 
 	private static final byte identifier1[] = {'.', 'c', 'r', 'c'};
 	private static final byte identifier2[] = {'.', 'v', '1', '\n'};
+	private static final byte identifier2CRC32C[] = {'.', 'v', '2', '\n'};
 
 	private static final int BUF_SIZE = 4096;
 	private static final int maxInputStreamBuffer;
 	private static final int defaultMaxGenerations;
 	private static final boolean fileSharing;
+	private static final Constructor<?> crc32cConstructor;
+	private static final boolean useCRC32C;
 	//our cache of the last looked up generations for a file
 	private static File lastGenerationFile = null;
 	private static int[] lastGenerations = null;
@@ -119,6 +132,15 @@ public class ReliableFile {
 			}
 		}
 		fileSharing = tmpFileSharing;
+
+		Constructor<?> tmpCRC32C = null;
+		try {
+			tmpCRC32C = Class.forName("java.util.zip.CRC32C").getConstructor(); //$NON-NLS-1$
+		} catch (Exception e) {
+			// not available before Java 9; CRC32CChecksum is used to read such files
+		}
+		crc32cConstructor = tmpCRC32C;
+		useCRC32C = crc32cConstructor != null && "CRC32C".equalsIgnoreCase(System.getProperty(PROP_CHECKSUM)); //$NON-NLS-1$
 	}
 
 	/** File object for original reference file */
@@ -275,6 +297,17 @@ public class ReliableFile {
 						}
 						Checksum cksum = getChecksumCalculator();
 						int filetype = getStreamType(tempIS, cksum, fileSize);
+						if (filetype == FILETYPE_OTHER_CHECKSUM) {
+							// written with the other checksum algorithm; verify again using that one
+							cksum = getChecksumCalculator(!isCRC32C(cksum));
+							if (is == null) {
+								tempIS.close();
+								tempIS = new FileInputStream(file);
+							}
+							filetype = getStreamType(tempIS, cksum, fileSize);
+							if (filetype == FILETYPE_OTHER_CHECKSUM)
+								filetype = FILETYPE_CORRUPT;
+						}
 						info = new CacheInfo(filetype, cksum, timeStamp, fileSize);
 						cacheFiles.put(file, info);
 					} catch (IOException e) {/*ignore*/
@@ -373,6 +406,19 @@ public class ReliableFile {
 			} else {
 				cp(is, os, 16, info.length); // don't copy checksum signature
 			}
+			if (isCRC32C(appendChecksum) != useCRC32C) {
+				// written with the other checksum algorithm; continue with the configured one
+				appendChecksum = getChecksumCalculator();
+				InputStream copied = new FileInputStream(tmpFile);
+				try {
+					byte[] buffer = new byte[BUF_SIZE];
+					int count;
+					while ((count = copied.read(buffer)) > 0)
+						appendChecksum.update(buffer, 0, count);
+				} finally {
+					copied.close();
+				}
+			}
 			outputFile = tmpFile;
 			return os;
 		} finally {
@@ -702,7 +748,7 @@ public class ReliableFile {
 		// tag on our signature and checksum
 		out.write(ReliableFile.identifier1);
 		out.write(intToHex((int) checksum.getValue()));
-		out.write(ReliableFile.identifier2);
+		out.write(isCRC32C(checksum) ? ReliableFile.identifier2CRC32C : ReliableFile.identifier2);
 	}
 
 	/**
@@ -763,8 +809,26 @@ public class ReliableFile {
 	 * a reliable file checksum
 	 */
 	Checksum getChecksumCalculator() {
-		// Using CRC32 because Adler32 isn't in the eeMinimum library.
-		return new CRC32();
+		return getChecksumCalculator(useCRC32C);
+	}
+
+	private static Checksum getChecksumCalculator(boolean crc32c) {
+		if (!crc32c) {
+			// Using CRC32 because Adler32 isn't in the eeMinimum library.
+			return new CRC32();
+		}
+		if (crc32cConstructor != null) {
+			try {
+				return (Checksum) crc32cConstructor.newInstance();
+			} catch (Exception e) {
+				// fall through to the portable implementation
+			}
+		}
+		return new CRC32CChecksum();
+	}
+
+	private static boolean isCRC32C(Checksum checksum) {
+		return !(checksum instanceof CRC32);
 	}
 
 	/**
@@ -817,11 +881,20 @@ public class ReliableFile {
 					crc.update(data, 0, 16); // update crc w/ sig bytes
 					return FILETYPE_NOSIGNATURE;
 				}
-			for (i = 0, j = 12; i < 4; i++, j++)
-				if (identifier2[i] != data[j]) {
-					crc.update(data, 0, 16); // update crc w/ sig bytes
-					return FILETYPE_NOSIGNATURE;
-				}
+			byte[] expected = isCRC32C(crc) ? identifier2CRC32C : identifier2;
+			byte[] other = isCRC32C(crc) ? identifier2 : identifier2CRC32C;
+			boolean matchesExpected = true;
+			boolean matchesOther = true;
+			for (i = 0, j = 12; i < 4; i++, j++) {
+				matchesExpected &= expected[i] == data[j];
+				matchesOther &= other[i] == data[j];
+			}
+			if (!matchesExpected) {
+				if (matchesOther)
+					return FILETYPE_OTHER_CHECKSUM;
+				crc.update(data, 0, 16); // update crc w/ sig bytes
+				return FILETYPE_NOSIGNATURE;
+			}
 			long crccmp;
 			try {
 				crccmp = Long.valueOf(new String(data, 4, 8, "UTF-8"), 16).longValue(); //$NON-NLS-1$
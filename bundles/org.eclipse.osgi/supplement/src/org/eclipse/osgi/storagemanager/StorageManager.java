@@ -11,6 +11,8 @@
 package org.eclipse.osgi.storagemanager;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import org.eclipse.osgi.framework.internal.reliablefile.*;
 import org.eclipse.osgi.internal.location.LocationHelper;
@@ -77,6 +79,13 @@ import org.eclipse.osgi.internal.messages.Msg;
  * storage manager, all other storage manager instances will still have access to that managed file's 
  * content as it was when the instance was first opened.
  * </p>
+ * <p>
+ * When the system property <code>osgi.storageManager.groupCommit</code> is set to 
+ * <code>true</code>, the managed files written through a managed output stream or a set of 
+ * managed output streams are committed as one batch: the files are added, renamed and 
+ * recorded in the table while holding the lock once, the directory containing them is 
+ * synced once and the table is written once for the whole batch.
+ * </p>
  * @since 3.2
  */
 
@@ -95,6 +104,7 @@ public final class StorageManager {
 	private final boolean tempCleanup = Boolean.valueOf(System.getProperty("osgi.embedded.cleanTempFiles")).booleanValue(); //$NON-NLS-1$
 	private final boolean openCleanup = Boolean.valueOf(System.getProperty("osgi.embedded.cleanupOnOpen")).booleanValue(); //$NON-NLS-1$
 	private final boolean saveCleanup = Boolean.valueOf(System.getProperty("osgi.embedded.cleanupOnSave")).booleanValue(); //$NON-NLS-1$
+	private final boolean groupCommit = Boolean.valueOf(System.getProperty("osgi.storageManager.groupCommit")).booleanValue(); //$NON-NLS-1$
 
 	private class Entry {
 		int readId;
@@ -220,29 +230,37 @@ public final class StorageManager {
 			throw new IOException(Msg.fileManager_cannotLock);
 		try {
 			updateTable();
-			Entry entry = (Entry) table.get(managedFile);
-			if (entry == null) {
-				entry = new Entry(0, 1, fileType);
-				table.put(managedFile, entry);
-				// if this managed file existed before, ensure there is not an old
-				// version on the disk to avoid name collisions. If version found,
-				// us the oldest generation+1 for the write ID.
-				int oldestGeneration = findOldestGeneration(managedFile);
-				if (oldestGeneration != 0)
-					entry.setWriteId(oldestGeneration + 1);
+			if (addEntry(managedFile, fileType))
 				save();
-			} else {
-				if (entry.getFileType() != fileType) {
-					entry.setFileType(fileType);
-					updateTable();
-					save();
-				}
-			}
 		} finally {
 			release();
 		}
 	}
 
+	/*
+	 * Adds or updates the table entry for the given managed file without saving the table.
+	 * Returns true if the table was changed. This method should be called while the manager is locked.
+	 */
+	private boolean addEntry(String managedFile, int fileType) {
+		Entry entry = (Entry) table.get(managedFile);
+		if (entry == null) {
+			entry = new Entry(0, 1, fileType);
+			table.put(managedFile, entry);
+			// if this managed file existed before, ensure there is not an old
+			// version on the disk to avoid name collisions. If version found,
+			// us the oldest generation+1 for the write ID.
+			int oldestGeneration = findOldestGeneration(managedFile);
+			if (oldestGeneration != 0)
+				entry.setWriteId(oldestGeneration + 1);
+			return true;
+		}
+		if (entry.getFileType() != fileType) {
+			entry.setFileType(fileType);
+			return true;
+		}
+		return false;
+	}
+
 	/* (non-Javadoc)
 	 * Find the oldest generation of a file still available on disk 
 	 * @param file the file from which to obtain the oldest generation.
@@ -312,6 +330,57 @@ public final class StorageManager {
 		}
 	}
 
+	/* (non-Javadoc)
+	 * Adds and updates the given managed files as one batch while holding the lock once.
+	 * The renamed files are made durable with a single sync of the base directory before 
+	 * the table is written, so the table only ever refers to complete generations.
+	 */
+	private void commit(String[] managedFiles, String[] sources, int[] fileTypes) throws IOException {
+		if (!open)
+			throw new IOException(Msg.fileManager_notOpen);
+		if (readOnly)
+			throw new IOException(Msg.fileManager_illegalInReadOnlyMode);
+		if (!lock(true))
+			throw new IOException(Msg.fileManager_cannotLock);
+		try {
+			updateTable();
+			for (int i = 0; i < managedFiles.length; i++)
+				addEntry(managedFiles[i], fileTypes[i]);
+			int[] originalReadIDs = new int[managedFiles.length];
+			boolean error = false;
+			for (int i = 0; i < managedFiles.length; i++) {
+				originalReadIDs[i] = getId(managedFiles[i]);
+				if (!update(managedFiles[i], sources[i]))
+					error = true;
+			}
+			if (error) {
+				// restore the original readIDs to avoid inconsistency for this group
+				for (int i = 0; i < managedFiles.length; i++) {
+					Entry entry = (Entry) table.get(managedFiles[i]);
+					entry.setReadId(originalReadIDs[i]);
+				}
+				throw new IOException(Msg.fileManager_updateFailed);
+			}
+			syncDirectory(base);
+			save(); //save only if no errors
+		} finally {
+			release();
+		}
+	}
+
+	private static void syncDirectory(File directory) {
+		// not all platforms allow a directory to be opened; syncing it is best effort
+		try {
+			FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+			try {
+				channel.force(true);
+			} finally {
+				channel.close();
+			}
+		} catch (IOException e) {/*ignore*/
+		}
+	}
+
 	/**
 	 * Returns a list of all the managed files currently being managed.
 	 * 
@@ -882,8 +951,12 @@ public final class StorageManager {
 			smos.setState(ManagedOutputStream.ST_CLOSED);
 			String target = smos.getTarget();
 			if (streamSet == null) {
-				add(target, StorageManager.FILETYPE_RELIABLEFILE);
-				update(new String[] {smos.getTarget()}, new String[] {file.getName()});
+				if (groupCommit) {
+					commit(new String[] {target}, new String[] {file.getName()}, new int[] {StorageManager.FILETYPE_RELIABLEFILE});
+				} else {
+					add(target, StorageManager.FILETYPE_RELIABLEFILE);
+					update(new String[] {smos.getTarget()}, new String[] {file.getName()});
+				}
 				ReliableFile.fileUpdated(new File(getBase(), smos.getTarget()));
 			}
 		} else {
@@ -898,8 +971,12 @@ public final class StorageManager {
 			smos.setState(ManagedOutputStream.ST_CLOSED);
 			String target = smos.getTarget();
 			if (streamSet == null) {
-				add(target, StorageManager.FILETYPE_STANDARD);
-				update(new String[] {target}, new String[] {smos.getOutputFile().getName()});
+				if (groupCommit) {
+					commit(new String[] {target}, new String[] {smos.getOutputFile().getName()}, new int[] {StorageManager.FILETYPE_STANDARD});
+				} else {
+					add(target, StorageManager.FILETYPE_STANDARD);
+					update(new String[] {target}, new String[] {smos.getOutputFile().getName()});
+				}
 			}
 		}
 
@@ -913,23 +990,31 @@ public final class StorageManager {
 				//all streams are closed, we need to update storage manager
 				String[] targets = new String[streamSet.length];
 				String[] sources = new String[streamSet.length];
+				int[] fileTypes = new int[streamSet.length];
 				for (int idx = 0; idx < streamSet.length; idx++) {
 					smos = streamSet[idx];
 					targets[idx] = smos.getTarget();
 					File outputFile = smos.getOutputFile();
 					if (outputFile == null) {
 						// this is a ReliableFile 
-						add(smos.getTarget(), StorageManager.FILETYPE_RELIABLEFILE);
+						fileTypes[idx] = StorageManager.FILETYPE_RELIABLEFILE;
+						if (!groupCommit)
+							add(smos.getTarget(), StorageManager.FILETYPE_RELIABLEFILE);
 						ReliableFileOutputStream rfos = (ReliableFileOutputStream) smos.getOutputStream();
 						File file = rfos.closeIntermediateFile(); //multiple calls to close() ok
 						sources[idx] = file.getName();
 						ReliableFile.fileUpdated(new File(getBase(), smos.getTarget()));
 					} else {
-						add(smos.getTarget(), StorageManager.FILETYPE_STANDARD);
+						fileTypes[idx] = StorageManager.FILETYPE_STANDARD;
+						if (!groupCommit)
+							add(smos.getTarget(), StorageManager.FILETYPE_STANDARD);
 						sources[idx] = outputFile.getName();
 					}
 				}
-				update(targets, sources);
+				if (groupCommit)
+					commit(targets, sources, fileTypes);
+				else
+					update(targets, sources);
 			}
 		}
 	}